@@ -27,6 +27,7 @@ import org.elasticsearch.discovery.zen.elect.ElectMasterService;
 import org.elasticsearch.discovery.zen.ping.ZenPing;
 import org.elasticsearch.discovery.zen.ping.ZenPingService;
 import org.elasticsearch.discovery.zen.ping.unicast.UnicastZenPing;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
@@ -35,7 +36,8 @@ public class CustomDiscovery extends ZenDiscovery {
   @Inject
   public CustomDiscovery(Settings settings, ClusterName clusterName, ThreadPool threadPool, TransportService transportService,
                          ClusterService clusterService, NodeSettingsService nodeSettingsService, ZenPingService pingService,
-                         DiscoveryNodeService discoveryNodeService, Version version, DiscoverySettings discoverySettings, ElectMasterService electMasterService) {
+                         DiscoveryNodeService discoveryNodeService, Version version, DiscoverySettings discoverySettings, ElectMasterService electMasterService,
+                         Environment environment) {
     super(settings, clusterName, threadPool, transportService, clusterService, nodeSettingsService, discoveryNodeService, pingService, electMasterService, discoverySettings);
     org.elasticsearch.common.collect.ImmutableList<? extends ZenPing> zenPings = pingService.zenPings();
     UnicastZenPing unicastZenPing = null;
@@ -49,7 +51,7 @@ public class CustomDiscovery extends ZenDiscovery {
     if (unicastZenPing != null) {
       // update the unicast zen ping to add cloud hosts provider
       // and, while we are at it, use only it and not the multicast for example
-      unicastZenPing.addHostsProvider(new CustomUnicastHostsProvider(settings, transportService, version));
+      unicastZenPing.addHostsProvider(new CustomUnicastHostsProvider(settings, transportService, version, environment));
       pingService.zenPings(org.elasticsearch.common.collect.ImmutableList.of(unicastZenPing));
     } else {
       logger.warn("failed to apply cass unicast discovery, no unicast ping found");
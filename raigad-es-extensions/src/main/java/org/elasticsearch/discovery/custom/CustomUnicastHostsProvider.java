@@ -22,31 +22,83 @@ import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.discovery.zen.ping.unicast.UnicastHostsProvider;
 import org.elasticsearch.discovery.zen.ping.unicast.UnicastZenPing;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.transport.TransportService;
 
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 public class CustomUnicastHostsProvider extends AbstractComponent implements UnicastHostsProvider {
+	private static final String NODES_URL = "http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_nodes";
+	private static final String NODES_FEED_URL = "http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_nodes_feed";
 	private final TransportService transportService;
 	private final Version version;
+	private final RaigadMembershipWatcher membershipWatcher;
+	private final NodeListCache nodeListCache;
+	private final ExecutorService fetchExecutor;
+	private final TimeValue fetchTimeout;
+	private final TimeValue maxStale;
+	private final HostLocality hostLocality;
+	private final DataFetcher nodesFetcher;
+	private Future<List<RaigadInstance>> pendingFetch;
+	// Last get_nodes response, only used by the fetcher thread
+	private DataFetcher.FetchResult fetchedNodesDocument;
+	private List<RaigadInstance> fetchedNodes;
   
   @Inject
-  public CustomUnicastHostsProvider(Settings settings, TransportService transportService, Version version) {
+  public CustomUnicastHostsProvider(Settings settings, TransportService transportService, Version version, Environment environment) {
     super(settings);
     this.transportService = transportService;
     this.version = version;
+    // Membership feed needs a Raigad serving get_nodes_feed, it can be turned off for older ones
+    if (settings.getAsBoolean("discovery.custom.membership_feed.enabled", true))
+      membershipWatcher = new RaigadMembershipWatcher(NODES_FEED_URL, new DataFetcher(settings, logger), settings.getAsInt("discovery.custom.membership_feed.wait_seconds", 30), logger);
+    else
+      membershipWatcher = null;
+    this.nodeListCache = new NodeListCache(new File(settings.get("discovery.custom.node_cache.file", new File(environment.workFile(), "raigad_discovery_nodes.json").getPath())), logger);
+    this.fetchExecutor = Executors.newSingleThreadExecutor(EsExecutors.daemonThreadFactory(settings, "raigad_nodes_fetcher"));
+    // Separate from the feed's fetcher, so that a Raigad without the feed does not put get_nodes in backoff
+    this.nodesFetcher = new DataFetcher(settings, logger);
+    this.fetchTimeout = settings.getAsTime("discovery.custom.fetch_timeout", TimeValue.timeValueSeconds(3));
+    this.maxStale = settings.getAsTime("discovery.custom.node_cache.max_stale", TimeValue.timeValueHours(24));
+    // Zone and DC are written by Raigad to elasticsearch.yml
+    this.hostLocality = new HostLocality(settings.get("discovery.custom.availability_zone"), settings.get("discovery.custom.dc"),
+        settings.getAsInt("discovery.custom.max_hosts", 0));
   }
 
   @Override
   public List<DiscoveryNode> buildDynamicNodes() {
 		List<DiscoveryNode> discoNodes = Lists.newArrayList();
-		try {
-		String strNodes = DataFetcher.fetchData("http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_nodes",logger);
-		List<RaigadInstance> instances = ElasticsearchUtil.getRaigadInstancesFromJsonString(strNodes, logger);
-			for (RaigadInstance instance : instances) {
+		List<RaigadInstance> instances = null;
+		if (membershipWatcher != null) {
+			membershipWatcher.start();
+			instances = membershipWatcher.getInstances();
+			if (instances != null && System.currentTimeMillis() - membershipWatcher.getLastPollTime() > maxStale.millis())
+				instances = null;
+			if (instances != null)
+				nodeListCache.update(membershipWatcher.getDocument(), instances);
+		}
+		// Until the feed was read once, nodes are fetched directly
+		if (instances == null)
+			instances = fetchNodes();
+		if (instances == null) {
+			instances = nodeListCache.getInstances(maxStale.millis());
+			if (instances == null)
+				throw new RuntimeException("Unable to get discovery nodes from Raigad and no node list read within " + maxStale);
+			logger.warn("Raigad unavailable, using last known discovery nodes read at {}", nodeListCache.getUpdateTime());
+		}
+			for (RaigadInstance instance : hostLocality.order(instances)) {
 				try {
 					TransportAddress[] addresses = transportService.addressesFromString(instance.getHostIP());
 					// we only limit to 1 addresses, makes no sense to ping 100 ports
@@ -60,12 +112,40 @@ public class CustomUnicastHostsProvider extends AbstractComponent implements Uni
 					logger.warn("failed to add {}, address {}", e,instance.getId(), instance.getHostIP());
 				}
 			}
-		} catch (Exception e) {
-			logger.error("Caught an exception while trying to add buildDynamicNodes", e);
-			throw new RuntimeException(e);
-		}
     logger.info("using dynamic discovery nodes {}", discoNodes);
+    logger.debug("get_nodes fetcher {}", nodesFetcher.getStats());
 
     return discoNodes;
   }
+
+  /**
+   * Fetches get_nodes in the background, waiting at most fetchTimeout. A fetch that takes longer
+   * still updates the node cache when it completes, and is reused by the next ping.
+   * @return Nodes, null if the fetch failed or did not complete in time
+   */
+  private synchronized List<RaigadInstance> fetchNodes() {
+		if (pendingFetch == null || pendingFetch.isDone()) {
+			pendingFetch = fetchExecutor.submit(new Callable<List<RaigadInstance>>() {
+				@Override
+				public List<RaigadInstance> call() throws Exception {
+					String etag = fetchedNodesDocument == null ? null : fetchedNodesDocument.getETag();
+					DataFetcher.FetchResult result = nodesFetcher.fetchData(NODES_URL, ElasticsearchUtil.NODES_ACCEPT, etag);
+					if (!result.isNotModified()) {
+						fetchedNodes = ElasticsearchUtil.getRaigadInstancesFromJsonString(result.getBody(), logger);
+						fetchedNodesDocument = result;
+					}
+					nodeListCache.update(fetchedNodesDocument.getBody(), fetchedNodes);
+					return fetchedNodes;
+				}
+			});
+		}
+		try {
+			return pendingFetch.get(fetchTimeout.millis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			logger.warn("Fetching discovery nodes from Raigad takes longer than {}", fetchTimeout);
+		} catch (Exception e) {
+			logger.error("Caught an exception while trying to fetch discovery nodes", e);
+		}
+		return null;
+  }
 }
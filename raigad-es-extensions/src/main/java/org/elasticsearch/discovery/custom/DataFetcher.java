@@ -15,56 +15,236 @@
  */
 package org.elasticsearch.discovery.custom;
 
-import org.elasticsearch.common.logging.ESLogger;
 import org.apache.commons.lang.CharEncoding;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 
 import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * HTTP client of the plugin for Raigad. Connections are kept alive between requests (responses are
+ * always read to the end and connections are never disconnected), timeouts are short since discovery
+ * waits on them, and after a failure requests fail fast during a jittered exponential backoff rather
+ * than piling up on an unavailable Raigad. Counters are logged when the backoff starts and ends.
+ */
 public class DataFetcher
 {
+    private final ESLogger logger;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Random random = new Random();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong latencyMillis = new AtomicLong();
+
+    private int consecutiveFailures = 0;
+    private long backoffUntil = 0;
 
-    public static String fetchData(String url,ESLogger logger)
+    public DataFetcher(Settings settings, ESLogger logger)
     {
-        DataInputStream responseStream = null;
+        this(logger,
+             (int) settings.getAsTime("discovery.custom.http.connect_timeout", TimeValue.timeValueMillis(500)).millis(),
+             (int) settings.getAsTime("discovery.custom.http.read_timeout", TimeValue.timeValueSeconds(2)).millis(),
+             settings.getAsTime("discovery.custom.http.backoff.initial", TimeValue.timeValueMillis(250)).millis(),
+             settings.getAsTime("discovery.custom.http.backoff.max", TimeValue.timeValueSeconds(10)).millis());
+    }
+
+    public DataFetcher(ESLogger logger, int connectTimeoutMillis, int readTimeoutMillis, long initialBackoffMillis, long maxBackoffMillis)
+    {
+        this.logger = logger;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public FetchResult fetchData(String url, String accept, String etag)
+    {
+        return fetchData(url, readTimeoutMillis, accept, etag);
+    }
+
+    /**
+     * Conditional GET : with the ETag of a previous response, Raigad answers 304 without a body
+     * when the data did not change. accept, when not null, is sent as the Accept header.
+     * @param readTimeoutMillis Read timeout of this request, long polls need more than the default one
+     */
+    public FetchResult fetchData(String url, int readTimeoutMillis, String accept, String etag)
+    {
+        long remaining = getBackoffRemainingMillis();
+        if (remaining > 0)
+        {
+            rejected.incrementAndGet();
+            throw new RuntimeException("Backing off from " + url + " for " + remaining + " ms after " + getConsecutiveFailures() + " failures");
+        }
+
+        long start = System.currentTimeMillis();
+        requests.incrementAndGet();
         try
         {
-            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-            conn.setConnectTimeout(1000);
-            conn.setReadTimeout(10000);
-            conn.setRequestMethod("GET");
-            if (conn.getResponseCode() != 200)
-                throw new RuntimeException("Unable to get data for URL " + url);
-
-            byte[] b = new byte[2048];
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            responseStream = new DataInputStream((FilterInputStream) conn.getContent());
-            int c = 0;
-            while ((c = responseStream.read(b, 0, b.length)) != -1)
-                bos.write(b, 0, c);
-            String return_ = new String(bos.toByteArray(), CharEncoding.UTF_8);
-            logger.info(String.format("Calling URL API: %s returns: %s", url, return_));
-            conn.disconnect();
-            return return_;
+            FetchResult result = doFetch(url, readTimeoutMillis, accept, etag);
+            onSuccess();
+            return result;
         }
         catch (Exception ex)
         {
+            onFailure(url, ex);
             throw new RuntimeException(ex);
         }
         finally
         {
-            try
-            {
-                if(responseStream != null)
-                    responseStream.close();
-            }
-            catch (Exception e)
-            {
-                logger.warn("Failed to close response stream from priam", e);
-            }
+            latencyMillis.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    private FetchResult doFetch(String url, int readTimeoutMillis, String accept, String etag) throws IOException
+    {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(connectTimeoutMillis);
+        conn.setReadTimeout(readTimeoutMillis);
+        conn.setRequestMethod("GET");
+        if (accept != null)
+            conn.setRequestProperty("Accept", accept);
+        if (etag != null)
+            conn.setRequestProperty("If-None-Match", etag);
+
+        int responseCode;
+        try
+        {
+            responseCode = conn.getResponseCode();
+        }
+        catch (IOException e)
+        {
+            // No usable response, the connection is dropped rather than returned to the keep-alive cache
+            conn.disconnect();
+            throw e;
+        }
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED)
+        {
+            drain(conn.getErrorStream());
+            notModified.incrementAndGet();
+            logger.debug("Calling URL API: {} not modified", url);
+            return new FetchResult(null, etag);
+        }
+        if (responseCode != HttpURLConnection.HTTP_OK)
+        {
+            // Reading the error body lets the connection be reused
+            drain(conn.getErrorStream());
+            throw new IOException("Unable to get data for URL " + url + ", response code " + responseCode);
+        }
+
+        String body = new String(read(conn.getInputStream(), conn.getContentLength()), CharEncoding.UTF_8);
+        logger.debug("Calling URL API: {} returns {} characters", url, body.length());
+        return new FetchResult(body, conn.getHeaderField("ETag"));
+    }
+
+    private byte[] read(InputStream in, int contentLength) throws IOException
+    {
+        try
+        {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(contentLength > 0 ? contentLength : 8192);
+            byte[] b = new byte[8192];
+            int c;
+            while ((c = in.read(b, 0, b.length)) != -1)
+                bos.write(b, 0, c);
+            bytesRead.addAndGet(bos.size());
+            return bos.toByteArray();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private void drain(InputStream in)
+    {
+        if (in == null)
+            return;
+        try
+        {
+            read(in, 0);
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to read error response from Raigad", e);
+        }
+    }
+
+    private synchronized void onSuccess()
+    {
+        if (consecutiveFailures > 0)
+            logger.info("Raigad reachable again after {} failures, {}", consecutiveFailures, getStats());
+        consecutiveFailures = 0;
+        backoffUntil = 0;
+    }
+
+    private synchronized void onFailure(String url, Exception ex)
+    {
+        failures.incrementAndGet();
+        consecutiveFailures++;
+        // Exponential delay with jitter in [delay / 2, delay], so that nodes do not retry in lockstep
+        long delay = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(consecutiveFailures - 1, 20));
+        delay = delay / 2 + (long) (random.nextDouble() * (delay / 2));
+        backoffUntil = System.currentTimeMillis() + delay;
+        logger.warn("Failed to call {} ({} consecutive failures), backing off for {} ms, {}", ex, url, consecutiveFailures, delay, getStats());
+    }
+
+    public synchronized long getBackoffRemainingMillis()
+    {
+        return Math.max(0, backoffUntil - System.currentTimeMillis());
+    }
+
+    public synchronized int getConsecutiveFailures()
+    {
+        return consecutiveFailures;
+    }
+
+    public String getStats()
+    {
+        long count = requests.get();
+        return String.format("requests=%d not_modified=%d failures=%d rejected_in_backoff=%d bytes_read=%d avg_latency_ms=%d",
+                count, notModified.get(), failures.get(), rejected.get(), bytesRead.get(), count == 0 ? 0 : latencyMillis.get() / count);
+    }
+
+    public static class FetchResult
+    {
+        private final String body;
+        private final String etag;
+
+        public FetchResult(String body, String etag)
+        {
+            this.body = body;
+            this.etag = etag;
+        }
+
+        /**
+         * @return Response body, null if not modified
+         */
+        public String getBody()
+        {
+            return body;
+        }
+
+        public String getETag()
+        {
+            return etag;
+        }
+
+        public boolean isNotModified()
+        {
+            return body == null;
         }
     }
 
@@ -16,11 +16,13 @@
 package org.elasticsearch.discovery.custom;
 
 import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class ElasticsearchUtil 
 {
@@ -33,37 +35,164 @@ public class ElasticsearchUtil
     private static final String PUBLIC_IP = "public_ip";
     private static final String DC = "dc";
     private static final String UPDATE_TIME = "update_time";
+    private static final String ASG_NAME = "asg_name";
+    private static final String FIELDS = "fields";
+    private static final String NODES = "nodes";
+    private static final String VERSION = "version";
+    // Older Raigad only serve text/plain (the keyed format)
+    public static final String NODES_ACCEPT = "application/vnd.raigad.nodes.v2+json, text/plain;q=0.5";
     
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Streams a node list in either the keyed format ({"instances":{"instance-0":{...},...}}) or the
+	 * compact one ({"format":2,"fields":[...],"nodes":[[...],...]}), without building an intermediate map
+	 */
 	public static List<RaigadInstance> getRaigadInstancesFromJsonString(String jsonInstances,ESLogger logger)
     {
-		List<RaigadInstance> raigadInstances = new ArrayList<RaigadInstance>();
-		
         try {
-			JsonPath jsonPath = new JsonPath(jsonInstances);
-			Map<String,Object> topLevelInstanceMap = (Map<String, Object>) jsonPath.jsonMap.get(TOP_LEVEL_ELEMENT);
-			for(String instanceKey : topLevelInstanceMap.keySet())
-			{
-				Map<String,Object> instParamMap = (Map<String, Object>) topLevelInstanceMap.get(instanceKey);
-				RaigadInstance raigadInstance = new RaigadInstance();
-				raigadInstance.setApp((String) instParamMap.get(APP_NAME));
-				raigadInstance.setAvailabilityZone((String) instParamMap.get(AVAILABILITY_ZONE));
-				raigadInstance.setDC((String) instParamMap.get(DC));
-				raigadInstance.setHostIP((String) instParamMap.get(PUBLIC_IP));
-				raigadInstance.setHostName((String) instParamMap.get(HOST_NAME));
-				raigadInstance.setId((String) instParamMap.get(ID));
-				raigadInstance.setInstanceId((String) instParamMap.get(INSTANCE_ID));
-				raigadInstance.setUpdatetime((Long) instParamMap.get(UPDATE_TIME));
-				logger.info("EsInstance = ("+raigadInstance.toString()+")");
-				//Add to the list
-				raigadInstances.add(raigadInstance);
-			}
-			
+			return parseNodeList(jsonInstances, logger).getInstances();
 		} catch (IOException e) {
 			logger.error(" Error caught during Json Parsing", e);
 		}
 
-        return raigadInstances;
+        return new ArrayList<RaigadInstance>();
     }
+
+	/**
+	 * Same formats as getRaigadInstancesFromJsonString, along with the version of membership feed documents
+	 * @throws IOException if the document can not be parsed
+	 */
+	public static NodeList parseNodeList(String jsonInstances, ESLogger logger) throws IOException
+	{
+		XContentParser parser = XContentFactory.xContent(XContentType.JSON).createParser(jsonInstances);
+		try {
+			return parseInstances(parser, logger);
+		} finally {
+			parser.close();
+		}
+	}
+
+	private static NodeList parseInstances(XContentParser parser, ESLogger logger) throws IOException
+	{
+		List<RaigadInstance> raigadInstances = new ArrayList<RaigadInstance>();
+		long version = NodeList.NO_VERSION;
+		List<String> fields = null;
+		if (parser.nextToken() != XContentParser.Token.START_OBJECT)
+			throw new IOException("Node list is not a JSON object");
+		while (parser.nextToken() == XContentParser.Token.FIELD_NAME)
+		{
+			String name = parser.currentName();
+			XContentParser.Token token = parser.nextToken();
+			if (TOP_LEVEL_ELEMENT.equals(name) && token == XContentParser.Token.START_OBJECT)
+			{
+				while (parser.nextToken() == XContentParser.Token.FIELD_NAME)
+				{
+					parser.nextToken();
+					RaigadInstance raigadInstance = new RaigadInstance();
+					while (parser.nextToken() == XContentParser.Token.FIELD_NAME)
+					{
+						String field = parser.currentName();
+						parser.nextToken();
+						setField(raigadInstance, field, parser);
+					}
+					raigadInstances.add(raigadInstance);
+				}
+			}
+			else if (FIELDS.equals(name) && token == XContentParser.Token.START_ARRAY)
+			{
+				fields = new ArrayList<String>();
+				while (parser.nextToken() != XContentParser.Token.END_ARRAY)
+					fields.add(parser.text());
+			}
+			else if (NODES.equals(name) && token == XContentParser.Token.START_ARRAY)
+			{
+				if (fields == null)
+					throw new IOException("Node list has nodes before field names");
+				while (parser.nextToken() == XContentParser.Token.START_ARRAY)
+				{
+					RaigadInstance raigadInstance = new RaigadInstance();
+					int i = 0;
+					while (parser.nextToken() != XContentParser.Token.END_ARRAY)
+					{
+						// Values of fields this version does not know about are ignored
+						if (i < fields.size())
+							setField(raigadInstance, fields.get(i), parser);
+						else
+							parser.skipChildren();
+						i++;
+					}
+					raigadInstances.add(raigadInstance);
+				}
+			}
+			else if (VERSION.equals(name) && token == XContentParser.Token.VALUE_NUMBER)
+				version = parser.longValue();
+			else
+				parser.skipChildren();
+		}
+		if (logger.isDebugEnabled())
+		{
+			for (RaigadInstance raigadInstance : raigadInstances)
+				logger.debug("EsInstance = ({})", raigadInstance);
+		}
+		return new NodeList(raigadInstances, version);
+	}
+
+	private static void setField(RaigadInstance raigadInstance, String field, XContentParser parser) throws IOException
+	{
+		XContentParser.Token token = parser.currentToken();
+		if (token == XContentParser.Token.START_OBJECT || token == XContentParser.Token.START_ARRAY)
+		{
+			parser.skipChildren();
+			return;
+		}
+		if (UPDATE_TIME.equals(field))
+		{
+			if (token == XContentParser.Token.VALUE_NUMBER)
+				raigadInstance.setUpdatetime(parser.longValue());
+			return;
+		}
+		String value = parser.textOrNull();
+		if (APP_NAME.equals(field))
+			raigadInstance.setApp(value);
+		else if (AVAILABILITY_ZONE.equals(field))
+			raigadInstance.setAvailabilityZone(value);
+		else if (DC.equals(field))
+			raigadInstance.setDC(value);
+		else if (PUBLIC_IP.equals(field))
+			raigadInstance.setHostIP(value);
+		else if (HOST_NAME.equals(field))
+			raigadInstance.setHostName(value);
+		else if (ID.equals(field))
+			raigadInstance.setId(value);
+		else if (INSTANCE_ID.equals(field))
+			raigadInstance.setInstanceId(value);
+		else if (ASG_NAME.equals(field))
+			raigadInstance.setAsg(value);
+	}
+
+	public static class NodeList
+	{
+		public static final long NO_VERSION = -1;
+		private final List<RaigadInstance> instances;
+		private final long version;
+
+		NodeList(List<RaigadInstance> instances, long version)
+		{
+			this.instances = instances;
+			this.version = version;
+		}
+
+		public List<RaigadInstance> getInstances()
+		{
+			return instances;
+		}
+
+		/**
+		 * @return Version of a membership feed document, NO_VERSION for get_nodes documents
+		 */
+		public long getVersion()
+		{
+			return version;
+		}
+	}
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.discovery.custom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders discovery hosts so that pings go first to master eligible nodes, then to nodes in the same
+ * availability zone, then in the same DC, and caps the number of hosts pinged per round.
+ * Master eligible nodes are never left out by the cap, otherwise an election may never see a quorum.
+ */
+public class HostLocality
+{
+    private static final int SAME_ZONE = 0;
+    private static final int SAME_DC = 1;
+    private static final int REMOTE = 2;
+
+    private final String availabilityZone;
+    private final String dc;
+    private final int maxHosts;
+
+    /**
+     * @param maxHosts Maximum number of hosts returned by order, 0 for no limit. Raised to the number of
+     *                 master eligible nodes, which are always returned.
+     */
+    public HostLocality(String availabilityZone, String dc, int maxHosts)
+    {
+        this.availabilityZone = availabilityZone;
+        this.dc = dc;
+        this.maxHosts = maxHosts;
+    }
+
+    public List<RaigadInstance> order(List<RaigadInstance> instances)
+    {
+        final boolean dedicatedMasters = hasDedicatedMasters(instances);
+        List<RaigadInstance> ordered = new ArrayList<RaigadInstance>(instances);
+        Collections.sort(ordered, new Comparator<RaigadInstance>()
+        {
+            @Override
+            public int compare(RaigadInstance i1, RaigadInstance i2)
+            {
+                int cmp = compare(isMasterEligible(i1, dedicatedMasters) ? 0 : 1, isMasterEligible(i2, dedicatedMasters) ? 0 : 1);
+                if (cmp == 0)
+                    cmp = compare(getDistance(i1), getDistance(i2));
+                if (cmp == 0 && i1.getId() != null && i2.getId() != null)
+                    cmp = i1.getId().compareTo(i2.getId());
+                return cmp;
+            }
+
+            private int compare(int x, int y)
+            {
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+        });
+        // Without dedicated masters every node may be master eligible, hence none can be left out
+        if (maxHosts <= 0 || !dedicatedMasters)
+            return ordered;
+
+        int masters = 0;
+        for (RaigadInstance instance : ordered)
+        {
+            if (isMasterEligible(instance, true))
+                masters++;
+        }
+        int limit = Math.max(maxHosts, masters);
+        if (ordered.size() > limit)
+            return new ArrayList<RaigadInstance>(ordered.subList(0, limit));
+        return ordered;
+    }
+
+    int getDistance(RaigadInstance instance)
+    {
+        if (availabilityZone != null && availabilityZone.equals(instance.getAvailabilityZone()))
+            return SAME_ZONE;
+        if (dc != null && dc.equals(instance.getDC()))
+            return SAME_DC;
+        return REMOTE;
+    }
+
+    /**
+     * Same rule as Raigad for dedicated deployments : master nodes run in ASGs named after them
+     */
+    static boolean isInMasterAsg(RaigadInstance instance)
+    {
+        return instance.getAsg() != null && instance.getAsg().toLowerCase().contains("master");
+    }
+
+    static boolean hasDedicatedMasters(List<RaigadInstance> instances)
+    {
+        for (RaigadInstance instance : instances)
+        {
+            if (isInMasterAsg(instance))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param dedicatedMasters false when no node runs in a master ASG, in which case every node may be master eligible
+     */
+    static boolean isMasterEligible(RaigadInstance instance, boolean dedicatedMasters)
+    {
+        return !dedicatedMasters || isInMasterAsg(instance);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.discovery.custom;
+
+import org.apache.commons.lang.CharEncoding;
+import org.elasticsearch.common.logging.ESLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Last node list successfully read from Raigad, kept in memory and persisted to a local file
+ * (as the get_nodes document), so that discovery still has hosts while Raigad is slow or down,
+ * including right after a restart of Elasticsearch.
+ */
+public class NodeListCache
+{
+    private final File file;
+    private final ESLogger logger;
+    private volatile List<RaigadInstance> instances;
+    private volatile long updateTime;
+    private String persistedDocument;
+
+    public NodeListCache(File file, ESLogger logger)
+    {
+        this.file = file;
+        this.logger = logger;
+        load();
+    }
+
+    /**
+     * Records a node list read from Raigad, the file is rewritten only when the document changed.
+     * Its modification time is the time of the last read either way, it is the age of the cache after a restart.
+     */
+    public void update(String document, List<RaigadInstance> nodes)
+    {
+        instances = Collections.unmodifiableList(nodes);
+        updateTime = System.currentTimeMillis();
+        persist(document, updateTime);
+    }
+
+    /**
+     * @return Last known node list if read within maxStaleMillis, null otherwise
+     */
+    public List<RaigadInstance> getInstances(long maxStaleMillis)
+    {
+        List<RaigadInstance> lastInstances = instances;
+        if (lastInstances == null || System.currentTimeMillis() - updateTime > maxStaleMillis)
+            return null;
+        return lastInstances;
+    }
+
+    public long getUpdateTime()
+    {
+        return updateTime;
+    }
+
+    private synchronized void persist(String document, long readTime)
+    {
+        if (document == null)
+            return;
+        if (document.equals(persistedDocument)) {
+            if (!file.setLastModified(readTime))
+                logger.debug("Unable to update the modification time of {}", file);
+            return;
+        }
+        File tmpFile = new File(file.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            if (file.getParentFile() != null)
+                file.getParentFile().mkdirs();
+            out = new FileOutputStream(tmpFile);
+            out.write(document.getBytes(CharEncoding.UTF_8));
+            out.close();
+            out = null;
+            // Readers of the file never see a partially written document
+            if (!tmpFile.renameTo(file))
+                throw new IOException("Unable to rename " + tmpFile + " to " + file);
+            persistedDocument = document;
+        }
+        catch (IOException e)
+        {
+            logger.warn("Unable to persist discovery nodes to {}", e, file);
+        }
+        finally {
+            close(out);
+        }
+    }
+
+    private void load()
+    {
+        if (!file.exists())
+            return;
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] b = new byte[2048];
+            int c;
+            while ((c = in.read(b, 0, b.length)) != -1)
+                bos.write(b, 0, c);
+            String document = new String(bos.toByteArray(), CharEncoding.UTF_8);
+            instances = Collections.unmodifiableList(ElasticsearchUtil.getRaigadInstancesFromJsonString(document, logger));
+            updateTime = file.lastModified();
+            persistedDocument = document;
+            logger.info("Loaded {} discovery nodes persisted at {} from {}", instances.size(), updateTime, file);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to load discovery nodes from {}", e, file);
+        }
+        finally {
+            close(in);
+        }
+    }
+
+    private void close(Closeable closeable)
+    {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to close {}", e, file);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.discovery.custom;
+
+import org.elasticsearch.common.logging.ESLogger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the node list of Raigad's membership feed in memory. A daemon thread long-polls
+ * get_nodes_feed with the last known version, the request returns as soon as the membership
+ * changes (or after waitSeconds), so discovery pings read the local list without HTTP calls.
+ */
+public class RaigadMembershipWatcher implements Runnable
+{
+    private static final long MIN_RETRY_DELAY_MILLIS = 1000;
+    private final String feedUrl;
+    private final DataFetcher fetcher;
+    private final int waitSeconds;
+    private final ESLogger logger;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean stopped = false;
+    private volatile long version = -1;
+    private volatile List<RaigadInstance> instances;
+    private volatile String document;
+    private volatile long lastPollTime;
+
+    public RaigadMembershipWatcher(String feedUrl, DataFetcher fetcher, int waitSeconds, ESLogger logger)
+    {
+        this.feedUrl = feedUrl;
+        this.fetcher = fetcher;
+        this.waitSeconds = waitSeconds;
+        this.logger = logger;
+    }
+
+    public void start()
+    {
+        if (!started.compareAndSet(false, true))
+            return;
+        Thread thread = new Thread(this, "raigad_membership_watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * @return Latest node list, null until the feed was read once
+     */
+    public List<RaigadInstance> getInstances()
+    {
+        return instances;
+    }
+
+    /**
+     * @return Feed document the node list was read from
+     */
+    public String getDocument()
+    {
+        return document;
+    }
+
+    /**
+     * @return Time of the last successful read of the feed
+     */
+    public long getLastPollTime()
+    {
+        return lastPollTime;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    @Override
+    public void run()
+    {
+        while (!stopped)
+        {
+            try {
+                poll();
+            }
+            catch (Exception e)
+            {
+                // The fetcher backs off after failures, retries wait for the end of its backoff
+                long retryDelay = Math.max(MIN_RETRY_DELAY_MILLIS, fetcher.getBackoffRemainingMillis());
+                // Failed requests are already logged by the fetcher
+                if (fetcher.getConsecutiveFailures() == 0)
+                    logger.warn("Unable to read membership feed {}, retrying in {} ms", e, feedUrl, retryDelay);
+                try {
+                    Thread.sleep(retryDelay);
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void poll() throws Exception
+    {
+        // Read timeout leaves room for the server side wait
+        String json = fetcher.fetchData(feedUrl + "?version=" + version + "&timeout_seconds=" + waitSeconds, (waitSeconds + 5) * 1000,
+                ElasticsearchUtil.NODES_ACCEPT, null).getBody();
+        ElasticsearchUtil.NodeList nodeList = ElasticsearchUtil.parseNodeList(json, logger);
+        if (nodeList.getVersion() == ElasticsearchUtil.NodeList.NO_VERSION)
+            throw new IOException("Membership feed document has no version");
+        long feedVersion = nodeList.getVersion();
+        lastPollTime = System.currentTimeMillis();
+        if (feedVersion == version)
+            return;
+
+        document = json;
+        instances = Collections.unmodifiableList(nodeList.getInstances());
+        version = feedVersion;
+        logger.info("Membership feed moved to version {} with {} nodes", feedVersion, instances.size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.elasticsearch.discovery.custom;
+
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Documents below are what Raigad (EsUtils) serves : the keyed one is a json-simple JSONObject, so its
+ * keys come in any order and missing values are null; the compact one lists the field names before the nodes.
+ */
+public class TestElasticsearchUtil {
+    private static final String KEYED = "{\"instances\":{" +
+            "\"instance-0\":{\"asg_name\":\"es_test-useast1a\",\"dc\":\"us-east-1\",\"app_name\":\"es_test\",\"public_ip\":\"10.0.0.1\"," +
+            "\"availability_zone\":\"us-east-1a\",\"update_time\":1418255470000,\"instance_id\":\"i-1\",\"id\":\"es_test_us-east-1_i-1\",\"host_name\":\"host-1\"}," +
+            "\"instance-1\":{\"host_name\":\"host-2\",\"id\":\"es_test_us-east-1_i-2\",\"app_name\":\"es_test\",\"instance_id\":\"i-2\"," +
+            "\"availability_zone\":\"us-east-1c\",\"public_ip\":\"10.0.0.2\",\"dc\":\"us-east-1\",\"update_time\":1418255480000,\"asg_name\":null}}}";
+    private static final String FIELDS = "\"fields\":[\"id\",\"host_name\",\"app_name\",\"instance_id\",\"availability_zone\",\"public_ip\",\"dc\",\"update_time\",\"asg_name\"]";
+    private static final String NODES = "\"nodes\":[" +
+            "[\"es_test_us-east-1_i-1\",\"host-1\",\"es_test\",\"i-1\",\"us-east-1a\",\"10.0.0.1\",\"us-east-1\",1418255470000,\"es_test-useast1a\"]," +
+            "[\"es_test_us-east-1_i-2\",\"host-2\",\"es_test\",\"i-2\",\"us-east-1c\",\"10.0.0.2\",\"us-east-1\",1418255480000,null]]";
+    private static final String COMPACT = "{\"format\":2," + FIELDS + "," + NODES + "}";
+
+    private final ESLogger logger = ESLoggerFactory.getLogger(TestElasticsearchUtil.class.getName());
+
+    @Test
+    public void testKeyedFormat() throws Exception {
+        ElasticsearchUtil.NodeList nodeList = ElasticsearchUtil.parseNodeList(KEYED, logger);
+        assertInstances(nodeList.getInstances());
+        assertEquals(ElasticsearchUtil.NodeList.NO_VERSION, nodeList.getVersion());
+    }
+
+    @Test
+    public void testCompactFormat() throws Exception {
+        ElasticsearchUtil.NodeList nodeList = ElasticsearchUtil.parseNodeList(COMPACT, logger);
+        assertInstances(nodeList.getInstances());
+        assertEquals(ElasticsearchUtil.NodeList.NO_VERSION, nodeList.getVersion());
+    }
+
+    @Test
+    public void testFeedVersion() throws Exception {
+        // The membership feed appends the version after either format
+        String compactFeed = COMPACT.substring(0, COMPACT.length() - 1) + ",\"version\":42}";
+        ElasticsearchUtil.NodeList nodeList = ElasticsearchUtil.parseNodeList(compactFeed, logger);
+        assertInstances(nodeList.getInstances());
+        assertEquals(42, nodeList.getVersion());
+
+        String keyedFeed = "{\"version\":7," + KEYED.substring(1);
+        nodeList = ElasticsearchUtil.parseNodeList(keyedFeed, logger);
+        assertInstances(nodeList.getInstances());
+        assertEquals(7, nodeList.getVersion());
+    }
+
+    @Test
+    public void testExtraValueColumnsAreIgnored() throws Exception {
+        // A newer Raigad may send more values than this version has field names for
+        String extraColumns = "{\"fields\":[\"id\",\"public_ip\"],\"nodes\":[[\"es_test_us-east-1_i-1\",\"10.0.0.1\",\"es_data\",{\"rack\":\"r1\"},[1,2]]]}";
+        List<RaigadInstance> instances = ElasticsearchUtil.parseNodeList(extraColumns, logger).getInstances();
+        assertEquals(1, instances.size());
+        assertEquals("es_test_us-east-1_i-1", instances.get(0).getId());
+        assertEquals("10.0.0.1", instances.get(0).getHostIP());
+    }
+
+    @Test
+    public void testNestedValuesAreSkipped() throws Exception {
+        String nestedKeyed = "{\"instances\":{\"instance-0\":{\"tags\":{\"rack\":\"r1\",\"zones\":[\"a\",\"b\"]},\"public_ip\":\"10.0.0.1\",\"dc\":[\"us-east-1\"]}}," +
+                "\"meta\":{\"instances\":{\"instance-9\":{}}},\"format\":2}";
+        List<RaigadInstance> instances = ElasticsearchUtil.parseNodeList(nestedKeyed, logger).getInstances();
+        assertEquals(1, instances.size());
+        assertEquals("10.0.0.1", instances.get(0).getHostIP());
+        assertNull(instances.get(0).getDC());
+
+        String nestedCompact = "{\"fields\":[\"tags\",\"public_ip\",\"update_time\"],\"nodes\":[[{\"rack\":\"r1\"},\"10.0.0.1\",[1]]]}";
+        instances = ElasticsearchUtil.parseNodeList(nestedCompact, logger).getInstances();
+        assertEquals(1, instances.size());
+        assertEquals("10.0.0.1", instances.get(0).getHostIP());
+        assertEquals(0, instances.get(0).getUpdatetime());
+    }
+
+    @Test
+    public void testFieldsBeforeNodes() throws Exception {
+        // Unknown top level fields may come between the field names and the nodes
+        String fieldsFirst = "{" + FIELDS + ",\"format\":2,\"extra\":{\"nodes\":[]}," + NODES + "}";
+        assertInstances(ElasticsearchUtil.parseNodeList(fieldsFirst, logger).getInstances());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNodesBeforeFields() throws Exception {
+        ElasticsearchUtil.parseNodeList("{\"format\":2," + NODES + "," + FIELDS + "}", logger);
+    }
+
+    @Test
+    public void testUnparseableDocumentGivesNoInstances() {
+        assertEquals(0, ElasticsearchUtil.getRaigadInstancesFromJsonString("[]", logger).size());
+    }
+
+    private static void assertInstances(List<RaigadInstance> instances) {
+        assertEquals(2, instances.size());
+        RaigadInstance first = instances.get(0);
+        assertEquals("es_test_us-east-1_i-1", first.getId());
+        assertEquals("host-1", first.getHostName());
+        assertEquals("es_test", first.getApp());
+        assertEquals("i-1", first.getInstanceId());
+        assertEquals("us-east-1a", first.getAvailabilityZone());
+        assertEquals("10.0.0.1", first.getHostIP());
+        assertEquals("us-east-1", first.getDC());
+        assertEquals(1418255470000L, first.getUpdatetime());
+        assertEquals("es_test-useast1a", first.getAsg());
+
+        RaigadInstance second = instances.get(1);
+        assertEquals("es_test_us-east-1_i-2", second.getId());
+        assertEquals("10.0.0.2", second.getHostIP());
+        assertEquals(1418255480000L, second.getUpdatetime());
+        assertNull(second.getAsg());
+    }
+}
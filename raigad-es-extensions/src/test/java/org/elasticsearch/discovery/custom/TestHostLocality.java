@@ -0,0 +1,73 @@
+package org.elasticsearch.discovery.custom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestHostLocality {
+
+    @Test
+    public void testOrderByLocality() {
+        HostLocality hostLocality = new HostLocality("us-east-1a", "us-east-1", 0);
+        List<RaigadInstance> ordered = hostLocality.order(Arrays.asList(
+                instance("remote", "eu-west-1a", "eu-west-1", "es_data"),
+                instance("dc", "us-east-1c", "us-east-1", "es_data"),
+                instance("zone", "us-east-1a", "us-east-1", "es_data")));
+        assertEquals(Arrays.asList("zone", "dc", "remote"), ids(ordered));
+    }
+
+    @Test
+    public void testDedicatedMastersFirstAndNeverCapped() {
+        HostLocality hostLocality = new HostLocality("us-east-1a", "us-east-1", 2);
+        List<RaigadInstance> ordered = hostLocality.order(Arrays.asList(
+                instance("data_zone", "us-east-1a", "us-east-1", "es_data"),
+                instance("master_remote", "us-east-1c", "us-east-1", "es_master"),
+                instance("data_dc", "us-east-1c", "us-east-1", "es_data"),
+                instance("master_zone_2", "us-east-1a", "us-east-1", "es_master"),
+                instance("master_zone_1", "us-east-1a", "us-east-1", "es_master")));
+        // Cap of 2 is raised to the 3 masters, data nodes are left out
+        assertEquals(Arrays.asList("master_zone_1", "master_zone_2", "master_remote"), ids(ordered));
+    }
+
+    @Test
+    public void testCapFillsWithClosestDataNodes() {
+        HostLocality hostLocality = new HostLocality("us-east-1a", "us-east-1", 3);
+        List<RaigadInstance> ordered = hostLocality.order(Arrays.asList(
+                instance("data_dc", "us-east-1c", "us-east-1", "es_data"),
+                instance("master", "us-east-1c", "us-east-1", "es_master"),
+                instance("data_remote", "eu-west-1a", "eu-west-1", "es_data"),
+                instance("data_zone", "us-east-1a", "us-east-1", "es_data")));
+        assertEquals(Arrays.asList("master", "data_zone", "data_dc"), ids(ordered));
+    }
+
+    @Test
+    public void testNoCapWithoutDedicatedMasters() {
+        HostLocality hostLocality = new HostLocality("us-east-1a", "us-east-1", 1);
+        List<RaigadInstance> ordered = hostLocality.order(Arrays.asList(
+                instance("dc", "us-east-1c", "us-east-1", "es_cluster"),
+                instance("zone", "us-east-1a", "us-east-1", "es_cluster"),
+                instance("remote", "eu-west-1a", "eu-west-1", "es_cluster")));
+        // Every node may be master eligible, hence all of them are kept
+        assertEquals(Arrays.asList("zone", "dc", "remote"), ids(ordered));
+    }
+
+    private static RaigadInstance instance(String id, String availabilityZone, String dc, String asg) {
+        RaigadInstance instance = new RaigadInstance();
+        instance.setId(id);
+        instance.setAvailabilityZone(availabilityZone);
+        instance.setDC(dc);
+        instance.setAsg(asg);
+        return instance;
+    }
+
+    private static List<String> ids(List<RaigadInstance> instances) {
+        List<String> ids = new ArrayList<String>();
+        for (RaigadInstance instance : instances)
+            ids.add(instance.getId());
+        return ids;
+    }
+}
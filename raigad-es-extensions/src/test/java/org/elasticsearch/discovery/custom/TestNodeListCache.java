@@ -0,0 +1,55 @@
+package org.elasticsearch.discovery.custom;
+
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestNodeListCache {
+    private static final String DOCUMENT = "{\"instances\":{\"instance-0\":{\"host_name\":\"host-1\",\"public_ip\":\"10.0.0.1\",\"update_time\":1}}}";
+    private static final long MAX_STALE_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private final ESLogger logger = ESLoggerFactory.getLogger(TestNodeListCache.class.getName());
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("raigad_discovery_nodes", ".json");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testUnchangedDocumentReadAgainIsNotStaleAfterRestart() {
+        NodeListCache cache = new NodeListCache(file, logger);
+        cache.update(DOCUMENT, ElasticsearchUtil.getRaigadInstancesFromJsonString(DOCUMENT, logger));
+        // Membership has not changed for longer than max_stale
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 2 * MAX_STALE_MILLIS));
+        assertNull(new NodeListCache(file, logger).getInstances(MAX_STALE_MILLIS));
+
+        // Raigad answered again with the same document just before the restart
+        cache.update(DOCUMENT, ElasticsearchUtil.getRaigadInstancesFromJsonString(DOCUMENT, logger));
+
+        List<RaigadInstance> instances = new NodeListCache(file, logger).getInstances(MAX_STALE_MILLIS);
+        assertNotNull(instances);
+        assertEquals("10.0.0.1", instances.get(0).getHostIP());
+    }
+
+    @Test
+    public void testMissingFile() {
+        assertNull(new NodeListCache(file, logger).getInstances(MAX_STALE_MILLIS));
+    }
+}
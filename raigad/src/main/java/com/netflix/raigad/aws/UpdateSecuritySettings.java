@@ -19,7 +19,7 @@ import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.identity.IRaigadInstanceFactory;
+import com.netflix.raigad.identity.MembershipCache;
 import com.netflix.raigad.identity.RaigadInstance;
 import com.netflix.raigad.identity.IMembership;
 import com.netflix.raigad.identity.InstanceManager;
@@ -58,15 +58,15 @@ public class UpdateSecuritySettings extends Task
 
     private static final Random ran = new Random();
     private final IMembership membership;
-    private final IRaigadInstanceFactory factory;
+    private final MembershipCache membershipCache;
 
 
     @Inject
-    public UpdateSecuritySettings(IConfiguration config, IMembership membership, IRaigadInstanceFactory factory)
+    public UpdateSecuritySettings(IConfiguration config, IMembership membership, MembershipCache membershipCache)
     {
         super(config);
         this.membership = membership;
-        this.factory = factory;
+        this.membershipCache = membershipCache;
     }
 
     /**
@@ -127,11 +127,11 @@ public class UpdateSecuritySettings extends Task
             assert (tribeClusters.size() != 0) : "I am a source cluster but I need One or more tribe clusters";
 
             for(String tribeClusterName : tribeClusters)
-                 _instances.addAll(factory.getAllIds(tribeClusterName));
+                 _instances.addAll(membershipCache.getInstances(tribeClusterName));
         }
 
         //Adding Current cluster
-        _instances.addAll(factory.getAllIds(config.getAppName()));
+        _instances.addAll(membershipCache.getInstances(config.getAppName()));
 
         if(config.isDebugEnabled())
         {
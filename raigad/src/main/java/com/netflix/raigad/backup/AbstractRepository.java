@@ -57,6 +57,8 @@ public abstract class AbstractRepository
 
     public abstract void createRestoreRepository(String s3RepoName, String basePathSuffix) throws Exception;
 
+    public abstract RepositoryType getRepositoryType();
+
     public boolean  doesRepositoryExists(String repositoryName,RepositoryType repositoryType)
     {
         boolean doesRepoExists = false;
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+/**
+ * Decides Snapshot concurrency from serving load :
+ * halved (down to min) as soon as search latency or disk queue crosses its limit,
+ * increased one by one (up to max) while both are comfortably (20%) below their limits.
+ */
+public class AdaptiveSnapshotThrottle
+{
+    private static final double HEADROOM_FACTOR = 0.8;
+    private final int minThreads;
+    private final int maxThreads;
+    private final long targetSearchLatencyMs;
+    private final double maxDiskQueue;
+
+    public AdaptiveSnapshotThrottle(int minThreads, int maxThreads, long targetSearchLatencyMs, double maxDiskQueue)
+    {
+        this.minThreads = Math.max(1, minThreads);
+        this.maxThreads = Math.max(this.minThreads, maxThreads);
+        this.targetSearchLatencyMs = targetSearchLatencyMs;
+        this.maxDiskQueue = maxDiskQueue;
+    }
+
+    public int nextThreads(int currentThreads, long searchLatencyMs, double diskQueue)
+    {
+        if (searchLatencyMs > targetSearchLatencyMs || diskQueue > maxDiskQueue)
+            return Math.max(minThreads, currentThreads / 2);
+
+        if (searchLatencyMs <= targetSearchLatencyMs * HEADROOM_FACTOR && diskQueue <= maxDiskQueue * HEADROOM_FACTOR)
+            return Math.min(maxThreads, currentThreads + 1);
+
+        return Math.min(maxThreads, Math.max(minThreads, currentThreads));
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+}
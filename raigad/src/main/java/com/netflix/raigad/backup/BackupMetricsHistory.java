@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.json.simple.JSONArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Metrics of the latest config.getBackupMetricsHistorySize() Snapshots and Restores, newest first.
+ * Metrics of the latest Snapshot and Restore are published as gauges.
+ */
+@Singleton
+public class BackupMetricsHistory
+{
+    private static final Logger logger = LoggerFactory.getLogger(BackupMetricsHistory.class);
+    private final IConfiguration config;
+    private final LinkedList<BackupOperationMetrics> history = new LinkedList<BackupOperationMetrics>();
+    private final Elasticsearch_BackupMetricsReporter backupMetricsReporter;
+
+    @Inject
+    public BackupMetricsHistory(IConfiguration config)
+    {
+        this.config = config;
+        backupMetricsReporter = new Elasticsearch_BackupMetricsReporter();
+        Monitors.registerObject(backupMetricsReporter);
+    }
+
+    public void record(BackupOperationMetrics metrics)
+    {
+        logger.info(metrics.toString());
+        synchronized (history) {
+            history.addFirst(metrics);
+            while (history.size() > Math.max(1, config.getBackupMetricsHistorySize()))
+                history.removeLast();
+        }
+        backupMetricsReporter.record(metrics);
+    }
+
+    /**
+     * @param operation null for Snapshots and Restores
+     * @param limit Maximum number of metrics returned, 0 or less for all
+     * @return Metrics newest first
+     */
+    public List<BackupOperationMetrics> getHistory(BackupOperationMetrics.Operation operation, int limit)
+    {
+        List<BackupOperationMetrics> metrics = new ArrayList<BackupOperationMetrics>();
+        synchronized (history) {
+            Iterator<BackupOperationMetrics> iterator = history.iterator();
+            while (iterator.hasNext() && (limit <= 0 || metrics.size() < limit))
+            {
+                BackupOperationMetrics entry = iterator.next();
+                if (operation == null || entry.getOperation() == operation)
+                    metrics.add(entry);
+            }
+        }
+        return metrics;
+    }
+
+    public JSONArray toJson(BackupOperationMetrics.Operation operation, int limit)
+    {
+        JSONArray jsonArray = new JSONArray();
+        for (BackupOperationMetrics metrics : getHistory(operation, limit))
+            jsonArray.add(metrics.toJson());
+        return jsonArray;
+    }
+
+    public class Elasticsearch_BackupMetricsReporter
+    {
+        private final AtomicReference<BackupOperationMetrics> lastSnapshot = new AtomicReference<BackupOperationMetrics>();
+        private final AtomicReference<BackupOperationMetrics> lastRestore = new AtomicReference<BackupOperationMetrics>();
+        private final AtomicInteger snapshotShardFailures = new AtomicInteger(0);
+        private final AtomicInteger restoreShardFailures = new AtomicInteger(0);
+
+        private void record(BackupOperationMetrics metrics)
+        {
+            if (metrics.getOperation() == BackupOperationMetrics.Operation.SNAPSHOT) {
+                lastSnapshot.set(metrics);
+                snapshotShardFailures.addAndGet(metrics.getFailedShards());
+            }
+            else {
+                lastRestore.set(metrics);
+                restoreShardFailures.addAndGet(metrics.getFailedShards());
+            }
+        }
+
+        @Monitor(name="last_snapshot_duration_seconds", type=DataSourceType.GAUGE)
+        public long getLastSnapshotDurationSeconds() {
+            BackupOperationMetrics metrics = lastSnapshot.get();
+            return metrics == null ? 0 : metrics.getDurationMillis() / 1000;
+        }
+
+        @Monitor(name="last_snapshot_bytes", type=DataSourceType.GAUGE)
+        public long getLastSnapshotBytes() {
+            BackupOperationMetrics metrics = lastSnapshot.get();
+            return metrics == null ? 0 : metrics.getTotalBytes();
+        }
+
+        @Monitor(name="last_snapshot_files", type=DataSourceType.GAUGE)
+        public int getLastSnapshotFiles() {
+            BackupOperationMetrics metrics = lastSnapshot.get();
+            return metrics == null ? 0 : metrics.getTotalFiles();
+        }
+
+        @Monitor(name="last_snapshot_failed_shards", type=DataSourceType.GAUGE)
+        public int getLastSnapshotFailedShards() {
+            BackupOperationMetrics metrics = lastSnapshot.get();
+            return metrics == null ? 0 : metrics.getFailedShards();
+        }
+
+        @Monitor(name="last_snapshot_bytes_per_second", type=DataSourceType.GAUGE)
+        public long getLastSnapshotBytesPerSecond() {
+            BackupOperationMetrics metrics = lastSnapshot.get();
+            return metrics == null ? 0 : metrics.getBytesPerSecond();
+        }
+
+        @Monitor(name="snapshot_shard_failures", type=DataSourceType.COUNTER)
+        public int getSnapshotShardFailures() {
+            return snapshotShardFailures.get();
+        }
+
+        @Monitor(name="last_restore_duration_seconds", type=DataSourceType.GAUGE)
+        public long getLastRestoreDurationSeconds() {
+            BackupOperationMetrics metrics = lastRestore.get();
+            return metrics == null ? 0 : metrics.getDurationMillis() / 1000;
+        }
+
+        @Monitor(name="last_restore_bytes", type=DataSourceType.GAUGE)
+        public long getLastRestoreBytes() {
+            BackupOperationMetrics metrics = lastRestore.get();
+            return metrics == null ? 0 : metrics.getTotalBytes();
+        }
+
+        @Monitor(name="last_restore_files", type=DataSourceType.GAUGE)
+        public int getLastRestoreFiles() {
+            BackupOperationMetrics metrics = lastRestore.get();
+            return metrics == null ? 0 : metrics.getTotalFiles();
+        }
+
+        @Monitor(name="last_restore_failed_shards", type=DataSourceType.GAUGE)
+        public int getLastRestoreFailedShards() {
+            BackupOperationMetrics metrics = lastRestore.get();
+            return metrics == null ? 0 : metrics.getFailedShards();
+        }
+
+        @Monitor(name="last_restore_bytes_per_second", type=DataSourceType.GAUGE)
+        public long getLastRestoreBytesPerSecond() {
+            BackupOperationMetrics metrics = lastRestore.get();
+            return metrics == null ? 0 : metrics.getBytesPerSecond();
+        }
+
+        @Monitor(name="restore_shard_failures", type=DataSourceType.COUNTER)
+        public int getRestoreShardFailures() {
+            return restoreShardFailures.get();
+        }
+    }
+}
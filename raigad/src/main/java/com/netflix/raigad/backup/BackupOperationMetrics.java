@@ -0,0 +1,203 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStats;
+import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
+import org.elasticsearch.action.admin.indices.recovery.ShardRecoveryResponse;
+import org.elasticsearch.indices.recovery.RecoveryState;
+import org.elasticsearch.snapshots.RestoreInfo;
+import org.elasticsearch.snapshots.SnapshotInfo;
+import org.elasticsearch.snapshots.SnapshotShardFailure;
+import org.json.simple.JSONObject;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Metrics of a completed Snapshot or Restore, kept in BackupMetricsHistory
+ */
+public class BackupOperationMetrics
+{
+    public enum Operation {
+        SNAPSHOT, RESTORE
+    }
+
+    private final Operation operation;
+    private final String repositoryName;
+    private final String snapshotName;
+    private final long startTime;
+    private final long endTime;
+    private final int totalShards;
+    private final int failedShards;
+    private final long totalBytes;
+    private final int totalFiles;
+    private final Map<String, Integer> shardFailuresByReason;
+
+    public BackupOperationMetrics(Operation operation, String repositoryName, String snapshotName, long startTime, long endTime,
+                                  int totalShards, int failedShards, long totalBytes, int totalFiles, Map<String, Integer> shardFailuresByReason)
+    {
+        this.operation = operation;
+        this.repositoryName = repositoryName;
+        this.snapshotName = snapshotName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.totalShards = totalShards;
+        this.failedShards = failedShards;
+        this.totalBytes = totalBytes;
+        this.totalFiles = totalFiles;
+        this.shardFailuresByReason = shardFailuresByReason;
+    }
+
+    /**
+     * @param snapshotStats Sizes of the Snapshot, null if not available
+     */
+    public static BackupOperationMetrics fromSnapshot(String repositoryName, SnapshotInfo snapshotInfo, SnapshotStats snapshotStats)
+    {
+        Map<String, Integer> shardFailuresByReason = new TreeMap<String, Integer>();
+        for (SnapshotShardFailure shardFailure : snapshotInfo.shardFailures())
+        {
+            String reason = getReasonType(shardFailure.reason());
+            Integer count = shardFailuresByReason.get(reason);
+            shardFailuresByReason.put(reason, count == null ? 1 : count + 1);
+        }
+        return new BackupOperationMetrics(Operation.SNAPSHOT, repositoryName, snapshotInfo.name(), snapshotInfo.startTime(), snapshotInfo.endTime(),
+                snapshotInfo.totalShards(), snapshotInfo.failedShards(),
+                snapshotStats != null ? snapshotStats.getTotalSize() : 0, snapshotStats != null ? snapshotStats.getNumberOfFiles() : 0,
+                shardFailuresByReason);
+    }
+
+    /**
+     * Restore responses carry shard counts only, sizes come from Recoveries of restored primaries
+     * @param recoveryResponse Recoveries of the restored indices, null if not available
+     */
+    public static BackupOperationMetrics fromRestore(String repositoryName, RestoreInfo restoreInfo, long startTime, long endTime, RecoveryResponse recoveryResponse)
+    {
+        long totalBytes = 0;
+        int totalFiles = 0;
+        if (recoveryResponse != null) {
+            for (List<ShardRecoveryResponse> shardRecoveryResponses : recoveryResponse.shardResponses().values())
+            {
+                for (ShardRecoveryResponse shardRecoveryResponse : shardRecoveryResponses)
+                {
+                    RecoveryState recoveryState = shardRecoveryResponse.recoveryState();
+                    if (recoveryState == null || !recoveryState.getPrimary() || recoveryState.getType() != RecoveryState.Type.SNAPSHOT)
+                        continue;
+                    totalBytes += recoveryState.getIndex().totalByteCount();
+                    totalFiles += recoveryState.getIndex().totalFileCount();
+                }
+            }
+        }
+        return new BackupOperationMetrics(Operation.RESTORE, repositoryName, restoreInfo.name(), startTime, endTime,
+                restoreInfo.totalShards(), restoreInfo.failedShards(), totalBytes, totalFiles, Collections.<String, Integer>emptyMap());
+    }
+
+    public static BackupOperationMetrics fromRestoreProgress(RestoreProgress progress)
+    {
+        return new BackupOperationMetrics(Operation.RESTORE, progress.getRepositoryName(), progress.getSnapshotName(), progress.getStartTime(),
+                progress.getStartTime() + progress.getDurationMillis(), progress.getTotalShards(), progress.getFailedShards(),
+                progress.getTotalBytes(), progress.getTotalFiles(), Collections.<String, Integer>emptyMap());
+    }
+
+    /**
+     * Shard failure reasons carry index and shard specifics, failures are grouped by the leading exception name
+     */
+    static String getReasonType(String reason)
+    {
+        if (reason == null || reason.trim().isEmpty())
+            return "unknown";
+        String reasonType = reason.trim();
+        int end = reasonType.indexOf('[');
+        if (end > 0)
+            reasonType = reasonType.substring(0, end);
+        return reasonType.trim();
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationMillis() {
+        return Math.max(0, endTime - startTime);
+    }
+
+    public int getTotalShards() {
+        return totalShards;
+    }
+
+    public int getFailedShards() {
+        return failedShards;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    public Map<String, Integer> getShardFailuresByReason() {
+        return shardFailuresByReason;
+    }
+
+    public long getBytesPerSecond() {
+        long durationMillis = getDurationMillis();
+        return durationMillis > 0 ? totalBytes * 1000 / durationMillis : 0;
+    }
+
+    public JSONObject toJson()
+    {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("operation", operation.name());
+        jsonObject.put("repository", repositoryName);
+        jsonObject.put("snapshot", snapshotName);
+        jsonObject.put("start_time", startTime);
+        jsonObject.put("end_time", endTime);
+        jsonObject.put("duration_millis", getDurationMillis());
+        jsonObject.put("total_shards", totalShards);
+        jsonObject.put("failed_shards", failedShards);
+        jsonObject.put("total_bytes", totalBytes);
+        jsonObject.put("total_files", totalFiles);
+        jsonObject.put("bytes_per_second", getBytesPerSecond());
+        JSONObject failuresJson = new JSONObject();
+        failuresJson.putAll(shardFailuresByReason);
+        jsonObject.put("shard_failures", failuresJson);
+        return jsonObject;
+    }
+
+    @Override
+    public String toString()
+    {
+        return operation + " of Snapshot <" + snapshotName + "> in Repository <" + repositoryName + "> : Duration = " + getDurationMillis() + " ms" +
+                ", Shards = " + (totalShards - failedShards) + "/" + totalShards + ", Bytes = " + totalBytes + ", Files = " + totalFiles +
+                ", Throughput = " + getBytesPerSecond() + " bytes/sec" + (shardFailuresByReason.isEmpty() ? "" : ", Shard failures = " + shardFailuresByReason);
+    }
+}
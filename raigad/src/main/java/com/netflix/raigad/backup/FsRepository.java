@@ -0,0 +1,162 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.netflix.raigad.backup.exception.CreateRepositoryException;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.SystemUtils;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.admin.cluster.repositories.put.PutRepositoryResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared File System Repository (local disks for benchmarks, NFS mounts in private datacenters).
+ * The following settings are supported:
+
+ location: Location of the snapshots, must be mounted at the same path on all master and data nodes. (Mandatory)
+ compress: Turns on compression of the snapshot metadata files. Defaults to false.
+ chunk_size: Big files can be broken down into chunks during snapshotting if needed. Defaults to null (unlimited chunk size).
+ max_snapshot_bytes_per_sec: Throttles per node snapshot rate. Defaults to 20mb per second.
+ max_restore_bytes_per_sec: Throttles per node restore rate. Defaults to 20mb per second.
+
+ */
+@Singleton
+public class FsRepository extends AbstractRepository
+{
+    private static final Logger logger = LoggerFactory.getLogger(FsRepository.class);
+    private static final String FS_REPO_DATE_FORMAT = "yyyyMMdd";
+    private static final DateTimeZone currentZone = DateTimeZone.UTC;
+    private final FsRepositorySettingsParams repositorySettingsParams;
+
+    @Inject
+    private FsRepository(IConfiguration config, @Named("fs")AbstractRepositorySettingsParams repositorySettingsParams)
+    {
+        super(config,repositorySettingsParams);
+        this.repositorySettingsParams = (FsRepositorySettingsParams) repositorySettingsParams;
+    }
+
+    /**
+     * 0.0.0.0:9200/_snapshot/fs_repo
+     * { "type": "fs",
+     * 	 "settings": { "location": "/mnt/es_backup/es_abc/20140410",
+     * 	               "compress": false
+     *                }
+     * }
+     */
+    @Override
+    public String createOrGetSnapshotRepository() throws Exception
+    {
+        String fsRepoName = null;
+        try {
+            fsRepoName = getRemoteRepositoryName();
+            logger.info("Snapshot Repository Name : <"+fsRepoName+">");
+
+            //Set Snapshot Backup related parameters
+            repositorySettingsParams.setBackupParams();
+            //Check if Repository Exists
+            if (!doesRepositoryExists(fsRepoName, getRepositoryType())) {
+                createNewRepository(fsRepoName);
+            }
+        }
+        catch (Exception e)
+        {
+            throw new CreateRepositoryException("Creation of Snapshot Repository failed !!",e);
+        }
+
+        return fsRepoName;
+    }
+
+    @Override
+    public void createRestoreRepository(String fsRepoName, String basePathSuffix) throws Exception
+    {
+        try {
+            //Set Restore related parameters
+            repositorySettingsParams.setRestoreParams(basePathSuffix);
+
+            createNewRepository(fsRepoName);
+        }
+        catch (Exception e)
+        {
+            throw new CreateRepositoryException("Creation of Restore Repository failed !!",e);
+        }
+    }
+
+    public void createNewRepository(String fsRepoName) throws Exception
+    {
+        Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+        //Creating New Repository now
+        PutRepositoryResponse putRepositoryResponse = getPutRepositoryResponse(esTransportClient,fsRepoName);
+
+        if(putRepositoryResponse.isAcknowledged())
+        {
+            logger.info("Successfully created a repository : <" + fsRepoName + "> " + getRepoParamPrint());
+        }
+        else {
+            throw new CreateRepositoryException("Creation of repository failed : <" + fsRepoName + "> " +
+                    getRepoParamPrint());
+        }
+    }
+
+    @Override
+    public String getRemoteRepositoryName() {
+        if (config.isSharedSnapshotRepositoryEnabled())
+            return config.getSharedSnapshotRepositoryName();
+        DateTime dtGmt = new DateTime().withZone(currentZone);
+        return SystemUtils.formatDate(dtGmt,FS_REPO_DATE_FORMAT);
+    }
+
+    @Override
+    public RepositoryType getRepositoryType()
+    {
+        return RepositoryType.fs;
+    }
+
+    public String getRepoParamPrint()
+    {
+        return  "location : <"+repositorySettingsParams.getLocation()+"> " +
+                "chunk_size : <"+config.getFsRepositoryChunkSize()+"> " +
+                "compress : <"+config.isFsRepositoryCompressEnabled()+">";
+    }
+
+    /**
+     * Following method is isolated so that it helps in Unit Testing for Mocking
+     * @param esTransportClient
+     * @param fsRepoName
+     * @return
+     */
+    public PutRepositoryResponse getPutRepositoryResponse(Client esTransportClient,String fsRepoName)
+    {
+        ImmutableSettings.Builder settings = ImmutableSettings.settingsBuilder()
+                .put("location", repositorySettingsParams.getLocation())
+                .put("compress", config.isFsRepositoryCompressEnabled())
+                .put("max_snapshot_bytes_per_sec", config.getSnapshotMaxBytesPerSec())
+                .put("max_restore_bytes_per_sec", config.getRestoreMaxBytesPerSec());
+        if (StringUtils.isNotBlank(config.getFsRepositoryChunkSize()))
+            settings.put("chunk_size", config.getFsRepositoryChunkSize());
+
+        return esTransportClient.admin().cluster().preparePutRepository(fsRepoName)
+                .setType(getRepositoryType().name()).setSettings(settings).get();
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.backup.exception.CreateRepositoryException;
+import com.netflix.raigad.backup.exception.RestoreBackupException;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.SystemUtils;
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Location of fs Repositories is laid out the same way as base_path of s3 Repositories :
+ *
+ *     {fs_backup_location}/es_abc/20140410
+ *     {fs_backup_location}/es_abc/{shared_repository_name} when Shared Repository is enabled
+ */
+@Singleton
+public class FsRepositorySettingsParams extends AbstractRepositorySettingsParams
+{
+    private static final Logger logger = LoggerFactory.getLogger(FsRepositorySettingsParams.class);
+    private final char PATH_SEP = File.separatorChar;
+    private final String FS_REPO_DATE_FORMAT = "yyyyMMdd";
+    private String location;
+
+    @Inject
+    public FsRepositorySettingsParams(IConfiguration config) {
+        super(config);
+    }
+
+    @Override
+    public void setBackupParams() throws CreateRepositoryException {
+        if(StringUtils.isBlank(config.getFsBackupLocation()))
+            throw new CreateRepositoryException("fs Backup Location is not set in configuration.");
+        StringBuilder basePath = new StringBuilder();
+        basePath.append(config.getAppName());
+        basePath.append(PATH_SEP);
+        basePath.append(config.isSharedSnapshotRepositoryEnabled() ? config.getSharedSnapshotRepositoryName() : getFsRepositoryName());
+        this.base_path = basePath.toString();
+        this.location = config.getFsBackupLocation() + PATH_SEP + base_path;
+        logger.info("Location : <"+location+">");
+    }
+
+    @Override
+    public void setRestoreParams(String basePathSuffix) throws RestoreBackupException {
+        String rootLocation = config.getFsRestoreLocation();
+        if(StringUtils.isBlank(rootLocation)) {
+            logger.info("config.getFsRestoreLocation() is Blank, hence setting location root = config.getFsBackupLocation()");
+            rootLocation = config.getFsBackupLocation();
+        }
+        if(StringUtils.isBlank(config.getRestoreSourceClusterName()))
+            throw new RestoreBackupException("No Source Cluster for Restore yet chosen.");
+        this.base_path = config.getRestoreSourceClusterName() + PATH_SEP + basePathSuffix;
+        this.location = rootLocation + PATH_SEP + base_path;
+        logger.info("Location : <"+location+">");
+    }
+
+    public String getFsRepositoryName()
+    {
+        DateTime dtGmt = new DateTime().withZone(DateTimeZone.UTC);
+        return SystemUtils.formatDate(dtGmt,FS_REPO_DATE_FORMAT);
+    }
+
+    public String getLocation() {
+        return location;
+    }
+}
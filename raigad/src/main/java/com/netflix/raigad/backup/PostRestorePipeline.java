@@ -0,0 +1,148 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Singleton;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.hppc.cursors.ObjectCursor;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Steps around the Restore of indices, as per RestoreOptions :
+ * before primaries are restored, replicas are dropped (restoring without replicas and adding them from
+ * restored primaries is faster than replicating during the Restore), once primaries are restored
+ * indices are optimized, warmed up and replicas are added. Once every batch of the Restore is done,
+ * the alias is moved to all restored indices.
+ */
+@Singleton
+public class PostRestorePipeline
+{
+    private static final Logger logger = LoggerFactory.getLogger(PostRestorePipeline.class);
+
+    /**
+     * Called once the Restore is started, restored indices exist with their primaries being restored
+     * @return number_of_replicas of restored indices as in the Snapshot
+     */
+    public Map<String, Integer> beforeRestore(Client esTransportClient, Collection<String> restoredIndices, RestoreOptions options)
+    {
+        Map<String, Integer> snapshotReplicas = new LinkedHashMap<String, Integer>();
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true)
+                .setIndices(restoredIndices.toArray(new String[restoredIndices.size()])).get().getState().getMetaData();
+        for (String index : restoredIndices)
+        {
+            IndexMetaData indexMetaData = metaData.index(index);
+            if (indexMetaData != null)
+                snapshotReplicas.put(index, indexMetaData.getNumberOfReplicas());
+        }
+
+        if (options.isDeferReplicas() && !snapshotReplicas.isEmpty()) {
+            logger.info("Restoring " + snapshotReplicas.keySet() + " without replicas");
+            updateReplicas(esTransportClient, snapshotReplicas.keySet(), 0);
+        }
+        return snapshotReplicas;
+    }
+
+    /**
+     * Called once primaries of restored indices are restored
+     */
+    public void afterRestore(Client esTransportClient, List<String> restoredIndices, RestoreOptions options, Map<String, Integer> snapshotReplicas)
+    {
+        if (restoredIndices.isEmpty())
+            return;
+        String[] indices = restoredIndices.toArray(new String[restoredIndices.size()]);
+
+        if (options.getOptimizeMaxNumSegments() > 0) {
+            logger.info("Optimizing " + restoredIndices + " to " + options.getOptimizeMaxNumSegments() + " segments");
+            esTransportClient.admin().indices().prepareOptimize(indices)
+                    .setMaxNumSegments(options.getOptimizeMaxNumSegments()).setWaitForMerge(true).get();
+        }
+
+        if (options.isWarmup()) {
+            //Refresh runs index warmers, search loads segments of every primary
+            logger.info("Warming up " + restoredIndices);
+            esTransportClient.admin().indices().prepareRefresh(indices).get();
+            esTransportClient.prepareSearch(indices).setQuery(QueryBuilders.matchAllQuery()).setSize(0).get();
+        }
+
+        for (String index : restoredIndices)
+        {
+            int replicas = options.getReplicas() != RestoreOptions.KEEP_REPLICAS ? options.getReplicas() : getSnapshotReplicas(snapshotReplicas, index);
+            if (replicas < 0 || (!options.isDeferReplicas() && replicas == getSnapshotReplicas(snapshotReplicas, index)))
+                continue;
+            logger.info("Setting number_of_replicas of <" + index + "> to " + replicas);
+            updateReplicas(esTransportClient, Collections.singletonList(index), replicas);
+        }
+    }
+
+    /**
+     * Called once, after every batch of the Restore is done
+     * @param restoredIndices Indices successfully restored by all batches
+     */
+    public void completeRestore(Client esTransportClient, List<String> restoredIndices, RestoreOptions options)
+    {
+        if (options.getAlias() != null && !restoredIndices.isEmpty())
+            moveAlias(esTransportClient, options.getAlias(), restoredIndices);
+    }
+
+    /**
+     * Alias is moved in a single request, so searches on the alias never see both or no indices
+     */
+    private void moveAlias(Client esTransportClient, String alias, List<String> restoredIndices)
+    {
+        IndicesAliasesRequestBuilder aliasesRequest = esTransportClient.admin().indices().prepareAliases();
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+        ImmutableOpenMap<String, AliasMetaData> aliasedIndices = metaData.aliases().get(alias);
+        if (aliasedIndices != null) {
+            for (ObjectCursor<String> index : aliasedIndices.keys())
+            {
+                if (!restoredIndices.contains(index.value))
+                    aliasesRequest.removeAlias(index.value, alias);
+            }
+        }
+        for (String index : restoredIndices)
+            aliasesRequest.addAlias(index, alias);
+
+        logger.info("Moving alias <" + alias + "> to " + restoredIndices);
+        if (!aliasesRequest.get().isAcknowledged())
+            logger.warn("Move of alias <" + alias + "> to " + restoredIndices + " was not acknowledged");
+    }
+
+    private void updateReplicas(Client esTransportClient, Collection<String> indices, int replicas)
+    {
+        esTransportClient.admin().indices().prepareUpdateSettings(indices.toArray(new String[indices.size()]))
+                .setSettings(ImmutableSettings.settingsBuilder().put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, replicas).build()).get();
+    }
+
+    private static int getSnapshotReplicas(Map<String, Integer> snapshotReplicas, String index)
+    {
+        Integer replicas = snapshotReplicas.get(index);
+        return replicas != null ? replicas : RestoreOptions.KEEP_REPLICAS;
+    }
+}
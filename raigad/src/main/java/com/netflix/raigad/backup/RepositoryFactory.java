@@ -0,0 +1,67 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.netflix.raigad.configuration.IConfiguration;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Picks the @Named Repository implementation matching a RepositoryType
+ */
+@Singleton
+public class RepositoryFactory
+{
+    private final IConfiguration config;
+    private final AbstractRepository s3Repository;
+    private final AbstractRepository fsRepository;
+
+    @Inject
+    public RepositoryFactory(IConfiguration config, @Named("s3")AbstractRepository s3Repository, @Named("fs")AbstractRepository fsRepository)
+    {
+        this.config = config;
+        this.s3Repository = s3Repository;
+        this.fsRepository = fsRepository;
+    }
+
+    /**
+     * @return Repository used for Snapshots, as per config.getBackupRepositoryType() (defaults to s3)
+     */
+    public AbstractRepository getBackupRepository()
+    {
+        return getRepository(getRepositoryType(config.getBackupRepositoryType()));
+    }
+
+    public AbstractRepository getRepository(AbstractRepository.RepositoryType repositoryType)
+    {
+        switch (repositoryType)
+        {
+            case fs:
+                return fsRepository;
+            default:
+                return s3Repository;
+        }
+    }
+
+    public static AbstractRepository.RepositoryType getRepositoryType(String repositoryType)
+    {
+        if (StringUtils.isBlank(repositoryType))
+            return AbstractRepository.RepositoryType.s3;
+        return AbstractRepository.RepositoryType.valueOf(repositoryType.trim().toLowerCase());
+    }
+}
@@ -17,7 +17,6 @@ package com.netflix.raigad.backup;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.netflix.raigad.backup.exception.RestoreBackupException;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.scheduler.SimpleTimer;
@@ -28,13 +27,16 @@ import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
 import com.netflix.raigad.utils.EsUtils;
 import com.netflix.raigad.utils.HttpModule;
 import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotRequestBuilder;
 import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.snapshots.RestoreInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -43,7 +45,10 @@ public class RestoreBackupManager extends Task
 {
     private static final Logger logger = LoggerFactory.getLogger(RestoreBackupManager.class);
     public static String JOBNAME = "RestoreBackupManager";
-    private final AbstractRepository repository;
+    private final RepositoryFactory repositoryFactory;
+    private final RestoreOrchestrator restoreOrchestrator;
+    private final SnapshotCatalog snapshotCatalog;
+    private final BackupMetricsHistory backupMetricsHistory;
     private final HttpModule httpModule;
     private static final AtomicBoolean isRestoreRunning = new AtomicBoolean(false);
     private static final String ALL_INDICES_TAG = "_all";
@@ -51,9 +56,13 @@ public class RestoreBackupManager extends Task
 
 
     @Inject
-    public RestoreBackupManager(IConfiguration config,  @Named("s3")AbstractRepository repository, HttpModule httpModule) {
+    public RestoreBackupManager(IConfiguration config,  RepositoryFactory repositoryFactory, RestoreOrchestrator restoreOrchestrator, SnapshotCatalog snapshotCatalog,
+                                BackupMetricsHistory backupMetricsHistory, HttpModule httpModule) {
         super(config);
-        this.repository = repository;
+        this.repositoryFactory = repositoryFactory;
+        this.restoreOrchestrator = restoreOrchestrator;
+        this.snapshotCatalog = snapshotCatalog;
+        this.backupMetricsHistory = backupMetricsHistory;
         this.httpModule = httpModule;
     }
 
@@ -87,6 +96,11 @@ public class RestoreBackupManager extends Task
     }
 
     public void runRestore(String sourceRepositoryName, String repositoryType, String snapshotName, String indices) throws Exception
+    {
+        runRestore(sourceRepositoryName, repositoryType, snapshotName, indices, RestoreOptions.fromConfig(config));
+    }
+
+    public void runRestore(String sourceRepositoryName, String repositoryType, String snapshotName, String indices, RestoreOptions options) throws Exception
     {
         Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
 
@@ -105,30 +119,34 @@ public class RestoreBackupManager extends Task
             repoType = AbstractRepository.RepositoryType.s3.name();
         }
 
-        if(!repository.doesRepositoryExists(restoreRepositoryName, AbstractRepository.RepositoryType.valueOf(repoType.toLowerCase())))
+        AbstractRepository repository = repositoryFactory.getRepository(AbstractRepository.RepositoryType.valueOf(repoType.toLowerCase()));
+        if(!repository.doesRepositoryExists(restoreRepositoryName, repository.getRepositoryType()))
         {
             //If repository does not exist, create new one
             repository.createRestoreRepository(restoreRepositoryName,sourceRepoName);
         }
 
+        // Get Names of Indices
+        String commaSeparatedIndices =  StringUtils.isBlank(indices) ? config.getCommaSeparatedIndicesToRestore() : indices;
+
         // Get Snapshot Name
         String snapshotN = StringUtils.isBlank(snapshotName) ? config.getRestoreSnapshotName() : snapshotName;
         if(StringUtils.isBlank(snapshotN))
         {
-            //Pick the last Snapshot from the available Snapshots
-            List<String> snapshots = EsUtils.getAvailableSnapshots(esTransportClient,restoreRepositoryName);
-            if(snapshots.isEmpty())
-                throw new RestoreBackupException("No available snapshots in <"+restoreRepositoryName+"> repository.");
-
-            //Sorting Snapshot names in Reverse Order
-            Collections.sort(snapshots,Collections.reverseOrder());
-
-            //Use the Last available snapshot
-            snapshotN = snapshots.get(0);
+            //Pick the latest Snapshot containing the indices to restore
+            snapshotN = snapshotCatalog.getLatestSnapshot(esTransportClient, restoreRepositoryName, getConcreteIndices(commaSeparatedIndices));
+            if(snapshotN == null)
+                throw new RestoreBackupException("No available snapshots containing <"+commaSeparatedIndices+"> in <"+restoreRepositoryName+"> repository.");
         }
         logger.info("Snapshot Name : <"+snapshotN+">");
-        // Get Names of Indices
-        String commaSeparatedIndices =  StringUtils.isBlank(indices) ? config.getCommaSeparatedIndicesToRestore() : indices;
+
+        if(config.isRestoreOrchestratorEnabled() || options.hasPostRestoreSteps())
+        {
+            //Restore runs in batches in the background, progress is available through getRestoreProgress()
+            restoreOrchestrator.startRestore(esTransportClient, restoreRepositoryName, snapshotN, commaSeparatedIndices, options);
+            return;
+        }
+
         if(StringUtils.isBlank(commaSeparatedIndices) || commaSeparatedIndices.equalsIgnoreCase(ALL_INDICES_TAG))
         {
             commaSeparatedIndices = null;
@@ -136,36 +154,56 @@ public class RestoreBackupManager extends Task
         }
         logger.info("Indices param : <"+commaSeparatedIndices+">");
 
+        long startTime = System.currentTimeMillis();
         RestoreSnapshotResponse restoreSnapshotResponse = getRestoreSnapshotResponse(esTransportClient,
-                commaSeparatedIndices,restoreRepositoryName,snapshotN);
+                commaSeparatedIndices,restoreRepositoryName,snapshotN,options);
 
         logger.info("Restore Status = "+restoreSnapshotResponse.status().toString());
 
         if(restoreSnapshotResponse.status() == RestStatus.OK)
         {
-            printRestoreDetails(restoreSnapshotResponse);
+            recordRestore(esTransportClient, restoreRepositoryName, restoreSnapshotResponse.getRestoreInfo(), startTime);
         }
         else if (restoreSnapshotResponse.status() == RestStatus.INTERNAL_SERVER_ERROR)
             logger.info("Restore Completely Failed");
 
     }
 
-    //TODO: Map to Java Class and Create JSON
-    public void printRestoreDetails(RestoreSnapshotResponse restoreSnapshotResponse)
+    private void recordRestore(Client esTransportClient, String restoreRepositoryName, RestoreInfo restoreInfo, long startTime)
     {
-        StringBuilder builder = new StringBuilder();
-        builder.append("Restore Details:");
-        builder.append("\n\t Name = "+restoreSnapshotResponse.getRestoreInfo().name());
-        builder.append("\n\t Indices : ");
-        for(String index:restoreSnapshotResponse.getRestoreInfo().indices())
+        long endTime = System.currentTimeMillis();
+        RecoveryResponse recoveryResponse = null;
+        try {
+            recoveryResponse = esTransportClient.admin().indices().prepareRecoveries(restoreInfo.indices().toArray(new String[restoreInfo.indices().size()])).get();
+        }
+        catch (Exception e)
         {
-            builder.append("\n\t\t Index = "+index);
+            logger.warn("Unable to get Recovery status of restored indices " + restoreInfo.indices(), e);
         }
-        builder.append("\n\t Total Shards = "+restoreSnapshotResponse.getRestoreInfo().totalShards());
-        builder.append("\n\t Successful Shards = "+restoreSnapshotResponse.getRestoreInfo().successfulShards());
-        builder.append("\n\t Total Failed Shards = "+restoreSnapshotResponse.getRestoreInfo().failedShards());
+        backupMetricsHistory.record(BackupOperationMetrics.fromRestore(restoreRepositoryName, restoreInfo, startTime, endTime, recoveryResponse));
+    }
 
-        logger.info(builder.toString());
+    /**
+     * Index names (neither _all, patterns nor exclusions) that a Snapshot must contain to be restored
+     */
+    public static List<String> getConcreteIndices(String commaSeparatedIndices)
+    {
+        List<String> concreteIndices = new ArrayList<String>();
+        if(StringUtils.isBlank(commaSeparatedIndices))
+            return concreteIndices;
+        for(String index : StringUtils.split(commaSeparatedIndices, ','))
+        {
+            index = index.trim();
+            if(index.isEmpty() || index.equalsIgnoreCase(ALL_INDICES_TAG) || index.contains("*") || index.startsWith("-") || index.startsWith("+"))
+                continue;
+            concreteIndices.add(index);
+        }
+        return concreteIndices;
+    }
+
+    public RestoreProgress getRestoreProgress()
+    {
+        return restoreOrchestrator.getRestoreProgress();
     }
 
     public static TaskTimer getTimer(IConfiguration config)
@@ -179,24 +217,21 @@ public class RestoreBackupManager extends Task
         return JOBNAME;
     }
 
-    public RestoreSnapshotResponse getRestoreSnapshotResponse(Client esTransportClient, String commaSeparatedIndices,String restoreRepositoryName,String snapshotN)
+    public RestoreSnapshotResponse getRestoreSnapshotResponse(Client esTransportClient, String commaSeparatedIndices,String restoreRepositoryName,String snapshotN,RestoreOptions options)
     {
         RestoreSnapshotResponse restoreSnapshotResponse = null;
+        //This is a blocking call. It'll wait until Restore is finished.
+        RestoreSnapshotRequestBuilder restoreSnapshotRequestBuilder = esTransportClient.admin().cluster().prepareRestoreSnapshot(restoreRepositoryName, snapshotN)
+                .setWaitForCompletion(true);
 
-        if (commaSeparatedIndices != null) {
-            //This is a blocking call. It'll wait until Restore is finished.
-            restoreSnapshotResponse = esTransportClient.admin().cluster().prepareRestoreSnapshot(restoreRepositoryName, snapshotN)
-                    .setWaitForCompletion(true)
-                    .setIndices(commaSeparatedIndices)   //"test-idx-*", "-test-idx-2"
-                    .execute()
-                    .actionGet();
-        }else{
-            // Not Setting Indices explicitly -- Seems to be a bug in Elasticsearch
-            restoreSnapshotResponse = esTransportClient.admin().cluster().prepareRestoreSnapshot(restoreRepositoryName, snapshotN)
-                    .setWaitForCompletion(true)
-                    .execute()
-                    .actionGet();
-        }
+        if (commaSeparatedIndices != null)
+            restoreSnapshotRequestBuilder.setIndices(commaSeparatedIndices);   //"test-idx-*", "-test-idx-2"
+        // Not Setting Indices explicitly otherwise -- Seems to be a bug in Elasticsearch
+
+        if (options.getRenamePattern() != null)
+            restoreSnapshotRequestBuilder.setRenamePattern(options.getRenamePattern()).setRenameReplacement(options.getRenameReplacement());
+
+        restoreSnapshotResponse = restoreSnapshotRequestBuilder.execute().actionGet();
 
         return restoreSnapshotResponse;
     }
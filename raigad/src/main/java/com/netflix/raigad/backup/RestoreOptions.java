@@ -0,0 +1,142 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How indices are restored : names (rename pattern and replacement, as Elasticsearch applies them),
+ * replicas, and steps run once primaries are restored (optimize, warmup, alias).
+ */
+public class RestoreOptions
+{
+    public static final int KEEP_REPLICAS = -1;
+
+    private final String renamePattern;
+    private final String renameReplacement;
+    private final boolean deferReplicas;
+    private final int replicas;
+    private final int optimizeMaxNumSegments;
+    private final boolean warmup;
+    private final String alias;
+
+    public RestoreOptions(String renamePattern, String renameReplacement, boolean deferReplicas, int replicas,
+                          int optimizeMaxNumSegments, boolean warmup, String alias)
+    {
+        if (StringUtils.isNotBlank(renamePattern) && renameReplacement == null)
+            throw new IllegalArgumentException("Rename pattern <" + renamePattern + "> has no replacement");
+        this.renamePattern = StringUtils.isBlank(renamePattern) ? null : renamePattern;
+        this.renameReplacement = renameReplacement;
+        this.deferReplicas = deferReplicas;
+        this.replicas = replicas;
+        this.optimizeMaxNumSegments = optimizeMaxNumSegments;
+        this.warmup = warmup;
+        this.alias = StringUtils.isBlank(alias) ? null : alias;
+    }
+
+    public static RestoreOptions fromConfig(IConfiguration config)
+    {
+        return fromConfig(config, null, null, null);
+    }
+
+    /**
+     * Options from configuration, with rename and alias overridden when not blank (eg. from REST parameters)
+     */
+    public static RestoreOptions fromConfig(IConfiguration config, String renamePattern, String renameReplacement, String alias)
+    {
+        boolean renameOverridden = StringUtils.isNotBlank(renamePattern);
+        return new RestoreOptions(
+                renameOverridden ? renamePattern : config.getRestoreRenamePattern(),
+                renameOverridden ? renameReplacement : config.getRestoreRenameReplacement(),
+                config.isRestoreDeferReplicasEnabled(),
+                config.getRestoreReplicas(),
+                config.getRestoreOptimizeMaxNumSegments(),
+                config.isRestoreWarmupEnabled(),
+                StringUtils.isNotBlank(alias) ? alias : config.getRestoreAlias());
+    }
+
+    public String getRestoredIndexName(String index)
+    {
+        if (renamePattern == null)
+            return index;
+        return index.replaceAll(renamePattern, renameReplacement);
+    }
+
+    /**
+     * @return Restored index name to Snapshot index name
+     */
+    public Map<String, String> getRestoredIndexNames(List<String> indices)
+    {
+        Map<String, String> restoredIndexNames = new LinkedHashMap<String, String>();
+        for (String index : indices)
+            restoredIndexNames.put(getRestoredIndexName(index), index);
+        return restoredIndexNames;
+    }
+
+    /**
+     * @return true if restored indices need more than a plain Snapshot Restore
+     */
+    public boolean hasPostRestoreSteps()
+    {
+        return deferReplicas || replicas != KEEP_REPLICAS || optimizeMaxNumSegments > 0 || warmup || alias != null;
+    }
+
+    public String getRenamePattern() {
+        return renamePattern;
+    }
+
+    public String getRenameReplacement() {
+        return renameReplacement;
+    }
+
+    public boolean isDeferReplicas() {
+        return deferReplicas;
+    }
+
+    public int getReplicas() {
+        return replicas;
+    }
+
+    public int getOptimizeMaxNumSegments() {
+        return optimizeMaxNumSegments;
+    }
+
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public String toString() {
+        return "RestoreOptions{" +
+                "renamePattern='" + renamePattern + '\'' +
+                ", renameReplacement='" + renameReplacement + '\'' +
+                ", deferReplicas=" + deferReplicas +
+                ", replicas=" + replicas +
+                ", optimizeMaxNumSegments=" + optimizeMaxNumSegments +
+                ", warmup=" + warmup +
+                ", alias='" + alias + '\'' +
+                '}';
+    }
+}
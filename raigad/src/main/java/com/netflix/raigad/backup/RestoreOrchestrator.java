@@ -0,0 +1,383 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.backup.exception.RestoreBackupException;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.NamedThreadPoolExecutor;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.action.admin.cluster.health.ClusterIndexHealth;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotRequestBuilder;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
+import org.elasticsearch.action.admin.indices.recovery.ShardRecoveryResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.metadata.RestoreMetaData;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.indices.recovery.RecoveryState;
+import org.elasticsearch.snapshots.SnapshotInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Restores a Snapshot in batches of indices (config.getRestoreBatchSize()) in the background,
+ * with recovery settings raised for the duration of the Restore and reset afterwards.
+ *
+ * Elasticsearch runs one Restore at a time in a cluster, so batches run one after the other and
+ * parallelism comes from the number of shards recovered at the same time on every node.
+ */
+@Singleton
+public class RestoreOrchestrator
+{
+    private static final Logger logger = LoggerFactory.getLogger(RestoreOrchestrator.class);
+    private static final String ALL_INDICES_TAG = "_all";
+    static final String RECOVERY_MAX_BYTES_PER_SEC = "indices.recovery.max_bytes_per_sec";
+    static final String RECOVERY_CONCURRENT_STREAMS = "indices.recovery.concurrent_streams";
+    static final String NODE_CONCURRENT_RECOVERIES = "cluster.routing.allocation.node_concurrent_recoveries";
+    static final String NODE_INITIAL_PRIMARIES_RECOVERIES = "cluster.routing.allocation.node_initial_primaries_recoveries";
+    //Elasticsearch defaults, used for reset when a setting was not set before the Restore
+    private static final Map<String, String> RECOVERY_SETTING_DEFAULTS = new LinkedHashMap<String, String>();
+    static {
+        RECOVERY_SETTING_DEFAULTS.put(RECOVERY_MAX_BYTES_PER_SEC, "20mb");
+        RECOVERY_SETTING_DEFAULTS.put(RECOVERY_CONCURRENT_STREAMS, "3");
+        RECOVERY_SETTING_DEFAULTS.put(NODE_CONCURRENT_RECOVERIES, "2");
+        RECOVERY_SETTING_DEFAULTS.put(NODE_INITIAL_PRIMARIES_RECOVERIES, "4");
+    }
+
+    private final IConfiguration config;
+    private final PostRestorePipeline postRestorePipeline;
+    private final BackupMetricsHistory backupMetricsHistory;
+    private final ExecutorService executor = new NamedThreadPoolExecutor(1, "RestoreOrchestrator");
+    private final AtomicReference<RestoreProgress> restoreProgress = new AtomicReference<RestoreProgress>();
+
+    @Inject
+    public RestoreOrchestrator(IConfiguration config, PostRestorePipeline postRestorePipeline, BackupMetricsHistory backupMetricsHistory)
+    {
+        this.config = config;
+        this.postRestorePipeline = postRestorePipeline;
+        this.backupMetricsHistory = backupMetricsHistory;
+    }
+
+    /**
+     * Start restoring indices of the Snapshot in the background
+     * @param indices comma separated index names or wildcards, "-" excludes, null or _all for every index of the Snapshot
+     * @param options Rename and post-restore steps, progress is reported under Snapshot index names
+     * @return Progress of the Restore, also available through getRestoreProgress()
+     */
+    public synchronized RestoreProgress startRestore(final Client esTransportClient, final String repositoryName, final String snapshotName, String indices,
+                                                     final RestoreOptions options) throws RestoreBackupException
+    {
+        RestoreProgress currentProgress = restoreProgress.get();
+        if (currentProgress != null && !currentProgress.isCompleted())
+            throw new RestoreBackupException("A Restore is already running : " + currentProgress);
+
+        List<String> indicesToRestore = selectIndices(getSnapshotIndices(esTransportClient, repositoryName, snapshotName), indices);
+        if (indicesToRestore.isEmpty())
+            throw new RestoreBackupException("No indices of Snapshot <" + snapshotName + "> match <" + indices + ">");
+
+        final List<List<String>> batches = partition(indicesToRestore, config.getRestoreBatchSize());
+        final RestoreProgress progress = new RestoreProgress(repositoryName, snapshotName, indicesToRestore, batches.size(), System.currentTimeMillis());
+        restoreProgress.set(progress);
+        logger.info("Restoring " + indicesToRestore.size() + " indices of Snapshot <" + snapshotName + "> in " + batches.size() + " batches with " + options);
+
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                runBatches(esTransportClient, progress, batches, options);
+            }
+        });
+        return progress;
+    }
+
+    public RestoreProgress getRestoreProgress()
+    {
+        return restoreProgress.get();
+    }
+
+    void runBatches(Client esTransportClient, RestoreProgress progress, List<List<String>> batches, RestoreOptions options)
+    {
+        Map<String, String> previousSettings = null;
+        String failureReason = null;
+        try {
+            previousSettings = applyRecoverySettings(esTransportClient);
+            List<String> restoredIndices = new ArrayList<String>();
+            for (List<String> batch : batches)
+                restoredIndices.addAll(runBatch(esTransportClient, progress, batch, options));
+            //Alias is moved once onto the indices of every batch, moving it per batch would leave it on the last batch only
+            postRestorePipeline.completeRestore(esTransportClient, restoredIndices, options);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while running Restore", e);
+            failureReason = e.getMessage();
+        }
+        finally {
+            if (previousSettings != null)
+                resetRecoverySettings(esTransportClient, previousSettings);
+        }
+        progress.complete(System.currentTimeMillis(), failureReason);
+        logger.info(progress.toString());
+        backupMetricsHistory.record(BackupOperationMetrics.fromRestoreProgress(progress));
+    }
+
+    /**
+     * @return Names of the indices restored by the batch
+     */
+    List<String> runBatch(Client esTransportClient, RestoreProgress progress, List<String> batch, RestoreOptions options) throws Exception
+    {
+        progress.startBatch(batch, System.currentTimeMillis());
+        Map<String, String> restoredIndexNames = options.getRestoredIndexNames(batch);
+        logger.info("Restoring indices " + batch + " as " + restoredIndexNames.keySet());
+
+        //Returns once restored indices are created, before their primaries are restored
+        startRestoreSnapshot(esTransportClient, progress.getRepositoryName(), progress.getSnapshotName(), batch, options);
+        Map<String, Integer> snapshotReplicas = postRestorePipeline.beforeRestore(esTransportClient, restoredIndexNames.keySet(), options);
+
+        long deadline = System.currentTimeMillis() + config.getRestoreBatchTimeoutInSeconds() * 1000L;
+        while (isBatchRestoreRunning(esTransportClient))
+        {
+            //A stuck Restore is cancelled and fails the batch and the Restore, runBatches then resets recovery settings
+            if (System.currentTimeMillis() > deadline) {
+                cancelBatchRestore(esTransportClient, restoredIndexNames.keySet());
+                progress.completeBatch(batch, batch, System.currentTimeMillis());
+                String failureReason = "Restore of indices " + batch + " did not complete in " + config.getRestoreBatchTimeoutInSeconds() + " seconds";
+                if (isBatchRestoreRunning(esTransportClient))
+                    failureReason += ", Elasticsearch is still restoring them";
+                throw new RestoreBackupException(failureReason);
+            }
+            Thread.sleep(config.getRestoreProgressPollIntervalInSeconds() * 1000L);
+            try {
+                updateRestoreProgress(esTransportClient, progress, restoredIndexNames);
+                logger.info(progress.toString());
+            }
+            catch (Exception e)
+            {
+                logger.warn("Unable to get Recovery status of indices " + restoredIndexNames.keySet(), e);
+            }
+        }
+
+        //Restored primaries make an index at least yellow, a red index has shards which could not be restored
+        updateRestoreProgress(esTransportClient, progress, restoredIndexNames);
+        Map<String, ClusterIndexHealth> indicesHealth = esTransportClient.admin().cluster()
+                .prepareHealth(restoredIndexNames.keySet().toArray(new String[restoredIndexNames.size()])).get().getIndices();
+        List<String> failedIndices = new ArrayList<String>();
+        List<String> restoredIndices = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : restoredIndexNames.entrySet())
+        {
+            ClusterIndexHealth indexHealth = indicesHealth.get(entry.getKey());
+            if (indexHealth == null || indexHealth.getStatus() == ClusterHealthStatus.RED)
+                failedIndices.add(entry.getValue());
+            else
+                restoredIndices.add(entry.getKey());
+        }
+
+        try {
+            postRestorePipeline.afterRestore(esTransportClient, restoredIndices, options, snapshotReplicas);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Post-restore steps failed for indices " + restoredIndices, e);
+            for (String restoredIndex : restoredIndices)
+                failedIndices.add(restoredIndexNames.get(restoredIndex));
+            restoredIndices.clear();
+        }
+        progress.completeBatch(batch, failedIndices, System.currentTimeMillis());
+        return restoredIndices;
+    }
+
+    /**
+     * Deleting indices being restored is the only way to cancel a Restore in Elasticsearch 1.x
+     */
+    void cancelBatchRestore(Client esTransportClient, Collection<String> restoredIndices)
+    {
+        try {
+            MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+            List<String> existingIndices = new ArrayList<String>();
+            for (String restoredIndex : restoredIndices)
+            {
+                if (metaData.hasIndex(restoredIndex))
+                    existingIndices.add(restoredIndex);
+            }
+            if (!existingIndices.isEmpty()) {
+                logger.warn("Deleting partially restored indices " + existingIndices + " to cancel their Restore");
+                esTransportClient.admin().indices().prepareDelete(existingIndices.toArray(new String[existingIndices.size()])).get();
+            }
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to delete partially restored indices " + restoredIndices + ", they need to be deleted manually", e);
+        }
+    }
+
+    boolean isBatchRestoreRunning(Client esTransportClient)
+    {
+        return isRestoreRunning(esTransportClient);
+    }
+
+    static boolean isRestoreRunning(Client esTransportClient)
+    {
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+        RestoreMetaData restoreMetaData = metaData.custom(RestoreMetaData.TYPE);
+        return restoreMetaData != null && !restoreMetaData.entries().isEmpty();
+    }
+
+    /**
+     * Only primaries are restored from the Snapshot, replicas are then recovered from primaries
+     */
+    private void updateRestoreProgress(Client esTransportClient, RestoreProgress progress, Map<String, String> restoredIndexNames)
+    {
+        RecoveryResponse recoveryResponse = esTransportClient.admin().indices()
+                .prepareRecoveries(restoredIndexNames.keySet().toArray(new String[restoredIndexNames.size()])).get();
+        for (Map.Entry<String, List<ShardRecoveryResponse>> entry : recoveryResponse.shardResponses().entrySet())
+        {
+            int totalShards = 0;
+            int restoredShards = 0;
+            long totalBytes = 0;
+            long recoveredBytes = 0;
+            int totalFiles = 0;
+            for (ShardRecoveryResponse shardRecoveryResponse : entry.getValue())
+            {
+                RecoveryState recoveryState = shardRecoveryResponse.recoveryState();
+                if (recoveryState == null || !recoveryState.getPrimary())
+                    continue;
+                totalShards++;
+                if (recoveryState.getStage() == RecoveryState.Stage.DONE)
+                    restoredShards++;
+                totalBytes += recoveryState.getIndex().totalByteCount();
+                recoveredBytes += recoveryState.getIndex().recoveredByteCount();
+                totalFiles += recoveryState.getIndex().totalFileCount();
+            }
+            String snapshotIndexName = restoredIndexNames.get(entry.getKey());
+            if (snapshotIndexName != null)
+                progress.updateIndex(snapshotIndexName, totalShards, restoredShards, totalBytes, recoveredBytes, totalFiles, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return Values of the recovery settings before the Restore
+     */
+    Map<String, String> applyRecoverySettings(Client esTransportClient)
+    {
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+        Map<String, String> previousSettings = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> entry : RECOVERY_SETTING_DEFAULTS.entrySet())
+        {
+            String value = metaData.transientSettings().get(entry.getKey());
+            if (value == null)
+                value = metaData.persistentSettings().get(entry.getKey());
+            previousSettings.put(entry.getKey(), value != null ? value : entry.getValue());
+        }
+
+        Map<String, String> restoreSettings = new LinkedHashMap<String, String>();
+        restoreSettings.put(RECOVERY_MAX_BYTES_PER_SEC, config.getRestoreRecoveryMaxBytesPerSec());
+        restoreSettings.put(RECOVERY_CONCURRENT_STREAMS, String.valueOf(config.getRestoreRecoveryConcurrentStreams()));
+        restoreSettings.put(NODE_CONCURRENT_RECOVERIES, String.valueOf(config.getRestoreNodeConcurrentRecoveries()));
+        restoreSettings.put(NODE_INITIAL_PRIMARIES_RECOVERIES, String.valueOf(config.getRestoreNodeInitialPrimariesRecoveries()));
+        updateTransientSettings(esTransportClient, restoreSettings);
+        logger.info("Recovery settings for Restore : " + restoreSettings + ", previous : " + previousSettings);
+        return previousSettings;
+    }
+
+    void resetRecoverySettings(Client esTransportClient, Map<String, String> previousSettings)
+    {
+        try {
+            updateTransientSettings(esTransportClient, previousSettings);
+            logger.info("Recovery settings reset to " + previousSettings);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to reset Recovery settings to " + previousSettings, e);
+        }
+    }
+
+    private void updateTransientSettings(Client esTransportClient, Map<String, String> settings)
+    {
+        esTransportClient.admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(ImmutableSettings.settingsBuilder().put(settings).build()).get();
+    }
+
+    private List<String> getSnapshotIndices(Client esTransportClient, String repositoryName, String snapshotName) throws RestoreBackupException
+    {
+        List<SnapshotInfo> snapshotInfos = esTransportClient.admin().cluster().prepareGetSnapshots(repositoryName).setSnapshots(snapshotName).get().getSnapshots();
+        if (snapshotInfos.isEmpty())
+            throw new RestoreBackupException("Snapshot <" + snapshotName + "> not found in Repository <" + repositoryName + ">");
+        return snapshotInfos.get(0).indices();
+    }
+
+    /**
+     * Following method is isolated so that it helps in Unit Testing for Mocking
+     */
+    public RestoreSnapshotResponse startRestoreSnapshot(Client esTransportClient, String repositoryName, String snapshotName, List<String> indices, RestoreOptions options)
+    {
+        RestoreSnapshotRequestBuilder restoreSnapshotRequestBuilder = esTransportClient.admin().cluster().prepareRestoreSnapshot(repositoryName, snapshotName)
+                .setWaitForCompletion(false)
+                .setIndices(indices.toArray(new String[indices.size()]));
+        if (options.getRenamePattern() != null)
+            restoreSnapshotRequestBuilder.setRenamePattern(options.getRenamePattern()).setRenameReplacement(options.getRenameReplacement());
+        return restoreSnapshotRequestBuilder.get();
+    }
+
+    /**
+     * @return Indices of the Snapshot matching comma separated names or wildcards, "-" prefixed entries exclude
+     */
+    public static List<String> selectIndices(List<String> snapshotIndices, String indices)
+    {
+        if (StringUtils.isBlank(indices) || indices.trim().equalsIgnoreCase(ALL_INDICES_TAG))
+            return new ArrayList<String>(snapshotIndices);
+
+        List<String> includes = new ArrayList<String>();
+        List<String> excludes = new ArrayList<String>();
+        for (String pattern : indices.split(","))
+        {
+            pattern = pattern.trim();
+            if (pattern.startsWith("-"))
+                excludes.add(pattern.substring(1));
+            else if (!pattern.isEmpty())
+                includes.add(pattern);
+        }
+
+        List<String> selected = new ArrayList<String>();
+        for (String index : snapshotIndices)
+        {
+            boolean included = includes.isEmpty() || Regex.simpleMatch(includes.toArray(new String[includes.size()]), index);
+            if (included && !Regex.simpleMatch(excludes.toArray(new String[excludes.size()]), index))
+                selected.add(index);
+        }
+        return selected;
+    }
+
+    public static List<List<String>> partition(List<String> indices, int batchSize)
+    {
+        int size = Math.max(1, batchSize);
+        List<List<String>> batches = new ArrayList<List<String>>();
+        for (int i = 0; i < indices.size(); i += size)
+            batches.add(new ArrayList<String>(indices.subList(i, Math.min(i + size, indices.size()))));
+        return batches;
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.json.simple.JSONObject;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of a Restore run by RestoreOrchestrator, per index and overall.
+ * Updated from Recovery polls, read by REST.
+ */
+public class RestoreProgress
+{
+    public enum State {
+        RUNNING, SUCCESS, PARTIAL, FAILED
+    }
+
+    public enum IndexState {
+        QUEUED, RESTORING, DONE, FAILED
+    }
+
+    private final String repositoryName;
+    private final String snapshotName;
+    private final long startTime;
+    private final int totalBatches;
+    private final Map<String, IndexProgress> indices = new LinkedHashMap<String, IndexProgress>();
+    private State state = State.RUNNING;
+    private int currentBatch;
+    private long lastUpdateTime;
+    private long endTime;
+    private String failureReason;
+
+    public RestoreProgress(String repositoryName, String snapshotName, Collection<String> indexNames, int totalBatches, long startTime)
+    {
+        this.repositoryName = repositoryName;
+        this.snapshotName = snapshotName;
+        this.totalBatches = totalBatches;
+        this.startTime = startTime;
+        this.lastUpdateTime = startTime;
+        for (String indexName : indexNames)
+            indices.put(indexName, new IndexProgress());
+    }
+
+    public synchronized void startBatch(List<String> indexNames, long updateTime)
+    {
+        currentBatch++;
+        for (String indexName : indexNames)
+            getIndexProgress(indexName).state = IndexState.RESTORING;
+        lastUpdateTime = updateTime;
+    }
+
+    public synchronized void updateIndex(String indexName, int totalShards, int restoredShards, long totalBytes, long recoveredBytes, int totalFiles, long updateTime)
+    {
+        IndexProgress indexProgress = getIndexProgress(indexName);
+        indexProgress.totalShards = totalShards;
+        indexProgress.restoredShards = restoredShards;
+        indexProgress.totalBytes = totalBytes;
+        indexProgress.recoveredBytes = recoveredBytes;
+        indexProgress.totalFiles = totalFiles;
+        lastUpdateTime = updateTime;
+    }
+
+    public synchronized void completeBatch(List<String> indexNames, Collection<String> failedIndexNames, long updateTime)
+    {
+        for (String indexName : indexNames)
+        {
+            IndexProgress indexProgress = getIndexProgress(indexName);
+            if (failedIndexNames.contains(indexName)) {
+                indexProgress.state = IndexState.FAILED;
+            }
+            else {
+                indexProgress.state = IndexState.DONE;
+                indexProgress.restoredShards = indexProgress.totalShards;
+                indexProgress.recoveredBytes = indexProgress.totalBytes;
+            }
+        }
+        lastUpdateTime = updateTime;
+    }
+
+    /**
+     * @param failureReason null if all batches were run, in which case State depends on failed indices
+     */
+    public synchronized void complete(long endTime, String failureReason)
+    {
+        int done = countIndices(IndexState.DONE);
+        if (failureReason == null && done == indices.size())
+            state = State.SUCCESS;
+        else if (done > 0)
+            state = State.PARTIAL;
+        else
+            state = State.FAILED;
+        this.endTime = endTime;
+        this.lastUpdateTime = endTime;
+        this.failureReason = failureReason;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized int getTotalShards() {
+        int totalShards = 0;
+        for (IndexProgress indexProgress : indices.values())
+            totalShards += indexProgress.totalShards;
+        return totalShards;
+    }
+
+    /**
+     * Shards of failed indices which were not restored
+     */
+    public synchronized int getFailedShards() {
+        int failedShards = 0;
+        for (IndexProgress indexProgress : indices.values())
+        {
+            if (indexProgress.state == IndexState.FAILED)
+                failedShards += indexProgress.totalShards - indexProgress.restoredShards;
+        }
+        return failedShards;
+    }
+
+    public synchronized long getTotalBytes() {
+        long totalBytes = 0;
+        for (IndexProgress indexProgress : indices.values())
+            totalBytes += indexProgress.totalBytes;
+        return totalBytes;
+    }
+
+    public synchronized int getTotalFiles() {
+        int totalFiles = 0;
+        for (IndexProgress indexProgress : indices.values())
+            totalFiles += indexProgress.totalFiles;
+        return totalFiles;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isCompleted() {
+        return state != State.RUNNING;
+    }
+
+    public synchronized IndexState getIndexState(String indexName) {
+        return getIndexProgress(indexName).state;
+    }
+
+    public synchronized long getDurationMillis() {
+        return (isCompleted() ? endTime : lastUpdateTime) - startTime;
+    }
+
+    /**
+     * Average of per index progress : sizes of queued indices are not known until their batch starts
+     */
+    public synchronized int getPercentComplete() {
+        if (indices.isEmpty())
+            return isCompleted() ? 100 : 0;
+        int total = 0;
+        for (IndexProgress indexProgress : indices.values())
+            total += indexProgress.getPercentComplete();
+        return total / indices.size();
+    }
+
+    public synchronized JSONObject toJson()
+    {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("repository", repositoryName);
+        jsonObject.put("snapshot", snapshotName);
+        jsonObject.put("state", state.name());
+        jsonObject.put("start_time", startTime);
+        jsonObject.put("duration_millis", getDurationMillis());
+        jsonObject.put("current_batch", currentBatch);
+        jsonObject.put("total_batches", totalBatches);
+        jsonObject.put("done_indices", countIndices(IndexState.DONE));
+        jsonObject.put("failed_indices", countIndices(IndexState.FAILED));
+        jsonObject.put("total_indices", indices.size());
+        jsonObject.put("percent_complete", getPercentComplete());
+        if (failureReason != null)
+            jsonObject.put("failure_reason", failureReason);
+        JSONObject indicesJson = new JSONObject();
+        for (Map.Entry<String, IndexProgress> entry : indices.entrySet())
+            indicesJson.put(entry.getKey(), entry.getValue().toJson());
+        jsonObject.put("indices", indicesJson);
+        return jsonObject;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "Restore of Snapshot <" + snapshotName + "> from Repository <" + repositoryName + "> : State = " + state +
+                ", Batch = " + currentBatch + "/" + totalBatches +
+                ", Indices done = " + countIndices(IndexState.DONE) + "/" + indices.size() + " (failed " + countIndices(IndexState.FAILED) + ")" +
+                ", Progress = " + getPercentComplete() + "%";
+    }
+
+    private int countIndices(IndexState indexState)
+    {
+        int count = 0;
+        for (IndexProgress indexProgress : indices.values())
+        {
+            if (indexProgress.state == indexState)
+                count++;
+        }
+        return count;
+    }
+
+    private IndexProgress getIndexProgress(String indexName)
+    {
+        IndexProgress indexProgress = indices.get(indexName);
+        if (indexProgress == null)
+            throw new IllegalArgumentException("Index <" + indexName + "> is not part of this Restore");
+        return indexProgress;
+    }
+
+    private static class IndexProgress
+    {
+        private IndexState state = IndexState.QUEUED;
+        private int totalShards;
+        private int restoredShards;
+        private long totalBytes;
+        private long recoveredBytes;
+        private int totalFiles;
+
+        private int getPercentComplete() {
+            if (state == IndexState.DONE || state == IndexState.FAILED)
+                return 100;
+            if (totalBytes > 0)
+                return (int) ((recoveredBytes * 100) / totalBytes);
+            if (totalShards > 0)
+                return (restoredShards * 100) / totalShards;
+            return 0;
+        }
+
+        private JSONObject toJson() {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("state", state.name());
+            jsonObject.put("total_shards", totalShards);
+            jsonObject.put("restored_shards", restoredShards);
+            jsonObject.put("total_bytes", totalBytes);
+            jsonObject.put("recovered_bytes", recoveredBytes);
+            jsonObject.put("total_files", totalFiles);
+            jsonObject.put("percent_complete", getPercentComplete());
+            return jsonObject;
+        }
+    }
+}
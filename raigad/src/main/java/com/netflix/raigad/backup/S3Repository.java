@@ -42,6 +42,8 @@ import org.slf4j.LoggerFactory;
  compress: When set to true metadata files are stored in compressed format. This setting doesn't affect index files that are already compressed by default. Defaults to false.
  server_side_encryption: When set to true files are encrypted on server side using AES256 algorithm. Defaults to false.
  max_retries: Number of retries in case of S3 errors. Defaults to 3.
+ max_snapshot_bytes_per_sec: Throttles per node snapshot rate. Defaults to 20mb per second.
+ max_restore_bytes_per_sec: Throttles per node restore rate. Defaults to 20mb per second.
 
  */
 @Singleton
@@ -127,13 +129,19 @@ public class S3Repository extends AbstractRepository
         }
     }
 
+    /**
+     * Shared Repository keeps Snapshots incremental across days, daily Repository (yyyyMMdd) starts a full copy every day
+     */
     @Override
     public String getRemoteRepositoryName() {
+        if (config.isSharedSnapshotRepositoryEnabled())
+            return config.getSharedSnapshotRepositoryName();
         DateTime dt = new DateTime();
         DateTime dtGmt = dt.withZone(currentZone);
         return SystemUtils.formatDate(dtGmt,S3_REPO_DATE_FORMAT);
     }
 
+    @Override
     public RepositoryType getRepositoryType()
     {
         return type;
@@ -159,6 +167,8 @@ public class S3Repository extends AbstractRepository
                                 .put("base_path", repositorySettingsParams.getBase_path())
                                 .put("region", repositorySettingsParams.getRegion())
                                 .put("bucket", repositorySettingsParams.getBucket())
+                                .put("max_snapshot_bytes_per_sec", config.getSnapshotMaxBytesPerSec())
+                                .put("max_restore_bytes_per_sec", config.getRestoreMaxBytesPerSec())
                 ).get();
     }
 }
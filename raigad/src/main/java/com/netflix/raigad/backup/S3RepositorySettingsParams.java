@@ -72,12 +72,13 @@ public class S3RepositorySettingsParams extends AbstractRepositorySettingsParams
     }
 
     //"base_path": "es_{current_cluster_name}/20140410"
+    //"base_path": "es_{current_cluster_name}/{shared_repository_name}" when Shared Repository is enabled
     public String getSnapshotBackupBasePath()
     {
         StringBuilder basePath = new StringBuilder();
         basePath.append(config.getAppName());
         basePath.append(PATH_SEP);
-        String repoSuffix = getS3RepositoryName();
+        String repoSuffix = config.isSharedSnapshotRepositoryEnabled() ? config.getSharedSnapshotRepositoryName() : getS3RepositoryName();
         basePath.append(repoSuffix);
         logger.info("S3 Repository Snapshot Base Path : <"+basePath.toString()+">");
         return basePath.toString();
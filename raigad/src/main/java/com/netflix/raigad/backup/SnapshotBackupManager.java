@@ -17,7 +17,6 @@ package com.netflix.raigad.backup;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.scheduler.CronTimer;
 import com.netflix.raigad.scheduler.SimpleTimer;
@@ -27,28 +26,39 @@ import com.netflix.raigad.utils.*;
 import com.netflix.servo.monitor.*;
 import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotShardsStats;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStats;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStatus;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotsStatusResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.SnapshotMetaData;
 import org.elasticsearch.rest.RestStatus;
-import org.elasticsearch.snapshots.SnapshotShardFailure;
+import org.elasticsearch.snapshots.SnapshotMissingException;
+import org.elasticsearch.snapshots.SnapshotInfo;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
 public class SnapshotBackupManager extends Task
 {
     private static final Logger logger = LoggerFactory.getLogger(SnapshotBackupManager.class);
     public static String JOBNAME = "SnapshotBackupManager";
-    private final AbstractRepository repository;
+    private final RepositoryFactory repositoryFactory;
+    private final SnapshotCatalog snapshotCatalog;
+    private final BackupMetricsHistory backupMetricsHistory;
     private final HttpModule httpModule;
     private final AtomicInteger snapshotSuccess = new AtomicInteger(0);
     private final AtomicInteger snapshotFailure = new AtomicInteger(0);
     private static final AtomicBoolean isSnapshotRunning = new AtomicBoolean(false);
+    private final AtomicReference<SnapshotProgress> snapshotProgress = new AtomicReference<SnapshotProgress>();
     private static final DateTimeZone currentZone = DateTimeZone.UTC;
     private static final String S3_REPO_FOLDER_DATE_FORMAT = "yyyyMMddHHmm";
     private static Timer snapshotDuration = new BasicTimer(MonitorConfig.builder("snapshotDuration").withTag("class","Elasticsearch_SnapshotBackupReporter").build(), TimeUnit.SECONDS);
@@ -57,9 +67,12 @@ public class SnapshotBackupManager extends Task
         Monitors.registerObject(snapshotDuration);
     }
     @Inject
-    public SnapshotBackupManager(IConfiguration config, @Named("s3")AbstractRepository repository, HttpModule httpModule) {
+    public SnapshotBackupManager(IConfiguration config, RepositoryFactory repositoryFactory, SnapshotCatalog snapshotCatalog, BackupMetricsHistory backupMetricsHistory,
+                                 HttpModule httpModule) {
         super(config);
-        this.repository = repository;
+        this.repositoryFactory = repositoryFactory;
+        this.snapshotCatalog = snapshotCatalog;
+        this.backupMetricsHistory = backupMetricsHistory;
         this.httpModule = httpModule;
     }
 
@@ -84,6 +97,12 @@ public class SnapshotBackupManager extends Task
                     return;
                 }
 
+                //Snapshot policies are run by SnapshotScheduler instead
+                if (StringUtils.isNotBlank(config.getSnapshotPolicies())) {
+                    logger.info("Snapshot policies are configured, hence Snapshots are run by SnapshotScheduler");
+                    return;
+                }
+
                 //Run Snapshot Backup
                 runSnapshotBackup();
             }
@@ -100,24 +119,54 @@ public class SnapshotBackupManager extends Task
 
     public void runSnapshotBackup() throws Exception
     {
+        runSnapshotBackup(null, config.getCommaSeparatedIndicesToBackup(), config.includeGlobalStateDuringBackup());
+    }
+
+    /**
+     * @param policyName name of the Snapshot policy, part of the Snapshot name. null for the default Snapshot
+     * @param indices comma separated indices (or patterns) to Snapshot
+     * @return true if the Snapshot was started (or, when waiting for completion, completed successfully)
+     */
+    public boolean runSnapshotBackup(String policyName, String indices, boolean includeGlobalState) throws Exception
+    {
+        SnapshotProgress runningSnapshot = snapshotProgress.get();
+        if (runningSnapshot != null && !runningSnapshot.isCompleted()) {
+            logger.info("Snapshot <" + runningSnapshot.getSnapshotName() + "> is still running, hence not starting a new Snapshot. " + runningSnapshot);
+            return false;
+        }
+
         // Create or Get Repository
-        String repositoryName = repository.createOrGetSnapshotRepository();
+        String repositoryName = repositoryFactory.getBackupRepository().createOrGetSnapshotRepository();
 
         // StartBackup
-        String snapshotName = getSnapshotName(config.getCommaSeparatedIndicesToBackup(), config.includeIndexNameInSnapshot());
+        String snapshotName = policyName == null ? getSnapshotName(indices, config.includeIndexNameInSnapshot()) : getSnapshotName(policyName);
         logger.info("Repository Name : <"+repositoryName+"> Snapshot Name : <"+snapshotName+"> \nRunning Snapshot now ... ");
 
         Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
 
+        if (!config.waitForCompletionOfBackup())
+        {
+            //Non-blocking call, progress is tracked by updateSnapshotProgress()
+            CreateSnapshotResponse createSnapshotResponse = getCreateSnapshotResponse(esTransportClient,repositoryName,snapshotName,indices,includeGlobalState);
+            if (createSnapshotResponse.status() == RestStatus.ACCEPTED || createSnapshotResponse.status() == RestStatus.OK) {
+                snapshotProgress.set(new SnapshotProgress(repositoryName, snapshotName, System.currentTimeMillis()));
+                isSnapshotRunning.set(true);
+                logger.info("Snapshot <" + snapshotName + "> started, progress will be tracked every " + config.getSnapshotProgressPollIntervalInSeconds() + " seconds");
+                return true;
+            }
+            logger.info("Snapshot <" + snapshotName + "> could not be started, Status = " + createSnapshotResponse.status());
+            snapshotFailure.incrementAndGet();
+            return false;
+        }
+
         Stopwatch snapshotTimer = snapshotDuration.start();
         //This is a blocking call. It'll wait until Snapshot is finished.
-        CreateSnapshotResponse createSnapshotResponse =  getCreateSnapshotResponse(esTransportClient,repositoryName,snapshotName);
+        CreateSnapshotResponse createSnapshotResponse =  getCreateSnapshotResponse(esTransportClient,repositoryName,snapshotName,indices,includeGlobalState);
 
         logger.info("Snapshot Status = "+createSnapshotResponse.status().toString());
         if(createSnapshotResponse.status() == RestStatus.OK)
         {
-            //TODO Add Servo Monitoring so that it can be verified from dashboard
-            printSnapshotDetails(createSnapshotResponse);
+            recordSnapshot(esTransportClient, repositoryName, createSnapshotResponse.getSnapshotInfo(), null);
             snapshotSuccess.incrementAndGet();
         }
         else if (createSnapshotResponse.status() == RestStatus.INTERNAL_SERVER_ERROR) {
@@ -127,40 +176,108 @@ public class SnapshotBackupManager extends Task
         }
         //Stop the timer
         snapshotTimer.stop();
+        return createSnapshotResponse.status() == RestStatus.OK;
     }
 
-    //TODO: Map to Java Class and Create JSON
-    public void printSnapshotDetails(CreateSnapshotResponse createSnapshotResponse)
+    /**
+     * Polls Snapshot Status of the Snapshot started by runSnapshotBackup() (if any is still running)
+     * and records the final outcome once Elasticsearch reports it as completed.
+     */
+    public void updateSnapshotProgress()
     {
-        StringBuilder builder = new StringBuilder();
-        builder.append("Snapshot Details:");
-        builder.append("\n\t Name = "+createSnapshotResponse.getSnapshotInfo().name());
-        builder.append("\n\t Indices : ");
-        for(String index:createSnapshotResponse.getSnapshotInfo().indices())
+        SnapshotProgress progress = snapshotProgress.get();
+        if (progress == null || progress.isCompleted())
+            return;
+
+        try {
+            Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+            SnapshotsStatusResponse snapshotsStatusResponse = getSnapshotsStatusResponse(esTransportClient, progress.getRepositoryName(), progress.getSnapshotName());
+            long now = System.currentTimeMillis();
+
+            if (snapshotsStatusResponse.getSnapshots().isEmpty()) {
+                completeSnapshot(progress, SnapshotProgress.State.FAILED, now, "Snapshot Status is not available");
+                return;
+            }
+
+            SnapshotStatus snapshotStatus = snapshotsStatusResponse.getSnapshots().get(0);
+            SnapshotShardsStats shardsStats = snapshotStatus.getShardsStats();
+            progress.update(shardsStats.getTotalShards(), shardsStats.getDoneShards(), shardsStats.getFailedShards(),
+                    snapshotStatus.getStats().getTotalSize(), snapshotStatus.getStats().getProcessedSize(), now);
+
+            if (config.isDebugEnabled())
+                logger.debug(progress.toString());
+
+            if (snapshotStatus.getState().completed())
+            {
+                List<SnapshotInfo> snapshotInfos = getSnapshotInfos(esTransportClient, progress.getRepositoryName(), progress.getSnapshotName());
+                if (!snapshotInfos.isEmpty())
+                    recordSnapshot(esTransportClient, progress.getRepositoryName(), snapshotInfos.get(0), snapshotStatus.getStats());
+                if (snapshotStatus.getState() == SnapshotMetaData.State.SUCCESS)
+                    completeSnapshot(progress, shardsStats.getFailedShards() > 0 ? SnapshotProgress.State.PARTIAL : SnapshotProgress.State.SUCCESS, now, null);
+                else
+                    completeSnapshot(progress, SnapshotProgress.State.FAILED, now, "Snapshot State = " + snapshotStatus.getState());
+            }
+        }
+        catch (SnapshotMissingException e)
         {
-            builder.append("\n\t\t Index = "+index);
+            completeSnapshot(progress, SnapshotProgress.State.FAILED, System.currentTimeMillis(), e.getMessage());
         }
-        builder.append("\n\t Start Time = "+createSnapshotResponse.getSnapshotInfo().startTime());
-        builder.append("\n\t End Time = "+createSnapshotResponse.getSnapshotInfo().endTime());
-        long minuteDuration =  (createSnapshotResponse.getSnapshotInfo().endTime() - createSnapshotResponse.getSnapshotInfo().startTime())/(1000*60);
-        builder.append("\n\t Total Time Taken = " + minuteDuration + " Minutes");
-        builder.append("\n\t Total Shards = "+createSnapshotResponse.getSnapshotInfo().totalShards());
-        builder.append("\n\t Successful Shards = "+createSnapshotResponse.getSnapshotInfo().successfulShards());
-        builder.append("\n\t Total Failed Shards = "+createSnapshotResponse.getSnapshotInfo().failedShards());
-
-        if(createSnapshotResponse.getSnapshotInfo().failedShards() > 0)
+        catch (Exception e)
         {
-            for(SnapshotShardFailure failedShard:createSnapshotResponse.getSnapshotInfo().shardFailures())
-            {
-                builder.append("\n\t Failed Shards : ");
-                builder.append("\n\t\t Index = " + failedShard.index());
-                builder.append("\n\t\t Shard Id = "+failedShard.shardId());
-                builder.append("\n\t\t Node Id = "+failedShard.nodeId());
-                builder.append("\n\t\t Reason = "+failedShard.reason());
-            }
+            logger.warn("Exception thrown while checking progress of Snapshot <" + progress.getSnapshotName() + ">", e);
+        }
+    }
+
+    private void completeSnapshot(SnapshotProgress progress, SnapshotProgress.State state, long endTime, String failureReason)
+    {
+        progress.complete(state, endTime, failureReason);
+        isSnapshotRunning.set(false);
+        snapshotDuration.record(progress.getDurationMillis(), TimeUnit.MILLISECONDS);
+
+        if (state == SnapshotProgress.State.FAILED) {
+            logger.info("Snapshot Completely Failed. " + progress + ", Reason = " + failureReason);
+            snapshotFailure.incrementAndGet();
         }
+        else {
+            //Partial Snapshots are counted as success, same as a blocking Snapshot with failed shards
+            logger.info("Snapshot Finished in " + TimeUnit.MILLISECONDS.toMinutes(progress.getDurationMillis()) + " Minutes. " + progress);
+            snapshotSuccess.incrementAndGet();
+        }
+    }
 
-        logger.info(builder.toString());
+    public boolean isSnapshotInProgress()
+    {
+        SnapshotProgress progress = snapshotProgress.get();
+        return progress != null && !progress.isCompleted();
+    }
+
+    /**
+     * @return Latest Snapshot started without waiting for completion (running or completed), null if none
+     */
+    public SnapshotProgress getSnapshotProgress()
+    {
+        return snapshotProgress.get();
+    }
+
+    /**
+     * Adds a completed Snapshot to the Snapshot Catalog and records its metrics
+     * @param snapshotStats Sizes of the Snapshot, read from its Snapshot Status if null
+     */
+    private void recordSnapshot(Client esTransportClient, String repositoryName, SnapshotInfo snapshotInfo, SnapshotStats snapshotStats)
+    {
+        snapshotCatalog.putSnapshot(repositoryName, SnapshotCatalog.Entry.fromSnapshotInfo(snapshotInfo));
+        try {
+            if (snapshotStats == null) {
+                SnapshotsStatusResponse snapshotsStatusResponse = getSnapshotsStatusResponse(esTransportClient, repositoryName, snapshotInfo.name());
+                if (!snapshotsStatusResponse.getSnapshots().isEmpty())
+                    snapshotStats = snapshotsStatusResponse.getSnapshots().get(0).getStats();
+            }
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to get Snapshot Status of Snapshot <" + snapshotInfo.name() + ">", e);
+        }
+        backupMetricsHistory.record(BackupOperationMetrics.fromSnapshot(repositoryName, snapshotInfo, snapshotStats));
     }
 
     public static TaskTimer getTimer(IConfiguration config)
@@ -181,8 +298,25 @@ public class SnapshotBackupManager extends Task
         return JOBNAME;
     }
 
+    /**
+     * Snapshot name of a Snapshot policy : [prefix]{policy name}_yyyyMMddHHmm
+     */
+    public String getSnapshotName(String policyName) {
+        StringBuilder snapshotName = new StringBuilder();
+        if (StringUtils.isNotBlank(config.getSnapshotNamePrefix()))
+            snapshotName.append(config.getSnapshotNamePrefix());
+        snapshotName.append(policyName.toLowerCase()).append("_");
+
+        DateTime dt = new DateTime();
+        DateTime dtGmt = dt.withZone(currentZone);
+        snapshotName.append(SystemUtils.formatDate(dtGmt, S3_REPO_FOLDER_DATE_FORMAT));
+        return snapshotName.toString();
+    }
+
     public String getSnapshotName(String indices,boolean includeIndexNameInSnapshot) {
         StringBuilder snapshotName = new StringBuilder();
+        if (StringUtils.isNotBlank(config.getSnapshotNamePrefix()))
+            snapshotName.append(config.getSnapshotNamePrefix());
         if (includeIndexNameInSnapshot) {
             String indexName;
             if (indices.toLowerCase().equals("all"))
@@ -207,14 +341,24 @@ public class SnapshotBackupManager extends Task
         return snapshotFailure.get();
     }
 
-    public CreateSnapshotResponse getCreateSnapshotResponse(Client esTransportClient,String repositoryName, String snapshotName)
+    public CreateSnapshotResponse getCreateSnapshotResponse(Client esTransportClient,String repositoryName, String snapshotName, String indices, boolean includeGlobalState)
     {
        return esTransportClient.admin().cluster().prepareCreateSnapshot(repositoryName, snapshotName)
                .setWaitForCompletion(config.waitForCompletionOfBackup())
-               .setIndices(config.getCommaSeparatedIndicesToBackup())
-               .setIncludeGlobalState(config.includeGlobalStateDuringBackup())
+               .setIndices(indices)
+               .setIncludeGlobalState(includeGlobalState)
                .setPartial(config.partiallyBackupIndices()).get();
     }
+
+    public SnapshotsStatusResponse getSnapshotsStatusResponse(Client esTransportClient, String repositoryName, String snapshotName)
+    {
+        return esTransportClient.admin().cluster().prepareSnapshotStatus(repositoryName).setSnapshots(snapshotName).get();
+    }
+
+    public List<SnapshotInfo> getSnapshotInfos(Client esTransportClient, String repositoryName, String snapshotName)
+    {
+        return esTransportClient.admin().cluster().prepareGetSnapshots(repositoryName).setSnapshots(snapshotName).get().getSnapshots();
+    }
     //                (esTransportClient.admin().cluster().prepareGetSnapshots("test-repo").setSnapshots("test-snap").get().getSnapshots().get(0).state());//, equalTo(SnapshotState.SUCCESS));
 
     /*
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.snapshots.SnapshotInfo;
+import org.elasticsearch.snapshots.SnapshotState;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Snapshots of every Repository, indexed by start time and by included index, so that the latest Snapshot
+ * (containing given indices) is found without listing the Repository.
+ *
+ * Elasticsearch only lists a Repository by reading every Snapshot in it, so a Repository is fully listed when
+ * first used and then every config.getSnapshotCatalogRefreshIntervalInSeconds() (SnapshotCatalogManager),
+ * and Snapshots taken or deleted by Raigad are added or removed one by one in between.
+ */
+@Singleton
+public class SnapshotCatalog
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCatalog.class);
+    private final IConfiguration config;
+    private final Map<String, RepositoryCatalog> repositories = new HashMap<String, RepositoryCatalog>();
+
+    @Inject
+    public SnapshotCatalog(IConfiguration config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * @param indices Concrete index names the Snapshot must contain, empty for any Snapshot
+     * @return Latest successful Snapshot, null if none. Repository is listed first if it is not known yet or due for refresh.
+     */
+    public String getLatestSnapshot(Client esTransportClient, String repositoryName, Collection<String> indices)
+    {
+        if (isRefreshDue(repositoryName, System.currentTimeMillis()))
+            refreshRepository(esTransportClient, repositoryName);
+        Entry entry = findLatestSnapshot(repositoryName, indices);
+        return entry == null ? null : entry.getName();
+    }
+
+    /**
+     * Full listing of the Repository, replaces what is known about it
+     */
+    public void refreshRepository(Client esTransportClient, String repositoryName)
+    {
+        long startTime = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<Entry>();
+        for (SnapshotInfo snapshotInfo : getSnapshots(esTransportClient, repositoryName))
+            entries.add(Entry.fromSnapshotInfo(snapshotInfo));
+        replaceRepository(repositoryName, entries, startTime);
+        logger.info("Listed " + entries.size() + " Snapshots of Repository <" + repositoryName + "> in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    public synchronized void replaceRepository(String repositoryName, Collection<Entry> entries, long refreshTime)
+    {
+        RepositoryCatalog repositoryCatalog = new RepositoryCatalog(refreshTime);
+        for (Entry entry : entries)
+            repositoryCatalog.put(entry);
+        repositories.put(repositoryName, repositoryCatalog);
+    }
+
+    public synchronized void putSnapshot(String repositoryName, Entry entry)
+    {
+        RepositoryCatalog repositoryCatalog = repositories.get(repositoryName);
+        if (repositoryCatalog != null)
+            repositoryCatalog.put(entry);
+    }
+
+    public synchronized void removeSnapshot(String repositoryName, String snapshotName)
+    {
+        RepositoryCatalog repositoryCatalog = repositories.get(repositoryName);
+        if (repositoryCatalog != null)
+            repositoryCatalog.remove(snapshotName);
+    }
+
+    /**
+     * Forget Repositories which are no longer registered
+     */
+    public synchronized void retainRepositories(Collection<String> repositoryNames)
+    {
+        repositories.keySet().retainAll(repositoryNames);
+    }
+
+    public synchronized boolean hasRepository(String repositoryName)
+    {
+        return repositories.containsKey(repositoryName);
+    }
+
+    public synchronized boolean isRefreshDue(String repositoryName, long now)
+    {
+        RepositoryCatalog repositoryCatalog = repositories.get(repositoryName);
+        return repositoryCatalog == null || now - repositoryCatalog.refreshTime >= config.getSnapshotCatalogRefreshIntervalInSeconds() * 1000L;
+    }
+
+    public synchronized Entry findLatestSnapshot(String repositoryName, Collection<String> indices)
+    {
+        RepositoryCatalog repositoryCatalog = repositories.get(repositoryName);
+        if (repositoryCatalog == null)
+            return null;
+
+        //Walk the Snapshots of the rarest index, newest first
+        Set<Entry> candidates = repositoryCatalog.byTime;
+        for (String index : indices)
+        {
+            Set<Entry> indexEntries = repositoryCatalog.byIndex.get(index);
+            if (indexEntries == null)
+                return null;
+            if (indexEntries.size() < candidates.size())
+                candidates = indexEntries;
+        }
+
+        for (Entry entry : candidates)
+        {
+            if (entry.isSuccessful() && entry.getIndices().containsAll(indices))
+                return entry;
+        }
+        return null;
+    }
+
+    /**
+     * @return Snapshots of the Repository, newest first
+     */
+    public synchronized List<Entry> getSnapshots(String repositoryName)
+    {
+        RepositoryCatalog repositoryCatalog = repositories.get(repositoryName);
+        if (repositoryCatalog == null)
+            return Collections.emptyList();
+        return new ArrayList<Entry>(repositoryCatalog.byTime);
+    }
+
+    public synchronized JSONObject toJson(String repositoryName)
+    {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("repository", repositoryName);
+        RepositoryCatalog repositoryCatalog = repositories.get(repositoryName);
+        if (repositoryCatalog == null)
+            return jsonObject;
+        jsonObject.put("refresh_time", repositoryCatalog.refreshTime);
+        JSONArray snapshots = new JSONArray();
+        for (Entry entry : repositoryCatalog.byTime)
+            snapshots.add(entry.toJson());
+        jsonObject.put("snapshots", snapshots);
+        return jsonObject;
+    }
+
+    /**
+     * Following method is isolated so that it helps in Unit Testing for Mocking
+     */
+    public List<SnapshotInfo> getSnapshots(Client esTransportClient, String repositoryName)
+    {
+        return esTransportClient.admin().cluster().prepareGetSnapshots(repositoryName).get().getSnapshots();
+    }
+
+    private static class RepositoryCatalog
+    {
+        private final long refreshTime;
+        private final Map<String, Entry> byName = new HashMap<String, Entry>();
+        private final TreeSet<Entry> byTime = new TreeSet<Entry>(Entry.NEWEST_FIRST);
+        private final Map<String, TreeSet<Entry>> byIndex = new HashMap<String, TreeSet<Entry>>();
+
+        private RepositoryCatalog(long refreshTime)
+        {
+            this.refreshTime = refreshTime;
+        }
+
+        private void put(Entry entry)
+        {
+            remove(entry.getName());
+            byName.put(entry.getName(), entry);
+            byTime.add(entry);
+            for (String index : entry.getIndices())
+            {
+                TreeSet<Entry> indexEntries = byIndex.get(index);
+                if (indexEntries == null) {
+                    indexEntries = new TreeSet<Entry>(Entry.NEWEST_FIRST);
+                    byIndex.put(index, indexEntries);
+                }
+                indexEntries.add(entry);
+            }
+        }
+
+        private void remove(String snapshotName)
+        {
+            Entry entry = byName.remove(snapshotName);
+            if (entry == null)
+                return;
+            byTime.remove(entry);
+            for (String index : entry.getIndices())
+            {
+                TreeSet<Entry> indexEntries = byIndex.get(index);
+                if (indexEntries == null)
+                    continue;
+                indexEntries.remove(entry);
+                if (indexEntries.isEmpty())
+                    byIndex.remove(index);
+            }
+        }
+    }
+
+    public static class Entry
+    {
+        static final Comparator<Entry> NEWEST_FIRST = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                if (e1.startTime != e2.startTime)
+                    return e1.startTime > e2.startTime ? -1 : 1;
+                return e2.name.compareTo(e1.name);
+            }
+        };
+
+        private final String name;
+        private final long startTime;
+        private final long endTime;
+        private final SnapshotState state;
+        private final List<String> indices;
+
+        public Entry(String name, long startTime, long endTime, SnapshotState state, List<String> indices)
+        {
+            this.name = name;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.state = state;
+            this.indices = indices;
+        }
+
+        public static Entry fromSnapshotInfo(SnapshotInfo snapshotInfo)
+        {
+            return new Entry(snapshotInfo.name(), snapshotInfo.startTime(), snapshotInfo.endTime(), snapshotInfo.state(), snapshotInfo.indices());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public SnapshotState getState() {
+            return state;
+        }
+
+        public List<String> getIndices() {
+            return indices;
+        }
+
+        public boolean isSuccessful() {
+            return state == SnapshotState.SUCCESS;
+        }
+
+        public JSONObject toJson()
+        {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("snapshot", name);
+            jsonObject.put("state", state.name());
+            jsonObject.put("start_time", startTime);
+            jsonObject.put("end_time", endTime);
+            JSONArray indicesJson = new JSONArray();
+            indicesJson.addAll(indices);
+            jsonObject.put("indices", indicesJson);
+            return jsonObject;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.HttpModule;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lists backup and restore Repositories into the SnapshotCatalog when they are due for refresh.
+ * Other Repositories (verification copies, Repositories of other types) are only listed when looked up.
+ */
+@Singleton
+public class SnapshotCatalogManager extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCatalogManager.class);
+    public static String JOBNAME = "SnapshotCatalogManager";
+    //Runs more often than the refresh interval so that Repositories registered in between are listed early
+    private static final long RUN_INTERVAL_SECONDS = 300;
+    private final SnapshotCatalog snapshotCatalog;
+    private final HttpModule httpModule;
+
+    @Inject
+    public SnapshotCatalogManager(IConfiguration config, SnapshotCatalog snapshotCatalog, HttpModule httpModule)
+    {
+        super(config);
+        this.snapshotCatalog = snapshotCatalog;
+        this.httpModule = httpModule;
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            //Confirm if Current Node is a Master Node
+            if (!EsUtils.amIMasterNode(config, httpModule))
+            {
+                if (config.isDebugEnabled())
+                    logger.debug("Current node is not a Master Node yet, hence not refreshing Snapshot Catalog");
+                return;
+            }
+
+            if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+                logger.info("Elasticsearch is not yet started, hence not refreshing Snapshot Catalog");
+                return;
+            }
+
+            refreshRepositories(false);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while refreshing Snapshot Catalog", e);
+        }
+    }
+
+    /**
+     * @param force true to list every Repository, false for Repositories due for refresh only
+     */
+    public void refreshRepositories(boolean force) throws Exception
+    {
+        Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+        RepositoriesMetaData repositoriesMetaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get()
+                .getState().getMetaData().custom(RepositoriesMetaData.TYPE);
+
+        Set<String> repositoryTypes = new HashSet<String>();
+        repositoryTypes.add(RepositoryFactory.getRepositoryType(config.getBackupRepositoryType()).name());
+        repositoryTypes.add(RepositoryFactory.getRepositoryType(config.getRestoreRepositoryType()).name());
+
+        List<String> repositoryNames = new ArrayList<String>();
+        if (repositoriesMetaData != null) {
+            for (RepositoryMetaData repositoryMetaData : repositoriesMetaData.repositories())
+            {
+                if (isCatalogued(repositoryMetaData, repositoryTypes))
+                    repositoryNames.add(repositoryMetaData.name());
+            }
+        }
+        snapshotCatalog.retainRepositories(repositoryNames);
+
+        long now = System.currentTimeMillis();
+        for (String repositoryName : repositoryNames)
+        {
+            if (!force && !snapshotCatalog.isRefreshDue(repositoryName, now))
+                continue;
+            try {
+                snapshotCatalog.refreshRepository(esTransportClient, repositoryName);
+            }
+            catch (Exception e)
+            {
+                logger.warn("Unable to list Snapshots of Repository <" + repositoryName + ">", e);
+            }
+        }
+    }
+
+    /**
+     * Backup and restore Repositories share the configured types, verification copies are registered only while in use
+     */
+    static boolean isCatalogued(RepositoryMetaData repositoryMetaData, Set<String> repositoryTypes)
+    {
+        return repositoryTypes.contains(repositoryMetaData.type().toLowerCase())
+                && !repositoryMetaData.name().endsWith(SnapshotVerificationManager.VERIFY_REPOSITORY_SUFFIX);
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, Math.min(RUN_INTERVAL_SECONDS, config.getSnapshotCatalogRefreshIntervalInSeconds()) * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Snapshot of a group of indices on its own schedule, eg.
+ *
+ *     {"name":"critical","indices":"orders*,users","intervalInSeconds":3600,"priority":10,"includeGlobalState":false}
+ *
+ * Higher priority policies are started first when several policies are due at the same time.
+ */
+public class SnapshotPolicy {
+
+    private final String name;
+    private final String indices;
+    private final int intervalInSeconds;
+    private final int priority;
+    private final Boolean includeGlobalState;
+
+    @JsonCreator
+    public SnapshotPolicy(
+            @JsonProperty("name") String name,
+            @JsonProperty("indices") String indices,
+            @JsonProperty("intervalInSeconds") int intervalInSeconds,
+            @JsonProperty("priority") int priority,
+            @JsonProperty("includeGlobalState") Boolean includeGlobalState) {
+
+        if (StringUtils.isBlank(name))
+            throw new IllegalArgumentException("Snapshot policy name is missing");
+        if (StringUtils.isBlank(indices))
+            throw new IllegalArgumentException("Snapshot policy <" + name + "> has no indices");
+        if (intervalInSeconds <= 0)
+            throw new IllegalArgumentException("Snapshot policy <" + name + "> has no valid intervalInSeconds");
+
+        this.name = name;
+        this.indices = indices;
+        this.intervalInSeconds = intervalInSeconds;
+        this.priority = priority;
+        this.includeGlobalState = includeGlobalState;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotPolicy{" +
+                "name='" + name + '\'' +
+                ", indices='" + indices + '\'' +
+                ", intervalInSeconds=" + intervalInSeconds +
+                ", priority=" + priority +
+                '}';
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIndices() {
+        return indices;
+    }
+
+    public int getIntervalInSeconds() {
+        return intervalInSeconds;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return null if not set, in which case config.includeGlobalStateDuringBackup() applies
+     */
+    public Boolean getIncludeGlobalState() {
+        return includeGlobalState;
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queue of due Snapshot policies. Elasticsearch runs one Snapshot at a time, so due policies wait here
+ * ordered by priority (FIFO within the same priority). A policy is queued at most once, so a policy
+ * which stays due while other Snapshots run is taken only once when its turn comes.
+ */
+public class SnapshotPolicyQueue
+{
+    private final LinkedList<SnapshotPolicy> queue = new LinkedList<SnapshotPolicy>();
+    private final Map<String, Long> lastStartTimes = new HashMap<String, Long>();
+
+    /**
+     * Queue policies whose interval has passed since they were last started. Policies never started are due right away.
+     */
+    public synchronized void enqueueDuePolicies(Collection<SnapshotPolicy> policies, long now)
+    {
+        for (SnapshotPolicy policy : policies)
+        {
+            if (isQueued(policy.getName()))
+                continue;
+
+            Long lastStartTime = lastStartTimes.get(policy.getName());
+            if (lastStartTime != null && now - lastStartTime < policy.getIntervalInSeconds() * 1000L)
+                continue;
+
+            int position = 0;
+            while (position < queue.size() && queue.get(position).getPriority() >= policy.getPriority())
+                position++;
+            queue.add(position, policy);
+        }
+    }
+
+    /**
+     * @return Next policy to run, null if nothing is due. The policy stays at the head of the queue until it is marked as started
+     */
+    public synchronized SnapshotPolicy peekNext()
+    {
+        return queue.peek();
+    }
+
+    /**
+     * Take the policy off the queue and record it as started at the given time.
+     * Only called once its Snapshot has started, so a failed start is retried on the next run instead of waiting a whole interval.
+     */
+    public synchronized void markStarted(SnapshotPolicy policy, long now)
+    {
+        for (Iterator<SnapshotPolicy> it = queue.iterator(); it.hasNext(); )
+        {
+            if (it.next().getName().equals(policy.getName()))
+                it.remove();
+        }
+        lastStartTimes.put(policy.getName(), now);
+    }
+
+    /**
+     * Forget policies which were removed from configuration
+     */
+    public synchronized void retainPolicies(Collection<SnapshotPolicy> policies)
+    {
+        Set<String> names = new HashSet<String>();
+        for (SnapshotPolicy policy : policies)
+            names.add(policy.getName());
+
+        for (Iterator<SnapshotPolicy> it = queue.iterator(); it.hasNext(); )
+        {
+            if (!names.contains(it.next().getName()))
+                it.remove();
+        }
+        lastStartTimes.keySet().retainAll(names);
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return queue.isEmpty();
+    }
+
+    public synchronized List<String> getQueuedPolicyNames()
+    {
+        List<String> names = new ArrayList<String>();
+        for (SnapshotPolicy policy : queue)
+            names.add(policy.getName());
+        return names;
+    }
+
+    public synchronized Long getLastStartTime(String policyName)
+    {
+        return lastStartTimes.get(policyName);
+    }
+
+    private boolean isQueued(String policyName)
+    {
+        for (SnapshotPolicy policy : queue)
+        {
+            if (policy.getName().equals(policyName))
+                return true;
+        }
+        return false;
+    }
+}
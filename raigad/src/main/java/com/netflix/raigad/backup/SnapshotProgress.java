@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Progress of a Snapshot which was started without waiting for completion.
+ * Updated from Snapshot Status polls, read by REST and Servo reporters.
+ */
+public class SnapshotProgress
+{
+    public static final long UNKNOWN_ETA = -1;
+
+    public enum State {
+        RUNNING, SUCCESS, PARTIAL, FAILED
+    }
+
+    private final String repositoryName;
+    private final String snapshotName;
+    private final long startTime;
+    private State state = State.RUNNING;
+    private int totalShards;
+    private int doneShards;
+    private int failedShards;
+    private long totalBytes;
+    private long processedBytes;
+    private long lastUpdateTime;
+    private long endTime;
+    private String failureReason;
+
+    public SnapshotProgress(String repositoryName, String snapshotName, long startTime)
+    {
+        this.repositoryName = repositoryName;
+        this.snapshotName = snapshotName;
+        this.startTime = startTime;
+        this.lastUpdateTime = startTime;
+    }
+
+    public synchronized void update(int totalShards, int doneShards, int failedShards, long totalBytes, long processedBytes, long updateTime)
+    {
+        this.totalShards = totalShards;
+        this.doneShards = doneShards;
+        this.failedShards = failedShards;
+        this.totalBytes = totalBytes;
+        this.processedBytes = processedBytes;
+        this.lastUpdateTime = updateTime;
+    }
+
+    public synchronized void complete(State state, long endTime, String failureReason)
+    {
+        this.state = state;
+        this.endTime = endTime;
+        this.lastUpdateTime = endTime;
+        this.failureReason = failureReason;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isCompleted() {
+        return state != State.RUNNING;
+    }
+
+    public synchronized int getTotalShards() {
+        return totalShards;
+    }
+
+    public synchronized int getDoneShards() {
+        return doneShards;
+    }
+
+    public synchronized int getFailedShards() {
+        return failedShards;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public synchronized String getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * @return Elapsed time so far for a running Snapshot, total time for a completed one
+     */
+    public synchronized long getDurationMillis() {
+        return (isCompleted() ? endTime : lastUpdateTime) - startTime;
+    }
+
+    public synchronized long getBytesPerSecond() {
+        long durationMillis = getDurationMillis();
+        if (durationMillis <= 0)
+            return 0;
+        return (processedBytes * 1000) / durationMillis;
+    }
+
+    /**
+     * Byte based progress, falls back to shard based progress until file sizes are known
+     */
+    public synchronized int getPercentComplete() {
+        if (isCompleted())
+            return 100;
+        if (totalBytes > 0)
+            return (int) ((processedBytes * 100) / totalBytes);
+        if (totalShards > 0)
+            return (doneShards * 100) / totalShards;
+        return 0;
+    }
+
+    /**
+     * @return Estimated seconds until completion at the current throughput, or {@link #UNKNOWN_ETA}
+     */
+    public synchronized long getEtaSeconds() {
+        if (isCompleted())
+            return 0;
+        long bytesPerSecond = getBytesPerSecond();
+        if (totalBytes <= 0 || bytesPerSecond <= 0)
+            return UNKNOWN_ETA;
+        return (totalBytes - processedBytes) / bytesPerSecond;
+    }
+
+    public synchronized JSONObject toJson()
+    {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("repository", repositoryName);
+        jsonObject.put("snapshot", snapshotName);
+        jsonObject.put("state", state.name());
+        jsonObject.put("start_time", startTime);
+        jsonObject.put("duration_millis", getDurationMillis());
+        jsonObject.put("total_shards", totalShards);
+        jsonObject.put("done_shards", doneShards);
+        jsonObject.put("failed_shards", failedShards);
+        jsonObject.put("total_bytes", totalBytes);
+        jsonObject.put("processed_bytes", processedBytes);
+        jsonObject.put("percent_complete", getPercentComplete());
+        jsonObject.put("bytes_per_second", getBytesPerSecond());
+        jsonObject.put("eta_seconds", getEtaSeconds());
+        if (failureReason != null)
+            jsonObject.put("failure_reason", failureReason);
+        return jsonObject;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "Snapshot <" + snapshotName + "> in Repository <" + repositoryName + "> : State = " + state +
+                ", Shards = " + doneShards + "/" + totalShards + " (failed " + failedShards + ")" +
+                ", Bytes = " + processedBytes + "/" + totalBytes +
+                ", Throughput = " + getBytesPerSecond() + " bytes/sec, ETA = " + getEtaSeconds() + " sec";
+    }
+}
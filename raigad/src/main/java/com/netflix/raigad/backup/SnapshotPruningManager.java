@@ -0,0 +1,336 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.HttpModule;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.admin.cluster.snapshots.delete.DeleteSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotsStatusResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.elasticsearch.cluster.metadata.SnapshotMetaData;
+import org.elasticsearch.snapshots.SnapshotInfo;
+import org.elasticsearch.snapshots.SnapshotState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes Snapshots which are not retained by {@link SnapshotRetentionPolicy}
+ * and unregisters daily Repositories which no longer hold any Snapshot.
+ * With a Shared Repository, deleting Snapshots is what releases segment files no longer referenced by any Snapshot.
+ */
+@Singleton
+public class SnapshotPruningManager extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotPruningManager.class);
+    public static String JOBNAME = "SnapshotPruningManager";
+    //Daily Repositories created by S3Repository are named yyyyMMdd
+    private static final String DAILY_REPOSITORY_NAME_PATTERN = "\\d{8}";
+    private final RepositoryFactory repositoryFactory;
+    private final SnapshotCatalog snapshotCatalog;
+    private final HttpModule httpModule;
+    private final Elasticsearch_SnapshotPruningReporter snapshotPruningReporter;
+
+    @Inject
+    public SnapshotPruningManager(IConfiguration config, RepositoryFactory repositoryFactory, SnapshotCatalog snapshotCatalog, HttpModule httpModule)
+    {
+        super(config);
+        this.repositoryFactory = repositoryFactory;
+        this.snapshotCatalog = snapshotCatalog;
+        this.httpModule = httpModule;
+        snapshotPruningReporter = new Elasticsearch_SnapshotPruningReporter();
+        Monitors.registerObject(snapshotPruningReporter);
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            //Confirm if Current Node is a Master Node
+            if (!EsUtils.amIMasterNode(config, httpModule))
+            {
+                if (config.isDebugEnabled())
+                    logger.debug("Current node is not a Master Node yet, hence not pruning Snapshots");
+                return;
+            }
+
+            if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+                logger.info("Elasticsearch is not yet started, hence not pruning Snapshots");
+                return;
+            }
+
+            if (!config.isSnapshotPruningEnabled()) {
+                logger.info("Snapshot Pruning is disabled, hence not pruning Snapshots");
+                return;
+            }
+
+            runSnapshotPruning();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while pruning Snapshots", e);
+        }
+    }
+
+    public void runSnapshotPruning() throws Exception
+    {
+        Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+
+        //Deleting files of a Repository while a Snapshot is writing into it is not safe
+        SnapshotMetaData snapshotMetaData = metaData.custom(SnapshotMetaData.TYPE);
+        if (snapshotMetaData != null && !snapshotMetaData.entries().isEmpty()) {
+            logger.info("A Snapshot is currently running, hence not pruning Snapshots");
+            return;
+        }
+
+        List<String> repositories = getManagedRepositories(metaData);
+        List<SnapshotRetentionPolicy.SnapshotEntry> snapshots = new ArrayList<SnapshotRetentionPolicy.SnapshotEntry>();
+        Set<String> repositoriesWithOtherSnapshots = new HashSet<String>();
+        for (String repositoryName : repositories)
+        {
+            for (SnapshotInfo snapshotInfo : esTransportClient.admin().cluster().prepareGetSnapshots(repositoryName).get().getSnapshots())
+            {
+                //Snapshots not created by this cluster's Snapshot task are left alone
+                if (StringUtils.isNotBlank(config.getSnapshotNamePrefix()) && !snapshotInfo.name().startsWith(config.getSnapshotNamePrefix())) {
+                    repositoriesWithOtherSnapshots.add(repositoryName);
+                    continue;
+                }
+                snapshots.add(new SnapshotRetentionPolicy.SnapshotEntry(repositoryName, snapshotInfo.name(), snapshotInfo.startTime(),
+                        snapshotInfo.state() == SnapshotState.SUCCESS || snapshotInfo.state() == SnapshotState.PARTIAL,
+                        snapshotInfo.state() == SnapshotState.IN_PROGRESS));
+            }
+        }
+
+        SnapshotRetentionPolicy retentionPolicy = new SnapshotRetentionPolicy(config.getSnapshotRetentionHourly(),
+                config.getSnapshotRetentionDaily(), config.getSnapshotRetentionWeekly());
+        List<SnapshotRetentionPolicy.SnapshotEntry> snapshotsToPrune = retentionPolicy.getSnapshotsToPrune(snapshots);
+        logger.info("Found <" + snapshots.size() + "> Snapshots in <" + repositories.size() + "> Repositories, pruning <" + snapshotsToPrune.size() + "> Snapshots");
+
+        Set<String> prunedSnapshots = deleteSnapshots(esTransportClient, snapshotsToPrune);
+
+        //Unregister daily Repositories which are left empty, except the one currently used for Snapshots
+        String currentRepositoryName = repositoryFactory.getBackupRepository().getRemoteRepositoryName();
+        for (String repositoryName : repositories)
+        {
+            if (repositoryName.equals(currentRepositoryName) || !repositoryName.matches(DAILY_REPOSITORY_NAME_PATTERN)
+                    || repositoriesWithOtherSnapshots.contains(repositoryName))
+                continue;
+
+            boolean isEmpty = true;
+            for (SnapshotRetentionPolicy.SnapshotEntry snapshot : snapshots)
+            {
+                if (snapshot.getRepositoryName().equals(repositoryName) && !prunedSnapshots.contains(snapshot.toString())) {
+                    isEmpty = false;
+                    break;
+                }
+            }
+
+            if (isEmpty && esTransportClient.admin().cluster().prepareDeleteRepository(repositoryName).get().isAcknowledged()) {
+                logger.info("Repository <" + repositoryName + "> has no Snapshots left, hence unregistered it");
+                snapshotPruningReporter.repositoriesRemoved.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Deletes Snapshots one at a time within a Repository, since concurrent deletes against the same
+     * Repository race with each other in Elasticsearch 1.x. Up to config.getSnapshotPruningMaxConcurrentDeletes()
+     * different Repositories are pruned in parallel.
+     * @return Snapshots (repository/snapshot) which were deleted
+     */
+    private Set<String> deleteSnapshots(final Client esTransportClient, List<SnapshotRetentionPolicy.SnapshotEntry> snapshotsToPrune) throws Exception
+    {
+        Set<String> prunedSnapshots = new HashSet<String>();
+        if (snapshotsToPrune.isEmpty())
+            return prunedSnapshots;
+
+        Map<String, List<SnapshotRetentionPolicy.SnapshotEntry>> snapshotsByRepository = new LinkedHashMap<String, List<SnapshotRetentionPolicy.SnapshotEntry>>();
+        for (SnapshotRetentionPolicy.SnapshotEntry snapshot : snapshotsToPrune)
+        {
+            List<SnapshotRetentionPolicy.SnapshotEntry> repositorySnapshots = snapshotsByRepository.get(snapshot.getRepositoryName());
+            if (repositorySnapshots == null) {
+                repositorySnapshots = new ArrayList<SnapshotRetentionPolicy.SnapshotEntry>();
+                snapshotsByRepository.put(snapshot.getRepositoryName(), repositorySnapshots);
+            }
+            repositorySnapshots.add(snapshot);
+        }
+
+        int threads = Math.min(snapshotsByRepository.size(), Math.max(1, config.getSnapshotPruningMaxConcurrentDeletes()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Set<String>>> futures = new ArrayList<Future<Set<String>>>();
+            for (final List<SnapshotRetentionPolicy.SnapshotEntry> repositorySnapshots : snapshotsByRepository.values())
+            {
+                futures.add(executor.submit(new Callable<Set<String>>() {
+                    @Override
+                    public Set<String> call() throws Exception {
+                        Set<String> deleted = new HashSet<String>();
+                        for (SnapshotRetentionPolicy.SnapshotEntry snapshot : repositorySnapshots)
+                        {
+                            if (deleteSnapshot(esTransportClient, snapshot))
+                                deleted.add(snapshot.toString());
+                        }
+                        return deleted;
+                    }
+                }));
+            }
+
+            for (Future<Set<String>> future : futures)
+                prunedSnapshots.addAll(future.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+        return prunedSnapshots;
+    }
+
+    private boolean deleteSnapshot(Client esTransportClient, SnapshotRetentionPolicy.SnapshotEntry snapshot)
+    {
+        try {
+            long snapshotBytes = getSnapshotSizeInBytes(esTransportClient, snapshot);
+            DeleteSnapshotResponse deleteSnapshotResponse = getDeleteSnapshotResponse(esTransportClient, snapshot.getRepositoryName(), snapshot.getSnapshotName());
+            if (deleteSnapshotResponse.isAcknowledged()) {
+                logger.info("Deleted Snapshot <" + snapshot + ">, size = " + snapshotBytes + " bytes");
+                snapshotCatalog.removeSnapshot(snapshot.getRepositoryName(), snapshot.getSnapshotName());
+                snapshotPruningReporter.snapshotsPruned.incrementAndGet();
+                snapshotPruningReporter.bytesReclaimed.addAndGet(snapshotBytes);
+                return true;
+            }
+            logger.warn("Deletion of Snapshot <" + snapshot + "> was not acknowledged");
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while deleting Snapshot <" + snapshot + ">", e);
+        }
+        snapshotPruningReporter.pruningFailures.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Size of all files referenced by the Snapshot. Files shared with retained Snapshots are not
+     * removed from the Repository, so this is an upper bound of the reclaimed space.
+     */
+    private long getSnapshotSizeInBytes(Client esTransportClient, SnapshotRetentionPolicy.SnapshotEntry snapshot)
+    {
+        try {
+            SnapshotsStatusResponse snapshotsStatusResponse = esTransportClient.admin().cluster()
+                    .prepareSnapshotStatus(snapshot.getRepositoryName()).setSnapshots(snapshot.getSnapshotName()).get();
+            if (!snapshotsStatusResponse.getSnapshots().isEmpty())
+                return snapshotsStatusResponse.getSnapshots().get(0).getStats().getTotalSize();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to get size of Snapshot <" + snapshot + ">", e);
+        }
+        return 0;
+    }
+
+    private List<String> getManagedRepositories(MetaData metaData)
+    {
+        List<String> repositories = new ArrayList<String>();
+        RepositoriesMetaData repositoriesMetaData = metaData.custom(RepositoriesMetaData.TYPE);
+        if (repositoriesMetaData == null)
+            return repositories;
+
+        String repositoryType = repositoryFactory.getBackupRepository().getRepositoryType().name();
+
+        for (RepositoryMetaData repositoryMetaData : repositoriesMetaData.repositories())
+        {
+            if (!repositoryMetaData.type().equalsIgnoreCase(repositoryType))
+                continue;
+            //Daily Repositories left over from before the Shared Repository was enabled are pruned as well
+            if (repositoryMetaData.name().matches(DAILY_REPOSITORY_NAME_PATTERN)
+                    || (config.isSharedSnapshotRepositoryEnabled() && repositoryMetaData.name().equals(config.getSharedSnapshotRepositoryName())))
+                repositories.add(repositoryMetaData.name());
+        }
+        return repositories;
+    }
+
+    /**
+     * Following method is isolated so that it helps in Unit Testing for Mocking
+     */
+    public DeleteSnapshotResponse getDeleteSnapshotResponse(Client esTransportClient, String repositoryName, String snapshotName)
+    {
+        return esTransportClient.admin().cluster().prepareDeleteSnapshot(repositoryName, snapshotName).get();
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getSnapshotPruningIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+
+    public class Elasticsearch_SnapshotPruningReporter
+    {
+        private final AtomicInteger snapshotsPruned = new AtomicInteger(0);
+        private final AtomicInteger pruningFailures = new AtomicInteger(0);
+        private final AtomicInteger repositoriesRemoved = new AtomicInteger(0);
+        private final AtomicLong bytesReclaimed = new AtomicLong(0);
+
+        @Monitor(name="snapshots_pruned", type=DataSourceType.COUNTER)
+        public int getSnapshotsPruned() {
+            return snapshotsPruned.get();
+        }
+
+        @Monitor(name="snapshot_pruning_failures", type=DataSourceType.COUNTER)
+        public int getPruningFailures() {
+            return pruningFailures.get();
+        }
+
+        @Monitor(name="snapshot_repositories_removed", type=DataSourceType.COUNTER)
+        public int getRepositoriesRemoved() {
+            return repositoriesRemoved.get();
+        }
+
+        @Monitor(name="snapshot_bytes_reclaimed", type=DataSourceType.COUNTER)
+        public long getBytesReclaimed() {
+            return bytesReclaimed.get();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which Snapshots are kept, separately for the Snapshots of each Snapshot policy (Snapshots
+ * named [prefix]{policy name}_yyyyMMddHHmm, or [prefix][indices_]yyyyMMddHHmm without policies) :
+ *
+ *     Latest successful Snapshot of each of the last N hours, N days and N weeks (UTC) is kept.
+ *     Latest successful Snapshot overall is always kept.
+ *     Failed Snapshots are never kept, Snapshots in progress are never pruned.
+ *
+ * Otherwise a frequent policy would take every bucket and get the Snapshots of other policies pruned.
+ */
+public class SnapshotRetentionPolicy
+{
+    private static final DateTimeZone currentZone = DateTimeZone.UTC;
+    private static final Pattern TIMESTAMP_SUFFIX = Pattern.compile("_?\\d{12}$");
+    private final int hourly;
+    private final int daily;
+    private final int weekly;
+
+    public SnapshotRetentionPolicy(int hourly, int daily, int weekly)
+    {
+        this.hourly = hourly;
+        this.daily = daily;
+        this.weekly = weekly;
+    }
+
+    public List<SnapshotEntry> getSnapshotsToPrune(List<SnapshotEntry> snapshots)
+    {
+        Map<String, List<SnapshotEntry>> policySnapshots = new LinkedHashMap<String, List<SnapshotEntry>>();
+        for (SnapshotEntry snapshot : snapshots)
+        {
+            String policyGroup = getPolicyGroup(snapshot.getSnapshotName());
+            List<SnapshotEntry> group = policySnapshots.get(policyGroup);
+            if (group == null) {
+                group = new ArrayList<SnapshotEntry>();
+                policySnapshots.put(policyGroup, group);
+            }
+            group.add(snapshot);
+        }
+
+        List<SnapshotEntry> prune = new ArrayList<SnapshotEntry>();
+        for (List<SnapshotEntry> group : policySnapshots.values())
+            prune.addAll(getPolicySnapshotsToPrune(group));
+        return prune;
+    }
+
+    /**
+     * @return Snapshot name without its trailing timestamp, which identifies the policy that took it
+     */
+    static String getPolicyGroup(String snapshotName)
+    {
+        return TIMESTAMP_SUFFIX.matcher(snapshotName).replaceFirst("");
+    }
+
+    private List<SnapshotEntry> getPolicySnapshotsToPrune(List<SnapshotEntry> snapshots)
+    {
+        List<SnapshotEntry> candidates = new ArrayList<SnapshotEntry>();
+        for (SnapshotEntry snapshot : snapshots)
+        {
+            if (!snapshot.isInProgress())
+                candidates.add(snapshot);
+        }
+
+        //Newest first
+        Collections.sort(candidates, new Comparator<SnapshotEntry>() {
+            @Override
+            public int compare(SnapshotEntry s1, SnapshotEntry s2) {
+                if (s1.getStartTime() == s2.getStartTime())
+                    return 0;
+                return s1.getStartTime() > s2.getStartTime() ? -1 : 1;
+            }
+        });
+
+        Set<SnapshotEntry> keep = new HashSet<SnapshotEntry>();
+        Set<String> hours = new HashSet<String>();
+        Set<String> days = new HashSet<String>();
+        Set<String> weeks = new HashSet<String>();
+
+        for (SnapshotEntry snapshot : candidates)
+        {
+            if (!snapshot.isSuccessful())
+                continue;
+
+            if (keep.isEmpty())
+                keep.add(snapshot);
+
+            DateTime dt = new DateTime(snapshot.getStartTime(), currentZone);
+            if (addBucket(hours, hourly, dt.getYear() + "-" + dt.getDayOfYear() + "-" + dt.getHourOfDay()))
+                keep.add(snapshot);
+            if (addBucket(days, daily, dt.getYear() + "-" + dt.getDayOfYear()))
+                keep.add(snapshot);
+            if (addBucket(weeks, weekly, dt.getWeekyear() + "-" + dt.getWeekOfWeekyear()))
+                keep.add(snapshot);
+        }
+
+        List<SnapshotEntry> prune = new ArrayList<SnapshotEntry>();
+        for (SnapshotEntry snapshot : candidates)
+        {
+            if (!keep.contains(snapshot))
+                prune.add(snapshot);
+        }
+        return prune;
+    }
+
+    /**
+     * Snapshots are visited newest first, so the first Snapshot seen in a bucket is the latest one of that bucket
+     */
+    private static boolean addBucket(Set<String> buckets, int limit, String bucket)
+    {
+        if (buckets.contains(bucket) || buckets.size() >= limit)
+            return false;
+        buckets.add(bucket);
+        return true;
+    }
+
+    public static class SnapshotEntry
+    {
+        private final String repositoryName;
+        private final String snapshotName;
+        private final long startTime;
+        private final boolean successful;
+        private final boolean inProgress;
+
+        public SnapshotEntry(String repositoryName, String snapshotName, long startTime, boolean successful, boolean inProgress)
+        {
+            this.repositoryName = repositoryName;
+            this.snapshotName = snapshotName;
+            this.startTime = startTime;
+            this.successful = successful;
+            this.inProgress = inProgress;
+        }
+
+        public String getRepositoryName() {
+            return repositoryName;
+        }
+
+        public String getSnapshotName() {
+            return snapshotName;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public boolean isSuccessful() {
+            return successful;
+        }
+
+        public boolean isInProgress() {
+            return inProgress;
+        }
+
+        @Override
+        public String toString() {
+            return repositoryName + "/" + snapshotName;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.objectmapper.DefaultIndexMapper;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.HttpModule;
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
+import org.elasticsearch.client.Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs Snapshot policies configured through config.getSnapshotPolicies(), one Snapshot at a time.
+ * When policies are configured, SnapshotBackupManager does not run its own single Snapshot schedule.
+ */
+@Singleton
+public class SnapshotScheduler extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotScheduler.class);
+    public static String JOBNAME = "SnapshotScheduler";
+    private final SnapshotBackupManager snapshotBackupManager;
+    private final HttpModule httpModule;
+    private final SnapshotPolicyQueue policyQueue = new SnapshotPolicyQueue();
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+
+    @Inject
+    public SnapshotScheduler(IConfiguration config, SnapshotBackupManager snapshotBackupManager, HttpModule httpModule)
+    {
+        super(config);
+        this.snapshotBackupManager = snapshotBackupManager;
+        this.httpModule = httpModule;
+    }
+
+    @Override
+    public void execute()
+    {
+        if (StringUtils.isBlank(config.getSnapshotPolicies()))
+            return;
+
+        //A blocking Snapshot (config.waitForCompletionOfBackup()) keeps the previous run busy
+        if (!isRunning.compareAndSet(false, true))
+            return;
+
+        try {
+            //Confirm if Current Node is a Master Node
+            if (!EsUtils.amIMasterNode(config, httpModule))
+            {
+                if (config.isDebugEnabled())
+                    logger.debug("Current node is not a Master Node yet, hence not scheduling Snapshots");
+                return;
+            }
+
+            if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+                logger.info("Elasticsearch is not yet started, hence not scheduling Snapshots");
+                return;
+            }
+
+            if (!config.isSnapshotBackupEnabled()) {
+                logger.info("Snapshot Backup is disabled, hence not scheduling Snapshots");
+                return;
+            }
+
+            runDueSnapshotPolicies();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while scheduling Snapshots", e);
+        }
+        finally {
+            isRunning.set(false);
+        }
+    }
+
+    public void runDueSnapshotPolicies() throws Exception
+    {
+        List<SnapshotPolicy> policies = buildPolicies(config.getSnapshotPolicies());
+        policyQueue.retainPolicies(policies);
+        policyQueue.enqueueDuePolicies(policies, System.currentTimeMillis());
+        if (policyQueue.isEmpty())
+            return;
+
+        Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+        if (snapshotBackupManager.isSnapshotInProgress() || EsUtils.isSnapshotRunning(esTransportClient)) {
+            logger.info("A Snapshot is currently running, Snapshot policies waiting : " + policyQueue.getQueuedPolicyNames());
+            return;
+        }
+
+        SnapshotPolicy policy = policyQueue.peekNext();
+        boolean includeGlobalState = policy.getIncludeGlobalState() != null ? policy.getIncludeGlobalState() : config.includeGlobalStateDuringBackup();
+        logger.info("Running Snapshot for " + policy);
+        long startTime = System.currentTimeMillis();
+        //A policy whose Snapshot did not start (or threw) stays at the head of the queue and is retried on the next run
+        if (snapshotBackupManager.runSnapshotBackup(policy.getName(), policy.getIndices(), includeGlobalState))
+            policyQueue.markStarted(policy, startTime);
+        else
+            logger.info("Snapshot for policy <" + policy.getName() + "> did not start, it will be retried on the next run");
+    }
+
+    public List<String> getQueuedPolicyNames()
+    {
+        return policyQueue.getQueuedPolicyNames();
+    }
+
+    /**
+     * Convert the JSON String of parameters to SnapshotPolicy objects
+     * @param policiesStr : JSON String with Parameters
+     * @return list of SnapshotPolicy objects
+     * @throws IOException
+     */
+    public static List<SnapshotPolicy> buildPolicies(String policiesStr) throws IOException {
+        ObjectMapper jsonMapper = new DefaultIndexMapper();
+        TypeReference<List<SnapshotPolicy>> typeRef = new TypeReference<List<SnapshotPolicy>>() {};
+        return jsonMapper.readValue(policiesStr, typeRef);
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getSnapshotSchedulerIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.HttpModule;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.elasticsearch.action.admin.cluster.node.info.NodeInfo;
+import org.elasticsearch.action.admin.cluster.node.info.NodesInfoResponse;
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adjusts the size of the snapshot thread pool (number of shard files uploaded in parallel per node)
+ * while a Snapshot is running, based on cluster wide search latency and disk queue of the busiest node.
+ *
+ * max_snapshot_bytes_per_sec (config.getSnapshotMaxBytesPerSec()) stays the per node upper bound : Elasticsearch
+ * reads it only when the Repository is registered, and re-registering a Repository in use would break the Snapshot.
+ */
+@Singleton
+public class SnapshotThrottleController extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotThrottleController.class);
+    public static String JOBNAME = "SnapshotThrottleController";
+    static final String SNAPSHOT_THREADPOOL_MAX_SETTING = "threadpool.snapshot.max";
+    private static final int NOT_THROTTLED = -1;
+    private final HttpModule httpModule;
+    private final Elasticsearch_SnapshotThrottleReporter snapshotThrottleReporter;
+    private int currentThreads = NOT_THROTTLED;
+    private int unthrottledThreads = NOT_THROTTLED;
+    private long previousQueryCount = -1;
+    private long previousQueryTimeInMillis = -1;
+
+    @Inject
+    public SnapshotThrottleController(IConfiguration config, HttpModule httpModule)
+    {
+        super(config);
+        this.httpModule = httpModule;
+        snapshotThrottleReporter = new Elasticsearch_SnapshotThrottleReporter();
+        Monitors.registerObject(snapshotThrottleReporter);
+    }
+
+    @Override
+    public synchronized void execute()
+    {
+        try {
+            if (!config.isSnapshotAdaptiveThrottleEnabled())
+                return;
+
+            //Confirm if Current Node is a Master Node
+            if (!EsUtils.amIMasterNode(config, httpModule))
+            {
+                if (config.isDebugEnabled())
+                    logger.debug("Current node is not a Master Node yet, hence not throttling Snapshots");
+                return;
+            }
+
+            if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+                logger.info("Elasticsearch is not yet started, hence not throttling Snapshots");
+                return;
+            }
+
+            Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+            AdaptiveSnapshotThrottle throttle = new AdaptiveSnapshotThrottle(config.getSnapshotAdaptiveThrottleMinThreads(),
+                    config.getSnapshotAdaptiveThrottleMaxThreads(), config.getSnapshotAdaptiveThrottleTargetSearchLatencyMs(),
+                    config.getSnapshotAdaptiveThrottleMaxDiskQueue());
+
+            //Sample on every run so that latency is always computed over the last interval only
+            sampleServingLoad(esTransportClient);
+
+            if (!EsUtils.isSnapshotRunning(esTransportClient))
+            {
+                if (currentThreads != NOT_THROTTLED) {
+                    logger.info("Snapshot finished, resetting snapshot thread pool to " + unthrottledThreads);
+                    applyThreads(esTransportClient, unthrottledThreads);
+                    currentThreads = NOT_THROTTLED;
+                    unthrottledThreads = NOT_THROTTLED;
+                }
+                return;
+            }
+
+            if (currentThreads == NOT_THROTTLED)
+                unthrottledThreads = getUnthrottledThreads(esTransportClient);
+
+            int threads = currentThreads == NOT_THROTTLED ? throttle.getMaxThreads() : currentThreads;
+            int nextThreads = throttle.nextThreads(threads, snapshotThrottleReporter.searchLatencyMs, snapshotThrottleReporter.diskQueue);
+            if (nextThreads != currentThreads) {
+                logger.info("Search latency = " + snapshotThrottleReporter.searchLatencyMs + " ms, disk queue = " + snapshotThrottleReporter.diskQueue +
+                        ", changing snapshot thread pool from " + threads + " to " + nextThreads);
+                applyThreads(esTransportClient, nextThreads);
+                currentThreads = nextThreads;
+                snapshotThrottleReporter.adjustments.incrementAndGet();
+            }
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while throttling Snapshots", e);
+        }
+    }
+
+    private void sampleServingLoad(Client esTransportClient)
+    {
+        NodesStatsResponse nodesStatsResponse = esTransportClient.admin().cluster().prepareNodesStats().clear()
+                .setIndices(new CommonStatsFlags(CommonStatsFlags.Flag.Search)).setFs(true).get();
+
+        long queryCount = 0;
+        long queryTimeInMillis = 0;
+        double maxDiskQueue = 0;
+        for (NodeStats nodeStats : nodesStatsResponse.getNodes())
+        {
+            if (nodeStats.getIndices() != null && nodeStats.getIndices().getSearch() != null) {
+                queryCount += nodeStats.getIndices().getSearch().getTotal().getQueryCount();
+                queryTimeInMillis += nodeStats.getIndices().getSearch().getTotal().getQueryTimeInMillis();
+            }
+            //Disk queue is only reported where sigar is available
+            if (nodeStats.getFs() != null && nodeStats.getFs().getTotal().getDiskQueue() > maxDiskQueue)
+                maxDiskQueue = nodeStats.getFs().getTotal().getDiskQueue();
+        }
+
+        long searchLatencyMs = 0;
+        //Counters go backwards when nodes leave the cluster
+        if (previousQueryCount >= 0 && queryCount > previousQueryCount && queryTimeInMillis >= previousQueryTimeInMillis)
+            searchLatencyMs = (queryTimeInMillis - previousQueryTimeInMillis) / (queryCount - previousQueryCount);
+
+        previousQueryCount = queryCount;
+        previousQueryTimeInMillis = queryTimeInMillis;
+        snapshotThrottleReporter.searchLatencyMs = searchLatencyMs;
+        snapshotThrottleReporter.diskQueue = maxDiskQueue;
+    }
+
+    /**
+     * Snapshot thread pool size in effect before throttling. Elasticsearch 1.x cannot remove a transient
+     * setting, so when none was set the size the nodes were started with is written back on finish instead.
+     */
+    private int getUnthrottledThreads(Client esTransportClient)
+    {
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().metaData();
+        Integer threads = metaData.transientSettings().getAsInt(SNAPSHOT_THREADPOOL_MAX_SETTING, null);
+        if (threads == null)
+            threads = metaData.persistentSettings().getAsInt(SNAPSHOT_THREADPOOL_MAX_SETTING, null);
+        if (threads != null)
+            return threads;
+
+        int nodeThreads = 0;
+        NodesInfoResponse nodesInfoResponse = esTransportClient.admin().cluster().prepareNodesInfo().clear().setThreadPool(true).get();
+        for (NodeInfo nodeInfo : nodesInfoResponse.getNodes())
+        {
+            if (nodeInfo.getThreadPool() == null)
+                continue;
+            for (ThreadPool.Info info : nodeInfo.getThreadPool())
+            {
+                if (ThreadPool.Names.SNAPSHOT.equals(info.getName()))
+                    nodeThreads = Math.max(nodeThreads, info.getMax());
+            }
+        }
+        return nodeThreads > 0 ? nodeThreads : config.getSnapshotAdaptiveThrottleMaxThreads();
+    }
+
+    private void applyThreads(Client esTransportClient, int threads)
+    {
+        boolean acknowledged = esTransportClient.admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(ImmutableSettings.settingsBuilder().put(SNAPSHOT_THREADPOOL_MAX_SETTING, threads).build())
+                .get().isAcknowledged();
+        if (!acknowledged)
+            logger.warn("Update of <" + SNAPSHOT_THREADPOOL_MAX_SETTING + "> to " + threads + " was not acknowledged");
+        snapshotThrottleReporter.threads = threads;
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getSnapshotAdaptiveThrottleIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+
+    public class Elasticsearch_SnapshotThrottleReporter
+    {
+        private volatile int threads;
+        private volatile long searchLatencyMs;
+        private volatile double diskQueue;
+        private final AtomicInteger adjustments = new AtomicInteger(0);
+
+        @Monitor(name="snapshot_throttle_threads", type=DataSourceType.GAUGE)
+        public int getThreads() {
+            return threads;
+        }
+
+        @Monitor(name="snapshot_throttle_search_latency_ms", type=DataSourceType.GAUGE)
+        public long getSearchLatencyMs() {
+            return searchLatencyMs;
+        }
+
+        @Monitor(name="snapshot_throttle_disk_queue", type=DataSourceType.GAUGE)
+        public double getDiskQueue() {
+            return diskQueue;
+        }
+
+        @Monitor(name="snapshot_throttle_adjustments", type=DataSourceType.COUNTER)
+        public int getAdjustments() {
+            return adjustments.get();
+        }
+    }
+}
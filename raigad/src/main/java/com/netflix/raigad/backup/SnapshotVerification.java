@@ -0,0 +1,211 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.json.simple.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a verification run by SnapshotVerificationManager : sampled indices of a Snapshot restored
+ * under another name, with their size compared to the size of their files in the Snapshot.
+ */
+public class SnapshotVerification
+{
+    public enum State {
+        RUNNING, VERIFIED, FAILED
+    }
+
+    public enum IndexState {
+        QUEUED, MATCHED, MISMATCHED, FAILED
+    }
+
+    //Elasticsearch writes a new commit point when a restored shard starts, so its files differ slightly from the Snapshot
+    static final long COMMIT_POINT_SLACK_BYTES = 64 * 1024;
+    private final String repositoryName;
+    private final String snapshotName;
+    private final long startTime;
+    private final Map<String, IndexVerification> indices = new LinkedHashMap<String, IndexVerification>();
+    private State state = State.RUNNING;
+    private long endTime;
+    private String failureReason;
+
+    public SnapshotVerification(String repositoryName, String snapshotName, List<String> indexNames, long startTime)
+    {
+        this.repositoryName = repositoryName;
+        this.snapshotName = snapshotName;
+        this.startTime = startTime;
+        for (String indexName : indexNames)
+            indices.put(indexName, new IndexVerification());
+    }
+
+    /**
+     * @param snapshotBytes size of the files of the index in the Snapshot
+     * @param maxDriftPercent tolerated size difference, in percent of snapshotBytes
+     */
+    public synchronized void verifyIndex(String indexName, long snapshotBytes, long restoredBytes, long restoredDocs, int maxDriftPercent)
+    {
+        IndexVerification indexVerification = getIndexVerification(indexName);
+        indexVerification.snapshotBytes = snapshotBytes;
+        indexVerification.restoredBytes = restoredBytes;
+        indexVerification.restoredDocs = restoredDocs;
+        boolean matched = isWithinDrift(snapshotBytes, restoredBytes, maxDriftPercent) || Math.abs(snapshotBytes - restoredBytes) <= COMMIT_POINT_SLACK_BYTES;
+        indexVerification.state = matched ? IndexState.MATCHED : IndexState.MISMATCHED;
+    }
+
+    public synchronized void failIndex(String indexName, String reason)
+    {
+        IndexVerification indexVerification = getIndexVerification(indexName);
+        indexVerification.state = IndexState.FAILED;
+        indexVerification.reason = reason;
+    }
+
+    /**
+     * @param failureReason null if all indices were restored, in which case State depends on their verification
+     */
+    public synchronized void complete(long endTime, String failureReason)
+    {
+        boolean allMatched = !indices.isEmpty();
+        for (IndexVerification indexVerification : indices.values())
+        {
+            if (indexVerification.state != IndexState.MATCHED)
+                allMatched = false;
+        }
+        this.state = failureReason == null && allMatched ? State.VERIFIED : State.FAILED;
+        this.endTime = endTime;
+        this.failureReason = failureReason;
+    }
+
+    public static boolean isWithinDrift(long expected, long actual, int maxDriftPercent)
+    {
+        long drift = Math.abs(expected - actual);
+        return drift * 100 <= (long) maxDriftPercent * expected;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isCompleted() {
+        return state != State.RUNNING;
+    }
+
+    public synchronized IndexState getIndexState(String indexName) {
+        return getIndexVerification(indexName).state;
+    }
+
+    public synchronized long getDurationMillis() {
+        return isCompleted() ? endTime - startTime : 0;
+    }
+
+    public synchronized int countIndices(IndexState indexState)
+    {
+        int count = 0;
+        for (IndexVerification indexVerification : indices.values())
+        {
+            if (indexVerification.state == indexState)
+                count++;
+        }
+        return count;
+    }
+
+    public synchronized long getRestoredBytes()
+    {
+        long restoredBytes = 0;
+        for (IndexVerification indexVerification : indices.values())
+            restoredBytes += indexVerification.restoredBytes;
+        return restoredBytes;
+    }
+
+    /**
+     * Restore throughput of the verification, 0 until it is completed
+     */
+    public synchronized long getBytesPerSecond()
+    {
+        long durationMillis = getDurationMillis();
+        return durationMillis > 0 ? getRestoredBytes() * 1000 / durationMillis : 0;
+    }
+
+    public synchronized JSONObject toJson()
+    {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("repository", repositoryName);
+        jsonObject.put("snapshot", snapshotName);
+        jsonObject.put("state", state.name());
+        jsonObject.put("start_time", startTime);
+        jsonObject.put("duration_millis", getDurationMillis());
+        jsonObject.put("restored_bytes", getRestoredBytes());
+        jsonObject.put("bytes_per_second", getBytesPerSecond());
+        if (failureReason != null)
+            jsonObject.put("failure_reason", failureReason);
+        JSONObject indicesJson = new JSONObject();
+        for (Map.Entry<String, IndexVerification> entry : indices.entrySet())
+            indicesJson.put(entry.getKey(), entry.getValue().toJson());
+        jsonObject.put("indices", indicesJson);
+        return jsonObject;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "Verification of Snapshot <" + snapshotName + "> from Repository <" + repositoryName + "> : State = " + state +
+                ", Indices matched = " + countIndices(IndexState.MATCHED) + "/" + indices.size() +
+                " (mismatched " + countIndices(IndexState.MISMATCHED) + ", failed " + countIndices(IndexState.FAILED) + ")" +
+                ", Throughput = " + getBytesPerSecond() + " bytes/sec";
+    }
+
+    private IndexVerification getIndexVerification(String indexName)
+    {
+        IndexVerification indexVerification = indices.get(indexName);
+        if (indexVerification == null)
+            throw new IllegalArgumentException("Index <" + indexName + "> is not part of this verification");
+        return indexVerification;
+    }
+
+    private static class IndexVerification
+    {
+        private IndexState state = IndexState.QUEUED;
+        private long snapshotBytes;
+        private long restoredBytes;
+        private long restoredDocs;
+        private String reason;
+
+        private JSONObject toJson() {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("state", state.name());
+            jsonObject.put("snapshot_bytes", snapshotBytes);
+            jsonObject.put("restored_bytes", restoredBytes);
+            jsonObject.put("restored_docs", restoredDocs);
+            if (reason != null)
+                jsonObject.put("reason", reason);
+            return jsonObject;
+        }
+    }
+}
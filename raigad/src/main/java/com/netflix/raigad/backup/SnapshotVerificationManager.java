@@ -0,0 +1,408 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.HttpModule;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.action.admin.cluster.health.ClusterIndexHealth;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotIndexStatus;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStatus;
+import org.elasticsearch.action.admin.indices.stats.IndexStats;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.metadata.RepositoriesMetaData;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Confirms that Snapshots are restorable without full-size Restore drills : a sample of indices of the latest
+ * Snapshot is restored under config.getSnapshotVerificationIndexPrefix(), the size of every restored index is
+ * compared with the size of its files in the Snapshot and the restored indices are deleted.
+ *
+ * Sampled indices are restored in full, on whichever nodes Elasticsearch allocates them to. Replicas are removed
+ * right after the Restore starts, which takes effect because replicas are only allocated once primaries are restored.
+ *
+ * The Restore reads the Snapshot through a copy of its Repository registered with
+ * config.getSnapshotVerificationMaxRestoreBytesPerSec(), so that verification does not compete with live traffic.
+ */
+@Singleton
+public class SnapshotVerificationManager extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotVerificationManager.class);
+    public static String JOBNAME = "SnapshotVerificationManager";
+    static final String VERIFY_REPOSITORY_SUFFIX = "-verify";
+    private final RepositoryFactory repositoryFactory;
+    private final SnapshotCatalog snapshotCatalog;
+    private final RestoreOrchestrator restoreOrchestrator;
+    private final HttpModule httpModule;
+    private final AtomicReference<SnapshotVerification> lastVerification = new AtomicReference<SnapshotVerification>();
+    //Indices are sampled in turn, so that every index is eventually verified
+    private final AtomicInteger sampleOffset = new AtomicInteger(0);
+    private final Elasticsearch_SnapshotVerificationReporter snapshotVerificationReporter;
+
+    @Inject
+    public SnapshotVerificationManager(IConfiguration config, RepositoryFactory repositoryFactory, SnapshotCatalog snapshotCatalog,
+                                       RestoreOrchestrator restoreOrchestrator, HttpModule httpModule)
+    {
+        super(config);
+        this.repositoryFactory = repositoryFactory;
+        this.snapshotCatalog = snapshotCatalog;
+        this.restoreOrchestrator = restoreOrchestrator;
+        this.httpModule = httpModule;
+        snapshotVerificationReporter = new Elasticsearch_SnapshotVerificationReporter();
+        Monitors.registerObject(snapshotVerificationReporter);
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            //Confirm if Current Node is a Master Node
+            if (!EsUtils.amIMasterNode(config, httpModule))
+            {
+                if (config.isDebugEnabled())
+                    logger.debug("Current node is not a Master Node yet, hence not verifying Snapshots");
+                return;
+            }
+
+            if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+                logger.info("Elasticsearch is not yet started, hence not verifying Snapshots");
+                return;
+            }
+
+            if (!config.isSnapshotVerificationEnabled()) {
+                logger.info("Snapshot verification is disabled, hence not verifying Snapshots");
+                return;
+            }
+
+            runSnapshotVerification();
+        }
+        catch (Exception e)
+        {
+            snapshotVerificationReporter.verificationFailures.incrementAndGet();
+            logger.warn("Exception thrown while verifying Snapshots", e);
+        }
+    }
+
+    /**
+     * @return Verification of the latest Snapshot, null if there was nothing to verify
+     */
+    public synchronized SnapshotVerification runSnapshotVerification() throws Exception
+    {
+        Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+
+        //Elasticsearch runs one Restore at a time
+        if (RestoreOrchestrator.isRestoreRunning(esTransportClient)) {
+            logger.info("A Restore is running, hence not verifying Snapshots");
+            return null;
+        }
+
+        MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+        RepositoryMetaData latestRepository = null;
+        SnapshotCatalog.Entry latestSnapshot = null;
+        for (RepositoryMetaData repositoryMetaData : getBackupRepositories(metaData))
+        {
+            SnapshotCatalog.Entry entry = getLatestSnapshot(esTransportClient, repositoryMetaData.name());
+            if (entry != null && (latestSnapshot == null || entry.getStartTime() > latestSnapshot.getStartTime())) {
+                latestRepository = repositoryMetaData;
+                latestSnapshot = entry;
+            }
+        }
+        if (latestSnapshot == null) {
+            logger.info("No successful Snapshot found, hence nothing to verify");
+            return null;
+        }
+
+        List<String> candidates = new ArrayList<String>();
+        for (String index : latestSnapshot.getIndices())
+        {
+            if (!index.startsWith(config.getSnapshotVerificationIndexPrefix()))
+                candidates.add(index);
+        }
+        List<String> sample = selectSample(candidates, config.getSnapshotVerificationSampleSize(), sampleOffset.getAndAdd(config.getSnapshotVerificationSampleSize()));
+        if (sample.isEmpty()) {
+            logger.info("Snapshot <" + latestSnapshot.getName() + "> has no index to verify");
+            return null;
+        }
+
+        SnapshotVerification verification = new SnapshotVerification(latestRepository.name(), latestSnapshot.getName(), sample, System.currentTimeMillis());
+        lastVerification.set(verification);
+        logger.info("Verifying indices " + sample + " of Snapshot <" + latestSnapshot.getName() + "> from Repository <" + latestRepository.name() + ">");
+
+        String failureReason = null;
+        try {
+            verifySample(esTransportClient, latestRepository, verification, sample);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while verifying Snapshot <" + latestSnapshot.getName() + ">", e);
+            failureReason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        verification.complete(System.currentTimeMillis(), failureReason);
+        logger.info(verification.toString());
+        snapshotVerificationReporter.record(verification);
+        return verification;
+    }
+
+    private void verifySample(Client esTransportClient, RepositoryMetaData repositoryMetaData, SnapshotVerification verification, List<String> sample) throws Exception
+    {
+        String verifyRepositoryName = repositoryMetaData.name() + VERIFY_REPOSITORY_SUFFIX;
+        RestoreOptions options = new RestoreOptions("(.+)", config.getSnapshotVerificationIndexPrefix() + "$1", true, 0, 0, false, null);
+        Map<String, String> restoredIndexNames = options.getRestoredIndexNames(sample);
+        String[] restoredIndices = restoredIndexNames.keySet().toArray(new String[restoredIndexNames.size()]);
+
+        //Sizes of the files of every index in the Snapshot, read from the Repository
+        Map<String, SnapshotIndexStatus> snapshotIndices = getSnapshotIndices(esTransportClient, repositoryMetaData.name(), verification.getSnapshotName());
+
+        registerVerifyRepository(esTransportClient, repositoryMetaData, verifyRepositoryName);
+        try {
+            //Returns once restored indices are created, before their primaries are restored
+            restoreOrchestrator.startRestoreSnapshot(esTransportClient, verifyRepositoryName, verification.getSnapshotName(), sample, options);
+            esTransportClient.admin().indices().prepareUpdateSettings(restoredIndices)
+                    .setSettings(ImmutableSettings.settingsBuilder().put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0).build()).get();
+
+            long deadline = System.currentTimeMillis() + config.getSnapshotVerificationTimeoutInSeconds() * 1000L;
+            while (RestoreOrchestrator.isRestoreRunning(esTransportClient))
+            {
+                if (System.currentTimeMillis() > deadline)
+                    throw new IllegalStateException("Restore did not complete in " + config.getSnapshotVerificationTimeoutInSeconds() + " seconds");
+                Thread.sleep(config.getRestoreProgressPollIntervalInSeconds() * 1000L);
+            }
+
+            //Restored primaries make an index at least yellow, a red index has shards which could not be restored
+            Map<String, ClusterIndexHealth> indicesHealth = esTransportClient.admin().cluster().prepareHealth(restoredIndices).get().getIndices();
+            Map<String, IndexStats> indicesStats = esTransportClient.admin().indices().prepareStats(restoredIndices)
+                    .clear().setDocs(true).setStore(true).get().getIndices();
+
+            for (Map.Entry<String, String> entry : restoredIndexNames.entrySet())
+            {
+                ClusterIndexHealth indexHealth = indicesHealth.get(entry.getKey());
+                IndexStats restoredStats = indicesStats.get(entry.getKey());
+                SnapshotIndexStatus snapshotIndex = snapshotIndices.get(entry.getValue());
+                if (indexHealth == null || indexHealth.getStatus() == ClusterHealthStatus.RED || restoredStats == null)
+                    verification.failIndex(entry.getValue(), "Index could not be restored");
+                else if (snapshotIndex == null)
+                    verification.failIndex(entry.getValue(), "Index is missing from the Snapshot status");
+                else
+                    verification.verifyIndex(entry.getValue(), snapshotIndex.getStats().getTotalSize(), restoredStats.getPrimaries().getStore().getSizeInBytes(),
+                            restoredStats.getPrimaries().getDocs().getCount(), config.getSnapshotVerificationMaxSizeDriftPercent());
+            }
+        }
+        finally {
+            //Deleting indices being restored also cancels their Restore
+            cleanup(esTransportClient, restoredIndices, verifyRepositoryName);
+        }
+    }
+
+    private Map<String, SnapshotIndexStatus> getSnapshotIndices(Client esTransportClient, String repositoryName, String snapshotName)
+    {
+        List<SnapshotStatus> snapshots = esTransportClient.admin().cluster().prepareSnapshotStatus(repositoryName)
+                .setSnapshots(snapshotName).get().getSnapshots();
+        if (snapshots.isEmpty())
+            throw new IllegalStateException("No status found for Snapshot <" + snapshotName + "> in Repository <" + repositoryName + ">");
+        return snapshots.get(0).getIndices();
+    }
+
+    private SnapshotCatalog.Entry getLatestSnapshot(Client esTransportClient, String repositoryName)
+    {
+        try {
+            if (snapshotCatalog.isRefreshDue(repositoryName, System.currentTimeMillis()))
+                snapshotCatalog.refreshRepository(esTransportClient, repositoryName);
+            return snapshotCatalog.findLatestSnapshot(repositoryName, Collections.<String>emptyList());
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to list Snapshots of Repository <" + repositoryName + ">", e);
+            return null;
+        }
+    }
+
+    /**
+     * Repositories of the Snapshot Repository type, verification Repositories excluded
+     */
+    private List<RepositoryMetaData> getBackupRepositories(MetaData metaData)
+    {
+        List<RepositoryMetaData> backupRepositories = new ArrayList<RepositoryMetaData>();
+        RepositoriesMetaData repositoriesMetaData = metaData.custom(RepositoriesMetaData.TYPE);
+        if (repositoriesMetaData == null)
+            return backupRepositories;
+        String repositoryType = repositoryFactory.getBackupRepository().getRepositoryType().name();
+        for (RepositoryMetaData repositoryMetaData : repositoriesMetaData.repositories())
+        {
+            if (repositoryMetaData.type().equalsIgnoreCase(repositoryType) && !repositoryMetaData.name().endsWith(VERIFY_REPOSITORY_SUFFIX))
+                backupRepositories.add(repositoryMetaData);
+        }
+        return backupRepositories;
+    }
+
+    /**
+     * Same location as the source Repository, max_restore_bytes_per_sec is only read when a Repository is registered
+     */
+    private void registerVerifyRepository(Client esTransportClient, RepositoryMetaData repositoryMetaData, String verifyRepositoryName)
+    {
+        esTransportClient.admin().cluster().preparePutRepository(verifyRepositoryName)
+                .setType(repositoryMetaData.type())
+                .setSettings(ImmutableSettings.settingsBuilder().put(repositoryMetaData.settings())
+                        .put("max_restore_bytes_per_sec", config.getSnapshotVerificationMaxRestoreBytesPerSec()))
+                .setVerify(false)
+                .get();
+    }
+
+    private void cleanup(Client esTransportClient, String[] restoredIndices, String verifyRepositoryName)
+    {
+        try {
+            MetaData metaData = esTransportClient.admin().cluster().prepareState().clear().setMetaData(true).get().getState().getMetaData();
+            List<String> existingIndices = new ArrayList<String>();
+            for (String restoredIndex : restoredIndices)
+            {
+                if (metaData.hasIndex(restoredIndex))
+                    existingIndices.add(restoredIndex);
+            }
+            if (!existingIndices.isEmpty())
+                esTransportClient.admin().indices().prepareDelete(existingIndices.toArray(new String[existingIndices.size()])).get();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to delete verification indices, they need to be deleted manually", e);
+        }
+
+        try {
+            esTransportClient.admin().cluster().prepareDeleteRepository(verifyRepositoryName).get();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Unable to unregister Repository <" + verifyRepositoryName + ">", e);
+        }
+    }
+
+    /**
+     * @return sampleSize indices starting at offset (wrapping around), all indices if there are fewer
+     */
+    public static List<String> selectSample(List<String> indices, int sampleSize, int offset)
+    {
+        List<String> sortedIndices = new ArrayList<String>(indices);
+        Collections.sort(sortedIndices);
+        if (sampleSize <= 0 || sortedIndices.size() <= sampleSize)
+            return sortedIndices;
+        List<String> sample = new ArrayList<String>();
+        int start = Math.abs(offset % sortedIndices.size());
+        for (int i = 0; i < sampleSize; i++)
+            sample.add(sortedIndices.get((start + i) % sortedIndices.size()));
+        return sample;
+    }
+
+    /**
+     * @return Latest verification (running or completed), null if none
+     */
+    public SnapshotVerification getLastVerification()
+    {
+        return lastVerification.get();
+    }
+
+    public class Elasticsearch_SnapshotVerificationReporter
+    {
+        private final AtomicInteger verificationSuccess = new AtomicInteger(0);
+        private final AtomicInteger verificationFailures = new AtomicInteger(0);
+        private final AtomicInteger lastVerified = new AtomicInteger(0);
+        private final AtomicInteger lastIndicesMismatched = new AtomicInteger(0);
+        private final AtomicInteger lastIndicesFailed = new AtomicInteger(0);
+        private final AtomicLong lastBytesPerSecond = new AtomicLong(0);
+        private final AtomicLong lastDurationSeconds = new AtomicLong(0);
+
+        private void record(SnapshotVerification verification)
+        {
+            boolean verified = verification.getState() == SnapshotVerification.State.VERIFIED;
+            if (verified)
+                verificationSuccess.incrementAndGet();
+            else
+                verificationFailures.incrementAndGet();
+            lastVerified.set(verified ? 1 : 0);
+            lastIndicesMismatched.set(verification.countIndices(SnapshotVerification.IndexState.MISMATCHED));
+            lastIndicesFailed.set(verification.countIndices(SnapshotVerification.IndexState.FAILED));
+            lastBytesPerSecond.set(verification.getBytesPerSecond());
+            lastDurationSeconds.set(verification.getDurationMillis() / 1000);
+        }
+
+        @Monitor(name="verification_success", type=DataSourceType.COUNTER)
+        public int getVerificationSuccess() {
+            return verificationSuccess.get();
+        }
+
+        @Monitor(name="verification_failures", type=DataSourceType.COUNTER)
+        public int getVerificationFailures() {
+            return verificationFailures.get();
+        }
+
+        @Monitor(name="last_verification_verified", type=DataSourceType.GAUGE)
+        public int getLastVerified() {
+            return lastVerified.get();
+        }
+
+        @Monitor(name="last_verification_indices_mismatched", type=DataSourceType.GAUGE)
+        public int getLastIndicesMismatched() {
+            return lastIndicesMismatched.get();
+        }
+
+        @Monitor(name="last_verification_indices_failed", type=DataSourceType.GAUGE)
+        public int getLastIndicesFailed() {
+            return lastIndicesFailed.get();
+        }
+
+        @Monitor(name="last_verification_bytes_per_second", type=DataSourceType.GAUGE)
+        public long getLastBytesPerSecond() {
+            return lastBytesPerSecond.get();
+        }
+
+        @Monitor(name="last_verification_duration_seconds", type=DataSourceType.GAUGE)
+        public long getLastDurationSeconds() {
+            return lastDurationSeconds.get();
+        }
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getSnapshotVerificationIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+}
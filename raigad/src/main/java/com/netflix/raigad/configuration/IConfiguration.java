@@ -278,4 +278,322 @@ public interface IConfiguration
 
     public int getKibanaPort();
 
+    /*
+        Bulk Ingest mode related Config properties
+    */
+
+    public boolean isBulkIngestAutoModeEnabled();
+
+    public String getCommaSeparatedIndicesForBulkIngest();
+
+    /**
+     * @return Indexing rate (primary docs/sec per index) above which Bulk Ingest mode is switched on automatically
+     */
+    public long getBulkIngestStartIndexingRate();
+
+    /**
+     * @return Indexing rate (primary docs/sec per index) below which automatically started Bulk Ingest mode is reverted
+     */
+    public long getBulkIngestStopIndexingRate();
+
+    /**
+     * @return Safety timeout after which index settings are reverted even if the load did not end
+     */
+    public int getBulkIngestTimeoutInMinutes();
+
+    public int getBulkIngestCheckIntervalInSeconds();
+
+    public String getBulkIngestTranslogFlushThresholdSize();
+
+    public String getBulkIngestTranslogFlushThresholdPeriod();
+
+    /*
+        Snapshot progress tracking related Config properties
+    */
+
+    /**
+     * @return Interval at which progress of an asynchronously started Snapshot is polled
+     */
+    public int getSnapshotProgressPollIntervalInSeconds();
+
+    /*
+        Snapshot retention and pruning related Config properties
+    */
+
+    public boolean isSnapshotPruningEnabled();
+
+    public int getSnapshotPruningIntervalInSeconds();
+
+    /**
+     * @return Number of most recent hours for which the latest Snapshot is kept
+     */
+    public int getSnapshotRetentionHourly();
+
+    /**
+     * @return Number of most recent days (UTC) for which the latest Snapshot is kept
+     */
+    public int getSnapshotRetentionDaily();
+
+    /**
+     * @return Number of most recent weeks (UTC) for which the latest Snapshot is kept
+     */
+    public int getSnapshotRetentionWeekly();
+
+    /**
+     * @return Number of Repositories pruned in parallel; Snapshots within a Repository are always deleted one at a time
+     */
+    public int getSnapshotPruningMaxConcurrentDeletes();
+
+    /*
+        Shared Snapshot Repository related Config properties
+    */
+
+    /**
+     * @return true if all Snapshots go into one long-lived Repository (incremental across days) instead of a new Repository per day
+     */
+    public boolean isSharedSnapshotRepositoryEnabled();
+
+    public String getSharedSnapshotRepositoryName();
+
+    /**
+     * @return Prefix of Snapshot names, only Snapshots carrying this prefix are pruned
+     */
+    public String getSnapshotNamePrefix();
+
+    /*
+        Snapshot policies related Config properties
+    */
+
+    /**
+     * @return JSON list of Snapshot policies, eg. [{"name":"critical","indices":"orders*,users","intervalInSeconds":3600,"priority":10}]
+     */
+    public String getSnapshotPolicies();
+
+    public int getSnapshotSchedulerIntervalInSeconds();
+
+    /*
+        Snapshot throttling related Config properties
+    */
+
+    /**
+     * @return max_snapshot_bytes_per_sec of Snapshot Repositories (upper bound, read by Elasticsearch when the Repository is registered)
+     */
+    public String getSnapshotMaxBytesPerSec();
+
+    public String getRestoreMaxBytesPerSec();
+
+    public boolean isSnapshotAdaptiveThrottleEnabled();
+
+    public int getSnapshotAdaptiveThrottleIntervalInSeconds();
+
+    /**
+     * @return Average query latency (cluster wide) above which Snapshot concurrency is reduced
+     */
+    public long getSnapshotAdaptiveThrottleTargetSearchLatencyMs();
+
+    /**
+     * @return Disk queue length (busiest node) above which Snapshot concurrency is reduced
+     */
+    public double getSnapshotAdaptiveThrottleMaxDiskQueue();
+
+    public int getSnapshotAdaptiveThrottleMinThreads();
+
+    public int getSnapshotAdaptiveThrottleMaxThreads();
+
+    /*
+        Filesystem Repository related Config properties
+    */
+
+    /**
+     * @return Type of Snapshot Repository (s3 or fs)
+     */
+    public String getBackupRepositoryType();
+
+    /**
+     * @return Root directory of fs Repositories, must be a shared mount (eg. NFS) available on every node
+     */
+    public String getFsBackupLocation();
+
+    /**
+     * @return Root directory of fs Repositories to Restore from, defaults to getFsBackupLocation()
+     */
+    public String getFsRestoreLocation();
+
+    /**
+     * @return chunk_size of fs Repositories (eg. 1g), files are not chunked when not set
+     */
+    public String getFsRepositoryChunkSize();
+
+    /**
+     * @return true if metadata files of fs Repositories are compressed
+     */
+    public boolean isFsRepositoryCompressEnabled();
+
+    /*
+        Restore orchestration related Config properties
+    */
+
+    /**
+     * @return true if Restores are run in index batches in the background (see RestoreOrchestrator)
+     */
+    public boolean isRestoreOrchestratorEnabled();
+
+    /**
+     * @return Number of indices restored per Restore request
+     */
+    public int getRestoreBatchSize();
+
+    public int getRestoreProgressPollIntervalInSeconds();
+
+    /**
+     * @return Restored primary shards recovered concurrently per node while a Restore runs
+     */
+    public int getRestoreNodeInitialPrimariesRecoveries();
+
+    /**
+     * @return Replica shards recovered concurrently per node while a Restore runs
+     */
+    public int getRestoreNodeConcurrentRecoveries();
+
+    public int getRestoreRecoveryConcurrentStreams();
+
+    /**
+     * @return indices.recovery.max_bytes_per_sec while a Restore runs
+     */
+    public String getRestoreRecoveryMaxBytesPerSec();
+
+    /*
+        Restore rename and post-restore related Config properties
+    */
+
+    /**
+     * @return Regex applied to index names of the Snapshot (eg. (.+)), indices keep their names when not set
+     */
+    public String getRestoreRenamePattern();
+
+    /**
+     * @return Replacement for getRestoreRenamePattern() (eg. restored_$1)
+     */
+    public String getRestoreRenameReplacement();
+
+    /**
+     * @return true if indices are restored without replicas, which are added once primaries are restored
+     */
+    public boolean isRestoreDeferReplicasEnabled();
+
+    /**
+     * @return number_of_replicas of restored indices, -1 to keep the value from the Snapshot
+     */
+    public int getRestoreReplicas();
+
+    /**
+     * @return Segments per shard after optimizing restored indices, 0 to not optimize
+     */
+    public int getRestoreOptimizeMaxNumSegments();
+
+    public boolean isRestoreWarmupEnabled();
+
+    /**
+     * @return Alias moved to restored indices once they are restored and warmed up
+     */
+    public String getRestoreAlias();
+
+    /*
+        Snapshot catalog related Config properties
+    */
+
+    /**
+     * @return Interval of full Snapshot listings of Repositories, Snapshots taken and deleted by Raigad are added and removed in between
+     */
+    public int getSnapshotCatalogRefreshIntervalInSeconds();
+
+    /*
+        Snapshot verification related Config properties
+    */
+
+    /**
+     * @return true if a sample of indices of the latest Snapshot is periodically restored and compared with the Snapshot
+     */
+    public boolean isSnapshotVerificationEnabled();
+
+    public int getSnapshotVerificationIntervalInSeconds();
+
+    /**
+     * @return Number of indices restored by each verification, indices are sampled in turn across verifications
+     */
+    public int getSnapshotVerificationSampleSize();
+
+    public String getSnapshotVerificationIndexPrefix();
+
+    public String getSnapshotVerificationMaxRestoreBytesPerSec();
+
+    public int getSnapshotVerificationTimeoutInSeconds();
+
+    /**
+     * @return Tolerated difference (in percent of the Snapshot) between the size of a restored index and the size of its files in the Snapshot
+     */
+    public int getSnapshotVerificationMaxSizeDriftPercent();
+
+    /*
+        Backup metrics related Config properties
+    */
+
+    /**
+     * @return Number of Snapshot and Restore metrics kept in memory for REST, oldest are dropped first
+     */
+    public int getBackupMetricsHistorySize();
+
+    /*
+        Membership cache related Config properties
+    */
+
+    /**
+     * @return Time cluster membership read from the instance registry is served from memory, 0 disables the cache
+     */
+    public int getMembershipCacheTtlInSeconds();
+
+    /**
+     * @return Age (in percent of the TTL) after which membership is reloaded in the background while still being served
+     */
+    public int getMembershipCacheRefreshAheadPercent();
+
+    /**
+     * @return Maximum age of membership served when the instance registry can not be read
+     */
+    public int getMembershipCacheMaxStaleInSeconds();
+
+    /**
+     * @return true if instances heartbeat to the registry and membership only lists instances with a live heartbeat
+     */
+    public boolean isInstanceHeartbeatEnabled();
+
+    public int getInstanceHeartbeatIntervalInSeconds();
+
+    /**
+     * @return Seconds after the last heartbeat an instance drops out of the membership
+     */
+    public int getInstanceHeartbeatTtlInSeconds();
+
+    /**
+     * @return Registry of instances : cassandra (bootstrap cluster), file (file shared by the processes of a host) or memory (single process)
+     */
+    public String getInstanceRegistryType();
+
+    public String getInstanceRegistryFilePath();
+
+    /**
+     * @return Interval at which the membership feed compares the membership with its last version
+     */
+    public int getMembershipFeedRefreshIntervalInSeconds();
+
+    /**
+     * @return Longest time a membership feed request waits for a change
+     */
+    public int getMembershipFeedMaxWaitInSeconds();
+
+    /**
+     * @return Time a batch of indices may take to restore before the Restore is failed
+     */
+    public int getRestoreBatchTimeoutInSeconds();
+
 }
@@ -112,6 +112,73 @@ public class RaigadConfiguration implements IConfiguration
     private static final String CONFIG_IS_SECURITY_GROUP_IN_MULTI_DC = MY_WEBAPP_NAME + ".security.group.in.multi.dc.enabled";
     private static final String CONFIG_IS_KIBANA_SETUP_REQUIRED = MY_WEBAPP_NAME + ".kibana.setup.required";
     private static final String CONFIG_KIBANA_PORT = MY_WEBAPP_NAME + ".kibana.port";
+    private static final String CONFIG_BULK_INGEST_IS_AUTO_MODE_ENABLED = MY_WEBAPP_NAME + ".bulk.ingest.auto.mode.enabled";
+    private static final String CONFIG_BULK_INGEST_COMMA_SEPARATED_INDICES = MY_WEBAPP_NAME + ".bulk.ingest.comma.separated.indices";
+    private static final String CONFIG_BULK_INGEST_START_DOCS_PER_SEC = MY_WEBAPP_NAME + ".bulk.ingest.start.docs.per.sec";
+    private static final String CONFIG_BULK_INGEST_STOP_DOCS_PER_SEC = MY_WEBAPP_NAME + ".bulk.ingest.stop.docs.per.sec";
+    private static final String CONFIG_BULK_INGEST_TIMEOUT_MINUTES = MY_WEBAPP_NAME + ".bulk.ingest.timeout.minutes";
+    private static final String CONFIG_BULK_INGEST_CHECK_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".bulk.ingest.check.interval.seconds";
+    private static final String CONFIG_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE = MY_WEBAPP_NAME + ".bulk.ingest.translog.flush.threshold.size";
+    private static final String CONFIG_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD = MY_WEBAPP_NAME + ".bulk.ingest.translog.flush.threshold.period";
+    private static final String CONFIG_SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.progress.poll.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_PRUNING_ENABLED = MY_WEBAPP_NAME + ".snapshot.pruning.enabled";
+    private static final String CONFIG_SNAPSHOT_PRUNING_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.pruning.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_RETENTION_HOURLY = MY_WEBAPP_NAME + ".snapshot.retention.hourly";
+    private static final String CONFIG_SNAPSHOT_RETENTION_DAILY = MY_WEBAPP_NAME + ".snapshot.retention.daily";
+    private static final String CONFIG_SNAPSHOT_RETENTION_WEEKLY = MY_WEBAPP_NAME + ".snapshot.retention.weekly";
+    private static final String CONFIG_SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES = MY_WEBAPP_NAME + ".snapshot.pruning.max.concurrent.deletes";
+    private static final String CONFIG_SNAPSHOT_SHARED_REPOSITORY_ENABLED = MY_WEBAPP_NAME + ".snapshot.shared.repository.enabled";
+    private static final String CONFIG_SNAPSHOT_SHARED_REPOSITORY_NAME = MY_WEBAPP_NAME + ".snapshot.shared.repository.name";
+    private static final String CONFIG_SNAPSHOT_NAME_PREFIX = MY_WEBAPP_NAME + ".snapshot.name.prefix";
+    private static final String CONFIG_SNAPSHOT_POLICIES = MY_WEBAPP_NAME + ".snapshot.policies";
+    private static final String CONFIG_SNAPSHOT_SCHEDULER_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.scheduler.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_MAX_BYTES_PER_SEC = MY_WEBAPP_NAME + ".snapshot.max.bytes.per.sec";
+    private static final String CONFIG_RESTORE_MAX_BYTES_PER_SEC = MY_WEBAPP_NAME + ".restore.max.bytes.per.sec";
+    private static final String CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED = MY_WEBAPP_NAME + ".snapshot.adaptive.throttle.enabled";
+    private static final String CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.adaptive.throttle.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS = MY_WEBAPP_NAME + ".snapshot.adaptive.throttle.target.search.latency.ms";
+    private static final String CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE = MY_WEBAPP_NAME + ".snapshot.adaptive.throttle.max.disk.queue";
+    private static final String CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS = MY_WEBAPP_NAME + ".snapshot.adaptive.throttle.min.threads";
+    private static final String CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS = MY_WEBAPP_NAME + ".snapshot.adaptive.throttle.max.threads";
+    private static final String CONFIG_BACKUP_REPOSITORY_TYPE = MY_WEBAPP_NAME + ".backup.repository.type";
+    private static final String CONFIG_FS_BACKUP_LOCATION = MY_WEBAPP_NAME + ".backup.fs.location";
+    private static final String CONFIG_FS_RESTORE_LOCATION = MY_WEBAPP_NAME + ".restore.fs.location";
+    private static final String CONFIG_FS_REPOSITORY_CHUNK_SIZE = MY_WEBAPP_NAME + ".backup.fs.chunk.size";
+    private static final String CONFIG_FS_REPOSITORY_COMPRESS = MY_WEBAPP_NAME + ".backup.fs.compress";
+    private static final String CONFIG_RESTORE_ORCHESTRATOR_ENABLED = MY_WEBAPP_NAME + ".restore.orchestrator.enabled";
+    private static final String CONFIG_RESTORE_BATCH_SIZE = MY_WEBAPP_NAME + ".restore.batch.size";
+    private static final String CONFIG_RESTORE_PROGRESS_POLL_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".restore.progress.poll.interval.seconds";
+    private static final String CONFIG_RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES = MY_WEBAPP_NAME + ".restore.node.initial.primaries.recoveries";
+    private static final String CONFIG_RESTORE_NODE_CONCURRENT_RECOVERIES = MY_WEBAPP_NAME + ".restore.node.concurrent.recoveries";
+    private static final String CONFIG_RESTORE_RECOVERY_CONCURRENT_STREAMS = MY_WEBAPP_NAME + ".restore.recovery.concurrent.streams";
+    private static final String CONFIG_RESTORE_RECOVERY_MAX_BYTES_PER_SEC = MY_WEBAPP_NAME + ".restore.recovery.max.bytes.per.sec";
+    private static final String CONFIG_RESTORE_RENAME_PATTERN = MY_WEBAPP_NAME + ".restore.rename.pattern";
+    private static final String CONFIG_RESTORE_RENAME_REPLACEMENT = MY_WEBAPP_NAME + ".restore.rename.replacement";
+    private static final String CONFIG_RESTORE_DEFER_REPLICAS = MY_WEBAPP_NAME + ".restore.defer.replicas";
+    private static final String CONFIG_RESTORE_REPLICAS = MY_WEBAPP_NAME + ".restore.replicas";
+    private static final String CONFIG_RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS = MY_WEBAPP_NAME + ".restore.optimize.max.num.segments";
+    private static final String CONFIG_RESTORE_WARMUP_ENABLED = MY_WEBAPP_NAME + ".restore.warmup.enabled";
+    private static final String CONFIG_RESTORE_ALIAS = MY_WEBAPP_NAME + ".restore.alias";
+    private static final String CONFIG_SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.catalog.refresh.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_ENABLED = MY_WEBAPP_NAME + ".snapshot.verification.enabled";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.verification.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_SAMPLE_SIZE = MY_WEBAPP_NAME + ".snapshot.verification.sample.size";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_INDEX_PREFIX = MY_WEBAPP_NAME + ".snapshot.verification.index.prefix";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC = MY_WEBAPP_NAME + ".snapshot.verification.max.restore.bytes.per.sec";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS = MY_WEBAPP_NAME + ".snapshot.verification.timeout.seconds";
+    private static final String CONFIG_SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT = MY_WEBAPP_NAME + ".snapshot.verification.max.size.drift.percent";
+    private static final String CONFIG_BACKUP_METRICS_HISTORY_SIZE = MY_WEBAPP_NAME + ".backup.metrics.history.size";
+    private static final String CONFIG_MEMBERSHIP_CACHE_TTL_SECONDS = MY_WEBAPP_NAME + ".membership.cache.ttl.seconds";
+    private static final String CONFIG_MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT = MY_WEBAPP_NAME + ".membership.cache.refresh.ahead.percent";
+    private static final String CONFIG_MEMBERSHIP_CACHE_MAX_STALE_SECONDS = MY_WEBAPP_NAME + ".membership.cache.max.stale.seconds";
+    private static final String CONFIG_INSTANCE_HEARTBEAT_ENABLED = MY_WEBAPP_NAME + ".instance.heartbeat.enabled";
+    private static final String CONFIG_INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS = MY_WEBAPP_NAME + ".instance.heartbeat.interval.seconds";
+    private static final String CONFIG_INSTANCE_HEARTBEAT_TTL_IN_SECONDS = MY_WEBAPP_NAME + ".instance.heartbeat.ttl.seconds";
+    private static final String CONFIG_INSTANCE_REGISTRY_TYPE = MY_WEBAPP_NAME + ".instance.registry.type";
+    private static final String CONFIG_INSTANCE_REGISTRY_FILE_PATH = MY_WEBAPP_NAME + ".instance.registry.file.path";
+    private static final String CONFIG_MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS = MY_WEBAPP_NAME + ".membership.feed.refresh.interval.seconds";
+    private static final String CONFIG_MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS = MY_WEBAPP_NAME + ".membership.feed.max.wait.seconds";
+    private static final String CONFIG_RESTORE_BATCH_TIMEOUT_SECONDS = MY_WEBAPP_NAME + ".restore.batch.timeout.seconds";
 
 
     // Amazon specific
@@ -177,7 +244,7 @@ public class RaigadConfiguration implements IConfiguration
     private static final String DEFAULT_BACKUP_COMMA_SEPARATED_INDICES = "_all";
     private static final boolean DEFAULT_BACKUP_PARTIAL_INDICES = false;
     private static final boolean DEFAULT_BACKUP_INCLUDE_GLOBAL_STATE = false;
-    private static final boolean DEFAULT_BACKUP_WAIT_FOR_COMPLETION = true;
+    private static final boolean DEFAULT_BACKUP_WAIT_FOR_COMPLETION = false;
     private static final boolean DEFAULT_BACKUP_INCLUDE_INDEX_NAME = false;
     private static final boolean DEFAULT_IS_RESTORE_ENABLED = false;
     private static final String DEFAULT_RESTORE_REPOSITORY_NAME = "testrepo";
@@ -208,6 +275,73 @@ public class RaigadConfiguration implements IConfiguration
     private static final boolean DEFAULT_IS_SECURITY_GROUP_IN_MULTI_DC = false;
     private static final boolean DEFAULT_IS_KIBANA_SETUP_REQUIRED = false;
     private static final int DEFAULT_KIBANA_PORT = 8001;
+    private static final boolean DEFAULT_BULK_INGEST_IS_AUTO_MODE_ENABLED = false;
+    private static final String DEFAULT_BULK_INGEST_COMMA_SEPARATED_INDICES = "";
+    private static final long DEFAULT_BULK_INGEST_START_DOCS_PER_SEC = 20000;
+    private static final long DEFAULT_BULK_INGEST_STOP_DOCS_PER_SEC = 1000;
+    private static final int DEFAULT_BULK_INGEST_TIMEOUT_MINUTES = 240;
+    private static final int DEFAULT_BULK_INGEST_CHECK_INTERVAL_SECONDS = 60;
+    private static final String DEFAULT_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE = "1gb";
+    private static final String DEFAULT_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD = "60m";
+    private static final int DEFAULT_SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS = 30;
+    private static final boolean DEFAULT_SNAPSHOT_PRUNING_ENABLED = false;
+    private static final int DEFAULT_SNAPSHOT_PRUNING_INTERVAL_SECONDS = 3600;
+    private static final int DEFAULT_SNAPSHOT_RETENTION_HOURLY = 24;
+    private static final int DEFAULT_SNAPSHOT_RETENTION_DAILY = 7;
+    private static final int DEFAULT_SNAPSHOT_RETENTION_WEEKLY = 4;
+    private static final int DEFAULT_SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES = 2;
+    private static final boolean DEFAULT_SNAPSHOT_SHARED_REPOSITORY_ENABLED = false;
+    private static final String DEFAULT_SNAPSHOT_SHARED_REPOSITORY_NAME = "snapshots";
+    private static final String DEFAULT_SNAPSHOT_NAME_PREFIX = "";
+    private static final String DEFAULT_SNAPSHOT_POLICIES = null;
+    private static final int DEFAULT_SNAPSHOT_SCHEDULER_INTERVAL_SECONDS = 60;
+    private static final String DEFAULT_SNAPSHOT_MAX_BYTES_PER_SEC = "20mb";
+    private static final String DEFAULT_RESTORE_MAX_BYTES_PER_SEC = "20mb";
+    private static final boolean DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED = false;
+    private static final int DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS = 30;
+    private static final long DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS = 50;
+    private static final double DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE = 2.0;
+    private static final int DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS = 1;
+    private static final int DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS = 5;
+    private static final String DEFAULT_BACKUP_REPOSITORY_TYPE = "s3";
+    private static final String DEFAULT_FS_BACKUP_LOCATION = "/mnt/es_backup";
+    private static final String DEFAULT_FS_RESTORE_LOCATION = null;
+    private static final String DEFAULT_FS_REPOSITORY_CHUNK_SIZE = null;
+    private static final boolean DEFAULT_FS_REPOSITORY_COMPRESS = false;
+    private static final boolean DEFAULT_RESTORE_ORCHESTRATOR_ENABLED = false;
+    private static final int DEFAULT_RESTORE_BATCH_SIZE = 10;
+    private static final int DEFAULT_RESTORE_PROGRESS_POLL_INTERVAL_SECONDS = 15;
+    private static final int DEFAULT_RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES = 8;
+    private static final int DEFAULT_RESTORE_NODE_CONCURRENT_RECOVERIES = 4;
+    private static final int DEFAULT_RESTORE_RECOVERY_CONCURRENT_STREAMS = 6;
+    private static final String DEFAULT_RESTORE_RECOVERY_MAX_BYTES_PER_SEC = "100mb";
+    private static final String DEFAULT_RESTORE_RENAME_PATTERN = null;
+    private static final String DEFAULT_RESTORE_RENAME_REPLACEMENT = null;
+    private static final boolean DEFAULT_RESTORE_DEFER_REPLICAS = false;
+    private static final int DEFAULT_RESTORE_REPLICAS = -1;
+    private static final int DEFAULT_RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS = 0;
+    private static final boolean DEFAULT_RESTORE_WARMUP_ENABLED = false;
+    private static final String DEFAULT_RESTORE_ALIAS = null;
+    private static final int DEFAULT_SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS = 21600;
+    private static final boolean DEFAULT_SNAPSHOT_VERIFICATION_ENABLED = false;
+    private static final int DEFAULT_SNAPSHOT_VERIFICATION_INTERVAL_SECONDS = 86400;
+    private static final int DEFAULT_SNAPSHOT_VERIFICATION_SAMPLE_SIZE = 2;
+    private static final String DEFAULT_SNAPSHOT_VERIFICATION_INDEX_PREFIX = "raigad_verify_";
+    private static final String DEFAULT_SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC = "20mb";
+    private static final int DEFAULT_SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS = 3600;
+    private static final int DEFAULT_SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT = 1;
+    private static final int DEFAULT_BACKUP_METRICS_HISTORY_SIZE = 100;
+    private static final int DEFAULT_MEMBERSHIP_CACHE_TTL_SECONDS = 30;
+    private static final int DEFAULT_MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT = 75;
+    private static final int DEFAULT_MEMBERSHIP_CACHE_MAX_STALE_SECONDS = 600;
+    private static final boolean DEFAULT_INSTANCE_HEARTBEAT_ENABLED = false;
+    private static final int DEFAULT_INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS = 30;
+    private static final int DEFAULT_INSTANCE_HEARTBEAT_TTL_IN_SECONDS = 120;
+    private static final String DEFAULT_INSTANCE_REGISTRY_TYPE = "cassandra";
+    private static final String DEFAULT_INSTANCE_REGISTRY_FILE_PATH = "/tmp/raigad/instance_registry";
+    private static final int DEFAULT_MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS = 5;
+    private static final int DEFAULT_MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS = 30;
+    private static final int DEFAULT_RESTORE_BATCH_TIMEOUT_SECONDS = 21600;
 
 
     private final IConfigSource config; 
@@ -286,6 +420,73 @@ public class RaigadConfiguration implements IConfiguration
     private final DynamicBooleanProperty IS_SECURITY_GROUP_IN_MULTI_DC = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_IS_SECURITY_GROUP_IN_MULTI_DC, isDefaultIsSecurityGroupInMultiDc());
     private final DynamicBooleanProperty IS_KIBANA_SETUP_REQUIRED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_IS_KIBANA_SETUP_REQUIRED, isDefaultIsKibanaSetupRequired());
     private final DynamicIntProperty KIBANA_PORT = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_KIBANA_PORT, getDefaultKibanaPort());
+    private final DynamicBooleanProperty BULK_INGEST_IS_AUTO_MODE_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_BULK_INGEST_IS_AUTO_MODE_ENABLED, isDefaultBulkIngestIsAutoModeEnabled());
+    private final DynamicStringProperty BULK_INGEST_COMMA_SEPARATED_INDICES = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_BULK_INGEST_COMMA_SEPARATED_INDICES, getDefaultBulkIngestCommaSeparatedIndices());
+    private final DynamicLongProperty BULK_INGEST_START_DOCS_PER_SEC = DynamicPropertyFactory.getInstance().getLongProperty(CONFIG_BULK_INGEST_START_DOCS_PER_SEC, getDefaultBulkIngestStartDocsPerSec());
+    private final DynamicLongProperty BULK_INGEST_STOP_DOCS_PER_SEC = DynamicPropertyFactory.getInstance().getLongProperty(CONFIG_BULK_INGEST_STOP_DOCS_PER_SEC, getDefaultBulkIngestStopDocsPerSec());
+    private final DynamicIntProperty BULK_INGEST_TIMEOUT_MINUTES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_BULK_INGEST_TIMEOUT_MINUTES, getDefaultBulkIngestTimeoutMinutes());
+    private final DynamicIntProperty BULK_INGEST_CHECK_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_BULK_INGEST_CHECK_INTERVAL_SECONDS, getDefaultBulkIngestCheckIntervalSeconds());
+    private final DynamicStringProperty BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE, getDefaultBulkIngestTranslogFlushThresholdSize());
+    private final DynamicStringProperty BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD, getDefaultBulkIngestTranslogFlushThresholdPeriod());
+    private final DynamicIntProperty SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS, getDefaultSnapshotProgressPollIntervalSeconds());
+    private final DynamicBooleanProperty SNAPSHOT_PRUNING_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_SNAPSHOT_PRUNING_ENABLED, isDefaultSnapshotPruningEnabled());
+    private final DynamicIntProperty SNAPSHOT_PRUNING_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_PRUNING_INTERVAL_SECONDS, getDefaultSnapshotPruningIntervalSeconds());
+    private final DynamicIntProperty SNAPSHOT_RETENTION_HOURLY = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_RETENTION_HOURLY, getDefaultSnapshotRetentionHourly());
+    private final DynamicIntProperty SNAPSHOT_RETENTION_DAILY = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_RETENTION_DAILY, getDefaultSnapshotRetentionDaily());
+    private final DynamicIntProperty SNAPSHOT_RETENTION_WEEKLY = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_RETENTION_WEEKLY, getDefaultSnapshotRetentionWeekly());
+    private final DynamicIntProperty SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES, getDefaultSnapshotPruningMaxConcurrentDeletes());
+    private final DynamicBooleanProperty SNAPSHOT_SHARED_REPOSITORY_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_SNAPSHOT_SHARED_REPOSITORY_ENABLED, isDefaultSnapshotSharedRepositoryEnabled());
+    private final DynamicStringProperty SNAPSHOT_SHARED_REPOSITORY_NAME = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_SHARED_REPOSITORY_NAME, getDefaultSnapshotSharedRepositoryName());
+    private final DynamicStringProperty SNAPSHOT_NAME_PREFIX = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_NAME_PREFIX, getDefaultSnapshotNamePrefix());
+    private final DynamicStringProperty SNAPSHOT_POLICIES = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_POLICIES, getDefaultSnapshotPolicies());
+    private final DynamicIntProperty SNAPSHOT_SCHEDULER_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_SCHEDULER_INTERVAL_SECONDS, getDefaultSnapshotSchedulerIntervalSeconds());
+    private final DynamicStringProperty SNAPSHOT_MAX_BYTES_PER_SEC = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_MAX_BYTES_PER_SEC, getDefaultSnapshotMaxBytesPerSec());
+    private final DynamicStringProperty RESTORE_MAX_BYTES_PER_SEC = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_RESTORE_MAX_BYTES_PER_SEC, getDefaultRestoreMaxBytesPerSec());
+    private final DynamicBooleanProperty SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED, isDefaultSnapshotAdaptiveThrottleEnabled());
+    private final DynamicIntProperty SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS, getDefaultSnapshotAdaptiveThrottleIntervalSeconds());
+    private final DynamicLongProperty SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS = DynamicPropertyFactory.getInstance().getLongProperty(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS, getDefaultSnapshotAdaptiveThrottleTargetSearchLatencyMs());
+    private final DynamicDoubleProperty SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE = DynamicPropertyFactory.getInstance().getDoubleProperty(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE, getDefaultSnapshotAdaptiveThrottleMaxDiskQueue());
+    private final DynamicIntProperty SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS, getDefaultSnapshotAdaptiveThrottleMinThreads());
+    private final DynamicIntProperty SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS, getDefaultSnapshotAdaptiveThrottleMaxThreads());
+    private final DynamicStringProperty BACKUP_REPOSITORY_TYPE = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_BACKUP_REPOSITORY_TYPE, getDefaultBackupRepositoryType());
+    private final DynamicStringProperty FS_BACKUP_LOCATION = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_FS_BACKUP_LOCATION, getDefaultFsBackupLocation());
+    private final DynamicStringProperty FS_RESTORE_LOCATION = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_FS_RESTORE_LOCATION, getDefaultFsRestoreLocation());
+    private final DynamicStringProperty FS_REPOSITORY_CHUNK_SIZE = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_FS_REPOSITORY_CHUNK_SIZE, getDefaultFsRepositoryChunkSize());
+    private final DynamicBooleanProperty FS_REPOSITORY_COMPRESS = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_FS_REPOSITORY_COMPRESS, isDefaultFsRepositoryCompress());
+    private final DynamicBooleanProperty RESTORE_ORCHESTRATOR_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_RESTORE_ORCHESTRATOR_ENABLED, isDefaultRestoreOrchestratorEnabled());
+    private final DynamicIntProperty RESTORE_BATCH_SIZE = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_BATCH_SIZE, getDefaultRestoreBatchSize());
+    private final DynamicIntProperty RESTORE_PROGRESS_POLL_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_PROGRESS_POLL_INTERVAL_SECONDS, getDefaultRestoreProgressPollIntervalSeconds());
+    private final DynamicIntProperty RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES, getDefaultRestoreNodeInitialPrimariesRecoveries());
+    private final DynamicIntProperty RESTORE_NODE_CONCURRENT_RECOVERIES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_NODE_CONCURRENT_RECOVERIES, getDefaultRestoreNodeConcurrentRecoveries());
+    private final DynamicIntProperty RESTORE_RECOVERY_CONCURRENT_STREAMS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_RECOVERY_CONCURRENT_STREAMS, getDefaultRestoreRecoveryConcurrentStreams());
+    private final DynamicStringProperty RESTORE_RECOVERY_MAX_BYTES_PER_SEC = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_RESTORE_RECOVERY_MAX_BYTES_PER_SEC, getDefaultRestoreRecoveryMaxBytesPerSec());
+    private final DynamicStringProperty RESTORE_RENAME_PATTERN = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_RESTORE_RENAME_PATTERN, getDefaultRestoreRenamePattern());
+    private final DynamicStringProperty RESTORE_RENAME_REPLACEMENT = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_RESTORE_RENAME_REPLACEMENT, getDefaultRestoreRenameReplacement());
+    private final DynamicBooleanProperty RESTORE_DEFER_REPLICAS = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_RESTORE_DEFER_REPLICAS, isDefaultRestoreDeferReplicas());
+    private final DynamicIntProperty RESTORE_REPLICAS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_REPLICAS, getDefaultRestoreReplicas());
+    private final DynamicIntProperty RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS, getDefaultRestoreOptimizeMaxNumSegments());
+    private final DynamicBooleanProperty RESTORE_WARMUP_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_RESTORE_WARMUP_ENABLED, isDefaultRestoreWarmupEnabled());
+    private final DynamicStringProperty RESTORE_ALIAS = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_RESTORE_ALIAS, getDefaultRestoreAlias());
+    private final DynamicIntProperty SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS, getDefaultSnapshotCatalogRefreshIntervalSeconds());
+    private final DynamicBooleanProperty SNAPSHOT_VERIFICATION_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_SNAPSHOT_VERIFICATION_ENABLED, isDefaultSnapshotVerificationEnabled());
+    private final DynamicIntProperty SNAPSHOT_VERIFICATION_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_VERIFICATION_INTERVAL_SECONDS, getDefaultSnapshotVerificationIntervalSeconds());
+    private final DynamicIntProperty SNAPSHOT_VERIFICATION_SAMPLE_SIZE = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_VERIFICATION_SAMPLE_SIZE, getDefaultSnapshotVerificationSampleSize());
+    private final DynamicStringProperty SNAPSHOT_VERIFICATION_INDEX_PREFIX = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_VERIFICATION_INDEX_PREFIX, getDefaultSnapshotVerificationIndexPrefix());
+    private final DynamicStringProperty SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC, getDefaultSnapshotVerificationMaxRestoreBytesPerSec());
+    private final DynamicIntProperty SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS, getDefaultSnapshotVerificationTimeoutSeconds());
+    private final DynamicIntProperty SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT, getDefaultSnapshotVerificationMaxSizeDriftPercent());
+    private final DynamicIntProperty BACKUP_METRICS_HISTORY_SIZE = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_BACKUP_METRICS_HISTORY_SIZE, getDefaultBackupMetricsHistorySize());
+    private final DynamicIntProperty MEMBERSHIP_CACHE_TTL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_CACHE_TTL_SECONDS, getDefaultMembershipCacheTtlSeconds());
+    private final DynamicIntProperty MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT, getDefaultMembershipCacheRefreshAheadPercent());
+    private final DynamicIntProperty MEMBERSHIP_CACHE_MAX_STALE_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_CACHE_MAX_STALE_SECONDS, getDefaultMembershipCacheMaxStaleSeconds());
+    private final DynamicBooleanProperty INSTANCE_HEARTBEAT_ENABLED = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_INSTANCE_HEARTBEAT_ENABLED, isDefaultInstanceHeartbeatEnabled());
+    private final DynamicIntProperty INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS, getDefaultInstanceHeartbeatIntervalInSeconds());
+    private final DynamicIntProperty INSTANCE_HEARTBEAT_TTL_IN_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INSTANCE_HEARTBEAT_TTL_IN_SECONDS, getDefaultInstanceHeartbeatTtlInSeconds());
+    private final DynamicStringProperty INSTANCE_REGISTRY_TYPE = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_INSTANCE_REGISTRY_TYPE, getDefaultInstanceRegistryType());
+    private final DynamicStringProperty INSTANCE_REGISTRY_FILE_PATH = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_INSTANCE_REGISTRY_FILE_PATH, getDefaultInstanceRegistryFilePath());
+    private final DynamicIntProperty MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS, getDefaultMembershipFeedRefreshIntervalInSeconds());
+    private final DynamicIntProperty MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS, getDefaultMembershipFeedMaxWaitInSeconds());
+    private final DynamicIntProperty RESTORE_BATCH_TIMEOUT_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_RESTORE_BATCH_TIMEOUT_SECONDS, getDefaultRestoreBatchTimeoutSeconds());
 
 
     @Inject
@@ -832,6 +1033,341 @@ public class RaigadConfiguration implements IConfiguration
         return KIBANA_PORT.get();
     }
 
+    @Override
+    public boolean isBulkIngestAutoModeEnabled() {
+        return BULK_INGEST_IS_AUTO_MODE_ENABLED.get();
+    }
+
+    @Override
+    public String getCommaSeparatedIndicesForBulkIngest() {
+        return BULK_INGEST_COMMA_SEPARATED_INDICES.get();
+    }
+
+    @Override
+    public long getBulkIngestStartIndexingRate() {
+        return BULK_INGEST_START_DOCS_PER_SEC.get();
+    }
+
+    @Override
+    public long getBulkIngestStopIndexingRate() {
+        return BULK_INGEST_STOP_DOCS_PER_SEC.get();
+    }
+
+    @Override
+    public int getBulkIngestTimeoutInMinutes() {
+        return BULK_INGEST_TIMEOUT_MINUTES.get();
+    }
+
+    @Override
+    public int getBulkIngestCheckIntervalInSeconds() {
+        return BULK_INGEST_CHECK_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public String getBulkIngestTranslogFlushThresholdSize() {
+        return BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE.get();
+    }
+
+    @Override
+    public String getBulkIngestTranslogFlushThresholdPeriod() {
+        return BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD.get();
+    }
+
+    @Override
+    public int getSnapshotProgressPollIntervalInSeconds() {
+        return SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public boolean isSnapshotPruningEnabled() {
+        return SNAPSHOT_PRUNING_ENABLED.get();
+    }
+
+    @Override
+    public int getSnapshotPruningIntervalInSeconds() {
+        return SNAPSHOT_PRUNING_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getSnapshotRetentionHourly() {
+        return SNAPSHOT_RETENTION_HOURLY.get();
+    }
+
+    @Override
+    public int getSnapshotRetentionDaily() {
+        return SNAPSHOT_RETENTION_DAILY.get();
+    }
+
+    @Override
+    public int getSnapshotRetentionWeekly() {
+        return SNAPSHOT_RETENTION_WEEKLY.get();
+    }
+
+    @Override
+    public int getSnapshotPruningMaxConcurrentDeletes() {
+        return SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES.get();
+    }
+
+    @Override
+    public boolean isSharedSnapshotRepositoryEnabled() {
+        return SNAPSHOT_SHARED_REPOSITORY_ENABLED.get();
+    }
+
+    @Override
+    public String getSharedSnapshotRepositoryName() {
+        return SNAPSHOT_SHARED_REPOSITORY_NAME.get();
+    }
+
+    @Override
+    public String getSnapshotNamePrefix() {
+        return SNAPSHOT_NAME_PREFIX.get();
+    }
+
+    @Override
+    public String getSnapshotPolicies() {
+        return SNAPSHOT_POLICIES.get();
+    }
+
+    @Override
+    public int getSnapshotSchedulerIntervalInSeconds() {
+        return SNAPSHOT_SCHEDULER_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public String getSnapshotMaxBytesPerSec() {
+        return SNAPSHOT_MAX_BYTES_PER_SEC.get();
+    }
+
+    @Override
+    public String getRestoreMaxBytesPerSec() {
+        return RESTORE_MAX_BYTES_PER_SEC.get();
+    }
+
+    @Override
+    public boolean isSnapshotAdaptiveThrottleEnabled() {
+        return SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED.get();
+    }
+
+    @Override
+    public int getSnapshotAdaptiveThrottleIntervalInSeconds() {
+        return SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public long getSnapshotAdaptiveThrottleTargetSearchLatencyMs() {
+        return SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS.get();
+    }
+
+    @Override
+    public double getSnapshotAdaptiveThrottleMaxDiskQueue() {
+        return SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE.get();
+    }
+
+    @Override
+    public int getSnapshotAdaptiveThrottleMinThreads() {
+        return SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS.get();
+    }
+
+    @Override
+    public int getSnapshotAdaptiveThrottleMaxThreads() {
+        return SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS.get();
+    }
+
+    @Override
+    public String getBackupRepositoryType() {
+        return BACKUP_REPOSITORY_TYPE.get();
+    }
+
+    @Override
+    public String getFsBackupLocation() {
+        return FS_BACKUP_LOCATION.get();
+    }
+
+    @Override
+    public String getFsRestoreLocation() {
+        return FS_RESTORE_LOCATION.get();
+    }
+
+    @Override
+    public String getFsRepositoryChunkSize() {
+        return FS_REPOSITORY_CHUNK_SIZE.get();
+    }
+
+    @Override
+    public boolean isFsRepositoryCompressEnabled() {
+        return FS_REPOSITORY_COMPRESS.get();
+    }
+
+    @Override
+    public boolean isRestoreOrchestratorEnabled() {
+        return RESTORE_ORCHESTRATOR_ENABLED.get();
+    }
+
+    @Override
+    public int getRestoreBatchSize() {
+        return RESTORE_BATCH_SIZE.get();
+    }
+
+    @Override
+    public int getRestoreProgressPollIntervalInSeconds() {
+        return RESTORE_PROGRESS_POLL_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getRestoreNodeInitialPrimariesRecoveries() {
+        return RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES.get();
+    }
+
+    @Override
+    public int getRestoreNodeConcurrentRecoveries() {
+        return RESTORE_NODE_CONCURRENT_RECOVERIES.get();
+    }
+
+    @Override
+    public int getRestoreRecoveryConcurrentStreams() {
+        return RESTORE_RECOVERY_CONCURRENT_STREAMS.get();
+    }
+
+    @Override
+    public String getRestoreRecoveryMaxBytesPerSec() {
+        return RESTORE_RECOVERY_MAX_BYTES_PER_SEC.get();
+    }
+
+    @Override
+    public String getRestoreRenamePattern() {
+        return RESTORE_RENAME_PATTERN.get();
+    }
+
+    @Override
+    public String getRestoreRenameReplacement() {
+        return RESTORE_RENAME_REPLACEMENT.get();
+    }
+
+    @Override
+    public boolean isRestoreDeferReplicasEnabled() {
+        return RESTORE_DEFER_REPLICAS.get();
+    }
+
+    @Override
+    public int getRestoreReplicas() {
+        return RESTORE_REPLICAS.get();
+    }
+
+    @Override
+    public int getRestoreOptimizeMaxNumSegments() {
+        return RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS.get();
+    }
+
+    @Override
+    public boolean isRestoreWarmupEnabled() {
+        return RESTORE_WARMUP_ENABLED.get();
+    }
+
+    @Override
+    public String getRestoreAlias() {
+        return RESTORE_ALIAS.get();
+    }
+
+    @Override
+    public int getSnapshotCatalogRefreshIntervalInSeconds() {
+        return SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public boolean isSnapshotVerificationEnabled() {
+        return SNAPSHOT_VERIFICATION_ENABLED.get();
+    }
+
+    @Override
+    public int getSnapshotVerificationIntervalInSeconds() {
+        return SNAPSHOT_VERIFICATION_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getSnapshotVerificationSampleSize() {
+        return SNAPSHOT_VERIFICATION_SAMPLE_SIZE.get();
+    }
+
+    @Override
+    public String getSnapshotVerificationIndexPrefix() {
+        return SNAPSHOT_VERIFICATION_INDEX_PREFIX.get();
+    }
+
+    @Override
+    public String getSnapshotVerificationMaxRestoreBytesPerSec() {
+        return SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC.get();
+    }
+
+    @Override
+    public int getSnapshotVerificationTimeoutInSeconds() {
+        return SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS.get();
+    }
+
+    @Override
+    public int getSnapshotVerificationMaxSizeDriftPercent() {
+        return SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT.get();
+    }
+
+    @Override
+    public int getBackupMetricsHistorySize() {
+        return BACKUP_METRICS_HISTORY_SIZE.get();
+    }
+
+    @Override
+    public int getMembershipCacheTtlInSeconds() {
+        return MEMBERSHIP_CACHE_TTL_SECONDS.get();
+    }
+
+    @Override
+    public int getMembershipCacheRefreshAheadPercent() {
+        return MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT.get();
+    }
+
+    @Override
+    public int getMembershipCacheMaxStaleInSeconds() {
+        return MEMBERSHIP_CACHE_MAX_STALE_SECONDS.get();
+    }
+
+    @Override
+    public boolean isInstanceHeartbeatEnabled() {
+        return INSTANCE_HEARTBEAT_ENABLED.get();
+    }
+
+    @Override
+    public int getInstanceHeartbeatIntervalInSeconds() {
+        return INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS.get();
+    }
+
+    @Override
+    public int getInstanceHeartbeatTtlInSeconds() {
+        return INSTANCE_HEARTBEAT_TTL_IN_SECONDS.get();
+    }
+
+    @Override
+    public String getInstanceRegistryType() {
+        return INSTANCE_REGISTRY_TYPE.get();
+    }
+
+    @Override
+    public String getInstanceRegistryFilePath() {
+        return INSTANCE_REGISTRY_FILE_PATH.get();
+    }
+
+    @Override
+    public int getMembershipFeedRefreshIntervalInSeconds() {
+        return MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS.get();
+    }
+
+    @Override
+    public int getMembershipFeedMaxWaitInSeconds() {
+        return MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS.get();
+    }
+
+    @Override
+    public int getRestoreBatchTimeoutInSeconds() {
+        return RESTORE_BATCH_TIMEOUT_SECONDS.get();
+    }
+
     public String getDefaultCredentialProvider()
     {
        return config.get(CONFIG_CREDENTIAL_PROVIDER,DEFAULT_CREDENTIAL_PROVIDER);
@@ -1130,4 +1666,272 @@ public class RaigadConfiguration implements IConfiguration
     public boolean isDefaultIsKibanaSetupRequired() {
         return config.get(CONFIG_IS_KIBANA_SETUP_REQUIRED,DEFAULT_IS_KIBANA_SETUP_REQUIRED);
     }
+
+    public boolean isDefaultBulkIngestIsAutoModeEnabled() {
+        return config.get(CONFIG_BULK_INGEST_IS_AUTO_MODE_ENABLED,DEFAULT_BULK_INGEST_IS_AUTO_MODE_ENABLED);
+    }
+
+    public String getDefaultBulkIngestCommaSeparatedIndices() {
+        return config.get(CONFIG_BULK_INGEST_COMMA_SEPARATED_INDICES,DEFAULT_BULK_INGEST_COMMA_SEPARATED_INDICES);
+    }
+
+    public long getDefaultBulkIngestStartDocsPerSec() {
+        return config.get(CONFIG_BULK_INGEST_START_DOCS_PER_SEC,DEFAULT_BULK_INGEST_START_DOCS_PER_SEC);
+    }
+
+    public long getDefaultBulkIngestStopDocsPerSec() {
+        return config.get(CONFIG_BULK_INGEST_STOP_DOCS_PER_SEC,DEFAULT_BULK_INGEST_STOP_DOCS_PER_SEC);
+    }
+
+    public int getDefaultBulkIngestTimeoutMinutes() {
+        return config.get(CONFIG_BULK_INGEST_TIMEOUT_MINUTES,DEFAULT_BULK_INGEST_TIMEOUT_MINUTES);
+    }
+
+    public int getDefaultBulkIngestCheckIntervalSeconds() {
+        return config.get(CONFIG_BULK_INGEST_CHECK_INTERVAL_SECONDS,DEFAULT_BULK_INGEST_CHECK_INTERVAL_SECONDS);
+    }
+
+    public String getDefaultBulkIngestTranslogFlushThresholdSize() {
+        return config.get(CONFIG_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE,DEFAULT_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_SIZE);
+    }
+
+    public String getDefaultBulkIngestTranslogFlushThresholdPeriod() {
+        return config.get(CONFIG_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD,DEFAULT_BULK_INGEST_TRANSLOG_FLUSH_THRESHOLD_PERIOD);
+    }
+
+    public int getDefaultSnapshotProgressPollIntervalSeconds() {
+        return config.get(CONFIG_SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS,DEFAULT_SNAPSHOT_PROGRESS_POLL_INTERVAL_SECONDS);
+    }
+
+    public boolean isDefaultSnapshotPruningEnabled() {
+        return config.get(CONFIG_SNAPSHOT_PRUNING_ENABLED,DEFAULT_SNAPSHOT_PRUNING_ENABLED);
+    }
+
+    public int getDefaultSnapshotPruningIntervalSeconds() {
+        return config.get(CONFIG_SNAPSHOT_PRUNING_INTERVAL_SECONDS,DEFAULT_SNAPSHOT_PRUNING_INTERVAL_SECONDS);
+    }
+
+    public int getDefaultSnapshotRetentionHourly() {
+        return config.get(CONFIG_SNAPSHOT_RETENTION_HOURLY,DEFAULT_SNAPSHOT_RETENTION_HOURLY);
+    }
+
+    public int getDefaultSnapshotRetentionDaily() {
+        return config.get(CONFIG_SNAPSHOT_RETENTION_DAILY,DEFAULT_SNAPSHOT_RETENTION_DAILY);
+    }
+
+    public int getDefaultSnapshotRetentionWeekly() {
+        return config.get(CONFIG_SNAPSHOT_RETENTION_WEEKLY,DEFAULT_SNAPSHOT_RETENTION_WEEKLY);
+    }
+
+    public int getDefaultSnapshotPruningMaxConcurrentDeletes() {
+        return config.get(CONFIG_SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES,DEFAULT_SNAPSHOT_PRUNING_MAX_CONCURRENT_DELETES);
+    }
+
+    public boolean isDefaultSnapshotSharedRepositoryEnabled() {
+        return config.get(CONFIG_SNAPSHOT_SHARED_REPOSITORY_ENABLED,DEFAULT_SNAPSHOT_SHARED_REPOSITORY_ENABLED);
+    }
+
+    public String getDefaultSnapshotSharedRepositoryName() {
+        return config.get(CONFIG_SNAPSHOT_SHARED_REPOSITORY_NAME,DEFAULT_SNAPSHOT_SHARED_REPOSITORY_NAME);
+    }
+
+    public String getDefaultSnapshotNamePrefix() {
+        return config.get(CONFIG_SNAPSHOT_NAME_PREFIX,DEFAULT_SNAPSHOT_NAME_PREFIX);
+    }
+
+    public String getDefaultSnapshotPolicies() {
+        return config.get(CONFIG_SNAPSHOT_POLICIES,DEFAULT_SNAPSHOT_POLICIES);
+    }
+
+    public int getDefaultSnapshotSchedulerIntervalSeconds() {
+        return config.get(CONFIG_SNAPSHOT_SCHEDULER_INTERVAL_SECONDS,DEFAULT_SNAPSHOT_SCHEDULER_INTERVAL_SECONDS);
+    }
+
+    public String getDefaultSnapshotMaxBytesPerSec() {
+        return config.get(CONFIG_SNAPSHOT_MAX_BYTES_PER_SEC,DEFAULT_SNAPSHOT_MAX_BYTES_PER_SEC);
+    }
+
+    public String getDefaultRestoreMaxBytesPerSec() {
+        return config.get(CONFIG_RESTORE_MAX_BYTES_PER_SEC,DEFAULT_RESTORE_MAX_BYTES_PER_SEC);
+    }
+
+    public boolean isDefaultSnapshotAdaptiveThrottleEnabled() {
+        return config.get(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED,DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_ENABLED);
+    }
+
+    public int getDefaultSnapshotAdaptiveThrottleIntervalSeconds() {
+        return config.get(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS,DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_INTERVAL_SECONDS);
+    }
+
+    public long getDefaultSnapshotAdaptiveThrottleTargetSearchLatencyMs() {
+        return config.get(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS,DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_TARGET_SEARCH_LATENCY_MS);
+    }
+
+    public double getDefaultSnapshotAdaptiveThrottleMaxDiskQueue() {
+        return config.get(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE,DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_DISK_QUEUE);
+    }
+
+    public int getDefaultSnapshotAdaptiveThrottleMinThreads() {
+        return config.get(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS,DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_MIN_THREADS);
+    }
+
+    public int getDefaultSnapshotAdaptiveThrottleMaxThreads() {
+        return config.get(CONFIG_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS,DEFAULT_SNAPSHOT_ADAPTIVE_THROTTLE_MAX_THREADS);
+    }
+
+    public String getDefaultBackupRepositoryType() {
+        return config.get(CONFIG_BACKUP_REPOSITORY_TYPE,DEFAULT_BACKUP_REPOSITORY_TYPE);
+    }
+
+    public String getDefaultFsBackupLocation() {
+        return config.get(CONFIG_FS_BACKUP_LOCATION,DEFAULT_FS_BACKUP_LOCATION);
+    }
+
+    public String getDefaultFsRestoreLocation() {
+        return config.get(CONFIG_FS_RESTORE_LOCATION,DEFAULT_FS_RESTORE_LOCATION);
+    }
+
+    public String getDefaultFsRepositoryChunkSize() {
+        return config.get(CONFIG_FS_REPOSITORY_CHUNK_SIZE,DEFAULT_FS_REPOSITORY_CHUNK_SIZE);
+    }
+
+    public boolean isDefaultFsRepositoryCompress() {
+        return config.get(CONFIG_FS_REPOSITORY_COMPRESS,DEFAULT_FS_REPOSITORY_COMPRESS);
+    }
+
+    public boolean isDefaultRestoreOrchestratorEnabled() {
+        return config.get(CONFIG_RESTORE_ORCHESTRATOR_ENABLED,DEFAULT_RESTORE_ORCHESTRATOR_ENABLED);
+    }
+
+    public int getDefaultRestoreBatchSize() {
+        return config.get(CONFIG_RESTORE_BATCH_SIZE,DEFAULT_RESTORE_BATCH_SIZE);
+    }
+
+    public int getDefaultRestoreProgressPollIntervalSeconds() {
+        return config.get(CONFIG_RESTORE_PROGRESS_POLL_INTERVAL_SECONDS,DEFAULT_RESTORE_PROGRESS_POLL_INTERVAL_SECONDS);
+    }
+
+    public int getDefaultRestoreNodeInitialPrimariesRecoveries() {
+        return config.get(CONFIG_RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES,DEFAULT_RESTORE_NODE_INITIAL_PRIMARIES_RECOVERIES);
+    }
+
+    public int getDefaultRestoreNodeConcurrentRecoveries() {
+        return config.get(CONFIG_RESTORE_NODE_CONCURRENT_RECOVERIES,DEFAULT_RESTORE_NODE_CONCURRENT_RECOVERIES);
+    }
+
+    public int getDefaultRestoreRecoveryConcurrentStreams() {
+        return config.get(CONFIG_RESTORE_RECOVERY_CONCURRENT_STREAMS,DEFAULT_RESTORE_RECOVERY_CONCURRENT_STREAMS);
+    }
+
+    public String getDefaultRestoreRecoveryMaxBytesPerSec() {
+        return config.get(CONFIG_RESTORE_RECOVERY_MAX_BYTES_PER_SEC,DEFAULT_RESTORE_RECOVERY_MAX_BYTES_PER_SEC);
+    }
+
+    public String getDefaultRestoreRenamePattern() {
+        return config.get(CONFIG_RESTORE_RENAME_PATTERN,DEFAULT_RESTORE_RENAME_PATTERN);
+    }
+
+    public String getDefaultRestoreRenameReplacement() {
+        return config.get(CONFIG_RESTORE_RENAME_REPLACEMENT,DEFAULT_RESTORE_RENAME_REPLACEMENT);
+    }
+
+    public boolean isDefaultRestoreDeferReplicas() {
+        return config.get(CONFIG_RESTORE_DEFER_REPLICAS,DEFAULT_RESTORE_DEFER_REPLICAS);
+    }
+
+    public int getDefaultRestoreReplicas() {
+        return config.get(CONFIG_RESTORE_REPLICAS,DEFAULT_RESTORE_REPLICAS);
+    }
+
+    public int getDefaultRestoreOptimizeMaxNumSegments() {
+        return config.get(CONFIG_RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS,DEFAULT_RESTORE_OPTIMIZE_MAX_NUM_SEGMENTS);
+    }
+
+    public boolean isDefaultRestoreWarmupEnabled() {
+        return config.get(CONFIG_RESTORE_WARMUP_ENABLED,DEFAULT_RESTORE_WARMUP_ENABLED);
+    }
+
+    public String getDefaultRestoreAlias() {
+        return config.get(CONFIG_RESTORE_ALIAS,DEFAULT_RESTORE_ALIAS);
+    }
+
+    public int getDefaultSnapshotCatalogRefreshIntervalSeconds() {
+        return config.get(CONFIG_SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS,DEFAULT_SNAPSHOT_CATALOG_REFRESH_INTERVAL_SECONDS);
+    }
+
+    public boolean isDefaultSnapshotVerificationEnabled() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_ENABLED,DEFAULT_SNAPSHOT_VERIFICATION_ENABLED);
+    }
+
+    public int getDefaultSnapshotVerificationIntervalSeconds() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_INTERVAL_SECONDS,DEFAULT_SNAPSHOT_VERIFICATION_INTERVAL_SECONDS);
+    }
+
+    public int getDefaultSnapshotVerificationSampleSize() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_SAMPLE_SIZE,DEFAULT_SNAPSHOT_VERIFICATION_SAMPLE_SIZE);
+    }
+
+    public String getDefaultSnapshotVerificationIndexPrefix() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_INDEX_PREFIX,DEFAULT_SNAPSHOT_VERIFICATION_INDEX_PREFIX);
+    }
+
+    public String getDefaultSnapshotVerificationMaxRestoreBytesPerSec() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC,DEFAULT_SNAPSHOT_VERIFICATION_MAX_RESTORE_BYTES_PER_SEC);
+    }
+
+    public int getDefaultSnapshotVerificationTimeoutSeconds() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS,DEFAULT_SNAPSHOT_VERIFICATION_TIMEOUT_SECONDS);
+    }
+
+    public int getDefaultSnapshotVerificationMaxSizeDriftPercent() {
+        return config.get(CONFIG_SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT,DEFAULT_SNAPSHOT_VERIFICATION_MAX_SIZE_DRIFT_PERCENT);
+    }
+
+    public int getDefaultBackupMetricsHistorySize() {
+        return config.get(CONFIG_BACKUP_METRICS_HISTORY_SIZE,DEFAULT_BACKUP_METRICS_HISTORY_SIZE);
+    }
+
+    public int getDefaultMembershipCacheTtlSeconds() {
+        return config.get(CONFIG_MEMBERSHIP_CACHE_TTL_SECONDS,DEFAULT_MEMBERSHIP_CACHE_TTL_SECONDS);
+    }
+
+    public int getDefaultMembershipCacheRefreshAheadPercent() {
+        return config.get(CONFIG_MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT,DEFAULT_MEMBERSHIP_CACHE_REFRESH_AHEAD_PERCENT);
+    }
+
+    public int getDefaultMembershipCacheMaxStaleSeconds() {
+        return config.get(CONFIG_MEMBERSHIP_CACHE_MAX_STALE_SECONDS,DEFAULT_MEMBERSHIP_CACHE_MAX_STALE_SECONDS);
+    }
+
+    public boolean isDefaultInstanceHeartbeatEnabled() {
+        return config.get(CONFIG_INSTANCE_HEARTBEAT_ENABLED,DEFAULT_INSTANCE_HEARTBEAT_ENABLED);
+    }
+
+    public int getDefaultInstanceHeartbeatIntervalInSeconds() {
+        return config.get(CONFIG_INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS,DEFAULT_INSTANCE_HEARTBEAT_INTERVAL_IN_SECONDS);
+    }
+
+    public int getDefaultInstanceHeartbeatTtlInSeconds() {
+        return config.get(CONFIG_INSTANCE_HEARTBEAT_TTL_IN_SECONDS,DEFAULT_INSTANCE_HEARTBEAT_TTL_IN_SECONDS);
+    }
+
+    public String getDefaultInstanceRegistryType() {
+        return config.get(CONFIG_INSTANCE_REGISTRY_TYPE,DEFAULT_INSTANCE_REGISTRY_TYPE);
+    }
+
+    public String getDefaultInstanceRegistryFilePath() {
+        return config.get(CONFIG_INSTANCE_REGISTRY_FILE_PATH,DEFAULT_INSTANCE_REGISTRY_FILE_PATH);
+    }
+
+    public int getDefaultMembershipFeedRefreshIntervalInSeconds() {
+        return config.get(CONFIG_MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS,DEFAULT_MEMBERSHIP_FEED_REFRESH_INTERVAL_IN_SECONDS);
+    }
+
+    public int getDefaultMembershipFeedMaxWaitInSeconds() {
+        return config.get(CONFIG_MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS,DEFAULT_MEMBERSHIP_FEED_MAX_WAIT_IN_SECONDS);
+    }
+
+    public int getDefaultRestoreBatchTimeoutSeconds() {
+        return config.get(CONFIG_RESTORE_BATCH_TIMEOUT_SECONDS,DEFAULT_RESTORE_BATCH_TIMEOUT_SECONDS);
+    }
 }
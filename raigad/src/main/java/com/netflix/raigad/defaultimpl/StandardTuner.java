@@ -57,6 +57,9 @@ public class StandardTuner implements IElasticsearchTuner
         map.put("path.data", config.getDataFileLocation());
         map.put("path.logs", config.getLogFileLocation());
         map.put("transport.tcp.port", config.getTransportTcpPort());
+        // Locality of this node, used by the custom discovery plugin to order its hosts
+        map.put("discovery.custom.availability_zone", config.getRac());
+        map.put("discovery.custom.dc", config.getDC());
 
         if(config.isKibanaSetupRequired())
         {
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.netflix.raigad.configuration.IConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instance registry kept on the host (memory or file), for local and single host multi node setups
+ * that should not depend on a Cassandra bootstrap cluster. Entries are keyed like the Cassandra rows
+ * (app_dc_instanceId), updatetime holds the last registration or heartbeat in millis.
+ */
+public abstract class AbstractLocalInstanceFactory implements IRaigadInstanceFactory
+{
+    protected final IConfiguration config;
+
+    protected AbstractLocalInstanceFactory(IConfiguration config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * @return Registered instances by key
+     */
+    protected abstract Map<String, RaigadInstance> readInstances();
+
+    /**
+     * Applies the mutation to the registered instances, atomically with respect to other registrations
+     */
+    protected abstract void updateInstances(Mutation mutation);
+
+    protected interface Mutation
+    {
+        void apply(Map<String, RaigadInstance> instances);
+    }
+
+    @Override
+    public List<RaigadInstance> getAllIds(String appName)
+    {
+        long now = System.currentTimeMillis();
+        List<RaigadInstance> list = new ArrayList<RaigadInstance>();
+        for (RaigadInstance instance : readInstances().values())
+        {
+            if (!appName.equals(instance.getApp()))
+                continue;
+            if (!config.isMultiDC() && !config.getDC().equals(instance.getDC()))
+                continue;
+            if (isAlive(instance, now))
+                list.add(instance);
+        }
+        sort(list);
+        return list;
+    }
+
+    @Override
+    public RaigadInstance getInstance(String appName, String dc, String id)
+    {
+        return readInstances().get(getKey(appName, dc, id));
+    }
+
+    @Override
+    public RaigadInstance create(String app, String id, String instanceID, String hostname, String ip, String rac, String dc, String asgname, Map<String, Object> volumes)
+    {
+        final RaigadInstance instance = new RaigadInstance();
+        instance.setAvailabilityZone(rac);
+        instance.setHostIP(ip);
+        instance.setHostName(hostname);
+        instance.setId(id);
+        instance.setInstanceId(instanceID);
+        instance.setDC(dc);
+        instance.setApp(app);
+        instance.setAsg(asgname);
+        update(instance);
+        return instance;
+    }
+
+    @Override
+    public void delete(RaigadInstance instance)
+    {
+        deleteAll(Collections.singletonList(instance));
+    }
+
+    @Override
+    public void deleteAll(final List<RaigadInstance> instances)
+    {
+        updateInstances(new Mutation() {
+            @Override
+            public void apply(Map<String, RaigadInstance> registeredInstances) {
+                for (RaigadInstance instance : instances)
+                    registeredInstances.remove(getKey(instance));
+            }
+        });
+    }
+
+    @Override
+    public void update(final RaigadInstance instance)
+    {
+        instance.setUpdatetime(System.currentTimeMillis());
+        updateInstances(new Mutation() {
+            @Override
+            public void apply(Map<String, RaigadInstance> registeredInstances) {
+                registeredInstances.put(getKey(instance), instance);
+            }
+        });
+    }
+
+    @Override
+    public void sort(List<RaigadInstance> list)
+    {
+        Collections.sort(list, new Comparator<RaigadInstance>() {
+            @Override
+            public int compare(RaigadInstance esInstance1, RaigadInstance esInstance2) {
+                int azCompare = esInstance1.getAvailabilityZone().compareTo(esInstance2.getAvailabilityZone());
+                if (azCompare == 0) {
+                    return esInstance1.getId().compareTo(esInstance2.getId());
+                } else {
+                    return azCompare;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void attachVolumes(RaigadInstance instance, String mountPath, String device)
+    {
+    }
+
+    private boolean isAlive(RaigadInstance instance, long now)
+    {
+        return !config.isInstanceHeartbeatEnabled() || now - instance.getUpdatetime() < config.getInstanceHeartbeatTtlInSeconds() * 1000L;
+    }
+
+    protected static String getKey(RaigadInstance instance)
+    {
+        return getKey(instance.getApp(), instance.getDC(), instance.getInstanceId());
+    }
+
+    protected static String getKey(String app, String dc, String instanceId)
+    {
+        return app + "_" + dc + "_" + instanceId;
+    }
+}
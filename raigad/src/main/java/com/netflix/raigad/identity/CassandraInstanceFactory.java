@@ -116,8 +116,23 @@ public class CassandraInstanceFactory implements IRaigadInstanceFactory {
     }
 
     @Override
-    public void update(RaigadInstance arg0) {
-        // TODO Auto-generated method stub
+    public void deleteAll(List<RaigadInstance> instances) {
+        try {
+            dao.deleteInstanceEntries(instances);
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            throw new RuntimeException("Unable to deregister RaigadInstances",e);
+        }
+    }
+
+    @Override
+    public void update(RaigadInstance instance) {
+        try {
+            dao.updateInstanceEntry(instance);
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            throw new RuntimeException("Unable to update RaigadInstance",e);
+        }
     }
 
     @Override
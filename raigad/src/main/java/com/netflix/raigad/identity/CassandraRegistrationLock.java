@@ -0,0 +1,86 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.MutationBatch;
+import com.netflix.astyanax.model.ColumnFamily;
+import com.netflix.astyanax.recipes.locks.BusyLockException;
+import com.netflix.astyanax.recipes.locks.ColumnPrefixDistributedRowLock;
+import com.netflix.astyanax.recipes.locks.StaleLockException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration lock kept as a row of the locks Column Family. Acquiring writes a lock column
+ * for the owner and reads the row back once : any other live lock column means contention,
+ * in which case the own column is removed again. Lock columns expire after ttlInSeconds, other
+ * owners consider a lock column stale one second earlier (the recipe needs the lock timeout to be
+ * strictly less than the column TTL).
+ */
+public class CassandraRegistrationLock implements IRegistrationLock
+{
+    private final Keyspace keyspace;
+    private final ColumnFamily<String, String> columnFamily;
+    private final int ttlInSeconds;
+    private final int lockTimeoutInSeconds;
+
+    public CassandraRegistrationLock(Keyspace keyspace, ColumnFamily<String, String> columnFamily, int ttlInSeconds)
+    {
+        this.keyspace = keyspace;
+        this.columnFamily = columnFamily;
+        if (ttlInSeconds < 2)
+            throw new IllegalArgumentException("Registration lock TTL must be at least 2 seconds, was " + ttlInSeconds);
+        this.ttlInSeconds = ttlInSeconds;
+        this.lockTimeoutInSeconds = ttlInSeconds - 1;
+    }
+
+    @Override
+    public boolean tryAcquire(String lockKey, String owner) throws Exception
+    {
+        try {
+            getRowLock(lockKey, owner).acquire();
+            return true;
+        }
+        catch (BusyLockException e)
+        {
+            return false;
+        }
+        catch (StaleLockException e)
+        {
+            // Own lock column was written before the check failed
+            release(lockKey, owner);
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String lockKey, String owner) throws Exception
+    {
+        MutationBatch m = keyspace.prepareMutationBatch();
+        m.withRow(columnFamily, lockKey).deleteColumn(ColumnPrefixDistributedRowLock.DEFAULT_LOCK_PREFIX + owner);
+        m.execute();
+    }
+
+    private ColumnPrefixDistributedRowLock<String> getRowLock(String lockKey, String owner)
+    {
+        return new ColumnPrefixDistributedRowLock<String>(keyspace, columnFamily, lockKey)
+                .withLockId(owner)
+                .expireLockAfter(lockTimeoutInSeconds, TimeUnit.SECONDS)
+                .withTtl(ttlInSeconds)
+                .failOnStaleLock(false);
+    }
+}
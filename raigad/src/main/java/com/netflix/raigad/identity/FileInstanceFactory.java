@@ -0,0 +1,159 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instance registry in a memory mapped file (config.getInstanceRegistryFilePath()) shared by
+ * the Raigad processes of a host. Layout : version (long), length (int), serialized instances.
+ * Readers hold a shared file lock and writers an exclusive one; instances are deserialized
+ * only when the version changed since the last read.
+ */
+@Singleton
+public class FileInstanceFactory extends AbstractLocalInstanceFactory
+{
+    private static final Logger logger = LoggerFactory.getLogger(FileInstanceFactory.class);
+    private static final int REGISTRY_SIZE = 1024 * 1024;
+    private static final int HEADER_SIZE = 12;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private long cachedVersion = -1;
+    private Map<String, RaigadInstance> cachedInstances = new HashMap<String, RaigadInstance>();
+
+    @Inject
+    public FileInstanceFactory(IConfiguration config) throws IOException
+    {
+        super(config);
+        File registryFile = new File(config.getInstanceRegistryFilePath());
+        if (registryFile.getParentFile() != null)
+            registryFile.getParentFile().mkdirs();
+        logger.info("Using instance registry file <" + registryFile.getAbsolutePath() + ">");
+        channel = new RandomAccessFile(registryFile, "rw").getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGISTRY_SIZE);
+    }
+
+    // File locks are held per JVM, threads of this process are serialized here
+    @Override
+    protected synchronized Map<String, RaigadInstance> readInstances()
+    {
+        FileLock lock = null;
+        try {
+            lock = channel.lock(0, REGISTRY_SIZE, true);
+            return new HashMap<String, RaigadInstance>(read());
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Unable to read instance registry <" + config.getInstanceRegistryFilePath() + ">", e);
+        }
+        finally {
+            release(lock);
+        }
+    }
+
+    @Override
+    protected synchronized void updateInstances(Mutation mutation)
+    {
+        FileLock lock = null;
+        try {
+            lock = channel.lock(0, REGISTRY_SIZE, false);
+            Map<String, RaigadInstance> instances = new HashMap<String, RaigadInstance>(read());
+            mutation.apply(instances);
+            write(instances);
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Unable to update instance registry <" + config.getInstanceRegistryFilePath() + ">", e);
+        }
+        finally {
+            release(lock);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, RaigadInstance> read() throws IOException, ClassNotFoundException
+    {
+        long version = buffer.getLong(0);
+        if (version == cachedVersion)
+            return cachedInstances;
+
+        int length = buffer.getInt(8);
+        Map<String, RaigadInstance> instances = new HashMap<String, RaigadInstance>();
+        if (length > 0) {
+            byte[] bytes = new byte[length];
+            buffer.position(HEADER_SIZE);
+            buffer.get(bytes);
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                instances = (Map<String, RaigadInstance>) in.readObject();
+            }
+            finally {
+                in.close();
+            }
+        }
+        cachedVersion = version;
+        cachedInstances = instances;
+        return instances;
+    }
+
+    private void write(Map<String, RaigadInstance> instances) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(instances);
+        out.close();
+        if (bytes.size() > REGISTRY_SIZE - HEADER_SIZE)
+            throw new IOException("Instance registry exceeds " + REGISTRY_SIZE + " bytes with " + instances.size() + " instances");
+
+        buffer.position(HEADER_SIZE);
+        buffer.put(bytes.toByteArray());
+        buffer.putInt(8, bytes.size());
+        long version = buffer.getLong(0) + 1;
+        buffer.putLong(0, version);
+        cachedVersion = version;
+        cachedInstances = instances;
+    }
+
+    private static void release(FileLock lock)
+    {
+        if (lock == null)
+            return;
+        try {
+            lock.release();
+        }
+        catch (IOException e)
+        {
+            logger.warn("Unable to release lock of instance registry", e);
+        }
+    }
+}
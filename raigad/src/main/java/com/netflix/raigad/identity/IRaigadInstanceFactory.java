@@ -62,6 +62,12 @@ public interface IRaigadInstanceFactory
      */
     public void delete(RaigadInstance inst);
 
+    /**
+     * Delete several server nodes from the registry at once
+     * @param instances the nodes to delete
+     */
+    public void deleteAll(List<RaigadInstance> instances);
+
     /**
      * Update the details of the server node in registry
      * @param inst the node to update
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+/**
+ *  Lock guarding changes to the registry entry of an instance. The registry has no
+ *  compare-and-set, so acquisition writes a claim for the owner and then reads the claims
+ *  back : if another owner's claim is there, the own claim is withdrawn and acquisition fails,
+ *  without waiting. Two owners racing may therefore both fail; as long as claims are written
+ *  and read at quorum, they never both succeed.
+ */
+public interface IRegistrationLock
+{
+    /**
+     * Take the lock for {@code owner}, re-acquiring a lock already held by {@code owner} succeeds.
+     * @param lockKey key of the lock
+     * @param owner id of the lock holder (instance id)
+     * @return true if the lock is held by {@code owner}, false if another owner holds it
+     */
+    public boolean tryAcquire(String lockKey, String owner) throws Exception;
+
+    /**
+     * Release the lock if held by {@code owner}
+     * @param lockKey key of the lock
+     * @param owner id of the lock holder (instance id)
+     */
+    public void release(String lockKey, String owner) throws Exception;
+}
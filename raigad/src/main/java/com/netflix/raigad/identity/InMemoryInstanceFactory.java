@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instance registry held in the memory of this process
+ */
+@Singleton
+public class InMemoryInstanceFactory extends AbstractLocalInstanceFactory
+{
+    private final Map<String, RaigadInstance> instances = new HashMap<String, RaigadInstance>();
+
+    @Inject
+    public InMemoryInstanceFactory(IConfiguration config)
+    {
+        super(config);
+    }
+
+    @Override
+    protected synchronized Map<String, RaigadInstance> readInstances()
+    {
+        return new HashMap<String, RaigadInstance>(instances);
+    }
+
+    @Override
+    protected synchronized void updateInstances(Mutation mutation)
+    {
+        mutation.apply(instances);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registration lock held in memory, for registries local to the process and for tests
+ */
+public class InMemoryRegistrationLock implements IRegistrationLock
+{
+    private final ConcurrentMap<String, Holder> locks = new ConcurrentHashMap<String, Holder>();
+    private final long ttlMillis;
+
+    public InMemoryRegistrationLock(int ttlInSeconds)
+    {
+        this.ttlMillis = ttlInSeconds * 1000L;
+    }
+
+    @Override
+    public boolean tryAcquire(String lockKey, String owner)
+    {
+        return tryAcquire(lockKey, owner, System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(String lockKey, String owner, long now)
+    {
+        Holder holder = new Holder(owner, now + ttlMillis);
+        while (true)
+        {
+            Holder current = locks.get(lockKey);
+            if (current == null) {
+                if (locks.putIfAbsent(lockKey, holder) == null)
+                    return true;
+            }
+            else if (current.owner.equals(owner) || current.expiresAt <= now) {
+                if (locks.replace(lockKey, current, holder))
+                    return true;
+            }
+            else
+                return false;
+        }
+    }
+
+    @Override
+    public void release(String lockKey, String owner)
+    {
+        Holder current = locks.get(lockKey);
+        if (current != null && current.owner.equals(owner))
+            locks.remove(lockKey, current);
+    }
+
+    private static class Holder
+    {
+        private final String owner;
+        private final long expiresAt;
+
+        private Holder(String owner, long expiresAt)
+        {
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -31,15 +31,21 @@ import com.netflix.astyanax.connectionpool.impl.ConnectionPoolType;
 import com.netflix.astyanax.connectionpool.impl.CountingConnectionPoolMonitor;
 import com.netflix.astyanax.impl.AstyanaxConfigurationImpl;
 import com.netflix.astyanax.model.*;
+import com.netflix.astyanax.query.PreparedCqlQuery;
 import com.netflix.astyanax.serializers.StringSerializer;
 import com.netflix.astyanax.thrift.ThriftFamilyFactory;
 import com.netflix.astyanax.util.TimeUUIDUtils;
 import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Use bootstrap cluster to find tokens and nodes in the ring
@@ -57,8 +63,13 @@ public class InstanceDataDAOCassandra
     private static final String CN_LOCATION = "location";
     private static final String CN_ASGNAME = "asgname";
     private static final String CN_UPDATETIME = "updatetime";
+    private static final String CN_HEARTBEAT = "heartbeat";
     public static final String CF_NAME_INSTANCES = "instances";
     public static final String CF_NAME_LOCKS = "locks";
+    private static final int LOCK_TTL_IN_SECONDS = 600;
+    private static final String SELECT_INSTANCES_OF_CLUSTER = String.format("SELECT * FROM %s WHERE %s = ? ", CF_NAME_INSTANCES, CN_CLUSTER);
+    private static final String SELECT_INSTANCES_OF_CLUSTER_IN_DC = String.format("SELECT * FROM %s WHERE %s = ? AND %s = ? ", CF_NAME_INSTANCES, CN_CLUSTER, CN_LOCATION);
+    private static final String SELECT_INSTANCE = String.format("SELECT * FROM %s WHERE %s = ? and %s = ? and %s = ? ", CF_NAME_INSTANCES, CN_CLUSTER, CN_INSTANCEID, CN_LOCATION);
 
     private final Keyspace bootKeyspace;
     private final IConfiguration config;
@@ -67,6 +78,9 @@ public class InstanceDataDAOCassandra
     private final String KS_NAME;
     private final int thriftPortForAstyanax;
     private final AstyanaxContext<Keyspace> ctx;
+    private final ColumnFamily<String, String> cqlColumnFamily;
+    private final Elasticsearch_InstanceRegistryReporter instanceRegistryReporter;
+    private final IRegistrationLock registrationLock;
 
     public static final ColumnFamily<String, String> CF_INSTANCES =
             new ColumnFamily<String, String>(CF_NAME_INSTANCES, StringSerializer.get(), StringSerializer.get());
@@ -102,6 +116,12 @@ public class InstanceDataDAOCassandra
 
         ctx.start();
         bootKeyspace = ctx.getClient();
+
+        //Statements are prepared against the keyspace, so the Column Family they are issued through is built once
+        cqlColumnFamily = ColumnFamily.newColumnFamily(KS_NAME, StringSerializer.get(), StringSerializer.get());
+        registrationLock = new CassandraRegistrationLock(bootKeyspace, CF_LOCKS, LOCK_TTL_IN_SECONDS);
+        instanceRegistryReporter = new Elasticsearch_InstanceRegistryReporter();
+        Monitors.registerObject(instanceRegistryReporter);
     }
 
     public void createInstanceEntry(RaigadInstance instance) throws Exception
@@ -109,61 +129,90 @@ public class InstanceDataDAOCassandra
         logger.info("***Creating New Instance Entry");
         String key = getRowKey(instance);
         // If the key exists throw exception
-        if (getInstance(instance.getApp(), instance.getDC(),
-                instance.getId()) != null) {
+        if (getInstanceByKey(key) != null) {
             logger.info(String.format("Key already exists: %s", key));
+            if (config.isInstanceHeartbeatEnabled())
+                updateInstanceEntry(instance);
             return;
         }
         // Grab the lock
         getLock(instance);
+        try {
+            MutationBatch m = bootKeyspace.prepareMutationBatch();
+            fillInstanceRow(m, instance);
+            m.execute();
+        }
+        finally {
+            registrationLock.release(getLockingKey(instance), instance.getInstanceId());
+        }
+    }
+
+    /**
+     * Rewrites the instance entry along with a fresh heartbeat, restoring an entry deleted as dead
+     */
+    public void updateInstanceEntry(RaigadInstance instance) throws Exception
+    {
         MutationBatch m = bootKeyspace.prepareMutationBatch();
-        ColumnListMutation<String> clm = m.withRow(CF_INSTANCES, key);
-        clm.putColumn(CN_CLUSTER, instance.getApp(), null);
-        clm.putColumn(CN_AZ, instance.getAvailabilityZone(), null);
-        clm.putColumn(CN_INSTANCEID, instance.getInstanceId(), null);
-        clm.putColumn(CN_HOSTNAME, instance.getHostName(), null);
-        clm.putColumn(CN_IP, instance.getHostIP(), null);
-        clm.putColumn(CN_LOCATION, instance.getDC(), null);
-        clm.putColumn(CN_ASGNAME, instance.getAsg(), null);
-        clm.putColumn(CN_UPDATETIME, TimeUUIDUtils.getUniqueTimeUUIDinMicros(),
-                null);
+        fillInstanceRow(m, instance);
         m.execute();
     }
 
+    private void fillInstanceRow(MutationBatch m, RaigadInstance instance)
+    {
+        // With heartbeats the whole row expires with the heartbeat TTL, as dead instances are not deregistered then.
+        // Live instances rewrite the full row on every heartbeat, which also gives a TTL to rows written without one
+        Integer ttl = config.isInstanceHeartbeatEnabled() ? config.getInstanceHeartbeatTtlInSeconds() : null;
+        ColumnListMutation<String> clm = m.withRow(CF_INSTANCES, getRowKey(instance));
+        clm.putColumn(CN_CLUSTER, instance.getApp(), ttl);
+        clm.putColumn(CN_AZ, instance.getAvailabilityZone(), ttl);
+        clm.putColumn(CN_INSTANCEID, instance.getInstanceId(), ttl);
+        clm.putColumn(CN_HOSTNAME, instance.getHostName(), ttl);
+        clm.putColumn(CN_IP, instance.getHostIP(), ttl);
+        clm.putColumn(CN_LOCATION, instance.getDC(), ttl);
+        clm.putColumn(CN_ASGNAME, instance.getAsg(), ttl);
+        clm.putColumn(CN_UPDATETIME, TimeUUIDUtils.getUniqueTimeUUIDinMicros(),
+                ttl);
+        // Rows without a heartbeat (left by dead instances before heartbeats were enabled) are left out of getAllInstances
+        if (config.isInstanceHeartbeatEnabled())
+            clm.putColumn(CN_HEARTBEAT, String.valueOf(System.currentTimeMillis()), ttl);
+    }
+
+    /**
+     * Point read of the row keyed by cluster, region and instance id (see getRowKey)
+     */
     public RaigadInstance getInstance(String cluster, String region, String instanceId)
     {
-        List<RaigadInstance> list = getAllInstances(cluster);
-        for (RaigadInstance ins : list) {
-            if (ins.getInstanceId().equals(instanceId) && ins.getDC().equals(region))
-                return ins;
+        return getInstanceByKey(getRowKey(cluster, region, instanceId));
+    }
+
+    private RaigadInstance getInstanceByKey(String key)
+    {
+        try {
+            OperationResult<ColumnList<String>> result = bootKeyspace.prepareQuery(CF_INSTANCES).getKey(key).execute();
+            if (result == null || result.getResult().isEmpty())
+                return null;
+            return transform(result.getResult());
+        }
+        catch (ConnectionException e) {
+            logger.warn("Caught an Exception during reading row <" + key + "> ... -> " + e.getMessage());
+            throw new RuntimeException(e);
         }
-        return null;
     }
 
     public List<RaigadInstance> getAllInstances(String cluster)
     {
         List<RaigadInstance> list = new ArrayList<RaigadInstance>();
         try {
-
-            String selectClause = "";
+            OperationResult<CqlResult<String, String>> result;
             if(config.isMultiDC())
-            {
-                selectClause  = String.format("SELECT * FROM %s WHERE %s = '%s' ", CF_NAME_INSTANCES, CN_CLUSTER, cluster);
-            }else {
-                selectClause  = String.format("SELECT * FROM %s WHERE %s = '%s' AND %s = '%s' ", CF_NAME_INSTANCES, CN_CLUSTER, cluster, CN_LOCATION, config.getDC());
-            }
-
-            if (config.isDebugEnabled()) {
-                logger.debug(selectClause);
-            }
-
-            final ColumnFamily<String, String> CF_INSTANCES_NEW = ColumnFamily.newColumnFamily(KS_NAME,
-                    StringSerializer.get(), StringSerializer.get());
-
-            OperationResult<CqlResult<String, String>> result = bootKeyspace.prepareQuery(CF_INSTANCES_NEW)
-                    .withCql(selectClause).execute();
+                result = executeStatement(SELECT_INSTANCES_OF_CLUSTER, instanceRegistryReporter.getAllInstancesMetrics, cluster);
+            else
+                result = executeStatement(SELECT_INSTANCES_OF_CLUSTER_IN_DC, instanceRegistryReporter.getAllInstancesMetrics, cluster, config.getDC());
 
+            boolean heartbeatRequired = config.isInstanceHeartbeatEnabled();
             for (Row<String, String> row : result.getResult().getRows()) {
+                if (heartbeatRequired && row.getColumns().getColumnByName(CN_HEARTBEAT) == null)
+                    continue;
                 list.add(transform(row.getColumns()));
             }
         }
@@ -202,14 +251,34 @@ public class InstanceDataDAOCassandra
         m.withRow(CF_LOCKS, key).delete();
         m.execute();
 
-        // Have to delete choosing key as well to avoid issues with delete
-        // followed by immediate writes
+        // Choosing rows are no longer written, delete the ones left by the
+        // previous locking protocol
         key = getChoosingKey(instance);
         m = bootKeyspace.prepareMutationBatch();
         m.withRow(CF_LOCKS, key).delete();
         m.execute();
     }
 
+    /**
+     * Deletes instance, lock and choosing rows of all given instances in a single mutation.
+     * Meant for dead instances, which can not re-register concurrently, so no lock is taken.
+     */
+    public void deleteInstanceEntries(List<RaigadInstance> instances) throws Exception
+    {
+        if (instances.isEmpty())
+            return;
+
+        logger.info("***Deleting " + instances.size() + " Dead Instance Entries");
+        MutationBatch m = bootKeyspace.prepareMutationBatch();
+        for (RaigadInstance instance : instances)
+        {
+            m.withRow(CF_INSTANCES, getRowKey(instance)).delete();
+            m.withRow(CF_LOCKS, getLockingKey(instance)).delete();
+            m.withRow(CF_LOCKS, getChoosingKey(instance)).delete();
+        }
+        m.execute();
+    }
+
     protected void sort(List<RaigadInstance> list) {
         Collections.sort(list, new Comparator<RaigadInstance>() {
 
@@ -226,61 +295,32 @@ public class InstanceDataDAOCassandra
     }
 
     /*
-     * To get a lock on the row - Create a choosing row and make sure there are
-     * no contenders. If there are bail out. Also delete the column when bailing
-     * out. - Once there are no contenders, grab the lock if it is not already
-     * taken.
+     * Lock of the instance entry, taken with a single compare-and-set. Contention fails fast,
+     * callers retry (RetryableCallable).
      */
     private void getLock(RaigadInstance instance) throws Exception
     {
-        String choosingkey = getChoosingKey(instance);
-        MutationBatch m = bootKeyspace.prepareMutationBatch();
-        ColumnListMutation<String> clm = m.withRow(CF_LOCKS, choosingkey);
-
-        // Expire in 6 sec
-        clm.putColumn(instance.getInstanceId(), instance.getInstanceId(), new Integer(6));
-        m.execute();
-        int count = bootKeyspace.prepareQuery(CF_LOCKS).getKey(choosingkey).getCount().execute().getResult();
-        if (count > 1) {
-            // Need to delete my entry
-            m.withRow(CF_LOCKS, choosingkey).deleteColumn(instance.getInstanceId());
-            m.execute();
-            throw new Exception(String.format("More than 1 contender for lock %s %d", choosingkey, count));
-        }
-
         String lockKey = getLockingKey(instance);
-        OperationResult<ColumnList<String>> result = bootKeyspace.prepareQuery(CF_LOCKS).getKey(lockKey).execute();
-        if (result.getResult().size() > 0 && !result.getResult().getColumnByIndex(0).getName().equals(instance.getInstanceId()))
+        long startTime = System.currentTimeMillis();
+        boolean acquired = registrationLock.tryAcquire(lockKey, instance.getInstanceId());
+        instanceRegistryReporter.lockAcquireLatencyMillis.set(System.currentTimeMillis() - startTime);
+        if (!acquired) {
+            instanceRegistryReporter.lockContentions.incrementAndGet();
             throw new Exception(String.format("Lock already taken %s", lockKey));
-
-        clm = m.withRow(CF_LOCKS, lockKey);
-        clm.putColumn(instance.getInstanceId(), instance.getInstanceId(), new Integer(600));
-        m.execute();
-        Thread.sleep(100);
-        result = bootKeyspace.prepareQuery(CF_LOCKS).getKey(lockKey).execute();
-        if (result.getResult().size() == 1 && result.getResult().getColumnByIndex(0).getName().equals(instance.getInstanceId())) {
-            logger.info("Got lock " + lockKey);
-            return;
         }
-        else
-            throw new Exception(String.format("Cannot insert lock %s", lockKey));
-
+        instanceRegistryReporter.locksAcquired.incrementAndGet();
+        logger.info("Got lock " + lockKey);
     }
 
     public String findKey(String cluster, String instanceId, String dc)
     {
-        try {
-            final String selectClause = String.format(
-                    "SELECT * FROM %s WHERE %s = '%s' and %s = '%s' and %s = '%s'  ", CF_NAME_INSTANCES,
-                    CN_CLUSTER, cluster, CN_INSTANCEID, instanceId, CN_LOCATION, dc);
-            logger.info(selectClause);
+        //Rows are written under getRowKey, a point read avoids the secondary index query below
+        String key = getRowKey(cluster, dc, instanceId);
+        if (getInstanceByKey(key) != null)
+            return key;
 
-
-            final ColumnFamily<String, String> CF_INSTANCES_NEW = ColumnFamily.newColumnFamily(KS_NAME,
-                    StringSerializer.get(), StringSerializer.get());
-
-            OperationResult<CqlResult<String, String>> result = bootKeyspace.prepareQuery(CF_INSTANCES_NEW)
-                    .withCql(selectClause).execute();
+        try {
+            OperationResult<CqlResult<String, String>> result = executeStatement(SELECT_INSTANCE, instanceRegistryReporter.findKeyMetrics, cluster, instanceId, dc);
 
             if (result == null || result.getResult().getRows().size() == 0)
                 return null;
@@ -297,6 +337,29 @@ public class InstanceDataDAOCassandra
         }
     }
 
+    /**
+     * Executes a prepared statement with bound values, recording its latency
+     */
+    private OperationResult<CqlResult<String, String>> executeStatement(String statement, StatementMetrics metrics, String... values) throws ConnectionException
+    {
+        if (config.isDebugEnabled())
+            logger.debug(statement + " " + Arrays.toString(values));
+
+        long startTime = System.currentTimeMillis();
+        boolean failed = true;
+        try {
+            PreparedCqlQuery<String, String> query = bootKeyspace.prepareQuery(cqlColumnFamily).withCql(statement).asPreparedStatement();
+            for (String value : values)
+                query = query.withStringValue(value);
+            OperationResult<CqlResult<String, String>> result = query.execute();
+            failed = false;
+            return result;
+        }
+        finally {
+            metrics.record(System.currentTimeMillis() - startTime, failed);
+        }
+    }
+
     private RaigadInstance transform(ColumnList<String> columns)
     {
         RaigadInstance ins = new RaigadInstance();
@@ -329,7 +392,12 @@ public class InstanceDataDAOCassandra
 
     private String getRowKey(RaigadInstance instance)
     {
-        return instance.getApp() + "_" + instance.getDC() + "_" + instance.getInstanceId();
+        return getRowKey(instance.getApp(), instance.getDC(), instance.getInstanceId());
+    }
+
+    private String getRowKey(String cluster, String dc, String instanceId)
+    {
+        return cluster + "_" + dc + "_" + instanceId;
     }
 
     private AstyanaxContext<Keyspace> initWithThriftDriverWithEurekaHostsSupplier() {
@@ -400,5 +468,87 @@ public class InstanceDataDAOCassandra
             }
         };
     }
-}
 
+    private static class StatementMetrics
+    {
+        private final AtomicInteger executions = new AtomicInteger(0);
+        private final AtomicInteger failures = new AtomicInteger(0);
+        private final AtomicLong lastLatencyMillis = new AtomicLong(0);
+        private final AtomicLong maxLatencyMillis = new AtomicLong(0);
+
+        private void record(long latencyMillis, boolean failed)
+        {
+            executions.incrementAndGet();
+            if (failed)
+                failures.incrementAndGet();
+            lastLatencyMillis.set(latencyMillis);
+            long max = maxLatencyMillis.get();
+            while (latencyMillis > max && !maxLatencyMillis.compareAndSet(max, latencyMillis))
+                max = maxLatencyMillis.get();
+        }
+    }
+
+    public class Elasticsearch_InstanceRegistryReporter
+    {
+        private final StatementMetrics getAllInstancesMetrics = new StatementMetrics();
+        private final StatementMetrics findKeyMetrics = new StatementMetrics();
+        private final AtomicInteger locksAcquired = new AtomicInteger(0);
+        private final AtomicInteger lockContentions = new AtomicInteger(0);
+        private final AtomicLong lockAcquireLatencyMillis = new AtomicLong(0);
+
+        @Monitor(name="registry_locks_acquired", type=DataSourceType.COUNTER)
+        public int getLocksAcquired() {
+            return locksAcquired.get();
+        }
+
+        @Monitor(name="registry_lock_contentions", type=DataSourceType.COUNTER)
+        public int getLockContentions() {
+            return lockContentions.get();
+        }
+
+        @Monitor(name="registry_lock_acquire_latency_millis", type=DataSourceType.GAUGE)
+        public long getLockAcquireLatencyMillis() {
+            return lockAcquireLatencyMillis.get();
+        }
+
+        @Monitor(name="registry_get_all_instances_executions", type=DataSourceType.COUNTER)
+        public int getAllInstancesExecutions() {
+            return getAllInstancesMetrics.executions.get();
+        }
+
+        @Monitor(name="registry_get_all_instances_failures", type=DataSourceType.COUNTER)
+        public int getAllInstancesFailures() {
+            return getAllInstancesMetrics.failures.get();
+        }
+
+        @Monitor(name="registry_get_all_instances_latency_millis", type=DataSourceType.GAUGE)
+        public long getAllInstancesLatencyMillis() {
+            return getAllInstancesMetrics.lastLatencyMillis.get();
+        }
+
+        @Monitor(name="registry_get_all_instances_max_latency_millis", type=DataSourceType.GAUGE)
+        public long getAllInstancesMaxLatencyMillis() {
+            return getAllInstancesMetrics.maxLatencyMillis.get();
+        }
+
+        @Monitor(name="registry_find_key_executions", type=DataSourceType.COUNTER)
+        public int getFindKeyExecutions() {
+            return findKeyMetrics.executions.get();
+        }
+
+        @Monitor(name="registry_find_key_failures", type=DataSourceType.COUNTER)
+        public int getFindKeyFailures() {
+            return findKeyMetrics.failures.get();
+        }
+
+        @Monitor(name="registry_find_key_latency_millis", type=DataSourceType.GAUGE)
+        public long getFindKeyLatencyMillis() {
+            return findKeyMetrics.lastLatencyMillis.get();
+        }
+
+        @Monitor(name="registry_find_key_max_latency_millis", type=DataSourceType.GAUGE)
+        public long getFindKeyMaxLatencyMillis() {
+            return findKeyMetrics.maxLatencyMillis.get();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.netflix.raigad.configuration.IConfiguration;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Provides the IRaigadInstanceFactory matching config.getInstanceRegistryType() (defaults to cassandra).
+ * Only the selected implementation is created, so local registries do not need a Cassandra bootstrap cluster.
+ */
+public class InstanceFactoryProvider implements Provider<IRaigadInstanceFactory>
+{
+    public enum RegistryType {
+        cassandra, file, memory
+    }
+
+    private final IConfiguration config;
+    private final Provider<CassandraInstanceFactory> cassandraInstanceFactory;
+    private final Provider<FileInstanceFactory> fileInstanceFactory;
+    private final Provider<InMemoryInstanceFactory> inMemoryInstanceFactory;
+
+    @Inject
+    public InstanceFactoryProvider(IConfiguration config, Provider<CassandraInstanceFactory> cassandraInstanceFactory,
+                                   Provider<FileInstanceFactory> fileInstanceFactory, Provider<InMemoryInstanceFactory> inMemoryInstanceFactory)
+    {
+        this.config = config;
+        this.cassandraInstanceFactory = cassandraInstanceFactory;
+        this.fileInstanceFactory = fileInstanceFactory;
+        this.inMemoryInstanceFactory = inMemoryInstanceFactory;
+    }
+
+    @Override
+    public IRaigadInstanceFactory get()
+    {
+        switch (getRegistryType(config.getInstanceRegistryType()))
+        {
+            case file:
+                return fileInstanceFactory.get();
+            case memory:
+                return inMemoryInstanceFactory.get();
+            default:
+                return cassandraInstanceFactory.get();
+        }
+    }
+
+    public static RegistryType getRegistryType(String registryType)
+    {
+        if (StringUtils.isBlank(registryType))
+            return RegistryType.cassandra;
+        return RegistryType.valueOf(registryType.trim().toLowerCase());
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the registry entry of this instance with a heartbeat expiring after
+ * config.getInstanceHeartbeatTtlInSeconds(), so that instances which stop running
+ * drop out of the membership without a lookup of the ASG.
+ */
+@Singleton
+public class InstanceHeartbeat extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(InstanceHeartbeat.class);
+    public static final String JOBNAME = "InstanceHeartbeat";
+    private final IRaigadInstanceFactory instanceFactory;
+    private final InstanceManager instanceManager;
+    private final Elasticsearch_InstanceHeartbeatReporter instanceHeartbeatReporter;
+
+    @Inject
+    public InstanceHeartbeat(IConfiguration config, IRaigadInstanceFactory instanceFactory, InstanceManager instanceManager)
+    {
+        super(config);
+        this.instanceFactory = instanceFactory;
+        this.instanceManager = instanceManager;
+        instanceHeartbeatReporter = new Elasticsearch_InstanceHeartbeatReporter();
+        Monitors.registerObject(instanceHeartbeatReporter);
+    }
+
+    @Override
+    public void execute()
+    {
+        if (!config.isInstanceHeartbeatEnabled())
+            return;
+
+        try {
+            instanceFactory.update(instanceManager.getInstance());
+            instanceHeartbeatReporter.lastHeartbeatTime.set(System.currentTimeMillis());
+        }
+        catch (Exception e)
+        {
+            instanceHeartbeatReporter.heartbeatFailures.incrementAndGet();
+            logger.warn("Exception thrown while writing heartbeat of instance <" + instanceManager.getInstance().getInstanceId() + ">", e);
+        }
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getInstanceHeartbeatIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+
+    public class Elasticsearch_InstanceHeartbeatReporter
+    {
+        private final AtomicLong lastHeartbeatTime = new AtomicLong(0);
+        private final AtomicInteger heartbeatFailures = new AtomicInteger(0);
+
+        @Monitor(name="instance_heartbeat_age_seconds", type=DataSourceType.GAUGE)
+        public long getHeartbeatAgeSeconds() {
+            long lastHeartbeat = lastHeartbeatTime.get();
+            return lastHeartbeat == 0 ? -1 : (System.currentTimeMillis() - lastHeartbeat) / 1000;
+        }
+
+        @Monitor(name="instance_heartbeat_failures", type=DataSourceType.COUNTER)
+        public int getHeartbeatFailures() {
+            return heartbeatFailures.get();
+        }
+    }
+}
@@ -24,7 +24,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class provides the central place to create and consume the identity of
@@ -37,6 +39,7 @@ public class InstanceManager {
 	private static final Logger logger = LoggerFactory
 			.getLogger(InstanceManager.class);
 	private final IRaigadInstanceFactory instanceFactory;
+    private final MembershipCache membershipCache;
     private final IMembership membership;
     private final IConfiguration config;
 	private RaigadInstance myInstance;
@@ -45,26 +48,30 @@ public class InstanceManager {
     private static final String PARAM_SEPARATOR = "=";
 
 	@Inject
-	public InstanceManager(IRaigadInstanceFactory instanceFactory, IMembership membership,
+	public InstanceManager(IRaigadInstanceFactory instanceFactory, MembershipCache membershipCache, IMembership membership,
 			IConfiguration config) throws Exception {
 
 		this.instanceFactory = instanceFactory;
+		this.membershipCache = membershipCache;
 		this.membership = membership;
 		this.config = config;
 		init();
 	}
 
 	private void init() throws Exception {
-		logger.info("***Deregistering Dead Instance");
-		new RetryableCallable<Void>() 
-		{
-			@Override
-			public Void retriableCall() throws Exception 
+		// With heartbeats, dead instances drop out of the membership on their own
+		if (!config.isInstanceHeartbeatEnabled()) {
+			logger.info("***Deregistering Dead Instance");
+			new RetryableCallable<Void>()
 			{
-				deregisterInstance(instanceFactory,config);
-				return null;
-			}
-		}.call();
+				@Override
+				public Void retriableCall() throws Exception
+				{
+					deregisterInstance(instanceFactory,config);
+					return null;
+				}
+			}.call();
+		}
 		
 		logger.info("***Registering Instance");
 		myInstance = new RetryableCallable<RaigadInstance>()
@@ -76,6 +83,7 @@ public class InstanceManager {
 				return instance;
 			}
 		}.call();
+		membershipCache.invalidate(config.getAppName());
 		logger.info("RaigadInstance Details = "+myInstance.toString());
 	}
 
@@ -90,17 +98,22 @@ public class InstanceManager {
 
 	private void deregisterInstance(
 			IRaigadInstanceFactory instanceFactory, IConfiguration config) throws Exception {
-	    final List<RaigadInstance> allInstances = getInstanceList();
-	    List<String> asgInstances = membership.getRacMembership();
-	    for (RaigadInstance dead : allInstances)
+	    final List<RaigadInstance> zoneInstances = membershipCache.getMembershipView(config.getAppName()).getInstancesInZone(config.getRac());
+	    Set<String> asgInstances = new HashSet<String>(membership.getRacMembership());
+	    List<RaigadInstance> deadInstances = new ArrayList<RaigadInstance>();
+	    for (RaigadInstance dead : zoneInstances)
 	    {
 	      // test same region and is it is alive.
 	    	  // TODO: Provide Config prop to choose same DC/Region
-	      if (!dead.getAsg().equals(config.getASGName()) || !dead.getAvailabilityZone().equals(config.getRac()) || asgInstances.contains(dead.getInstanceId()))
+	      if (!dead.getAsg().equals(config.getASGName()) || asgInstances.contains(dead.getInstanceId()))
 	        continue;
 	      logger.info("Found dead instances: " + dead.getInstanceId());
-	      instanceFactory.delete(dead);
+	      deadInstances.add(dead);
 	    }
+	    if (deadInstances.isEmpty())
+	      return;
+	    instanceFactory.deleteAll(deadInstances);
+	    membershipCache.invalidate(config.getAppName());
 	}
 
 	public RaigadInstance getInstance()
@@ -138,14 +151,14 @@ public class InstanceManager {
             }
 
             for(String sourceClusterName : sourceClusters)
-                _instances.addAll(instanceFactory.getAllIds(sourceClusterName));
+                _instances.addAll(membershipCache.getInstances(sourceClusterName));
 
             logger.info("Printing TribeNode Related nodes ...");
             for(RaigadInstance instance:_instances)
                 logger.info(instance.toString());
         }
         else
-            _instances.addAll(instanceFactory.getAllIds(config.getAppName()));
+            _instances.addAll(membershipCache.getInstances(config.getAppName()));
 
         if(config.isDebugEnabled())
         {
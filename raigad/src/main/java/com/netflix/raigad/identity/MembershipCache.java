@@ -0,0 +1,259 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.NamedThreadPoolExecutor;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster membership read from the instance registry (IRaigadInstanceFactory), per cluster name :
+ *  - served from memory for config.getMembershipCacheTtlInSeconds(),
+ *  - reloaded in the background once older than config.getMembershipCacheRefreshAheadPercent() of the TTL,
+ *    so that callers do not wait on the registry,
+ *  - concurrent misses of a cluster wait for a single registry read,
+ *  - served stale for up to config.getMembershipCacheMaxStaleInSeconds() when the registry can not be read,
+ *    including right after an invalidation.
+ * Each load is indexed once (MembershipView) so that lookups by instance id, DC or zone do not scan the membership.
+ */
+@Singleton
+public class MembershipCache
+{
+    private static final Logger logger = LoggerFactory.getLogger(MembershipCache.class);
+    private final IConfiguration config;
+    private final IRaigadInstanceFactory instanceFactory;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final ExecutorService refreshExecutor = new NamedThreadPoolExecutor(1, "MembershipCacheRefresh");
+    private final Elasticsearch_MembershipCacheReporter membershipCacheReporter;
+
+    @Inject
+    public MembershipCache(IConfiguration config, IRaigadInstanceFactory instanceFactory)
+    {
+        this.config = config;
+        this.instanceFactory = instanceFactory;
+        membershipCacheReporter = new Elasticsearch_MembershipCacheReporter();
+        Monitors.registerObject(membershipCacheReporter);
+    }
+
+    /**
+     * @return Instances of the cluster (unmodifiable)
+     */
+    public List<RaigadInstance> getInstances(String cluster)
+    {
+        return getMembershipView(cluster).getInstances();
+    }
+
+    /**
+     * @return Membership of the cluster indexed by instance id, DC and availability zone
+     */
+    public MembershipView getMembershipView(String cluster)
+    {
+        return getMembershipView(cluster, System.currentTimeMillis());
+    }
+
+    List<RaigadInstance> getInstances(String cluster, long now)
+    {
+        return getMembershipView(cluster, now).getInstances();
+    }
+
+    MembershipView getMembershipView(final String cluster, long now)
+    {
+        if (config.getMembershipCacheTtlInSeconds() <= 0)
+            return load(cluster);
+
+        Entry entry = getEntry(cluster);
+        MembershipView view = entry.view;
+        long age = now - entry.loadTime;
+
+        if (view != null && isFresh(entry, now))
+        {
+            membershipCacheReporter.hits.incrementAndGet();
+            if (age >= config.getMembershipCacheTtlInSeconds() * 10L * config.getMembershipCacheRefreshAheadPercent()
+                    && entry.refreshing.compareAndSet(false, true)) {
+                membershipCacheReporter.refreshesAhead.incrementAndGet();
+                final Entry refreshedEntry = entry;
+                submitRefresh(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            refresh(cluster, refreshedEntry, System.currentTimeMillis());
+                        }
+                        catch (Exception e)
+                        {
+                            logger.warn("Background refresh of membership of cluster <" + cluster + "> failed, current membership is kept", e);
+                        }
+                        finally {
+                            refreshedEntry.refreshing.set(false);
+                        }
+                    }
+                });
+            }
+            return view;
+        }
+
+        membershipCacheReporter.misses.incrementAndGet();
+        synchronized (entry)
+        {
+            //Another caller may have loaded it while this one was waiting
+            if (entry.view != null && isFresh(entry, now))
+                return entry.view;
+            try {
+                return refresh(cluster, entry, now);
+            }
+            catch (RuntimeException e)
+            {
+                if (entry.view != null && now - entry.loadTime < config.getMembershipCacheMaxStaleInSeconds() * 1000L) {
+                    membershipCacheReporter.staleServed.incrementAndGet();
+                    logger.warn("Unable to read membership of cluster <" + cluster + ">, serving membership loaded " + (now - entry.loadTime) + " ms ago", e);
+                    return entry.view;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Next read of the cluster goes to the registry (eg. after an instance was registered or deleted).
+     * The current membership is kept, with its load time, to be served stale if that read fails.
+     */
+    public void invalidate(String cluster)
+    {
+        Entry entry = entries.get(cluster);
+        if (entry != null)
+            entry.generation.incrementAndGet();
+    }
+
+    private boolean isFresh(Entry entry, long now)
+    {
+        return entry.loadedGeneration == entry.generation.get() && now - entry.loadTime < config.getMembershipCacheTtlInSeconds() * 1000L;
+    }
+
+    private Entry getEntry(String cluster)
+    {
+        Entry entry = entries.get(cluster);
+        if (entry == null) {
+            entries.putIfAbsent(cluster, new Entry());
+            entry = entries.get(cluster);
+        }
+        return entry;
+    }
+
+    /**
+     * A load started before an invalidation is kept (it is the latest membership read), but still counts as invalidated.
+     * A load started before the loaded membership is dropped, so a slow background refresh does not replace a newer view.
+     */
+    private MembershipView refresh(String cluster, Entry entry, long now)
+    {
+        long generation = entry.generation.get();
+        MembershipView view = load(cluster);
+        synchronized (entry) {
+            if (generation >= entry.loadedGeneration) {
+                entry.view = view;
+                entry.loadTime = now;
+                entry.loadedGeneration = generation;
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Following method is isolated so that it helps in Unit Testing for Mocking
+     */
+    void submitRefresh(Runnable refresh)
+    {
+        refreshExecutor.submit(refresh);
+    }
+
+    private MembershipView load(String cluster)
+    {
+        long startTime = System.currentTimeMillis();
+        try {
+            return new MembershipView(instanceFactory.getAllIds(cluster));
+        }
+        catch (RuntimeException e)
+        {
+            membershipCacheReporter.loadFailures.incrementAndGet();
+            throw e;
+        }
+        finally {
+            membershipCacheReporter.lastLoadLatencyMillis.set(System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private static class Entry
+    {
+        private volatile MembershipView view;
+        private volatile long loadTime = Long.MIN_VALUE / 2;
+        //Bumped by invalidate(), the view is invalidated until a load started after that is stored
+        private final AtomicLong generation = new AtomicLong(0);
+        private volatile long loadedGeneration = 0;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    }
+
+    public class Elasticsearch_MembershipCacheReporter
+    {
+        private final AtomicInteger hits = new AtomicInteger(0);
+        private final AtomicInteger misses = new AtomicInteger(0);
+        private final AtomicInteger staleServed = new AtomicInteger(0);
+        private final AtomicInteger refreshesAhead = new AtomicInteger(0);
+        private final AtomicInteger loadFailures = new AtomicInteger(0);
+        private final AtomicLong lastLoadLatencyMillis = new AtomicLong(0);
+
+        @Monitor(name="membership_cache_hits", type=DataSourceType.COUNTER)
+        public int getHits() {
+            return hits.get();
+        }
+
+        @Monitor(name="membership_cache_misses", type=DataSourceType.COUNTER)
+        public int getMisses() {
+            return misses.get();
+        }
+
+        @Monitor(name="membership_cache_stale_served", type=DataSourceType.COUNTER)
+        public int getStaleServed() {
+            return staleServed.get();
+        }
+
+        @Monitor(name="membership_cache_refreshes_ahead", type=DataSourceType.COUNTER)
+        public int getRefreshesAhead() {
+            return refreshesAhead.get();
+        }
+
+        @Monitor(name="membership_cache_load_failures", type=DataSourceType.COUNTER)
+        public int getLoadFailures() {
+            return loadFailures.get();
+        }
+
+        @Monitor(name="membership_cache_load_latency_millis", type=DataSourceType.GAUGE)
+        public long getLastLoadLatencyMillis() {
+            return lastLoadLatencyMillis.get();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Versioned membership served to the discovery plugin. The version changes only when the set of
+ * instances (id, address, zone) changes, so that clients can wait for a change (awaitChange) instead
+ * of re-reading the whole membership. Versions start at the time the feed was created, so that
+ * they keep moving forward across restarts of Raigad.
+ */
+@Singleton
+public class MembershipFeed
+{
+    private long version = System.currentTimeMillis();
+    private boolean initialized = false;
+    private String fingerprint = "";
+    private List<RaigadInstance> instances = Collections.emptyList();
+
+    /**
+     * @return true if the membership changed, which moves the feed to a new version
+     */
+    public synchronized boolean update(List<RaigadInstance> currentInstances)
+    {
+        String currentFingerprint = getFingerprint(currentInstances);
+        if (initialized && currentFingerprint.equals(fingerprint))
+            return false;
+
+        initialized = true;
+        fingerprint = currentFingerprint;
+        instances = Collections.unmodifiableList(new ArrayList<RaigadInstance>(currentInstances));
+        version++;
+        notifyAll();
+        return true;
+    }
+
+    public synchronized boolean isInitialized()
+    {
+        return initialized;
+    }
+
+    /**
+     * Waits until the feed moves away from knownVersion or the timeout expires
+     * @return Current version of the membership
+     */
+    public synchronized Snapshot awaitChange(long knownVersion, long timeoutMillis) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (version == knownVersion)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+                break;
+            wait(remaining);
+        }
+        return new Snapshot(version, instances);
+    }
+
+    static String getFingerprint(List<RaigadInstance> instances)
+    {
+        List<String> keys = new ArrayList<String>();
+        for (RaigadInstance instance : instances)
+            keys.add(instance.getId() + "|" + instance.getHostIP() + "|" + instance.getAvailabilityZone());
+        Collections.sort(keys);
+        return keys.toString();
+    }
+
+    public static class Snapshot
+    {
+        private final long version;
+        private final List<RaigadInstance> instances;
+
+        public Snapshot(long version, List<RaigadInstance> instances)
+        {
+            this.version = version;
+            this.instances = instances;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<RaigadInstance> getInstances() {
+            return instances;
+        }
+    }
+}
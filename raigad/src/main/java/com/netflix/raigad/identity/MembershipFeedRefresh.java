@@ -0,0 +1,69 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the membership (as served by get_nodes) to the MembershipFeed
+ */
+@Singleton
+public class MembershipFeedRefresh extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(MembershipFeedRefresh.class);
+    public static final String JOBNAME = "MembershipFeedRefresh";
+    private final InstanceManager instanceManager;
+    private final MembershipFeed membershipFeed;
+
+    @Inject
+    public MembershipFeedRefresh(IConfiguration config, InstanceManager instanceManager, MembershipFeed membershipFeed)
+    {
+        super(config);
+        this.instanceManager = instanceManager;
+        this.membershipFeed = membershipFeed;
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            if (membershipFeed.update(instanceManager.getAllInstances()))
+                logger.info("Membership changed, membership feed moved to a new version");
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while refreshing the membership feed", e);
+        }
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getMembershipFeedRefreshIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable membership of a cluster, indexed by instance id, DC and availability zone
+ */
+public class MembershipView
+{
+    private final List<RaigadInstance> instances;
+    private final Map<String, RaigadInstance> byInstanceId = new HashMap<String, RaigadInstance>();
+    private final Map<String, List<RaigadInstance>> byDc = new HashMap<String, List<RaigadInstance>>();
+    private final Map<String, List<RaigadInstance>> byAvailabilityZone = new HashMap<String, List<RaigadInstance>>();
+
+    public MembershipView(List<RaigadInstance> instances)
+    {
+        this.instances = Collections.unmodifiableList(new ArrayList<RaigadInstance>(instances));
+        for (RaigadInstance instance : this.instances)
+        {
+            byInstanceId.put(instance.getInstanceId(), instance);
+            index(byDc, instance.getDC(), instance);
+            index(byAvailabilityZone, instance.getAvailabilityZone(), instance);
+        }
+    }
+
+    private static void index(Map<String, List<RaigadInstance>> index, String key, RaigadInstance instance)
+    {
+        List<RaigadInstance> instances = index.get(key);
+        if (instances == null) {
+            instances = new ArrayList<RaigadInstance>();
+            index.put(key, instances);
+        }
+        instances.add(instance);
+    }
+
+    public List<RaigadInstance> getInstances()
+    {
+        return instances;
+    }
+
+    /**
+     * @return Instance with the given instance id, null if none
+     */
+    public RaigadInstance getInstance(String instanceId)
+    {
+        return byInstanceId.get(instanceId);
+    }
+
+    public List<RaigadInstance> getInstancesInDc(String dc)
+    {
+        List<RaigadInstance> dcInstances = byDc.get(dc);
+        return dcInstances == null ? Collections.<RaigadInstance>emptyList() : Collections.unmodifiableList(dcInstances);
+    }
+
+    public List<RaigadInstance> getInstancesInZone(String availabilityZone)
+    {
+        List<RaigadInstance> zoneInstances = byAvailabilityZone.get(availabilityZone);
+        return zoneInstances == null ? Collections.<RaigadInstance>emptyList() : Collections.unmodifiableList(zoneInstances);
+    }
+}
@@ -0,0 +1,490 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ESTransportClient;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.HttpModule;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
+import org.elasticsearch.action.admin.indices.stats.IndexStats;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.hppc.cursors.ObjectCursor;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk Ingest mode maximises indexing throughput of target indices during backfills:
+ *
+ *     index.refresh_interval                  = -1
+ *     index.number_of_replicas                = 0
+ *     index.translog.flush_threshold_size     = config.getBulkIngestTranslogFlushThresholdSize()
+ *     index.translog.flush_threshold_period   = config.getBulkIngestTranslogFlushThresholdPeriod()
+ *
+ * Original settings of every index are saved in BulkIngestSessionStore before they are changed and put back
+ * when the load ends, by whichever node is the Master Node at that time.
+ * Ingest mode is entered either through REST (/v1/esadmin/bulk_ingest/start) or automatically
+ * when the primary indexing rate of a configured index crosses config.getBulkIngestStartIndexingRate().
+ * Every session has a safety timeout so that indices are never left without replicas.
+ * Sessions are only started and stopped on the Master Node, where the timeout is enforced.
+ */
+@Singleton
+public class BulkIngestModeManager extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestModeManager.class);
+    public static String JOBNAME = "BulkIngestModeManager";
+    public static final String METRIC_NAME = "Elasticsearch_BulkIngestModeManager";
+
+    static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
+    static final String NUMBER_OF_REPLICAS_SETTING = "index.number_of_replicas";
+    static final String TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING = "index.translog.flush_threshold_size";
+    static final String TRANSLOG_FLUSH_THRESHOLD_PERIOD_SETTING = "index.translog.flush_threshold_period";
+    private static final String INGEST_REFRESH_INTERVAL = "-1";
+    private static final String INGEST_NUMBER_OF_REPLICAS = "0";
+    //Elasticsearch defaults, used when an index did not override the translog settings
+    private static final String DEFAULT_TRANSLOG_FLUSH_THRESHOLD_SIZE = "200mb";
+    private static final String DEFAULT_TRANSLOG_FLUSH_THRESHOLD_PERIOD = "30m";
+    private static final String COMMA_SEPARATOR = ",";
+
+    private final HttpModule httpModule;
+    private final BulkIngestSessionStore sessionStore;
+    //Sessions as of the last load from sessionStore
+    private final Map<String, IngestSession> sessions = new ConcurrentHashMap<String, IngestSession>();
+    private final IndexingRateTracker rateTracker = new IndexingRateTracker();
+    private final Elasticsearch_BulkIngestReporter bulkIngestReporter;
+
+    @Inject
+    public BulkIngestModeManager(IConfiguration config, HttpModule httpModule)
+    {
+        this(config, httpModule, new BulkIngestSessionStore());
+    }
+
+    BulkIngestModeManager(IConfiguration config, HttpModule httpModule, BulkIngestSessionStore sessionStore)
+    {
+        super(config);
+        this.httpModule = httpModule;
+        this.sessionStore = sessionStore;
+        bulkIngestReporter = new Elasticsearch_BulkIngestReporter();
+        Monitors.registerObject(bulkIngestReporter);
+    }
+
+    @Override
+    public void execute()
+    {
+        try {
+            //Confirm if Current Node is a Master Node
+            if (!isMasterNode())
+            {
+                if (config.isDebugEnabled())
+                    logger.debug("Current node is not a Master Node yet, hence not checking Bulk Ingest mode");
+                sessions.clear();
+                return;
+            }
+
+            if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+                logger.info("Elasticsearch is not yet started, hence not checking Bulk Ingest mode");
+                return;
+            }
+
+            Client esTransportClient = getTransportClient();
+
+            loadSessions(esTransportClient);
+            revertExpiredSessions(esTransportClient);
+
+            if (config.isBulkIngestAutoModeEnabled())
+                checkIndexingRates(esTransportClient);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while checking Bulk Ingest mode", e);
+        }
+    }
+
+    /**
+     * Put the given indices into Bulk Ingest mode
+     * @param commaSeparatedIndices index names or patterns, blank means config.getCommaSeparatedIndicesForBulkIngest()
+     * @param timeoutInMinutes safety timeout, non-positive means config.getBulkIngestTimeoutInMinutes()
+     * @return concrete indices that were switched to Bulk Ingest mode
+     * @throws IllegalStateException if the current node is not the Master Node
+     */
+    public synchronized List<String> startIngestMode(String commaSeparatedIndices, int timeoutInMinutes, boolean manual) throws Exception
+    {
+        checkMasterNode();
+        Client esTransportClient = getTransportClient();
+        loadSessions(esTransportClient);
+        return startIngestMode(esTransportClient, commaSeparatedIndices, timeoutInMinutes, manual);
+    }
+
+    private List<String> startIngestMode(Client esTransportClient, String commaSeparatedIndices, int timeoutInMinutes, boolean manual) throws Exception
+    {
+        String indices = StringUtils.isBlank(commaSeparatedIndices) ? config.getCommaSeparatedIndicesForBulkIngest() : commaSeparatedIndices;
+        if (StringUtils.isBlank(indices))
+            throw new IllegalArgumentException("No indices given for Bulk Ingest mode");
+
+        long timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutInMinutes > 0 ? timeoutInMinutes : config.getBulkIngestTimeoutInMinutes());
+        Map<String, Settings> indexToSettings = getIndexSettings(esTransportClient, StringUtils.split(indices, COMMA_SEPARATOR));
+
+        List<String> started = new ArrayList<String>();
+        for (Map.Entry<String, Settings> entry : indexToSettings.entrySet())
+        {
+            String indexName = entry.getKey();
+            if (BulkIngestSessionStore.SESSION_INDEX.equals(indexName))
+                continue;
+
+            IngestSession existing = sessions.get(indexName);
+            if (existing != null) {
+                //Extend the running session instead of overwriting the remembered original settings
+                existing.expiryTime = System.currentTimeMillis() + timeoutMillis;
+                existing.manual = existing.manual || manual;
+                sessionStore.save(esTransportClient, existing);
+                continue;
+            }
+
+            Settings current = entry.getValue();
+            IngestSession session = new IngestSession(indexName, manual, System.currentTimeMillis(), System.currentTimeMillis() + timeoutMillis,
+                    current.get(REFRESH_INTERVAL_SETTING),
+                    current.get(NUMBER_OF_REPLICAS_SETTING),
+                    current.get(TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING),
+                    current.get(TRANSLOG_FLUSH_THRESHOLD_PERIOD_SETTING));
+
+            Settings ingestSettings = ImmutableSettings.settingsBuilder()
+                    .put(REFRESH_INTERVAL_SETTING, INGEST_REFRESH_INTERVAL)
+                    .put(NUMBER_OF_REPLICAS_SETTING, INGEST_NUMBER_OF_REPLICAS)
+                    .put(TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, config.getBulkIngestTranslogFlushThresholdSize())
+                    .put(TRANSLOG_FLUSH_THRESHOLD_PERIOD_SETTING, config.getBulkIngestTranslogFlushThresholdPeriod())
+                    .build();
+
+            //Originals are saved first so that they are never lost, even if this node dies right after the update
+            sessionStore.save(esTransportClient, session);
+            sessions.put(indexName, session);
+
+            if (updateIndexSettings(esTransportClient, indexName, ingestSettings)) {
+                started.add(indexName);
+                bulkIngestReporter.activations.incrementAndGet();
+                logger.info("Index <" + indexName + "> is in Bulk Ingest mode " + session);
+            }
+            else {
+                //The update may still have been applied, hence put the originals back rather than only forgetting them
+                logger.warn("Failed to switch index <" + indexName + "> to Bulk Ingest mode, reverting");
+                revert(esTransportClient, session);
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Restore original settings of the given indices
+     * @param commaSeparatedIndices concrete index names, blank means every index currently in Bulk Ingest mode
+     * @return indices whose settings were restored
+     * @throws IllegalStateException if the current node is not the Master Node
+     */
+    public synchronized List<String> stopIngestMode(String commaSeparatedIndices) throws Exception
+    {
+        checkMasterNode();
+        Client esTransportClient = getTransportClient();
+        loadSessions(esTransportClient);
+
+        Collection<String> indices = StringUtils.isBlank(commaSeparatedIndices) ?
+                new ArrayList<String>(sessions.keySet()) : Arrays.asList(StringUtils.split(commaSeparatedIndices, COMMA_SEPARATOR));
+
+        List<String> stopped = new ArrayList<String>();
+        for (String indexName : indices)
+        {
+            IngestSession session = sessions.get(indexName.trim());
+            if (session == null) {
+                logger.info("Index <" + indexName + "> is not in Bulk Ingest mode");
+                continue;
+            }
+            if (revert(esTransportClient, session))
+                stopped.add(session.indexName);
+        }
+        return stopped;
+    }
+
+    /**
+     * Sessions are read from BulkIngestSessionStore, hence this works on every node
+     */
+    public Collection<IngestSession> getActiveSessions() throws Exception
+    {
+        return Collections.unmodifiableCollection(sessionStore.load(getTransportClient()).values());
+    }
+
+    private void loadSessions(Client esTransportClient)
+    {
+        Map<String, IngestSession> loaded = sessionStore.load(esTransportClient);
+        sessions.keySet().retainAll(loaded.keySet());
+        sessions.putAll(loaded);
+    }
+
+    private void checkMasterNode() throws Exception
+    {
+        if (!isMasterNode())
+            throw new IllegalStateException("Bulk Ingest mode can only be started or stopped on the Master Node");
+    }
+
+    private synchronized void revertExpiredSessions(Client esTransportClient)
+    {
+        long now = System.currentTimeMillis();
+        for (IngestSession session : new ArrayList<IngestSession>(sessions.values()))
+        {
+            if (session.expiryTime <= now) {
+                logger.warn("Bulk Ingest mode of index <" + session.indexName + "> timed out, reverting settings");
+                if (revert(esTransportClient, session))
+                    bulkIngestReporter.timeouts.incrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void checkIndexingRates(Client esTransportClient) throws Exception
+    {
+        String indices = config.getCommaSeparatedIndicesForBulkIngest();
+        if (StringUtils.isBlank(indices)) {
+            logger.info("Bulk Ingest auto mode is enabled but no indices are configured");
+            return;
+        }
+
+        IndicesStatsResponse indicesStatsResponse = esTransportClient.admin().indices()
+                .prepareStats(StringUtils.split(indices, COMMA_SEPARATOR))
+                .clear().setIndexing(true).get();
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<String, IndexStats> entry : indicesStatsResponse.getIndices().entrySet())
+        {
+            String indexName = entry.getKey();
+            //Primaries only : total counts drop as soon as replicas are removed, which would look like a load drop
+            long indexCount = entry.getValue().getPrimaries().getIndexing().getTotal().getIndexCount();
+            long rate = rateTracker.record(indexName, indexCount, now);
+            if (rate == IndexingRateTracker.NO_RATE)
+                continue;
+
+            if (config.isDebugEnabled())
+                logger.debug("Index <" + indexName + "> indexing rate = " + rate + " docs/sec");
+
+            IngestSession session = sessions.get(indexName);
+            if (session == null && rate >= config.getBulkIngestStartIndexingRate()) {
+                logger.info("Indexing rate of <" + indexName + "> is " + rate + " docs/sec, starting Bulk Ingest mode");
+                startIngestMode(esTransportClient, indexName, 0, false);
+            }
+            else if (session != null && !session.manual && rate < config.getBulkIngestStopIndexingRate()) {
+                logger.info("Indexing rate of <" + indexName + "> dropped to " + rate + " docs/sec, stopping Bulk Ingest mode");
+                revert(esTransportClient, session);
+            }
+        }
+    }
+
+    private boolean revert(Client esTransportClient, IngestSession session)
+    {
+        Settings originalSettings = ImmutableSettings.settingsBuilder()
+                .put(REFRESH_INTERVAL_SETTING, StringUtils.defaultIfEmpty(session.refreshInterval, config.getIndexRefreshInterval()))
+                .put(NUMBER_OF_REPLICAS_SETTING, StringUtils.defaultIfEmpty(session.numberOfReplicas, String.valueOf(config.getNumOfReplicas())))
+                .put(TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, StringUtils.defaultIfEmpty(session.translogFlushThresholdSize, DEFAULT_TRANSLOG_FLUSH_THRESHOLD_SIZE))
+                .put(TRANSLOG_FLUSH_THRESHOLD_PERIOD_SETTING, StringUtils.defaultIfEmpty(session.translogFlushThresholdPeriod, DEFAULT_TRANSLOG_FLUSH_THRESHOLD_PERIOD))
+                .build();
+        try {
+            if (!updateIndexSettings(esTransportClient, session.indexName, originalSettings)) {
+                logger.warn("Reverting settings of index <" + session.indexName + "> was not acknowledged, will retry");
+                return false;
+            }
+            //Make ingested documents visible right away instead of waiting for the restored refresh interval
+            refreshIndex(esTransportClient, session.indexName);
+            sessionStore.remove(esTransportClient, session.indexName);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Exception thrown while reverting Bulk Ingest mode of index <" + session.indexName + ">, will retry", e);
+            return false;
+        }
+
+        sessions.remove(session.indexName);
+        rateTracker.forget(session.indexName);
+        bulkIngestReporter.reverts.incrementAndGet();
+        logger.info("Index <" + session.indexName + "> is out of Bulk Ingest mode, restored " + originalSettings.getAsMap());
+        return true;
+    }
+
+    /**
+     * Following methods are isolated so that it helps in Unit Testing for Mocking
+     */
+    boolean isMasterNode() throws Exception
+    {
+        return EsUtils.amIMasterNode(config, httpModule);
+    }
+
+    Client getTransportClient() throws Exception
+    {
+        return ESTransportClient.instance(config).getTransportClient();
+    }
+
+    Map<String, Settings> getIndexSettings(Client esTransportClient, String[] indices)
+    {
+        GetSettingsResponse getSettingsResponse = esTransportClient.admin().indices().prepareGetSettings(indices).get();
+        Map<String, Settings> indexToSettings = new LinkedHashMap<String, Settings>();
+        for (ObjectCursor<String> cursor : getSettingsResponse.getIndexToSettings().keys())
+            indexToSettings.put(cursor.value, getSettingsResponse.getIndexToSettings().get(cursor.value));
+        return indexToSettings;
+    }
+
+    void refreshIndex(Client esTransportClient, String indexName)
+    {
+        esTransportClient.admin().indices().prepareRefresh(indexName).get();
+    }
+
+    public boolean updateIndexSettings(Client esTransportClient, String indexName, Settings settings)
+    {
+        UpdateSettingsResponse updateSettingsResponse = esTransportClient.admin().indices()
+                .prepareUpdateSettings(indexName).setSettings(settings).get();
+        return updateSettingsResponse.isAcknowledged();
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(JOBNAME, config.getBulkIngestCheckIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return JOBNAME;
+    }
+
+    public static class IngestSession
+    {
+        private final String indexName;
+        private final long startTime;
+        private final String refreshInterval;
+        private final String numberOfReplicas;
+        private final String translogFlushThresholdSize;
+        private final String translogFlushThresholdPeriod;
+        private volatile boolean manual;
+        private volatile long expiryTime;
+
+        IngestSession(String indexName, boolean manual, long startTime, long expiryTime, String refreshInterval, String numberOfReplicas,
+                      String translogFlushThresholdSize, String translogFlushThresholdPeriod)
+        {
+            this.indexName = indexName;
+            this.manual = manual;
+            this.startTime = startTime;
+            this.expiryTime = expiryTime;
+            this.refreshInterval = refreshInterval;
+            this.numberOfReplicas = numberOfReplicas;
+            this.translogFlushThresholdSize = translogFlushThresholdSize;
+            this.translogFlushThresholdPeriod = translogFlushThresholdPeriod;
+        }
+
+        public String getIndexName() {
+            return indexName;
+        }
+
+        public boolean isManual() {
+            return manual;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getExpiryTime() {
+            return expiryTime;
+        }
+
+        public String getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public String getNumberOfReplicas() {
+            return numberOfReplicas;
+        }
+
+        Map<String, Object> toSource() {
+            Map<String, Object> source = new HashMap<String, Object>();
+            source.put("index", indexName);
+            source.put("manual", manual);
+            source.put("start_time", startTime);
+            source.put("expiry_time", expiryTime);
+            source.put("refresh_interval", refreshInterval);
+            source.put("number_of_replicas", numberOfReplicas);
+            source.put("translog_flush_threshold_size", translogFlushThresholdSize);
+            source.put("translog_flush_threshold_period", translogFlushThresholdPeriod);
+            return source;
+        }
+
+        static IngestSession fromSource(Map<String, Object> source) {
+            return new IngestSession((String) source.get("index"), (Boolean) source.get("manual"),
+                    ((Number) source.get("start_time")).longValue(), ((Number) source.get("expiry_time")).longValue(),
+                    (String) source.get("refresh_interval"), (String) source.get("number_of_replicas"),
+                    (String) source.get("translog_flush_threshold_size"), (String) source.get("translog_flush_threshold_period"));
+        }
+
+        @Override
+        public String toString() {
+            return "manual : <" + manual + "> expiry : <" + expiryTime + "> original refresh_interval : <" + refreshInterval +
+                    "> original number_of_replicas : <" + numberOfReplicas + ">";
+        }
+    }
+
+    public class Elasticsearch_BulkIngestReporter
+    {
+        private final AtomicInteger activations = new AtomicInteger(0);
+        private final AtomicInteger reverts = new AtomicInteger(0);
+        private final AtomicInteger timeouts = new AtomicInteger(0);
+
+        @Monitor(name="bulk_ingest_indices", type=DataSourceType.GAUGE)
+        public int getBulkIngestIndices() {
+            return sessions.size();
+        }
+
+        @Monitor(name="bulk_ingest_activations", type=DataSourceType.COUNTER)
+        public int getBulkIngestActivations() {
+            return activations.get();
+        }
+
+        @Monitor(name="bulk_ingest_reverts", type=DataSourceType.COUNTER)
+        public int getBulkIngestReverts() {
+            return reverts.get();
+        }
+
+        @Monitor(name="bulk_ingest_timeouts", type=DataSourceType.COUNTER)
+        public int getBulkIngestTimeouts() {
+            return timeouts.get();
+        }
+    }
+}
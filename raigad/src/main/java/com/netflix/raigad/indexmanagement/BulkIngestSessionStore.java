@@ -0,0 +1,77 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps Bulk Ingest sessions, including the original settings of every index, in a small Elasticsearch index
+ * so that they survive Raigad restarts and Master Node failover : whichever node is Master next reverts them.
+ *
+ * Custom index.* settings on the ingested indices cannot hold them : Elasticsearch 1.x rejects settings that
+ * are not registered as dynamic on open indices.
+ */
+public class BulkIngestSessionStore
+{
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestSessionStore.class);
+    public static final String SESSION_INDEX = ".raigad_bulk_ingest";
+    static final String SESSION_TYPE = "session";
+    private static final int MAX_SESSIONS = 10000;
+
+    /**
+     * @return sessions by index name, empty when no index was ever put into Bulk Ingest mode
+     */
+    public Map<String, BulkIngestModeManager.IngestSession> load(Client esTransportClient)
+    {
+        Map<String, BulkIngestModeManager.IngestSession> sessions = new LinkedHashMap<String, BulkIngestModeManager.IngestSession>();
+        if (!esTransportClient.admin().indices().prepareExists(SESSION_INDEX).get().isExists())
+            return sessions;
+
+        SearchHit[] hits = esTransportClient.prepareSearch(SESSION_INDEX).setTypes(SESSION_TYPE)
+                .setQuery(QueryBuilders.matchAllQuery()).setSize(MAX_SESSIONS).get().getHits().getHits();
+        for (SearchHit hit : hits)
+        {
+            BulkIngestModeManager.IngestSession session = BulkIngestModeManager.IngestSession.fromSource(hit.sourceAsMap());
+            sessions.put(session.getIndexName(), session);
+        }
+        return sessions;
+    }
+
+    public void save(Client esTransportClient, BulkIngestModeManager.IngestSession session)
+    {
+        if (!esTransportClient.admin().indices().prepareExists(SESSION_INDEX).get().isExists()) {
+            logger.info("Creating index <" + SESSION_INDEX + "> for Bulk Ingest sessions");
+            esTransportClient.admin().indices().prepareCreate(SESSION_INDEX)
+                    .setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", 1).build()).get();
+        }
+        //Refresh so that the session is visible to the next load, possibly on another Master Node
+        esTransportClient.prepareIndex(SESSION_INDEX, SESSION_TYPE, session.getIndexName())
+                .setSource(session.toSource()).setRefresh(true).get();
+    }
+
+    public void remove(Client esTransportClient, String indexName)
+    {
+        esTransportClient.prepareDelete(SESSION_INDEX, SESSION_TYPE, indexName).setRefresh(true).get();
+    }
+}
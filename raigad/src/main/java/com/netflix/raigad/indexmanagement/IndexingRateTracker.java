@@ -0,0 +1,67 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts cumulative per-index indexing counters (as reported by Elasticsearch stats)
+ * into docs/sec rates between consecutive samples.
+ */
+public class IndexingRateTracker
+{
+    public static final long NO_RATE = -1;
+
+    private final Map<String, Sample> lastSamples = new HashMap<String, Sample>();
+
+    /**
+     * @param indexName index the counter belongs to
+     * @param indexCount cumulative number of indexed docs
+     * @param timestampMillis time the counter was read
+     * @return docs/sec since the previous sample, or {@link #NO_RATE} on the first sample or after a counter reset
+     */
+    public synchronized long record(String indexName, long indexCount, long timestampMillis)
+    {
+        Sample previous = lastSamples.put(indexName, new Sample(indexCount, timestampMillis));
+        if (previous == null)
+            return NO_RATE;
+
+        long elapsedMillis = timestampMillis - previous.timestampMillis;
+        // Counters go backwards when shards relocate or the index is re-created
+        if (elapsedMillis <= 0 || indexCount < previous.indexCount)
+            return NO_RATE;
+
+        return ((indexCount - previous.indexCount) * 1000) / elapsedMillis;
+    }
+
+    public synchronized void forget(String indexName)
+    {
+        lastSamples.remove(indexName);
+    }
+
+    private static class Sample
+    {
+        private final long indexCount;
+        private final long timestampMillis;
+
+        private Sample(long indexCount, long timestampMillis)
+        {
+            this.indexCount = indexCount;
+            this.timestampMillis = timestampMillis;
+        }
+    }
+}
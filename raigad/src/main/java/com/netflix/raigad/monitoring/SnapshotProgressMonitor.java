@@ -0,0 +1,157 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.backup.SnapshotBackupManager;
+import com.netflix.raigad.backup.SnapshotProgress;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drives progress tracking of asynchronously started Snapshots and publishes it
+ */
+@Singleton
+public class SnapshotProgressMonitor extends Task
+{
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotProgressMonitor.class);
+    public static final String METRIC_NAME = "Elasticsearch_SnapshotProgressMonitor";
+    private final Elasticsearch_SnapshotProgressReporter snapshotProgressReporter;
+    private final SnapshotBackupManager snapshotBackupManager;
+
+    @Inject
+    public SnapshotProgressMonitor(IConfiguration config, SnapshotBackupManager snapshotBackupManager)
+    {
+        super(config);
+        snapshotProgressReporter = new Elasticsearch_SnapshotProgressReporter();
+        this.snapshotBackupManager = snapshotBackupManager;
+        Monitors.registerObject(snapshotProgressReporter);
+    }
+
+    @Override
+    public void execute() throws Exception {
+
+        // If Elasticsearch is started then only start the monitoring
+        if (!ElasticsearchProcessMonitor.isElasticsearchStarted()) {
+            String exceptionMsg = "Elasticsearch is not yet started, check back again later";
+            logger.info(exceptionMsg);
+            return;
+        }
+
+        SnapshotProgressBean snapshotProgressBean = new SnapshotProgressBean();
+        try
+        {
+            snapshotBackupManager.updateSnapshotProgress();
+
+            SnapshotProgress progress = snapshotBackupManager.getSnapshotProgress();
+            if (progress != null)
+            {
+                snapshotProgressBean.snapshotInProgress = progress.isCompleted() ? 0 : 1;
+                snapshotProgressBean.percentComplete = progress.getPercentComplete();
+                snapshotProgressBean.doneShards = progress.getDoneShards();
+                snapshotProgressBean.failedShards = progress.getFailedShards();
+                snapshotProgressBean.bytesPerSecond = progress.getBytesPerSecond();
+                snapshotProgressBean.etaSeconds = progress.getEtaSeconds();
+                snapshotProgressBean.durationSeconds = progress.getDurationMillis() / 1000;
+            }
+        }
+        catch(Exception e)
+        {
+            logger.warn("failed to load Snapshot Progress", e);
+        }
+
+        snapshotProgressReporter.snapshotProgressBean.set(snapshotProgressBean);
+    }
+
+    public class Elasticsearch_SnapshotProgressReporter
+    {
+        private final AtomicReference<SnapshotProgressBean> snapshotProgressBean;
+
+        public Elasticsearch_SnapshotProgressReporter()
+        {
+            snapshotProgressBean = new AtomicReference<SnapshotProgressBean>(new SnapshotProgressBean());
+        }
+
+        @Monitor(name="snapshot_in_progress", type=DataSourceType.GAUGE)
+        public int getSnapshotInProgress() {
+            return snapshotProgressBean.get().snapshotInProgress;
+        }
+
+        @Monitor(name="snapshot_percent_complete", type=DataSourceType.GAUGE)
+        public int getPercentComplete() {
+            return snapshotProgressBean.get().percentComplete;
+        }
+
+        @Monitor(name="snapshot_done_shards", type=DataSourceType.GAUGE)
+        public int getDoneShards() {
+            return snapshotProgressBean.get().doneShards;
+        }
+
+        @Monitor(name="snapshot_failed_shards", type=DataSourceType.GAUGE)
+        public int getFailedShards() {
+            return snapshotProgressBean.get().failedShards;
+        }
+
+        @Monitor(name="snapshot_bytes_per_second", type=DataSourceType.GAUGE)
+        public long getBytesPerSecond() {
+            return snapshotProgressBean.get().bytesPerSecond;
+        }
+
+        @Monitor(name="snapshot_eta_seconds", type=DataSourceType.GAUGE)
+        public long getEtaSeconds() {
+            return snapshotProgressBean.get().etaSeconds;
+        }
+
+        @Monitor(name="snapshot_duration_seconds", type=DataSourceType.GAUGE)
+        public long getDurationSeconds() {
+            return snapshotProgressBean.get().durationSeconds;
+        }
+    }
+
+    private static class SnapshotProgressBean
+    {
+        private int snapshotInProgress;
+        private int percentComplete;
+        private int doneShards;
+        private int failedShards;
+        private long bytesPerSecond;
+        private long etaSeconds = SnapshotProgress.UNKNOWN_ETA;
+        private long durationSeconds;
+    }
+
+    public static TaskTimer getTimer(IConfiguration config)
+    {
+        return new SimpleTimer(METRIC_NAME, config.getSnapshotProgressPollIntervalInSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName()
+    {
+        return METRIC_NAME;
+    }
+
+}
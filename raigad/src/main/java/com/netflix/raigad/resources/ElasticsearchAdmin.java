@@ -18,6 +18,7 @@ package com.netflix.raigad.resources;
 import com.google.inject.Inject;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.defaultimpl.IElasticsearchProcess;
+import com.netflix.raigad.indexmanagement.BulkIngestModeManager;
 import com.netflix.raigad.indexmanagement.ElasticSearchIndexManager;
 import com.netflix.raigad.utils.SystemUtils;
 import org.codehaus.jettison.json.JSONException;
@@ -30,9 +31,11 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
+import java.util.List;
 
 @Path("/v1/esadmin")
 @Produces(MediaType.APPLICATION_JSON)
@@ -45,14 +48,17 @@ public class ElasticsearchAdmin
     private final IConfiguration config;
     private final IElasticsearchProcess esProcess;
     private final ElasticSearchIndexManager esIndexManager;
+    private final BulkIngestModeManager bulkIngestModeManager;
     private static final String SHARD_REALLOCATION_PROPERTY = "cluster.routing.allocation.enable";
 
     @Inject
-    public ElasticsearchAdmin(IConfiguration config, IElasticsearchProcess esProcess,ElasticSearchIndexManager esIndexManager)
+    public ElasticsearchAdmin(IConfiguration config, IElasticsearchProcess esProcess,ElasticSearchIndexManager esIndexManager,
+                              BulkIngestModeManager bulkIngestModeManager)
     {
         this.config = config;
         this.esProcess = esProcess;
         this.esIndexManager = esIndexManager;
+        this.bulkIngestModeManager = bulkIngestModeManager;
     }
 
     @GET
@@ -84,6 +90,62 @@ public class ElasticsearchAdmin
     }
 
 
+    @GET
+    @Path("/bulk_ingest/start")
+    public Response bulkIngestStart(@QueryParam("indices") String indices, @QueryParam("timeout_minutes") int timeoutInMinutes)
+            throws Exception
+    {
+        logger.info("Starting Bulk Ingest mode through REST call ...");
+        List<String> started;
+        try {
+            started = bulkIngestModeManager.startIngestMode(indices, timeoutInMinutes, true);
+        }
+        catch (IllegalStateException e)
+        {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        }
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("started", started);
+        return Response.ok(jsonObject, MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/bulk_ingest/stop")
+    public Response bulkIngestStop(@QueryParam("indices") String indices)
+            throws Exception
+    {
+        logger.info("Stopping Bulk Ingest mode through REST call ...");
+        List<String> stopped;
+        try {
+            stopped = bulkIngestModeManager.stopIngestMode(indices);
+        }
+        catch (IllegalStateException e)
+        {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        }
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("stopped", stopped);
+        return Response.ok(jsonObject, MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/bulk_ingest/status")
+    public Response bulkIngestStatus() throws Exception
+    {
+        JSONObject jsonObject = new JSONObject();
+        for (BulkIngestModeManager.IngestSession session : bulkIngestModeManager.getActiveSessions())
+        {
+            JSONObject sessionObject = new JSONObject();
+            sessionObject.put("manual", session.isManual());
+            sessionObject.put("start_time", session.getStartTime());
+            sessionObject.put("expiry_time", session.getExpiryTime());
+            sessionObject.put("original_refresh_interval", session.getRefreshInterval());
+            sessionObject.put("original_number_of_replicas", session.getNumberOfReplicas());
+            jsonObject.put(session.getIndexName(), sessionObject);
+        }
+        return Response.ok(jsonObject, MediaType.APPLICATION_JSON).build();
+    }
+
     @GET
     @Path("/existingRepositories")
     public Response esExistingRepositories() throws Exception
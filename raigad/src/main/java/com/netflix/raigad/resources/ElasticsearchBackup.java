@@ -18,8 +18,22 @@ package com.netflix.raigad.resources;
 import com.google.inject.Inject;
 import com.netflix.raigad.defaultimpl.IElasticsearchProcess;
 import com.netflix.raigad.backup.RestoreBackupManager;
+import com.netflix.raigad.backup.RestoreOptions;
+import com.netflix.raigad.backup.BackupMetricsHistory;
+import com.netflix.raigad.backup.BackupOperationMetrics;
+import com.netflix.raigad.backup.RepositoryFactory;
+import com.netflix.raigad.backup.RestoreProgress;
 import com.netflix.raigad.backup.SnapshotBackupManager;
+import com.netflix.raigad.backup.SnapshotCatalog;
+import com.netflix.raigad.backup.SnapshotPruningManager;
+import com.netflix.raigad.backup.SnapshotProgress;
+import com.netflix.raigad.backup.SnapshotVerification;
+import com.netflix.raigad.backup.SnapshotVerificationManager;
 import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ESTransportClient;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.client.Client;
+import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,19 +54,37 @@ public class ElasticsearchBackup
     private static final String REST_REPOSITORY_TYPE = "repository_type";
     private static final String REST_SNAPSHOT_NAME = "snapshot";
     private static final String REST_INDICES_NAME = "indices";
+    private static final String REST_RENAME_PATTERN = "rename_pattern";
+    private static final String REST_RENAME_REPLACEMENT = "rename_replacement";
+    private static final String REST_ALIAS = "alias";
+    private static final String REST_REFRESH = "refresh";
+    private static final String REST_OPERATION = "operation";
+    private static final String REST_LIMIT = "limit";
     private final IConfiguration config;
     private final IElasticsearchProcess esProcess;
     private final SnapshotBackupManager snapshotBackupManager;
     private final RestoreBackupManager restoreBackupManager;
+    private final SnapshotPruningManager snapshotPruningManager;
+    private final SnapshotCatalog snapshotCatalog;
+    private final RepositoryFactory repositoryFactory;
+    private final SnapshotVerificationManager snapshotVerificationManager;
+    private final BackupMetricsHistory backupMetricsHistory;
     private static final String SHARD_REALLOCATION_PROPERTY = "cluster.routing.allocation.enable";
 
     @Inject
-    public ElasticsearchBackup(IConfiguration config, IElasticsearchProcess esProcess,SnapshotBackupManager snapshotBackupManager,RestoreBackupManager restoreBackupManager)
+    public ElasticsearchBackup(IConfiguration config, IElasticsearchProcess esProcess,SnapshotBackupManager snapshotBackupManager,RestoreBackupManager restoreBackupManager,
+                               SnapshotPruningManager snapshotPruningManager, SnapshotCatalog snapshotCatalog, RepositoryFactory repositoryFactory,
+                               SnapshotVerificationManager snapshotVerificationManager, BackupMetricsHistory backupMetricsHistory)
     {
         this.config = config;
         this.esProcess = esProcess;
         this.snapshotBackupManager = snapshotBackupManager;
         this.restoreBackupManager = restoreBackupManager;
+        this.snapshotPruningManager = snapshotPruningManager;
+        this.snapshotCatalog = snapshotCatalog;
+        this.repositoryFactory = repositoryFactory;
+        this.snapshotVerificationManager = snapshotVerificationManager;
+        this.backupMetricsHistory = backupMetricsHistory;
     }
 
     @GET
@@ -62,6 +94,28 @@ public class ElasticsearchBackup
     {
     	logger.info("Running Snapshot through REST call ...");
         snapshotBackupManager.runSnapshotBackup();
+        if (!config.waitForCompletionOfBackup() && snapshotBackupManager.getSnapshotProgress() != null)
+            return Response.ok(snapshotBackupManager.getSnapshotProgress().toJson(), MediaType.APPLICATION_JSON).build();
+        return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/snapshot_status")
+    public Response snapshotStatus()
+    {
+        SnapshotProgress progress = snapshotBackupManager.getSnapshotProgress();
+        if (progress == null)
+            return Response.ok(new JSONObject(), MediaType.APPLICATION_JSON).build();
+        return Response.ok(progress.toJson(), MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/prune_snapshots")
+    public Response pruneSnapshots()
+            throws Exception
+    {
+        logger.info("Running Snapshot Pruning through REST call ...");
+        snapshotPruningManager.runSnapshotPruning();
         return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
     }
 
@@ -70,12 +124,95 @@ public class ElasticsearchBackup
     public Response restore(@QueryParam(REST_REPOSITORY_NAME) String repoName,
                             @QueryParam(REST_REPOSITORY_TYPE) String repoType,
                            @QueryParam(REST_SNAPSHOT_NAME) String snapName,
-                           @QueryParam(REST_INDICES_NAME) String indicesName)
+                           @QueryParam(REST_INDICES_NAME) String indicesName,
+                           @QueryParam(REST_RENAME_PATTERN) String renamePattern,
+                           @QueryParam(REST_RENAME_REPLACEMENT) String renameReplacement,
+                           @QueryParam(REST_ALIAS) String alias)
             throws Exception
     {
 		logger.info("Running Restore through REST call ...");
-        restoreBackupManager.runRestore(repoName,repoType,snapName,indicesName);
+        RestoreOptions options = RestoreOptions.fromConfig(config, renamePattern, renameReplacement, alias);
+        restoreBackupManager.runRestore(repoName,repoType,snapName,indicesName,options);
+        if ((config.isRestoreOrchestratorEnabled() || options.hasPostRestoreSteps()) && restoreBackupManager.getRestoreProgress() != null)
+            return Response.ok(restoreBackupManager.getRestoreProgress().toJson(), MediaType.APPLICATION_JSON).build();
         return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
     }
 
+    @GET
+    @Path("/restore_status")
+    public Response restoreStatus()
+    {
+        RestoreProgress progress = restoreBackupManager.getRestoreProgress();
+        if (progress == null)
+            return Response.ok(new JSONObject(), MediaType.APPLICATION_JSON).build();
+        return Response.ok(progress.toJson(), MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/verify_snapshot")
+    public Response verifySnapshot()
+            throws Exception
+    {
+        logger.info("Running Snapshot verification through REST call ...");
+        SnapshotVerification verification = snapshotVerificationManager.runSnapshotVerification();
+        if (verification == null)
+            return Response.ok(new JSONObject(), MediaType.APPLICATION_JSON).build();
+        return Response.ok(verification.toJson(), MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/verification_status")
+    public Response verificationStatus()
+    {
+        SnapshotVerification verification = snapshotVerificationManager.getLastVerification();
+        if (verification == null)
+            return Response.ok(new JSONObject(), MediaType.APPLICATION_JSON).build();
+        return Response.ok(verification.toJson(), MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Metrics of completed Snapshots and Restores, newest first
+     * @param operation snapshot or restore, both if empty
+     * @param limit Maximum number of entries, all kept entries if 0
+     */
+    @GET
+    @Path("/backup_metrics")
+    public Response backupMetrics(@QueryParam(REST_OPERATION) String operation,
+                                  @QueryParam(REST_LIMIT) int limit)
+    {
+        BackupOperationMetrics.Operation operationFilter = null;
+        if (StringUtils.isNotBlank(operation)) {
+            try {
+                operationFilter = BackupOperationMetrics.Operation.valueOf(operation.trim().toUpperCase());
+            }
+            catch (IllegalArgumentException e)
+            {
+                return Response.status(Response.Status.BAD_REQUEST).entity("Unknown operation <" + operation + ">").build();
+            }
+        }
+        return Response.ok(backupMetricsHistory.toJson(operationFilter, limit), MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Snapshots of the Repository (Snapshot Repository by default) as known by the Snapshot Catalog, newest first,
+     * with the latest successful Snapshot containing the given indices
+     */
+    @GET
+    @Path("/snapshot_catalog")
+    public Response snapshotCatalog(@QueryParam(REST_REPOSITORY_NAME) String repoName,
+                                    @QueryParam(REST_INDICES_NAME) String indicesName,
+                                    @QueryParam(REST_REFRESH) boolean refresh)
+            throws Exception
+    {
+        String repositoryName = StringUtils.isBlank(repoName) ? repositoryFactory.getBackupRepository().getRemoteRepositoryName() : repoName;
+        Client esTransportClient = ESTransportClient.instance(config).getTransportClient();
+        if (refresh)
+            snapshotCatalog.refreshRepository(esTransportClient, repositoryName);
+        String latestSnapshot = snapshotCatalog.getLatestSnapshot(esTransportClient, repositoryName, RestoreBackupManager.getConcreteIndices(indicesName));
+
+        JSONObject catalogJson = snapshotCatalog.toJson(repositoryName);
+        catalogJson.put("latest", latestSnapshot);
+        return Response.ok(catalogJson, MediaType.APPLICATION_JSON).build();
+    }
+
 }
@@ -16,19 +16,27 @@
 package com.netflix.raigad.resources;
 
 import com.google.inject.Inject;
+import com.netflix.raigad.identity.MembershipFeed;
 import com.netflix.raigad.identity.RaigadInstance;
 import com.netflix.raigad.startup.RaigadServer;
 import com.netflix.raigad.utils.EsUtils;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This servlet will provide the configuration API service as and when Elasticsearch
@@ -40,25 +48,39 @@ public class ElasticsearchConfig
 {
 	private static final Logger logger = LoggerFactory.getLogger(ElasticsearchConfig.class);
 	private final RaigadServer raigadServer;
+	private final MembershipFeed membershipFeed;
+	private final NodesDocumentCache nodesDocumentCache;
 
 	@Inject
-	public ElasticsearchConfig(RaigadServer raigadServer) {
+	public ElasticsearchConfig(RaigadServer raigadServer, MembershipFeed membershipFeed, NodesDocumentCache nodesDocumentCache) {
 		this.raigadServer = raigadServer;
+		this.membershipFeed = membershipFeed;
+		this.nodesDocumentCache = nodesDocumentCache;
 	}
 
+	/**
+	 * Nodes are served from a cached document tagged with an ETag, a request with a matching
+	 * If-None-Match gets a 304 without a body. Clients accepting NodesDocumentCache.COMPACT_MEDIA_TYPE
+	 * get the compact format, others the original keyed one.
+	 */
 	@GET
 	@Path("/get_nodes")
-	public Response getNodes() 
+	public Response getNodes(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+							 @HeaderParam(HttpHeaders.ACCEPT) String accept)
 	{
 		try 
 		{
-			logger.info("Fetching nodes via get_nodes ...");
+			logger.debug("Fetching nodes via get_nodes ...");
 			final List<RaigadInstance> instances = raigadServer
 					.getInstanceManager().getAllInstances();
 			if (instances != null && !instances.isEmpty()) {
-				JSONObject esCarJson = EsUtils
-						.transformRaigadInstanceToJson(instances);
-				return Response.ok(esCarJson.toString())
+				NodesDocumentCache.Format format = NodesDocumentCache.Format.fromAccept(accept);
+				NodesDocumentCache.Document document = nodesDocumentCache.get(instances, format);
+				EntityTag etag = new EntityTag(document.getETag());
+				if (matches(ifNoneMatch, etag))
+					return Response.notModified(etag).build();
+				return Response.ok(document.getBody(), format.getMediaType())
+						.tag(etag)
 						.build();
 			}
 		} catch (Exception e) {
@@ -68,4 +90,55 @@ public class ElasticsearchConfig
 		return Response.status(500).build();
 	}
 
+	private static boolean matches(String ifNoneMatch, EntityTag etag)
+	{
+		if (ifNoneMatch == null)
+			return false;
+		for (String candidate : ifNoneMatch.split(","))
+		{
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/"))
+				candidate = candidate.substring(2);
+			if (candidate.equals("*") || candidate.equals("\"" + etag.getValue() + "\""))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Long poll of the membership : returns as soon as the membership version differs from
+	 * {@code version}, or after the timeout with the current (unchanged) version.
+	 * Formats are negotiated as for get_nodes, the version is appended to either of them.
+	 */
+	@GET
+	@Path("/get_nodes_feed")
+	public Response getNodesFeed(@QueryParam("version") @DefaultValue("-1") long version,
+								 @QueryParam("timeout_seconds") @DefaultValue("30") int timeoutSeconds,
+								 @HeaderParam(HttpHeaders.ACCEPT) String accept)
+	{
+		try
+		{
+			if (!membershipFeed.isInitialized())
+				membershipFeed.update(raigadServer.getInstanceManager().getAllInstances());
+
+			int waitSeconds = Math.max(0, Math.min(timeoutSeconds, raigadServer.getConfiguration().getMembershipFeedMaxWaitInSeconds()));
+			MembershipFeed.Snapshot snapshot = membershipFeed.awaitChange(version, waitSeconds * 1000L);
+			if (snapshot.getInstances().isEmpty())
+				return Response.status(500).build();
+
+			NodesDocumentCache.Format format = NodesDocumentCache.Format.fromAccept(accept);
+			if (format == NodesDocumentCache.Format.compact) {
+				Map<String, Object> feedJson = EsUtils.getCompactJsonMap(snapshot.getInstances());
+				feedJson.put("version", snapshot.getVersion());
+				return Response.ok(JSONValue.toJSONString(feedJson), format.getMediaType()).build();
+			}
+			JSONObject feedJson = EsUtils.transformRaigadInstanceToJson(snapshot.getInstances());
+			feedJson.put("version", snapshot.getVersion());
+			return Response.ok(feedJson.toString(), format.getMediaType()).build();
+		} catch (Exception e) {
+			logger.error("Error while executing get_nodes_feed", e);
+			return Response.serverError().build();
+		}
+	}
+
 }
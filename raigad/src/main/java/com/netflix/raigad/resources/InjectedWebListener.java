@@ -28,13 +28,15 @@ import com.netflix.raigad.aws.IAMCredential;
 import com.netflix.raigad.aws.ICredential;
 import com.netflix.raigad.backup.AbstractRepository;
 import com.netflix.raigad.backup.AbstractRepositorySettingsParams;
+import com.netflix.raigad.backup.FsRepository;
+import com.netflix.raigad.backup.FsRepositorySettingsParams;
 import com.netflix.raigad.backup.S3Repository;
 import com.netflix.raigad.backup.S3RepositorySettingsParams;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.identity.CassandraInstanceFactory;
 import com.netflix.raigad.identity.EurekaHostsSupplier;
 import com.netflix.raigad.identity.HostSupplier;
 import com.netflix.raigad.identity.IRaigadInstanceFactory;
+import com.netflix.raigad.identity.InstanceFactoryProvider;
 import com.netflix.raigad.scheduler.GuiceJobFactory;
 import com.netflix.raigad.startup.RaigadServer;
 import com.sun.jersey.api.core.PackagesResourceConfig;
@@ -109,11 +111,13 @@ public class InjectedWebListener extends GuiceServletContextListener
             // fix bug in Jersey-Guice integration exposed by child injectors
             binder().bind(GuiceContainer.class).asEagerSingleton();
             binder().bind(GuiceJobFactory.class).asEagerSingleton();
-            binder().bind(IRaigadInstanceFactory.class).to(CassandraInstanceFactory.class);
+            binder().bind(IRaigadInstanceFactory.class).toProvider(InstanceFactoryProvider.class).in(Scopes.SINGLETON);
             //TODO: use config.getCredentialProvider() instead of IAMCredential
             binder().bind(ICredential.class).to(IAMCredential.class);
             binder().bind(AbstractRepository.class).annotatedWith(Names.named("s3")).to(S3Repository.class);
             binder().bind(AbstractRepositorySettingsParams.class).annotatedWith(Names.named("s3")).to(S3RepositorySettingsParams.class);
+            binder().bind(AbstractRepository.class).annotatedWith(Names.named("fs")).to(FsRepository.class);
+            binder().bind(AbstractRepositorySettingsParams.class).annotatedWith(Names.named("fs")).to(FsRepositorySettingsParams.class);
             bind(SchedulerFactory.class).to(StdSchedulerFactory.class).asEagerSingleton();
             bind(HostSupplier.class).to(EurekaHostsSupplier.class).in(Scopes.SINGLETON);
         }
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2014 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.resources;
+
+import com.google.inject.Singleton;
+import com.netflix.raigad.identity.RaigadInstance;
+import com.netflix.raigad.utils.EsUtils;
+import com.netflix.raigad.utils.SystemUtils;
+
+import javax.ws.rs.core.MediaType;
+import java.io.UnsupportedEncodingException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialized get_nodes documents, rebuilt only when the membership changes. The ETag covers every
+ * field of the document except update_time, which moves with each heartbeat without changing
+ * what discovery needs to know.
+ */
+@Singleton
+public class NodesDocumentCache
+{
+    public static final String COMPACT_MEDIA_TYPE = "application/vnd.raigad.nodes.v2+json";
+
+    public enum Format
+    {
+        // {"instances":{"instance-0":{...},...}}, understood by every version of the plugin
+        keyed(MediaType.TEXT_PLAIN),
+        // See EsUtils.transformRaigadInstancesToCompactJson
+        compact(COMPACT_MEDIA_TYPE);
+
+        private final String mediaType;
+
+        Format(String mediaType)
+        {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType()
+        {
+            return mediaType;
+        }
+
+        /**
+         * @return Compact only for clients asking for it explicitly
+         */
+        public static Format fromAccept(String accept)
+        {
+            return accept != null && accept.contains(COMPACT_MEDIA_TYPE) ? compact : keyed;
+        }
+    }
+
+    private final Map<Format, Document> documents = new EnumMap<Format, Document>(Format.class);
+
+    public synchronized Document get(List<RaigadInstance> instances, Format format) throws UnsupportedEncodingException
+    {
+        // Representations of the same membership get distinct ETags
+        String etag = getETag(instances) + "-" + format.name();
+        Document document = documents.get(format);
+        if (document == null || !document.getETag().equals(etag))
+        {
+            String body = format == Format.compact
+                    ? EsUtils.transformRaigadInstancesToCompactJson(instances)
+                    : EsUtils.transformRaigadInstanceToJson(instances).toString();
+            document = new Document(etag, body.getBytes("UTF-8"));
+            documents.put(format, document);
+        }
+        return document;
+    }
+
+    static String getETag(List<RaigadInstance> instances) throws UnsupportedEncodingException
+    {
+        StringBuilder sb = new StringBuilder();
+        for (RaigadInstance instance : instances)
+        {
+            sb.append(instance.getHostName()).append('|')
+              .append(instance.getId()).append('|')
+              .append(instance.getApp()).append('|')
+              .append(instance.getInstanceId()).append('|')
+              .append(instance.getAvailabilityZone()).append('|')
+              .append(instance.getHostIP()).append('|')
+              .append(instance.getDC()).append('|')
+              .append(instance.getAsg()).append('\n');
+        }
+        return SystemUtils.toHex(SystemUtils.md5(sb.toString().getBytes("UTF-8")));
+    }
+
+    public static class Document
+    {
+        private final String etag;
+        private final byte[] body;
+
+        public Document(String etag, byte[] body)
+        {
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -21,9 +21,17 @@ import com.netflix.raigad.aws.UpdateSecuritySettings;
 import com.netflix.raigad.aws.UpdateTribeSecuritySettings;
 import com.netflix.raigad.backup.RestoreBackupManager;
 import com.netflix.raigad.backup.SnapshotBackupManager;
+import com.netflix.raigad.backup.SnapshotCatalogManager;
+import com.netflix.raigad.backup.SnapshotPruningManager;
+import com.netflix.raigad.backup.SnapshotScheduler;
+import com.netflix.raigad.backup.SnapshotThrottleController;
+import com.netflix.raigad.backup.SnapshotVerificationManager;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.defaultimpl.IElasticsearchProcess;
+import com.netflix.raigad.identity.InstanceHeartbeat;
 import com.netflix.raigad.identity.InstanceManager;
+import com.netflix.raigad.identity.MembershipFeedRefresh;
+import com.netflix.raigad.indexmanagement.BulkIngestModeManager;
 import com.netflix.raigad.indexmanagement.ElasticSearchIndexManager;
 import com.netflix.raigad.monitoring.*;
 import com.netflix.raigad.scheduler.RaigadScheduler;
@@ -102,6 +110,11 @@ public class RaigadServer
             }
         }
 
+        if (config.isInstanceHeartbeatEnabled())
+            scheduler.addTask(InstanceHeartbeat.JOBNAME, InstanceHeartbeat.class, InstanceHeartbeat.getTimer(config));
+
+        scheduler.addTask(MembershipFeedRefresh.JOBNAME, MembershipFeedRefresh.class, MembershipFeedRefresh.getTimer(config));
+
         // Tune Elasticsearch
         scheduler.runTaskNow(TuneElasticsearch.class);
         
@@ -129,14 +142,27 @@ public class RaigadServer
             if (config.getASGName().toLowerCase().contains("master"))
             {   // Run Snapshot task only on Master Nodes
                 scheduler.addTaskWithDelay(SnapshotBackupManager.JOBNAME, SnapshotBackupManager.class, SnapshotBackupManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+                scheduler.addTaskWithDelay(SnapshotScheduler.JOBNAME, SnapshotScheduler.class, SnapshotScheduler.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+                scheduler.addTaskWithDelay(SnapshotThrottleController.JOBNAME, SnapshotThrottleController.class, SnapshotThrottleController.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+                scheduler.addTaskWithDelay(SnapshotPruningManager.JOBNAME, SnapshotPruningManager.class, SnapshotPruningManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+                scheduler.addTaskWithDelay(SnapshotCatalogManager.JOBNAME, SnapshotCatalogManager.class, SnapshotCatalogManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+                scheduler.addTaskWithDelay(SnapshotVerificationManager.JOBNAME, SnapshotVerificationManager.class, SnapshotVerificationManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
                 // Run Index Management task only on Master Nodes
                 scheduler.addTaskWithDelay(ElasticSearchIndexManager.JOBNAME, ElasticSearchIndexManager.class, ElasticSearchIndexManager.getTimer(config), config.getAutoCreateIndexInitialStartDelaySeconds());
+                // Run Bulk Ingest mode task only on Master Nodes
+                scheduler.addTask(BulkIngestModeManager.JOBNAME, BulkIngestModeManager.class, BulkIngestModeManager.getTimer(config));
             }
         }
         else
         {
             scheduler.addTaskWithDelay(SnapshotBackupManager.JOBNAME, SnapshotBackupManager.class, SnapshotBackupManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+            scheduler.addTaskWithDelay(SnapshotScheduler.JOBNAME, SnapshotScheduler.class, SnapshotScheduler.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+            scheduler.addTaskWithDelay(SnapshotThrottleController.JOBNAME, SnapshotThrottleController.class, SnapshotThrottleController.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+            scheduler.addTaskWithDelay(SnapshotPruningManager.JOBNAME, SnapshotPruningManager.class, SnapshotPruningManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+            scheduler.addTaskWithDelay(SnapshotCatalogManager.JOBNAME, SnapshotCatalogManager.class, SnapshotCatalogManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
+            scheduler.addTaskWithDelay(SnapshotVerificationManager.JOBNAME, SnapshotVerificationManager.class, SnapshotVerificationManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
             scheduler.addTaskWithDelay(ElasticSearchIndexManager.JOBNAME, ElasticSearchIndexManager.class, ElasticSearchIndexManager.getTimer(config), config.getAutoCreateIndexInitialStartDelaySeconds());
+            scheduler.addTask(BulkIngestModeManager.JOBNAME, BulkIngestModeManager.class, BulkIngestModeManager.getTimer(config));
         }
 
         /*
@@ -153,6 +179,7 @@ public class RaigadServer
         scheduler.addTask(HttpStatsMonitor.METRIC_NAME, HttpStatsMonitor.class, HttpStatsMonitor.getTimer("HttpStatsMonitor"));
         scheduler.addTask(AllCircuitBreakerStatsMonitor.METRIC_NAME, AllCircuitBreakerStatsMonitor.class, AllCircuitBreakerStatsMonitor.getTimer("AllCircuitBreakerStatsMonitor"));
         scheduler.addTask(SnapshotBackupMonitor.METRIC_NAME, SnapshotBackupMonitor.class, SnapshotBackupMonitor.getTimer("SnapshotBackupMonitor"));
+        scheduler.addTask(SnapshotProgressMonitor.METRIC_NAME, SnapshotProgressMonitor.class, SnapshotProgressMonitor.getTimer(config));
         scheduler.addTaskWithDelay(HealthMonitor.METRIC_NAME, HealthMonitor.class, HealthMonitor.getTimer("HealthMonitor"),ES_HEALTH_MONITOR_DELAY);
 
     }
@@ -9,6 +9,7 @@ import com.netflix.raigad.objectmapper.DefaultMasterNodeInfoMapper;
 import org.codehaus.jackson.type.TypeReference;
 import org.elasticsearch.action.admin.cluster.snapshots.get.GetSnapshotsResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.SnapshotMetaData;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.snapshots.SnapshotInfo;
 import org.joda.time.DateTime;
@@ -17,12 +18,16 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class EsUtils 
 {
@@ -35,6 +40,7 @@ public class EsUtils
     private static final String PUBLIC_IP = "public_ip";
     private static final String DC = "dc";
     private static final String UPDATE_TIME = "update_time";
+    private static final String ASG_NAME = "asg_name";
     private static final String HTTP_TAG = "http://";
     private static final String URL_PORT_SEPARATOR = ":";
     private static final String ELASTICSEARCH_HTTP_PORT = "7104";
@@ -67,6 +73,7 @@ public class EsUtils
     			jsInstance.put(PUBLIC_IP, instances.get(i).getHostIP());
     			jsInstance.put(DC, instances.get(i).getDC());
     			jsInstance.put(UPDATE_TIME, instances.get(i).getUpdatetime());
+    			jsInstance.put(ASG_NAME, instances.get(i).getAsg());
     			esJsonInstance.add(jsInstance);
     			esJsonInstances.put("instance-"+i,jsInstance);
     		}    	
@@ -76,6 +83,48 @@ public class EsUtils
     		return allInstances;
     }
     
+    /**
+     * Compact (v2) node list : field names once, then one array of values per instance, in the order
+     * of the field names
+     * {"format":2,"fields":["id","host_name",...],"nodes":[["us-east-1.i-1","host1",...],...]}
+     */
+    public static String transformRaigadInstancesToCompactJson(List<RaigadInstance> instances)
+    {
+        return JSONValue.toJSONString(getCompactJsonMap(instances));
+    }
+
+    /**
+     * Fields of the compact document, more fields can be appended after the nodes
+     */
+    public static Map<String, Object> getCompactJsonMap(List<RaigadInstance> instances)
+    {
+        JSONArray fields = new JSONArray();
+        fields.addAll(Arrays.asList(ID, HOST_NAME, APP_NAME, INSTANCE_ID, AVAILABILITY_ZONE, PUBLIC_IP, DC, UPDATE_TIME, ASG_NAME));
+
+        JSONArray nodes = new JSONArray();
+        for (RaigadInstance instance : instances)
+        {
+            JSONArray node = new JSONArray();
+            node.add(instance.getId());
+            node.add(instance.getHostName());
+            node.add(instance.getApp());
+            node.add(instance.getInstanceId());
+            node.add(instance.getAvailabilityZone());
+            node.add(instance.getHostIP());
+            node.add(instance.getDC());
+            node.add(instance.getUpdatetime());
+            node.add(instance.getAsg());
+            nodes.add(node);
+        }
+
+        // Ordered, so that readers get the field names before the nodes
+        Map<String, Object> compact = new LinkedHashMap<String, Object>();
+        compact.put("format", 2);
+        compact.put("fields", fields);
+        compact.put("nodes", nodes);
+        return compact;
+    }
+
 	public static List<RaigadInstance> getRaigadInstancesFromJson(JSONObject instances)
     {
 		List<RaigadInstance> raigadInstances = new ArrayList<RaigadInstance>();
@@ -97,6 +146,7 @@ public class EsUtils
 			escInstance.setId((String) eachInstance.get(ID));
 			escInstance.setInstanceId((String) eachInstance.get(INSTANCE_ID));
 			escInstance.setUpdatetime((Long) eachInstance.get(UPDATE_TIME));
+			escInstance.setAsg((String) eachInstance.get(ASG_NAME));
 			//Add to the list
 			raigadInstances.add(escInstance);
 		}
@@ -161,6 +211,17 @@ public class EsUtils
         return snapshots;
     }
 
+    /**
+     * Elasticsearch runs one Snapshot at a time across the whole cluster
+     * @return true if any Snapshot (started by Raigad or not) is currently running
+     */
+    public static boolean isSnapshotRunning(Client transportClient)
+    {
+        SnapshotMetaData snapshotMetaData = transportClient.admin().cluster().prepareState().clear().setMetaData(true).get()
+                .getState().getMetaData().custom(SnapshotMetaData.TYPE);
+        return snapshotMetaData != null && !snapshotMetaData.entries().isEmpty();
+    }
+
     /**
      * Repository Name is Today's Date in yyyyMMdd format eg. 20140630
      * @return Repository Name
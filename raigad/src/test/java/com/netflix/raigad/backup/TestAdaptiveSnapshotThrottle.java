@@ -0,0 +1,40 @@
+package com.netflix.raigad.backup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestAdaptiveSnapshotThrottle {
+    private final AdaptiveSnapshotThrottle throttle = new AdaptiveSnapshotThrottle(1, 5, 50, 2.0);
+
+    @Test
+    public void testBacksOffWhenSearchLatencyIsHigh() {
+        assertEquals(2, throttle.nextThreads(5, 80, 0.5));
+        assertEquals(1, throttle.nextThreads(2, 80, 0.5));
+        assertEquals(1, throttle.nextThreads(1, 80, 0.5));
+    }
+
+    @Test
+    public void testBacksOffWhenDiskQueueIsHigh() {
+        assertEquals(2, throttle.nextThreads(4, 10, 3.5));
+    }
+
+    @Test
+    public void testRampsUpWithHeadroom() {
+        assertEquals(2, throttle.nextThreads(1, 10, 0.5));
+        assertEquals(5, throttle.nextThreads(5, 10, 0.5));
+    }
+
+    @Test
+    public void testHoldsNearTarget() {
+        assertEquals(3, throttle.nextThreads(3, 45, 0.5));
+        assertEquals(3, throttle.nextThreads(3, 10, 1.8));
+    }
+
+    @Test
+    public void testInvalidBounds() {
+        AdaptiveSnapshotThrottle invalid = new AdaptiveSnapshotThrottle(0, -1, 50, 2.0);
+        assertEquals(1, invalid.getMinThreads());
+        assertEquals(1, invalid.getMaxThreads());
+    }
+}
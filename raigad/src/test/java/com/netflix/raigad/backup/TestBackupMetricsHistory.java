@@ -0,0 +1,46 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestBackupMetricsHistory {
+
+    @Test
+    public void testBoundedHistoryNewestFirst() {
+        BackupMetricsHistory history = new BackupMetricsHistory(new FakeConfiguration(FakeConfiguration.FAKE_REGION, "fake-app", "az1", "fakeInstance1"));
+        int historySize = 100;
+        for (int i = 0; i < historySize + 5; i++)
+            history.record(metrics(i % 2 == 0 ? BackupOperationMetrics.Operation.SNAPSHOT : BackupOperationMetrics.Operation.RESTORE, "snap_" + i));
+
+        assertEquals(historySize, history.getHistory(null, 0).size());
+        assertEquals("snap_" + (historySize + 4), history.getHistory(null, 1).get(0).getSnapshotName());
+
+        List<BackupOperationMetrics> restores = history.getHistory(BackupOperationMetrics.Operation.RESTORE, 3);
+        assertEquals(3, restores.size());
+        assertEquals("snap_" + (historySize + 3), restores.get(0).getSnapshotName());
+        assertEquals("snap_" + (historySize - 1), restores.get(2).getSnapshotName());
+    }
+
+    @Test
+    public void testThroughput() {
+        BackupOperationMetrics metrics = metrics(BackupOperationMetrics.Operation.SNAPSHOT, "snap_1");
+        assertEquals(2000, metrics.getDurationMillis());
+        assertEquals(5000, metrics.getBytesPerSecond());
+    }
+
+    @Test
+    public void testReasonType() {
+        assertEquals("IndexShardSnapshotFailedException", BackupOperationMetrics.getReasonType("IndexShardSnapshotFailedException[[orders][0] Aborted]"));
+        assertEquals("NodeDisconnectedException", BackupOperationMetrics.getReasonType(" NodeDisconnectedException "));
+        assertEquals("unknown", BackupOperationMetrics.getReasonType(null));
+    }
+
+    private static BackupOperationMetrics metrics(BackupOperationMetrics.Operation operation, String snapshotName) {
+        return new BackupOperationMetrics(operation, "20141201", snapshotName, 1000L, 3000L, 10, 0, 10000L, 50, Collections.<String, Integer>emptyMap());
+    }
+}
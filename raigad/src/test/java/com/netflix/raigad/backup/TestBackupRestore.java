@@ -203,12 +203,12 @@ public class TestBackupRestore extends ElasticsearchIntegrationTest
     public static class MockSnapshotBackupManager
     {
         @Mock
-        public CreateSnapshotResponse getCreateSnapshotResponse(Client esTransportClient,String repositoryName, String snapshotName)
+        public CreateSnapshotResponse getCreateSnapshotResponse(Client esTransportClient,String repositoryName, String snapshotName, String indices, boolean includeGlobalState)
         {
             return client0.admin().cluster().prepareCreateSnapshot(repositoryName, snapshotName)
                     .setWaitForCompletion(conf.waitForCompletionOfBackup())
-                    .setIndices(conf.getCommaSeparatedIndicesToBackup())
-                    .setIncludeGlobalState(conf.includeGlobalStateDuringBackup())
+                    .setIndices(indices)
+                    .setIncludeGlobalState(includeGlobalState)
                     .setPartial(conf.partiallyBackupIndices()).get();
         }
     }
@@ -217,7 +217,7 @@ public class TestBackupRestore extends ElasticsearchIntegrationTest
     public static class MockRestoreBackupManager
     {
         @Mock
-        public RestoreSnapshotResponse getRestoreSnapshotResponse(Client esTransportClient, String commaSeparatedIndices,String restoreRepositoryName,String snapshotN)
+        public RestoreSnapshotResponse getRestoreSnapshotResponse(Client esTransportClient, String commaSeparatedIndices,String restoreRepositoryName,String snapshotN,RestoreOptions options)
         {
             snapshotN = snapshotBackupManager.getSnapshotName("_all", false);
             return client0.admin().cluster().prepareRestoreSnapshot(repositoryName, snapshotN)
@@ -0,0 +1,30 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestFsRepositorySettingsParams {
+    private final FsRepositorySettingsParams params = new FsRepositorySettingsParams(
+            new FakeConfiguration(FakeConfiguration.FAKE_REGION, "es_test", "az1", "fakeInstance1"));
+
+    @Test
+    public void testBackupLocation() throws Exception {
+        params.setBackupParams();
+        assertEquals("es_test/" + params.getFsRepositoryName(), params.getBase_path());
+        assertEquals("/tmp/es_backup/es_test/" + params.getFsRepositoryName(), params.getLocation());
+    }
+
+    @Test
+    public void testRestoreLocationDefaultsToBackupLocation() throws Exception {
+        params.setRestoreParams("20140410");
+        assertEquals("/tmp/es_backup/fake-app/20140410", params.getLocation());
+    }
+
+    @Test
+    public void testRepositoryType() {
+        assertEquals(AbstractRepository.RepositoryType.fs, RepositoryFactory.getRepositoryType("FS"));
+        assertEquals(AbstractRepository.RepositoryType.s3, RepositoryFactory.getRepositoryType(null));
+    }
+}
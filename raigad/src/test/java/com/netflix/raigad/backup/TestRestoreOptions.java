@@ -0,0 +1,45 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestRestoreOptions {
+    private final FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, "fake-app", "az1", "fakeInstance1");
+
+    @Test
+    public void testRename() {
+        RestoreOptions options = new RestoreOptions("(.+)", "restored_$1", false, RestoreOptions.KEEP_REPLICAS, 0, false, null);
+        assertEquals("restored_orders", options.getRestoredIndexName("orders"));
+
+        Map<String, String> restoredIndexNames = options.getRestoredIndexNames(Arrays.asList("orders", "users"));
+        assertEquals(Arrays.asList("restored_orders", "restored_users"), Arrays.asList(restoredIndexNames.keySet().toArray()));
+        assertEquals("users", restoredIndexNames.get("restored_users"));
+    }
+
+    @Test
+    public void testDefaultsFromConfig() {
+        RestoreOptions options = RestoreOptions.fromConfig(config);
+        assertEquals("orders", options.getRestoredIndexName("orders"));
+        assertFalse(options.hasPostRestoreSteps());
+    }
+
+    @Test
+    public void testOverrides() {
+        RestoreOptions options = RestoreOptions.fromConfig(config, "orders", "orders_copy", "orders_live");
+        assertEquals("orders_copy", options.getRestoredIndexName("orders"));
+        assertEquals("orders_live", options.getAlias());
+        assertTrue(options.hasPostRestoreSteps());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRenamePatternWithoutReplacement() {
+        new RestoreOptions("(.+)", null, false, RestoreOptions.KEEP_REPLICAS, 0, false, null);
+    }
+}
@@ -0,0 +1,172 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.client.Client;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestRestoreOrchestrator {
+    private static final List<String> SNAPSHOT_INDICES = Arrays.asList("orders_1", "orders_2", "users", "logs_1", "logs_2");
+
+    @Test
+    public void testSelectIndices() {
+        assertEquals(SNAPSHOT_INDICES, RestoreOrchestrator.selectIndices(SNAPSHOT_INDICES, null));
+        assertEquals(SNAPSHOT_INDICES, RestoreOrchestrator.selectIndices(SNAPSHOT_INDICES, "_all"));
+        assertEquals(Arrays.asList("orders_1", "orders_2", "users"), RestoreOrchestrator.selectIndices(SNAPSHOT_INDICES, "orders*, users"));
+        assertEquals(Arrays.asList("orders_1", "users", "logs_1", "logs_2"), RestoreOrchestrator.selectIndices(SNAPSHOT_INDICES, "-orders_2"));
+        assertEquals(Collections.<String>emptyList(), RestoreOrchestrator.selectIndices(SNAPSHOT_INDICES, "missing"));
+    }
+
+    @Test
+    public void testPartition() {
+        List<List<String>> batches = RestoreOrchestrator.partition(SNAPSHOT_INDICES, 2);
+        assertEquals(3, batches.size());
+        assertEquals(Arrays.asList("orders_1", "orders_2"), batches.get(0));
+        assertEquals(Arrays.asList("logs_2"), batches.get(2));
+        assertEquals(5, RestoreOrchestrator.partition(SNAPSHOT_INDICES, 0).size());
+    }
+
+    @Test
+    public void testProgress() {
+        RestoreProgress progress = new RestoreProgress("repo", "snap", Arrays.asList("a", "b"), 2, 0);
+        progress.startBatch(Arrays.asList("a"), 10);
+        progress.updateIndex("a", 2, 1, 1000, 500, 10, 20);
+        assertEquals(RestoreProgress.IndexState.RESTORING, progress.getIndexState("a"));
+        assertEquals(RestoreProgress.IndexState.QUEUED, progress.getIndexState("b"));
+        assertEquals(25, progress.getPercentComplete());
+
+        progress.completeBatch(Arrays.asList("a"), Collections.<String>emptyList(), 30);
+        progress.startBatch(Arrays.asList("b"), 30);
+        progress.completeBatch(Arrays.asList("b"), Arrays.asList("b"), 40);
+        progress.complete(50, null);
+        assertEquals(RestoreProgress.State.PARTIAL, progress.getState());
+        assertEquals(RestoreProgress.IndexState.FAILED, progress.getIndexState("b"));
+        assertEquals(50, progress.getDurationMillis());
+    }
+
+    @Test
+    public void testProgressSuccess() {
+        RestoreProgress progress = new RestoreProgress("repo", "snap", Arrays.asList("a"), 1, 0);
+        progress.startBatch(Arrays.asList("a"), 10);
+        progress.completeBatch(Arrays.asList("a"), Collections.<String>emptyList(), 20);
+        progress.complete(20, null);
+        assertEquals(RestoreProgress.State.SUCCESS, progress.getState());
+        assertEquals(100, progress.getPercentComplete());
+    }
+
+    @Test
+    public void testAliasMovedOnceOntoEveryBatch() {
+        FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, "fake-app", "az1", "fakeInstance1");
+        final List<List<String>> aliasMoves = new ArrayList<List<String>>();
+        PostRestorePipeline pipeline = new PostRestorePipeline() {
+            @Override
+            public void completeRestore(Client esTransportClient, List<String> restoredIndices, RestoreOptions options) {
+                aliasMoves.add(new ArrayList<String>(restoredIndices));
+            }
+        };
+        RestoreOrchestrator orchestrator = new RestoreOrchestrator(config, pipeline, new BackupMetricsHistory(config)) {
+            @Override
+            Map<String, String> applyRecoverySettings(Client esTransportClient) {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            void resetRecoverySettings(Client esTransportClient, Map<String, String> previousSettings) {
+            }
+
+            @Override
+            List<String> runBatch(Client esTransportClient, RestoreProgress progress, List<String> batch, RestoreOptions options) {
+                progress.startBatch(batch, 0);
+                List<String> failed = batch.contains("users") ? Arrays.asList("users") : Collections.<String>emptyList();
+                progress.completeBatch(batch, failed, 0);
+                List<String> restored = new ArrayList<String>(batch);
+                restored.removeAll(failed);
+                return restored;
+            }
+        };
+
+        List<List<String>> batches = RestoreOrchestrator.partition(SNAPSHOT_INDICES, 2);
+        RestoreProgress progress = new RestoreProgress("repo", "snap", SNAPSHOT_INDICES, batches.size(), 0);
+        orchestrator.runBatches(null, progress, batches, new RestoreOptions(null, null, false, RestoreOptions.KEEP_REPLICAS, 0, false, "orders"));
+
+        assertEquals(1, aliasMoves.size());
+        assertEquals(Arrays.asList("orders_1", "orders_2", "logs_1", "logs_2"), aliasMoves.get(0));
+        assertEquals(RestoreProgress.State.PARTIAL, progress.getState());
+    }
+
+    @Test
+    public void testStuckRestoreIsCancelledAndResetsSettings() {
+        FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, "fake-app", "az1", "fakeInstance1") {
+            @Override
+            public int getRestoreBatchTimeoutInSeconds() {
+                return 0;
+            }
+
+            @Override
+            public int getRestoreProgressPollIntervalInSeconds() {
+                return 0;
+            }
+        };
+        PostRestorePipeline pipeline = new PostRestorePipeline() {
+            @Override
+            public Map<String, Integer> beforeRestore(Client esTransportClient, Collection<String> restoredIndices, RestoreOptions options) {
+                return Collections.emptyMap();
+            }
+        };
+        final List<String> cancelled = new ArrayList<String>();
+        final List<Map<String, String>> resets = new ArrayList<Map<String, String>>();
+        RestoreOrchestrator orchestrator = new RestoreOrchestrator(config, pipeline, new BackupMetricsHistory(config)) {
+            @Override
+            Map<String, String> applyRecoverySettings(Client esTransportClient) {
+                return Collections.singletonMap(RECOVERY_MAX_BYTES_PER_SEC, "20mb");
+            }
+
+            @Override
+            void resetRecoverySettings(Client esTransportClient, Map<String, String> previousSettings) {
+                resets.add(previousSettings);
+            }
+
+            @Override
+            public RestoreSnapshotResponse startRestoreSnapshot(
+                    Client esTransportClient, String repositoryName, String snapshotName, List<String> indices, RestoreOptions options) {
+                return null;
+            }
+
+            @Override
+            boolean isBatchRestoreRunning(Client esTransportClient) {
+                return cancelled.isEmpty();
+            }
+
+            @Override
+            void cancelBatchRestore(Client esTransportClient, Collection<String> restoredIndices) {
+                cancelled.addAll(restoredIndices);
+            }
+        };
+
+        List<List<String>> batches = RestoreOrchestrator.partition(SNAPSHOT_INDICES, 2);
+        RestoreProgress progress = new RestoreProgress("repo", "snap", SNAPSHOT_INDICES, batches.size(), 0);
+        orchestrator.runBatches(null, progress, batches, new RestoreOptions("(.+)", "restored_$1", false, RestoreOptions.KEEP_REPLICAS, 0, false, null));
+
+        assertEquals(1, resets.size());
+        //Only the stuck batch is cancelled, later batches are not started
+        assertEquals(Arrays.asList("restored_orders_1", "restored_orders_2"), sorted(cancelled));
+        assertEquals(RestoreProgress.IndexState.FAILED, progress.getIndexState("orders_1"));
+        assertEquals(RestoreProgress.IndexState.QUEUED, progress.getIndexState("users"));
+        assertEquals(true, progress.isCompleted());
+    }
+
+    private static List<String> sorted(Collection<String> values) {
+        List<String> sorted = new ArrayList<String>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
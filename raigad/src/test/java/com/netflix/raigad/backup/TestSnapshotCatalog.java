@@ -0,0 +1,81 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.snapshots.SnapshotState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSnapshotCatalog {
+    private static final String REPOSITORY = "20141201";
+    private final FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, "fake-app", "az1", "fakeInstance1");
+    private SnapshotCatalog catalog;
+
+    @Before
+    public void setUp() {
+        catalog = new SnapshotCatalog(config);
+        catalog.replaceRepository(REPOSITORY, Arrays.asList(
+                entry("snap_1", 1000L, SnapshotState.SUCCESS, "orders", "users"),
+                entry("snap_2", 2000L, SnapshotState.SUCCESS, "orders"),
+                entry("snap_3", 3000L, SnapshotState.FAILED, "orders", "users")), 0L);
+    }
+
+    @Test
+    public void testLatestSnapshot() {
+        assertEquals("snap_2", catalog.findLatestSnapshot(REPOSITORY, Collections.<String>emptyList()).getName());
+        assertEquals("snap_2", catalog.findLatestSnapshot(REPOSITORY, Arrays.asList("orders")).getName());
+        assertEquals("snap_1", catalog.findLatestSnapshot(REPOSITORY, Arrays.asList("orders", "users")).getName());
+        assertNull(catalog.findLatestSnapshot(REPOSITORY, Arrays.asList("missing")));
+        assertNull(catalog.findLatestSnapshot("unknown", Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        catalog.putSnapshot(REPOSITORY, entry("snap_4", 4000L, SnapshotState.SUCCESS, "users"));
+        assertEquals("snap_4", catalog.findLatestSnapshot(REPOSITORY, Arrays.asList("users")).getName());
+
+        catalog.removeSnapshot(REPOSITORY, "snap_4");
+        catalog.removeSnapshot(REPOSITORY, "snap_1");
+        assertNull(catalog.findLatestSnapshot(REPOSITORY, Arrays.asList("users")));
+        assertEquals(Arrays.asList("snap_3", "snap_2"), Arrays.asList(catalog.getSnapshots(REPOSITORY).get(0).getName(), catalog.getSnapshots(REPOSITORY).get(1).getName()));
+
+        //Unknown Repositories are left to the next full listing
+        catalog.putSnapshot("unknown", entry("snap_5", 5000L, SnapshotState.SUCCESS, "users"));
+        assertFalse(catalog.hasRepository("unknown"));
+    }
+
+    @Test
+    public void testRefreshDue() {
+        long interval = config.getSnapshotCatalogRefreshIntervalInSeconds() * 1000L;
+        assertFalse(catalog.isRefreshDue(REPOSITORY, interval - 1));
+        assertTrue(catalog.isRefreshDue(REPOSITORY, interval));
+        assertTrue(catalog.isRefreshDue("unknown", 0L));
+
+        catalog.retainRepositories(Collections.<String>emptyList());
+        assertFalse(catalog.hasRepository(REPOSITORY));
+    }
+
+    @Test
+    public void testOnlyBackupAndRestoreRepositoriesCatalogued() {
+        Set<String> types = new HashSet<String>(Arrays.asList("s3"));
+        assertTrue(SnapshotCatalogManager.isCatalogued(new RepositoryMetaData(REPOSITORY, "s3", ImmutableSettings.EMPTY), types));
+        assertTrue(SnapshotCatalogManager.isCatalogued(new RepositoryMetaData("20141201-es_source", "s3", ImmutableSettings.EMPTY), types));
+        assertFalse(SnapshotCatalogManager.isCatalogued(new RepositoryMetaData(REPOSITORY + SnapshotVerificationManager.VERIFY_REPOSITORY_SUFFIX, "s3", ImmutableSettings.EMPTY), types));
+        assertFalse(SnapshotCatalogManager.isCatalogued(new RepositoryMetaData("local", "fs", ImmutableSettings.EMPTY), types));
+    }
+
+    private static SnapshotCatalog.Entry entry(String name, long startTime, SnapshotState state, String... indices) {
+        return new SnapshotCatalog.Entry(name, startTime, startTime + 100L, state, Arrays.asList(indices));
+    }
+}
@@ -0,0 +1,89 @@
+package com.netflix.raigad.backup;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSnapshotPolicyQueue {
+    private static final SnapshotPolicy CRITICAL = new SnapshotPolicy("critical", "orders*,users", 3600, 10, null);
+    private static final SnapshotPolicy ALL = new SnapshotPolicy("all", "_all", 86400, 1, true);
+    private static final SnapshotPolicy LOGS = new SnapshotPolicy("logs", "logs*", 86400, 1, false);
+
+    @Test
+    public void testBuildPolicies() throws Exception {
+        List<SnapshotPolicy> policies = SnapshotScheduler.buildPolicies(
+                "[{\"name\":\"critical\",\"indices\":\"orders*,users\",\"intervalInSeconds\":3600,\"priority\":10}," +
+                "{\"name\":\"all\",\"indices\":\"_all\",\"intervalInSeconds\":86400,\"includeGlobalState\":true}]");
+        assertEquals(2, policies.size());
+        assertEquals("critical", policies.get(0).getName());
+        assertEquals(10, policies.get(0).getPriority());
+        assertNull(policies.get(0).getIncludeGlobalState());
+        assertEquals(0, policies.get(1).getPriority());
+        assertTrue(policies.get(1).getIncludeGlobalState());
+    }
+
+    @Test
+    public void testPriorityOrderAndFifoWithinPriority() {
+        SnapshotPolicyQueue queue = new SnapshotPolicyQueue();
+        queue.enqueueDuePolicies(Arrays.asList(ALL, LOGS, CRITICAL), 0);
+        assertEquals(Arrays.asList("critical", "all", "logs"), queue.getQueuedPolicyNames());
+        assertEquals("critical", queue.peekNext().getName());
+        queue.markStarted(queue.peekNext(), 0);
+        assertEquals("all", queue.peekNext().getName());
+    }
+
+    @Test
+    public void testDuePoliciesAreQueuedOnce() {
+        SnapshotPolicyQueue queue = new SnapshotPolicyQueue();
+        List<SnapshotPolicy> policies = Arrays.asList(CRITICAL, ALL);
+
+        queue.enqueueDuePolicies(policies, 0);
+        queue.markStarted(queue.peekNext(), 0);
+        //critical ran at 0, all still waiting
+        queue.enqueueDuePolicies(policies, 60000);
+        assertEquals(Arrays.asList("all"), queue.getQueuedPolicyNames());
+
+        //critical is due again, but "all" stays queued only once
+        queue.enqueueDuePolicies(policies, 3600000);
+        queue.enqueueDuePolicies(policies, 3660000);
+        assertEquals(Arrays.asList("critical", "all"), queue.getQueuedPolicyNames());
+    }
+
+    @Test
+    public void testPolicyWhichDidNotStartStaysAtHead() {
+        SnapshotPolicyQueue queue = new SnapshotPolicyQueue();
+        List<SnapshotPolicy> policies = Arrays.asList(CRITICAL, ALL);
+        queue.enqueueDuePolicies(policies, 0);
+
+        //Snapshot for critical failed to start, it is neither dequeued nor recorded as started
+        assertEquals("critical", queue.peekNext().getName());
+        assertNull(queue.getLastStartTime("critical"));
+        queue.enqueueDuePolicies(policies, 60000);
+        assertEquals(Arrays.asList("critical", "all"), queue.getQueuedPolicyNames());
+
+        //It is retried on the next run and its interval starts from the successful start
+        queue.markStarted(queue.peekNext(), 60000);
+        assertEquals(Long.valueOf(60000), queue.getLastStartTime("critical"));
+        queue.enqueueDuePolicies(policies, 3600000);
+        assertEquals(Arrays.asList("all"), queue.getQueuedPolicyNames());
+    }
+
+    @Test
+    public void testRemovedPoliciesAreDropped() {
+        SnapshotPolicyQueue queue = new SnapshotPolicyQueue();
+        queue.enqueueDuePolicies(Arrays.asList(CRITICAL, ALL), 0);
+        queue.retainPolicies(Collections.singletonList(ALL));
+        assertEquals(Arrays.asList("all"), queue.getQueuedPolicyNames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPolicyWithoutIndices() {
+        new SnapshotPolicy("empty", "", 3600, 0, null);
+    }
+}
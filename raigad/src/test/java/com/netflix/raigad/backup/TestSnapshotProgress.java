@@ -0,0 +1,48 @@
+package com.netflix.raigad.backup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSnapshotProgress {
+    @Test
+    public void testNewSnapshotHasUnknownEta() {
+        SnapshotProgress progress = new SnapshotProgress("repo", "snap", 0);
+        assertFalse(progress.isCompleted());
+        assertEquals(0, progress.getPercentComplete());
+        assertEquals(0, progress.getBytesPerSecond());
+        assertEquals(SnapshotProgress.UNKNOWN_ETA, progress.getEtaSeconds());
+    }
+
+    @Test
+    public void testThroughputAndEta() {
+        SnapshotProgress progress = new SnapshotProgress("repo", "snap", 0);
+        progress.update(10, 2, 0, 4000000, 1000000, 10000);
+        assertEquals(25, progress.getPercentComplete());
+        assertEquals(100000, progress.getBytesPerSecond());
+        assertEquals(30, progress.getEtaSeconds());
+        assertEquals(10000, progress.getDurationMillis());
+    }
+
+    @Test
+    public void testShardBasedPercentWhenSizeUnknown() {
+        SnapshotProgress progress = new SnapshotProgress("repo", "snap", 0);
+        progress.update(4, 1, 0, 0, 0, 5000);
+        assertEquals(25, progress.getPercentComplete());
+        assertEquals(SnapshotProgress.UNKNOWN_ETA, progress.getEtaSeconds());
+    }
+
+    @Test
+    public void testCompletedSnapshot() {
+        SnapshotProgress progress = new SnapshotProgress("repo", "snap", 1000);
+        progress.update(4, 3, 1, 2000, 2000, 5000);
+        progress.complete(SnapshotProgress.State.PARTIAL, 61000, null);
+        assertTrue(progress.isCompleted());
+        assertEquals(100, progress.getPercentComplete());
+        assertEquals(0, progress.getEtaSeconds());
+        assertEquals(60000, progress.getDurationMillis());
+        assertEquals("PARTIAL", progress.toJson().get("state"));
+    }
+}
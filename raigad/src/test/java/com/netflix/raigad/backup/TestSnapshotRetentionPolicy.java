@@ -0,0 +1,97 @@
+package com.netflix.raigad.backup;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSnapshotRetentionPolicy {
+    private static final DateTime NOW = new DateTime(2014, 7, 16, 12, 30, DateTimeZone.UTC);
+
+    @Test
+    public void testHourlySnapshotsForTwoWeeks() {
+        List<SnapshotRetentionPolicy.SnapshotEntry> snapshots = new ArrayList<SnapshotRetentionPolicy.SnapshotEntry>();
+        for (int i = 0; i < 14 * 24; i++)
+            snapshots.add(snapshot(NOW.minusHours(i), true, false));
+
+        List<SnapshotRetentionPolicy.SnapshotEntry> prune = new SnapshotRetentionPolicy(24, 7, 4).getSnapshotsToPrune(snapshots);
+        Set<String> pruned = names(prune);
+
+        //Last 24 hours are kept
+        for (int i = 0; i < 24; i++)
+            assertFalse(pruned.contains(name(NOW.minusHours(i))));
+        //Latest Snapshot of an older day within 7 days is kept, others of that day are pruned
+        assertFalse(pruned.contains(name(NOW.withTimeAtStartOfDay().minusDays(3).plusHours(23).plusMinutes(30))));
+        assertTrue(pruned.contains(name(NOW.withTimeAtStartOfDay().minusDays(3).plusHours(22).plusMinutes(30))));
+        //24 hourly + 5 more daily (yesterday is covered by hourly) + 1 more weekly (Sunday 2014-07-06)
+        assertEquals(24 + 5 + 1, 14 * 24 - prune.size());
+        assertFalse(pruned.contains(name(new DateTime(2014, 7, 6, 23, 30, DateTimeZone.UTC))));
+    }
+
+    @Test
+    public void testFailedSnapshotsArePrunedAndInProgressIgnored() {
+        List<SnapshotRetentionPolicy.SnapshotEntry> snapshots = new ArrayList<SnapshotRetentionPolicy.SnapshotEntry>();
+        snapshots.add(snapshot(NOW, false, true));
+        snapshots.add(snapshot(NOW.minusHours(1), false, false));
+        snapshots.add(snapshot(NOW.minusHours(2), true, false));
+
+        Set<String> pruned = names(new SnapshotRetentionPolicy(24, 7, 4).getSnapshotsToPrune(snapshots));
+        assertEquals(1, pruned.size());
+        assertTrue(pruned.contains(name(NOW.minusHours(1))));
+    }
+
+    @Test
+    public void testLatestSnapshotIsAlwaysKept() {
+        List<SnapshotRetentionPolicy.SnapshotEntry> snapshots = new ArrayList<SnapshotRetentionPolicy.SnapshotEntry>();
+        snapshots.add(snapshot(NOW, true, false));
+        snapshots.add(snapshot(NOW.minusDays(1), true, false));
+
+        Set<String> pruned = names(new SnapshotRetentionPolicy(0, 0, 0).getSnapshotsToPrune(snapshots));
+        assertEquals(1, pruned.size());
+        assertTrue(pruned.contains(name(NOW.minusDays(1))));
+    }
+
+    @Test
+    public void testRetentionIsPerPolicy() {
+        List<SnapshotRetentionPolicy.SnapshotEntry> snapshots = new ArrayList<SnapshotRetentionPolicy.SnapshotEntry>();
+        //Frequent policy every 15 minutes, full cluster policy once a day, both for 3 days
+        for (int i = 0; i < 3 * 24 * 4; i++) {
+            DateTime startTime = NOW.minusMinutes(15 * i);
+            snapshots.add(new SnapshotRetentionPolicy.SnapshotEntry("repo", "critical_" + name(startTime), startTime.getMillis(), true, false));
+        }
+        for (int i = 0; i < 3; i++) {
+            DateTime startTime = NOW.withTimeAtStartOfDay().minusDays(i).plusMinutes(5);
+            snapshots.add(new SnapshotRetentionPolicy.SnapshotEntry("repo", "full_" + name(startTime), startTime.getMillis(), true, false));
+        }
+
+        Set<String> pruned = names(new SnapshotRetentionPolicy(2, 7, 4).getSnapshotsToPrune(snapshots));
+        for (String snapshotName : pruned)
+            assertTrue(snapshotName.startsWith("critical_"));
+        assertFalse(pruned.contains("critical_" + name(NOW)));
+        assertEquals("critical", SnapshotRetentionPolicy.getPolicyGroup("critical_201407161230"));
+        assertEquals("", SnapshotRetentionPolicy.getPolicyGroup("201407161230"));
+    }
+
+    private static SnapshotRetentionPolicy.SnapshotEntry snapshot(DateTime startTime, boolean successful, boolean inProgress) {
+        return new SnapshotRetentionPolicy.SnapshotEntry("repo", name(startTime), startTime.getMillis(), successful, inProgress);
+    }
+
+    private static String name(DateTime dateTime) {
+        return dateTime.toString("yyyyMMddHHmm");
+    }
+
+    private static Set<String> names(List<SnapshotRetentionPolicy.SnapshotEntry> snapshots) {
+        Set<String> names = new HashSet<String>();
+        for (SnapshotRetentionPolicy.SnapshotEntry snapshot : snapshots)
+            names.add(snapshot.getSnapshotName());
+        return names;
+    }
+}
@@ -0,0 +1,62 @@
+package com.netflix.raigad.backup;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSnapshotVerification {
+
+    @Test
+    public void testVerified() {
+        SnapshotVerification verification = new SnapshotVerification("20141201", "snap_1", Arrays.asList("orders", "users"), 1000L);
+        verification.verifyIndex("orders", 4000, 4000, 1000, 1);
+        verification.verifyIndex("users", 6000000, 6040000, 960, 1);
+        verification.complete(3000L, null);
+
+        assertEquals(SnapshotVerification.State.VERIFIED, verification.getState());
+        assertEquals(SnapshotVerification.IndexState.MATCHED, verification.getIndexState("users"));
+        assertEquals(6044000, verification.getRestoredBytes());
+        assertEquals(3022000, verification.getBytesPerSecond());
+    }
+
+    @Test
+    public void testMismatchedAndFailed() {
+        SnapshotVerification verification = new SnapshotVerification("20141201", "snap_1", Arrays.asList("orders", "users"), 1000L);
+        verification.verifyIndex("orders", 6000000, 1000, 0, 1);
+        verification.failIndex("users", "Index could not be restored");
+        verification.complete(2000L, null);
+
+        assertEquals(SnapshotVerification.State.FAILED, verification.getState());
+        assertEquals(1, verification.countIndices(SnapshotVerification.IndexState.MISMATCHED));
+        assertEquals(1, verification.countIndices(SnapshotVerification.IndexState.FAILED));
+    }
+
+    @Test
+    public void testDrift() {
+        assertTrue(SnapshotVerification.isWithinDrift(0, 0, 0));
+        assertTrue(SnapshotVerification.isWithinDrift(100, 105, 5));
+        assertFalse(SnapshotVerification.isWithinDrift(100, 106, 5));
+        assertFalse(SnapshotVerification.isWithinDrift(0, 1, 5));
+    }
+
+    @Test
+    public void testCommitPointSlack() {
+        SnapshotVerification verification = new SnapshotVerification("20141201", "snap_1", Arrays.asList("small", "large"), 1000L);
+        verification.verifyIndex("small", 2000, 2000 + SnapshotVerification.COMMIT_POINT_SLACK_BYTES, 10, 1);
+        verification.verifyIndex("large", 100000000, 100000000 - 2000000, 10, 1);
+
+        assertEquals(SnapshotVerification.IndexState.MATCHED, verification.getIndexState("small"));
+        assertEquals(SnapshotVerification.IndexState.MISMATCHED, verification.getIndexState("large"));
+    }
+
+    @Test
+    public void testSampleRotation() {
+        assertEquals(Arrays.asList("a", "b"), SnapshotVerificationManager.selectSample(Arrays.asList("c", "b", "a"), 2, 0));
+        assertEquals(Arrays.asList("c", "a"), SnapshotVerificationManager.selectSample(Arrays.asList("c", "b", "a"), 2, 2));
+        assertEquals(Arrays.asList("a", "b", "c"), SnapshotVerificationManager.selectSample(Arrays.asList("c", "b", "a"), 5, 3));
+    }
+}
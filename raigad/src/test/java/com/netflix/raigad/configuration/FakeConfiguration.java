@@ -455,4 +455,339 @@ public class FakeConfiguration implements IConfiguration {
         return 0;
     }
 
+    @Override
+    public boolean isBulkIngestAutoModeEnabled() {
+        return false;
+    }
+
+    @Override
+    public String getCommaSeparatedIndicesForBulkIngest() {
+        return "";
+    }
+
+    @Override
+    public long getBulkIngestStartIndexingRate() {
+        return 20000;
+    }
+
+    @Override
+    public long getBulkIngestStopIndexingRate() {
+        return 1000;
+    }
+
+    @Override
+    public int getBulkIngestTimeoutInMinutes() {
+        return 240;
+    }
+
+    @Override
+    public int getBulkIngestCheckIntervalInSeconds() {
+        return 60;
+    }
+
+    @Override
+    public String getBulkIngestTranslogFlushThresholdSize() {
+        return "1gb";
+    }
+
+    @Override
+    public String getBulkIngestTranslogFlushThresholdPeriod() {
+        return "60m";
+    }
+
+    @Override
+    public int getSnapshotProgressPollIntervalInSeconds() {
+        return 30;
+    }
+
+    @Override
+    public boolean isSnapshotPruningEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getSnapshotPruningIntervalInSeconds() {
+        return 3600;
+    }
+
+    @Override
+    public int getSnapshotRetentionHourly() {
+        return 24;
+    }
+
+    @Override
+    public int getSnapshotRetentionDaily() {
+        return 7;
+    }
+
+    @Override
+    public int getSnapshotRetentionWeekly() {
+        return 4;
+    }
+
+    @Override
+    public int getSnapshotPruningMaxConcurrentDeletes() {
+        return 2;
+    }
+
+    @Override
+    public boolean isSharedSnapshotRepositoryEnabled() {
+        return false;
+    }
+
+    @Override
+    public String getSharedSnapshotRepositoryName() {
+        return "snapshots";
+    }
+
+    @Override
+    public String getSnapshotNamePrefix() {
+        return "";
+    }
+
+    @Override
+    public String getSnapshotPolicies() {
+        return null;
+    }
+
+    @Override
+    public int getSnapshotSchedulerIntervalInSeconds() {
+        return 60;
+    }
+
+    @Override
+    public String getSnapshotMaxBytesPerSec() {
+        return "20mb";
+    }
+
+    @Override
+    public String getRestoreMaxBytesPerSec() {
+        return "20mb";
+    }
+
+    @Override
+    public boolean isSnapshotAdaptiveThrottleEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getSnapshotAdaptiveThrottleIntervalInSeconds() {
+        return 30;
+    }
+
+    @Override
+    public long getSnapshotAdaptiveThrottleTargetSearchLatencyMs() {
+        return 50;
+    }
+
+    @Override
+    public double getSnapshotAdaptiveThrottleMaxDiskQueue() {
+        return 2.0;
+    }
+
+    @Override
+    public int getSnapshotAdaptiveThrottleMinThreads() {
+        return 1;
+    }
+
+    @Override
+    public int getSnapshotAdaptiveThrottleMaxThreads() {
+        return 5;
+    }
+
+    @Override
+    public String getBackupRepositoryType() {
+        return "s3";
+    }
+
+    @Override
+    public String getFsBackupLocation() {
+        return "/tmp/es_backup";
+    }
+
+    @Override
+    public String getFsRestoreLocation() {
+        return null;
+    }
+
+    @Override
+    public String getFsRepositoryChunkSize() {
+        return null;
+    }
+
+    @Override
+    public boolean isFsRepositoryCompressEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isRestoreOrchestratorEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getRestoreBatchSize() {
+        return 10;
+    }
+
+    @Override
+    public int getRestoreProgressPollIntervalInSeconds() {
+        return 15;
+    }
+
+    @Override
+    public int getRestoreNodeInitialPrimariesRecoveries() {
+        return 8;
+    }
+
+    @Override
+    public int getRestoreNodeConcurrentRecoveries() {
+        return 4;
+    }
+
+    @Override
+    public int getRestoreRecoveryConcurrentStreams() {
+        return 6;
+    }
+
+    @Override
+    public String getRestoreRecoveryMaxBytesPerSec() {
+        return "100mb";
+    }
+
+    @Override
+    public String getRestoreRenamePattern() {
+        return null;
+    }
+
+    @Override
+    public String getRestoreRenameReplacement() {
+        return null;
+    }
+
+    @Override
+    public boolean isRestoreDeferReplicasEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getRestoreReplicas() {
+        return -1;
+    }
+
+    @Override
+    public int getRestoreOptimizeMaxNumSegments() {
+        return 0;
+    }
+
+    @Override
+    public boolean isRestoreWarmupEnabled() {
+        return false;
+    }
+
+    @Override
+    public String getRestoreAlias() {
+        return null;
+    }
+
+    @Override
+    public int getSnapshotCatalogRefreshIntervalInSeconds() {
+        return 21600;
+    }
+
+    @Override
+    public boolean isSnapshotVerificationEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getSnapshotVerificationIntervalInSeconds() {
+        return 86400;
+    }
+
+    @Override
+    public int getSnapshotVerificationSampleSize() {
+        return 2;
+    }
+
+    @Override
+    public String getSnapshotVerificationIndexPrefix() {
+        return "raigad_verify_";
+    }
+
+    @Override
+    public String getSnapshotVerificationMaxRestoreBytesPerSec() {
+        return "20mb";
+    }
+
+    @Override
+    public int getSnapshotVerificationTimeoutInSeconds() {
+        return 3600;
+    }
+
+    @Override
+    public int getSnapshotVerificationMaxSizeDriftPercent() {
+        return 1;
+    }
+
+    @Override
+    public int getBackupMetricsHistorySize() {
+        return 100;
+    }
+
+    @Override
+    public int getMembershipCacheTtlInSeconds() {
+        return 30;
+    }
+
+    @Override
+    public int getMembershipCacheRefreshAheadPercent() {
+        return 75;
+    }
+
+    @Override
+    public int getMembershipCacheMaxStaleInSeconds() {
+        return 600;
+    }
+
+    @Override
+    public boolean isInstanceHeartbeatEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getInstanceHeartbeatIntervalInSeconds() {
+        return 30;
+    }
+
+    @Override
+    public int getInstanceHeartbeatTtlInSeconds() {
+        return 120;
+    }
+
+    @Override
+    public String getInstanceRegistryType() {
+        return "memory";
+    }
+
+    @Override
+    public String getInstanceRegistryFilePath() {
+        return "/tmp/raigad/instance_registry";
+    }
+
+    @Override
+    public int getMembershipFeedRefreshIntervalInSeconds() {
+        return 5;
+    }
+
+    @Override
+    public int getMembershipFeedMaxWaitInSeconds() {
+        return 30;
+    }
+
+    @Override
+    public int getRestoreBatchTimeoutInSeconds() {
+        return 21600;
+    }
+
 }
@@ -4,6 +4,9 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
 import com.google.inject.name.Names;
 import com.netflix.raigad.backup.AbstractRepository;
+import com.netflix.raigad.backup.AbstractRepositorySettingsParams;
+import com.netflix.raigad.backup.FsRepository;
+import com.netflix.raigad.backup.FsRepositorySettingsParams;
 import com.netflix.raigad.backup.S3Repository;
 import org.junit.Ignore;
 import org.quartz.SchedulerFactory;
@@ -18,6 +21,8 @@ public class UnitTestModule extends AbstractModule
         bind(IConfiguration.class).toInstance(new FakeConfiguration(FakeConfiguration.FAKE_REGION, "fake-app", "az1", "fakeInstance1"));
         bind(SchedulerFactory.class).to(StdSchedulerFactory.class).in(Scopes.SINGLETON);
         bind(AbstractRepository.class).annotatedWith(Names.named("s3")).to(S3Repository.class);
+        bind(AbstractRepository.class).annotatedWith(Names.named("fs")).to(FsRepository.class);
+        bind(AbstractRepositorySettingsParams.class).annotatedWith(Names.named("fs")).to(FsRepositorySettingsParams.class);
     }
 
 }
@@ -0,0 +1,203 @@
+package com.netflix.raigad.identity;
+
+import com.netflix.astyanax.Keyspace;
+import com.netflix.astyanax.recipes.locks.ColumnPrefixDistributedRowLock;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the Astyanax lock recipe against an in-memory keyspace, only the calls the recipe makes are supported
+ */
+public class TestCassandraRegistrationLock {
+    private static final String LOCK_KEY = "fake-app_us-east-1_i-1-lock";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Map<String, ByteBuffer>> rows = new HashMap<String, Map<String, ByteBuffer>>();
+    private final CassandraRegistrationLock lock = new CassandraRegistrationLock(fakeKeyspace(), InstanceDataDAOCassandra.CF_LOCKS, 600);
+
+    @Test
+    public void testContention() throws Exception {
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-1"));
+        assertFalse(lock.tryAcquire(LOCK_KEY, "i-2"));
+        // The losing owner leaves no lock column behind
+        assertEquals(1, rows.get(LOCK_KEY).size());
+
+        lock.release(LOCK_KEY, "i-1");
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-2"));
+    }
+
+    @Test
+    public void testExpiredLockIsTaken() throws Exception {
+        // Lock columns hold the time (micros) at which they expire
+        ByteBuffer expired = ByteBuffer.allocate(8);
+        expired.putLong(0, 1L);
+        row(LOCK_KEY).put(ColumnPrefixDistributedRowLock.DEFAULT_LOCK_PREFIX + "i-1", expired);
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTtlLeavesRoomForTimeout() {
+        new CassandraRegistrationLock(fakeKeyspace(), InstanceDataDAOCassandra.CF_LOCKS, 1);
+    }
+
+    private Map<String, ByteBuffer> row(String key) {
+        Map<String, ByteBuffer> row = rows.get(key);
+        if (row == null) {
+            row = new TreeMap<String, ByteBuffer>();
+            rows.put(key, row);
+        }
+        return row;
+    }
+
+    private Keyspace fakeKeyspace() {
+        return proxy(Keyspace.class, new Handler() {
+            Object call(Object self, String method, Object[] args) {
+                if (method.equals("prepareMutationBatch"))
+                    return mutationBatch();
+                if (method.equals("prepareQuery"))
+                    return query();
+                return unsupported(method);
+            }
+        });
+    }
+
+    private Object mutationBatch() {
+        final List<Runnable> mutations = new ArrayList<Runnable>();
+        return proxy(com.netflix.astyanax.MutationBatch.class, new Handler() {
+            Object call(Object self, String method, Object[] args) {
+                if (method.equals("setConsistencyLevel"))
+                    return self;
+                if (method.equals("withRow"))
+                    return rowMutation((String) args[1], mutations);
+                if (method.equals("execute")) {
+                    for (Runnable mutation : mutations)
+                        mutation.run();
+                    return null;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    private Object rowMutation(final String key, final List<Runnable> mutations) {
+        return proxy(com.netflix.astyanax.ColumnListMutation.class, new Handler() {
+            Object call(Object self, String method, final Object[] args) {
+                if (method.equals("putColumn")) {
+                    mutations.add(new Runnable() {
+                        public void run() {
+                            row(key).put((String) args[0], ((ByteBuffer) args[1]).duplicate());
+                        }
+                    });
+                    return self;
+                }
+                if (method.equals("deleteColumn")) {
+                    mutations.add(new Runnable() {
+                        public void run() {
+                            row(key).remove(args[0]);
+                        }
+                    });
+                    return self;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    private Object query() {
+        return proxy(com.netflix.astyanax.query.ColumnFamilyQuery.class, new Handler() {
+            Object call(Object self, String method, Object[] args) {
+                if (method.equals("setConsistencyLevel"))
+                    return self;
+                if (method.equals("getKey"))
+                    return rowQuery((String) args[0]);
+                return unsupported(method);
+            }
+        });
+    }
+
+    private Object rowQuery(final String key) {
+        return proxy(com.netflix.astyanax.query.RowQuery.class, new Handler() {
+            Object call(Object self, String method, Object[] args) {
+                if (method.equals("withColumnRange"))
+                    return self;
+                if (method.equals("execute")) {
+                    final List<Object> columns = new ArrayList<Object>();
+                    for (Map.Entry<String, ByteBuffer> column : row(key).entrySet())
+                        columns.add(column(column.getKey(), column.getValue()));
+                    final Object columnList = proxy(com.netflix.astyanax.model.ColumnList.class, new Handler() {
+                        Object call(Object self, String method, Object[] args) {
+                            if (method.equals("iterator"))
+                                return columns.iterator();
+                            if (method.equals("size"))
+                                return columns.size();
+                            if (method.equals("isEmpty"))
+                                return columns.isEmpty();
+                            return unsupported(method);
+                        }
+                    });
+                    return proxy(com.netflix.astyanax.connectionpool.OperationResult.class, new Handler() {
+                        Object call(Object self, String method, Object[] args) {
+                            if (method.equals("getResult"))
+                                return columnList;
+                            return unsupported(method);
+                        }
+                    });
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    private Object column(final String name, final ByteBuffer value) {
+        return proxy(com.netflix.astyanax.model.Column.class, new Handler() {
+            Object call(Object self, String method, Object[] args) {
+                if (method.equals("getName"))
+                    return name;
+                if (method.equals("getStringValue"))
+                    return UTF_8.decode(value.duplicate()).toString();
+                if (method.equals("getLongValue"))
+                    return value.duplicate().getLong();
+                if (method.equals("getByteBufferValue"))
+                    return value.duplicate();
+                return unsupported(method);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, final Handler handler) {
+        return type.cast(Proxy.newProxyInstance(TestCassandraRegistrationLock.class.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+            public Object invoke(Object self, Method method, Object[] args) {
+                if (method.getName().equals("toString"))
+                    return "fake";
+                if (method.getName().equals("hashCode"))
+                    return System.identityHashCode(self);
+                if (method.getName().equals("equals"))
+                    return self == args[0];
+                return handler.call(self, method.getName(), args);
+            }
+        }));
+    }
+
+    private static abstract class Handler {
+        abstract Object call(Object self, String method, Object[] args);
+
+        Object unsupported(String method) {
+            throw new UnsupportedOperationException(method);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.netflix.raigad.identity;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestInMemoryRegistrationLock {
+    private static final String LOCK_KEY = "fake-app_us-east-1_i-1-lock";
+    private final InMemoryRegistrationLock lock = new InMemoryRegistrationLock(600);
+
+    @Test
+    public void testContention() {
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-1", 0L));
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-1", 1000L));
+        assertFalse(lock.tryAcquire(LOCK_KEY, "i-2", 1000L));
+
+        //Only the owner releases
+        lock.release(LOCK_KEY, "i-2");
+        assertFalse(lock.tryAcquire(LOCK_KEY, "i-2", 1000L));
+        lock.release(LOCK_KEY, "i-1");
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-2", 1000L));
+    }
+
+    @Test
+    public void testExpiredLockIsTaken() {
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-1", 0L));
+        assertFalse(lock.tryAcquire(LOCK_KEY, "i-2", 599 * 1000L));
+        assertTrue(lock.tryAcquire(LOCK_KEY, "i-2", 600 * 1000L));
+    }
+}
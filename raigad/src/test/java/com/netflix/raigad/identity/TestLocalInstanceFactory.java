@@ -0,0 +1,59 @@
+package com.netflix.raigad.identity;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestLocalInstanceFactory {
+    private static final String CLUSTER = "fake-app";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testInMemoryRegistry() {
+        FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, CLUSTER, "az1", "fakeInstance1");
+        verifyRegistry(new InMemoryInstanceFactory(config), new InMemoryInstanceFactory(config), false);
+    }
+
+    @Test
+    public void testFileRegistrySharedBetweenFactories() throws Exception {
+        final File registryFile = new File(folder.getRoot(), "instance_registry");
+        FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, CLUSTER, "az1", "fakeInstance1") {
+            @Override
+            public String getInstanceRegistryFilePath() {
+                return registryFile.getAbsolutePath();
+            }
+        };
+        verifyRegistry(new FileInstanceFactory(config), new FileInstanceFactory(config), true);
+    }
+
+    private static void verifyRegistry(IRaigadInstanceFactory registry, IRaigadInstanceFactory otherRegistry, boolean shared) {
+        registry.create(CLUSTER, "us-east-1.i-2", "i-2", "host2", "10.0.0.2", "us-east-1c", "us-east-1", "fake-app-asg", null);
+        registry.create(CLUSTER, "us-east-1.i-1", "i-1", "host1", "10.0.0.1", "us-east-1a", "us-east-1", "fake-app-asg", null);
+        RaigadInstance otherDc = registry.create(CLUSTER, "us-west-2.i-3", "i-3", "host3", "10.0.0.3", "us-west-2a", "us-west-2", "fake-app-asg", null);
+        registry.create("other-app", "us-east-1.i-4", "i-4", "host4", "10.0.0.4", "us-east-1a", "us-east-1", "other-app-asg", null);
+
+        //Single DC configuration lists instances of its own DC, ordered by zone
+        List<RaigadInstance> instances = registry.getAllIds(CLUSTER);
+        assertEquals(2, instances.size());
+        assertEquals("i-1", instances.get(0).getInstanceId());
+        assertNotNull(registry.getInstance(CLUSTER, "us-west-2", "i-3"));
+
+        assertEquals(shared ? 2 : 0, otherRegistry.getAllIds(CLUSTER).size());
+
+        registry.deleteAll(Arrays.asList(instances.get(0), otherDc));
+        assertEquals(1, registry.getAllIds(CLUSTER).size());
+        assertNull(registry.getInstance(CLUSTER, "us-west-2", "i-3"));
+        assertEquals(1, registry.getAllIds("other-app").size());
+    }
+}
@@ -0,0 +1,149 @@
+package com.netflix.raigad.identity;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestMembershipCache {
+    private static final String CLUSTER = "fake-app";
+    private final FakeConfiguration config = new FakeConfiguration(FakeConfiguration.FAKE_REGION, CLUSTER, "az1", "fakeInstance1");
+    private CountingInstanceFactory factory;
+    private MembershipCache cache;
+
+    @Before
+    public void setUp() {
+        factory = new CountingInstanceFactory();
+        factory.instances.add(instance("i-1"));
+        cache = new MembershipCache(config, factory);
+    }
+
+    @Test
+    public void testServedFromMemoryWithinTtl() {
+        assertEquals(1, cache.getInstances(CLUSTER, 0L).size());
+        factory.instances.add(instance("i-2"));
+        assertEquals(1, cache.getInstances(CLUSTER, 1000L).size());
+        assertEquals(1, factory.reads);
+
+        //Expired
+        assertEquals(2, cache.getInstances(CLUSTER, config.getMembershipCacheTtlInSeconds() * 1000L).size());
+        assertEquals(2, factory.reads);
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.getInstances(CLUSTER, 0L);
+        factory.instances.add(instance("i-2"));
+        cache.invalidate(CLUSTER);
+        assertEquals(2, cache.getInstances(CLUSTER, 1000L).size());
+    }
+
+    @Test
+    public void testRefreshStartedBeforeInvalidateDoesNotCancelIt() {
+        cache = new MembershipCache(config, factory) {
+            @Override
+            void submitRefresh(Runnable refresh) {
+                refresh.run();
+            }
+        };
+        cache.getInstances(CLUSTER, 0L);
+        long refreshAheadAge = config.getMembershipCacheTtlInSeconds() * 10L * config.getMembershipCacheRefreshAheadPercent();
+
+        //i-2 registers while the background refresh is reading the registry
+        factory.duringRead = new Runnable() {
+            @Override
+            public void run() {
+                factory.duringRead = null;
+                factory.instances.add(instance("i-2"));
+                cache.invalidate(CLUSTER);
+            }
+        };
+        assertEquals(1, cache.getInstances(CLUSTER, refreshAheadAge).size());
+        assertEquals(2, factory.reads);
+
+        assertEquals(2, cache.getInstances(CLUSTER, refreshAheadAge + 1).size());
+        assertEquals(3, factory.reads);
+    }
+
+    @Test
+    public void testStaleServedOnRegistryFailureAfterInvalidate() {
+        cache.getInstances(CLUSTER, 0L);
+        cache.invalidate(CLUSTER);
+        factory.failing = true;
+        assertEquals(1, cache.getInstances(CLUSTER, 1000L).size());
+    }
+
+    @Test
+    public void testStaleServedOnRegistryFailure() {
+        cache.getInstances(CLUSTER, 0L);
+        factory.failing = true;
+        assertEquals(1, cache.getInstances(CLUSTER, config.getMembershipCacheTtlInSeconds() * 1000L).size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testFailureBeyondMaxStale() {
+        cache.getInstances(CLUSTER, 0L);
+        factory.failing = true;
+        cache.getInstances(CLUSTER, config.getMembershipCacheMaxStaleInSeconds() * 1000L);
+    }
+
+    private static RaigadInstance instance(String instanceId) {
+        RaigadInstance instance = new RaigadInstance();
+        instance.setApp(CLUSTER);
+        instance.setInstanceId(instanceId);
+        return instance;
+    }
+
+    private static class CountingInstanceFactory implements IRaigadInstanceFactory {
+        private final List<RaigadInstance> instances = new ArrayList<RaigadInstance>();
+        private int reads;
+        private boolean failing;
+        private Runnable duringRead;
+
+        @Override
+        public List<RaigadInstance> getAllIds(String appName) {
+            if (failing)
+                throw new RuntimeException("Registry is not available");
+            reads++;
+            List<RaigadInstance> read = new ArrayList<RaigadInstance>(instances);
+            if (duringRead != null)
+                duringRead.run();
+            return read;
+        }
+
+        @Override
+        public RaigadInstance getInstance(String appName, String dc, String id) {
+            return null;
+        }
+
+        @Override
+        public RaigadInstance create(String app, String id, String instanceID, String hostname, String ip, String rac, String dc, String asgname, Map<String, Object> volumes) {
+            return null;
+        }
+
+        @Override
+        public void delete(RaigadInstance inst) {
+        }
+
+        @Override
+        public void deleteAll(List<RaigadInstance> instances) {
+        }
+
+        @Override
+        public void update(RaigadInstance inst) {
+        }
+
+        @Override
+        public void sort(List<RaigadInstance> return_) {
+        }
+
+        @Override
+        public void attachVolumes(RaigadInstance instance, String mountPath, String device) {
+        }
+    }
+}
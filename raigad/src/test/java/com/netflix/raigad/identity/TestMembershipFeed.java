@@ -0,0 +1,65 @@
+package com.netflix.raigad.identity;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestMembershipFeed {
+
+    @Test
+    public void testVersionMovesOnlyOnChange() throws Exception {
+        MembershipFeed feed = new MembershipFeed();
+        assertTrue(feed.update(Arrays.asList(instance("i-1"), instance("i-2"))));
+        long version = feed.awaitChange(-1, 0).getVersion();
+
+        //Same instances in another order
+        assertFalse(feed.update(Arrays.asList(instance("i-2"), instance("i-1"))));
+        assertEquals(version, feed.awaitChange(-1, 0).getVersion());
+
+        assertTrue(feed.update(Collections.singletonList(instance("i-1"))));
+        MembershipFeed.Snapshot snapshot = feed.awaitChange(version, 0);
+        assertEquals(version + 1, snapshot.getVersion());
+        assertEquals(1, snapshot.getInstances().size());
+    }
+
+    @Test
+    public void testAwaitChange() throws Exception {
+        final MembershipFeed feed = new MembershipFeed();
+        feed.update(Collections.singletonList(instance("i-1")));
+        final long version = feed.awaitChange(-1, 0).getVersion();
+
+        //Times out with the known version
+        assertEquals(version, feed.awaitChange(version, 50).getVersion());
+
+        Thread updater = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                feed.update(Arrays.asList(instance("i-1"), instance("i-2")));
+            }
+        };
+        updater.start();
+        long start = System.currentTimeMillis();
+        assertEquals(version + 1, feed.awaitChange(version, 10000).getVersion());
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        updater.join();
+    }
+
+    private static RaigadInstance instance(String instanceId) {
+        RaigadInstance instance = new RaigadInstance();
+        instance.setId("us-east-1." + instanceId);
+        instance.setInstanceId(instanceId);
+        instance.setHostIP("10.0.0." + instanceId.substring(2));
+        instance.setAvailabilityZone("us-east-1a");
+        return instance;
+    }
+}
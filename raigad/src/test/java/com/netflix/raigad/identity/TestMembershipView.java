@@ -0,0 +1,37 @@
+package com.netflix.raigad.identity;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestMembershipView {
+
+    @Test
+    public void testLookups() {
+        MembershipView view = new MembershipView(Arrays.asList(
+                instance("i-1", "us-east-1", "us-east-1a"),
+                instance("i-2", "us-east-1", "us-east-1c"),
+                instance("i-3", "us-west-2", "us-west-2a"),
+                instance("i-4", "us-east-1", "us-east-1a")));
+
+        assertEquals(4, view.getInstances().size());
+        assertEquals("us-west-2a", view.getInstance("i-3").getAvailabilityZone());
+        assertNull(view.getInstance("i-5"));
+        assertEquals(3, view.getInstancesInDc("us-east-1").size());
+        assertEquals(2, view.getInstancesInZone("us-east-1a").size());
+        assertEquals("i-4", view.getInstancesInZone("us-east-1a").get(1).getInstanceId());
+        assertTrue(view.getInstancesInZone("eu-west-1a").isEmpty());
+    }
+
+    private static RaigadInstance instance(String instanceId, String dc, String availabilityZone) {
+        RaigadInstance instance = new RaigadInstance();
+        instance.setInstanceId(instanceId);
+        instance.setDC(dc);
+        instance.setAvailabilityZone(availabilityZone);
+        return instance;
+    }
+}
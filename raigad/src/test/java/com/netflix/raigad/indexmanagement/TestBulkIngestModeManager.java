@@ -0,0 +1,168 @@
+package com.netflix.raigad.indexmanagement;
+
+import com.netflix.raigad.configuration.FakeConfiguration;
+import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestBulkIngestModeManager {
+
+    @Test
+    public void testNewMasterRevertsFromStoredSession() throws Exception {
+        InMemorySessionStore store = new InMemorySessionStore();
+        Map<String, Settings> indexSettings = new HashMap<String, Settings>();
+        indexSettings.put("orders", ImmutableSettings.settingsBuilder()
+                .put(BulkIngestModeManager.REFRESH_INTERVAL_SETTING, "5s")
+                .put(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING, "2").build());
+
+        FakeBulkIngestModeManager previousMaster = FakeBulkIngestModeManager.create(store, indexSettings, true);
+        assertEquals(Arrays.asList("orders"), previousMaster.startIngestMode("orders", 1, true));
+        assertEquals("0", indexSettings.get("orders").get(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING));
+
+        //Session outlives the node which started it and expires before anyone stops it
+        store.sessions.get("orders").put("expiry_time", System.currentTimeMillis() - 1);
+
+        FakeBulkIngestModeManager newMaster = FakeBulkIngestModeManager.create(store, indexSettings, true);
+        ElasticsearchProcessMonitor.setElasticsearchStarted();
+        newMaster.execute();
+
+        assertEquals("5s", indexSettings.get("orders").get(BulkIngestModeManager.REFRESH_INTERVAL_SETTING));
+        assertEquals("2", indexSettings.get("orders").get(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING));
+        assertTrue(store.sessions.isEmpty());
+    }
+
+    @Test
+    public void testStopOnAnotherNodeInstance() throws Exception {
+        InMemorySessionStore store = new InMemorySessionStore();
+        Map<String, Settings> indexSettings = new HashMap<String, Settings>();
+        indexSettings.put("orders", ImmutableSettings.settingsBuilder()
+                .put(BulkIngestModeManager.REFRESH_INTERVAL_SETTING, "1s")
+                .put(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING, "1").build());
+
+        FakeBulkIngestModeManager.create(store, indexSettings, true).startIngestMode("orders", 60, true);
+        assertEquals(Arrays.asList("orders"), FakeBulkIngestModeManager.create(store, indexSettings, true).stopIngestMode(null));
+        assertEquals("1", indexSettings.get("orders").get(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING));
+        assertTrue(store.sessions.isEmpty());
+    }
+
+    @Test
+    public void testStartAndStopRejectedOnNonMaster() throws Exception {
+        InMemorySessionStore store = new InMemorySessionStore();
+        Map<String, Settings> indexSettings = new HashMap<String, Settings>();
+        indexSettings.put("orders", ImmutableSettings.settingsBuilder().put(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING, "1").build());
+        FakeBulkIngestModeManager nonMaster = FakeBulkIngestModeManager.create(store, indexSettings, false);
+
+        try {
+            nonMaster.startIngestMode("orders", 60, true);
+            fail("Start must be rejected on a non Master Node");
+        }
+        catch (IllegalStateException expected) {
+        }
+        try {
+            nonMaster.stopIngestMode("orders");
+            fail("Stop must be rejected on a non Master Node");
+        }
+        catch (IllegalStateException expected) {
+        }
+        assertTrue(store.sessions.isEmpty());
+        assertEquals("1", indexSettings.get("orders").get(BulkIngestModeManager.NUMBER_OF_REPLICAS_SETTING));
+    }
+
+    @Test
+    public void testSessionSourceRoundTrip() {
+        BulkIngestModeManager.IngestSession session = new BulkIngestModeManager.IngestSession("orders", true, 10, 20, "1s", null, "512mb", null);
+        BulkIngestModeManager.IngestSession copy = BulkIngestModeManager.IngestSession.fromSource(session.toSource());
+        assertEquals("orders", copy.getIndexName());
+        assertTrue(copy.isManual());
+        assertEquals(10, copy.getStartTime());
+        assertEquals(20, copy.getExpiryTime());
+        assertEquals("1s", copy.getRefreshInterval());
+        assertNull(copy.getNumberOfReplicas());
+        assertEquals("512mb", copy.toSource().get("translog_flush_threshold_size"));
+    }
+
+    private static class InMemorySessionStore extends BulkIngestSessionStore {
+        private final Map<String, Map<String, Object>> sessions = new LinkedHashMap<String, Map<String, Object>>();
+
+        @Override
+        public Map<String, BulkIngestModeManager.IngestSession> load(Client esTransportClient) {
+            Map<String, BulkIngestModeManager.IngestSession> loaded = new LinkedHashMap<String, BulkIngestModeManager.IngestSession>();
+            for (Map.Entry<String, Map<String, Object>> entry : sessions.entrySet())
+                loaded.put(entry.getKey(), BulkIngestModeManager.IngestSession.fromSource(entry.getValue()));
+            return loaded;
+        }
+
+        @Override
+        public void save(Client esTransportClient, BulkIngestModeManager.IngestSession session) {
+            sessions.put(session.getIndexName(), session.toSource());
+        }
+
+        @Override
+        public void remove(Client esTransportClient, String indexName) {
+            sessions.remove(indexName);
+        }
+    }
+
+    private static class FakeBulkIngestModeManager extends BulkIngestModeManager {
+        private final Map<String, Settings> indexSettings;
+        private final boolean master;
+
+        //Every instance is a Task registered under its class name, as if it ran on its own node
+        static FakeBulkIngestModeManager create(BulkIngestSessionStore store, Map<String, Settings> indexSettings, boolean master) throws Exception {
+            ObjectName mbeanName = new ObjectName("com.netflix.raigad.scheduler:type=" + FakeBulkIngestModeManager.class.getName());
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(mbeanName))
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            return new FakeBulkIngestModeManager(store, indexSettings, master);
+        }
+
+        FakeBulkIngestModeManager(BulkIngestSessionStore store, Map<String, Settings> indexSettings, boolean master) {
+            super(new FakeConfiguration(FakeConfiguration.FAKE_REGION, "test", "az1", "fakeInstance1"), null, store);
+            this.indexSettings = indexSettings;
+            this.master = master;
+        }
+
+        @Override
+        boolean isMasterNode() {
+            return master;
+        }
+
+        @Override
+        Client getTransportClient() {
+            return null;
+        }
+
+        @Override
+        Map<String, Settings> getIndexSettings(Client esTransportClient, String[] indices) {
+            Map<String, Settings> matched = new LinkedHashMap<String, Settings>();
+            for (String index : indices) {
+                if (indexSettings.containsKey(index))
+                    matched.put(index, indexSettings.get(index));
+            }
+            return matched;
+        }
+
+        @Override
+        void refreshIndex(Client esTransportClient, String indexName) {
+        }
+
+        @Override
+        public boolean updateIndexSettings(Client esTransportClient, String indexName, Settings settings) {
+            indexSettings.put(indexName, ImmutableSettings.settingsBuilder().put(indexSettings.get(indexName)).put(settings).build());
+            return true;
+        }
+    }
+}
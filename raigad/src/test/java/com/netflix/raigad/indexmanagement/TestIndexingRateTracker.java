@@ -0,0 +1,46 @@
+package com.netflix.raigad.indexmanagement;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestIndexingRateTracker {
+    @Test
+    public void testFirstSampleHasNoRate() {
+        IndexingRateTracker tracker = new IndexingRateTracker();
+        assertEquals(IndexingRateTracker.NO_RATE, tracker.record("index1", 1000, 0));
+    }
+
+    @Test
+    public void testRateBetweenSamples() {
+        IndexingRateTracker tracker = new IndexingRateTracker();
+        tracker.record("index1", 1000, 0);
+        assertEquals(500, tracker.record("index1", 31000, 60000));
+        assertEquals(0, tracker.record("index1", 31000, 120000));
+    }
+
+    @Test
+    public void testIndicesAreTrackedSeparately() {
+        IndexingRateTracker tracker = new IndexingRateTracker();
+        tracker.record("index1", 0, 0);
+        tracker.record("index2", 0, 0);
+        assertEquals(100, tracker.record("index1", 1000, 10000));
+        assertEquals(20000, tracker.record("index2", 200000, 10000));
+    }
+
+    @Test
+    public void testCounterResetHasNoRate() {
+        IndexingRateTracker tracker = new IndexingRateTracker();
+        tracker.record("index1", 50000, 0);
+        assertEquals(IndexingRateTracker.NO_RATE, tracker.record("index1", 100, 10000));
+        assertEquals(10, tracker.record("index1", 200, 20000));
+    }
+
+    @Test
+    public void testForget() {
+        IndexingRateTracker tracker = new IndexingRateTracker();
+        tracker.record("index1", 0, 0);
+        tracker.forget("index1");
+        assertEquals(IndexingRateTracker.NO_RATE, tracker.record("index1", 1000, 10000));
+    }
+}
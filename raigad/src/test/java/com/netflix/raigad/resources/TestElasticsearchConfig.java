@@ -1,6 +1,7 @@
 package com.netflix.raigad.resources;
 
 import com.google.common.collect.ImmutableList;
+import com.netflix.raigad.identity.MembershipFeed;
 import com.netflix.raigad.identity.RaigadInstance;
 import com.netflix.raigad.startup.RaigadServer;
 import com.netflix.raigad.identity.InstanceManager;
@@ -28,7 +29,7 @@ public class TestElasticsearchConfig
 
     @Before
     public void setUp() {
-        resource = new ElasticsearchConfig(raigadServer);
+        resource = new ElasticsearchConfig(raigadServer, new MembershipFeed(), new NodesDocumentCache());
     }
 
     @Test
@@ -51,7 +52,7 @@ public class TestElasticsearchConfig
             }
         };
 
-        Response response = resource.getNodes();
+        Response response = resource.getNodes(null, null);
         assertEquals(200, response.getStatus());
     }
 
@@ -71,7 +72,7 @@ public class TestElasticsearchConfig
             }
         };
 
-        Response response = resource.getNodes();
+        Response response = resource.getNodes(null, null);
         assertEquals(500, response.getStatus());
     }
 
@@ -88,7 +89,7 @@ public class TestElasticsearchConfig
             }
         };
 
-        Response response = resource.getNodes();
+        Response response = resource.getNodes(null, null);
         assertEquals(500, response.getStatus());
     }
 }
\ No newline at end of file
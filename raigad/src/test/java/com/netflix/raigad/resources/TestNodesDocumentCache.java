@@ -0,0 +1,70 @@
+package com.netflix.raigad.resources;
+
+import com.netflix.raigad.identity.RaigadInstance;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TestNodesDocumentCache {
+
+    @Test
+    public void testDocumentReusedUntilMembershipChanges() throws Exception {
+        NodesDocumentCache cache = new NodesDocumentCache();
+        List<RaigadInstance> instances = new ArrayList<RaigadInstance>();
+        instances.add(instance("i-1", "10.0.0.1", 1L));
+
+        NodesDocumentCache.Document document = cache.get(instances, NodesDocumentCache.Format.keyed);
+        assertSame(document, cache.get(instances, NodesDocumentCache.Format.keyed));
+
+        instances.add(instance("i-2", "10.0.0.2", 1L));
+        NodesDocumentCache.Document changed = cache.get(instances, NodesDocumentCache.Format.keyed);
+        assertNotSame(document, changed);
+        assertEquals(false, document.getETag().equals(changed.getETag()));
+    }
+
+    @Test
+    public void testCompactFormat() throws Exception {
+        NodesDocumentCache cache = new NodesDocumentCache();
+        List<RaigadInstance> instances = new ArrayList<RaigadInstance>();
+        instances.add(instance("i-1", "10.0.0.1", 1L));
+        instances.add(instance("i-2", "10.0.0.2", 1L));
+
+        NodesDocumentCache.Document compact = cache.get(instances, NodesDocumentCache.Format.compact);
+        assertEquals(false, compact.getETag().equals(cache.get(instances, NodesDocumentCache.Format.keyed).getETag()));
+
+        JSONObject json = (JSONObject) new JSONParser().parse(new String(compact.getBody(), "UTF-8"));
+        JSONArray fields = (JSONArray) json.get("fields");
+        JSONArray nodes = (JSONArray) json.get("nodes");
+        assertEquals(2, nodes.size());
+        assertEquals("10.0.0.2", ((JSONArray) nodes.get(1)).get(fields.indexOf("public_ip")));
+        assertEquals(NodesDocumentCache.Format.compact, NodesDocumentCache.Format.fromAccept(NodesDocumentCache.COMPACT_MEDIA_TYPE + ", text/plain;q=0.5"));
+        assertEquals(NodesDocumentCache.Format.keyed, NodesDocumentCache.Format.fromAccept("*/*"));
+    }
+
+    @Test
+    public void testETagIgnoresUpdateTime() throws Exception {
+        List<RaigadInstance> before = new ArrayList<RaigadInstance>();
+        before.add(instance("i-1", "10.0.0.1", 1L));
+        List<RaigadInstance> after = new ArrayList<RaigadInstance>();
+        after.add(instance("i-1", "10.0.0.1", 2L));
+        assertEquals(NodesDocumentCache.getETag(before), NodesDocumentCache.getETag(after));
+    }
+
+    private static RaigadInstance instance(String instanceId, String ip, long updateTime) {
+        RaigadInstance instance = new RaigadInstance();
+        instance.setApp("fake-app");
+        instance.setInstanceId(instanceId);
+        instance.setId("us-east-1." + instanceId);
+        instance.setHostIP(ip);
+        instance.setUpdatetime(updateTime);
+        return instance;
+    }
+}